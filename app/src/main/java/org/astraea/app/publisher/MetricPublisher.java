@@ -22,6 +22,7 @@ import java.util.Map;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 import org.astraea.app.argument.DurationField;
+import org.astraea.app.argument.PositiveIntegerField;
 import org.astraea.app.argument.StringMapField;
 import org.astraea.common.Utils;
 import org.astraea.common.admin.Admin;
@@ -44,7 +45,10 @@ public class MetricPublisher {
   // Valid for testing
   static void execute(Arguments arguments) {
     var admin = Admin.of(arguments.bootstrapServers());
-    var topicSender = MetricFetcher.Sender.topic(arguments.bootstrapServers());
+    var topicSender =
+        arguments.keyframeInterval == null
+            ? MetricFetcher.Sender.topic(arguments.bootstrapServers(), arguments.batch)
+            : MetricFetcher.Sender.delta(arguments.bootstrapServers(), arguments.keyframeInterval);
     try (var metricFetcher =
         MetricFetcher.builder()
             .clientSupplier(
@@ -98,6 +102,24 @@ public class MetricPublisher {
         converter = DurationField.class)
     public Duration period = Duration.ofSeconds(10);
 
+    @Parameter(
+        names = {"--keyframeInterval"},
+        description =
+            "Integer: Publish the metrics in delta mode, and this is the number of periods between"
+                + " keyframes. The periods between keyframes publish the changed metrics only."
+                + " The receiver must support delta mode. Default: disabled",
+        validateWith = PositiveIntegerField.class)
+    public Integer keyframeInterval = null;
+
+    @Parameter(
+        names = {"--batch"},
+        description =
+            "Publish the metrics of each broker as batches rather than a record per metric. The"
+                + " receiver must read the batches, which is supported by the receiver of 0.3.0"
+                + " or later. The delta mode (see \"--keyframeInterval\") always publishes batches."
+                + " Default: disabled")
+    public boolean batch = false;
+
     @Parameter(
         names = {"--ttl"},
         description = "Duration: Time to live. Default: about 10^10 days.",
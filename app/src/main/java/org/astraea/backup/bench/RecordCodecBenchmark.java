@@ -0,0 +1,140 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.astraea.backup.bench;
+
+import com.sun.management.ThreadMXBean;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.ToLongFunction;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.astraea.common.Header;
+import org.astraea.common.backup.RecordReader;
+import org.astraea.common.backup.RecordWriter;
+import org.astraea.common.consumer.Record;
+
+/**
+ * Measure the throughput and the allocation of writing and reading backup files. The "read" mode
+ * accesses the key, value and headers of each record, and the "scan" mode accesses the offset only,
+ * which is the case of the records filtered by the reader.
+ */
+public final class RecordCodecBenchmark {
+
+  private record Sample(
+      String topic,
+      int partition,
+      long offset,
+      long timestamp,
+      byte[] key,
+      byte[] value,
+      List<Header> headers)
+      implements Record<byte[], byte[]> {
+
+    @Override
+    public int serializedKeySize() {
+      return key.length;
+    }
+
+    @Override
+    public int serializedValueSize() {
+      return value.length;
+    }
+
+    @Override
+    public Optional<Integer> leaderEpoch() {
+      return Optional.empty();
+    }
+  }
+
+  public static void main(String[] args) {
+    var records = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+    var valueSize = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+    var samples =
+        IntStream.range(0, 1000)
+            .mapToObj(
+                i ->
+                    (Record<byte[], byte[]>)
+                        new Sample(
+                            "topic",
+                            i % 10,
+                            i,
+                            System.currentTimeMillis() + i,
+                            String.valueOf(i).getBytes(),
+                            new byte[valueSize],
+                            List.of(Header.of("header", new byte[8]))))
+            .collect(Collectors.toUnmodifiableList());
+
+    System.out.printf("%12s %8s %14s %16s%n", "codec", "mode", "records/s", "bytes/record");
+    for (var codec : List.of("none", "lz4", "zstd")) {
+      print(
+          codec,
+          "write",
+          records,
+          () -> {
+            try (var writer =
+                RecordWriter.builder(OutputStream.nullOutputStream()).codec(codec).build()) {
+              for (var i = 0; i < records; i++) writer.append(samples.get(i % samples.size()));
+              return writer.count();
+            }
+          });
+
+      var output = new ByteArrayOutputStream();
+      try (var writer = RecordWriter.builder(output).codec(codec).build()) {
+        for (var i = 0; i < records; i++) writer.append(samples.get(i % samples.size()));
+      }
+      var bytes = output.toByteArray();
+      print(
+          codec,
+          "read",
+          records,
+          () -> read(bytes, r -> r.key().length + r.value().length + r.headers().size()));
+      print(codec, "scan", records, () -> read(bytes, Record::offset));
+    }
+  }
+
+  private static long read(byte[] bytes, ToLongFunction<Record<byte[], byte[]>> access) {
+    var sum = 0L;
+    try (var reader = RecordReader.builder(new ByteArrayInputStream(bytes)).build()) {
+      while (reader.hasNext()) sum += access.applyAsLong(reader.next());
+    }
+    return sum;
+  }
+
+  private interface Task {
+    long run();
+  }
+
+  private static void print(String codec, String mode, int records, Task task) {
+    var bean = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+    var thread = Thread.currentThread().getId();
+    // warm up
+    var sum = task.run();
+    var bytes = bean.getThreadAllocatedBytes(thread);
+    var start = System.nanoTime();
+    sum += task.run();
+    var seconds = (System.nanoTime() - start) / 1_000_000_000D;
+    var allocated = (double) (bean.getThreadAllocatedBytes(thread) - bytes) / records;
+    System.out.printf(
+        "%12s %8s %14.0f %16.1f (checksum %d)%n", codec, mode, records / seconds, allocated, sum);
+  }
+
+  private RecordCodecBenchmark() {}
+}
@@ -121,5 +121,20 @@ public final class BalancerBenchmark {
     LongSummaryStatistics clusterCostProcessingTimeNs();
 
     LongSummaryStatistics moveCostProcessingTimeNs();
+
+    /**
+     * @return the number of candidates evaluated by the balancer. It is read from the "Candidate"
+     *     attribute of the balancer, so it is zero if the balancer doesn't expose it
+     */
+    long candidates();
+
+    /**
+     * @return the number of candidates whose cluster cost get evaluated per second
+     */
+    default double candidatesPerSecond() {
+      var seconds = executionTime().toNanos() / 1e9;
+      if (seconds <= 0) return 0;
+      return candidates() / seconds;
+    }
   }
 }
@@ -0,0 +1,97 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.astraea.balancer.bench;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.astraea.common.admin.ClusterInfo;
+import org.astraea.common.balancer.AlgorithmConfig;
+import org.astraea.common.balancer.Balancer;
+import org.astraea.common.cost.ClusterCost;
+import org.astraea.common.cost.HasClusterCost;
+import org.astraea.common.cost.ReplicaLeaderCost;
+import org.astraea.common.cost.ReplicaNumberCost;
+import org.astraea.common.metrics.ClusterBean;
+
+/**
+ * Run {@link BalancerBenchmark#experiment()} against the official balancers with the same
+ * generated clusters and timeout. The generated clusters are skewed: most topics are created before
+ * the latter half of the brokers join the cluster, so the new brokers host only a few replicas.
+ */
+public final class BalancerComparison {
+
+  public static void main(String[] args) {
+    var timeout = Duration.ofSeconds(args.length > 0 ? Integer.parseInt(args[0]) : 3);
+    var trials = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+    var cost =
+        HasClusterCost.of(Map.of(new ReplicaNumberCost(), 1.0, new ReplicaLeaderCost(), 1.0));
+    System.out.printf(
+        "%8s %10s %12s %10s %10s %10s %10s%n",
+        "brokers", "partitions", "balancer", "initial", "mean", "best", "plans");
+    for (var brokers : List.of(6, 12, 24)) {
+      for (var partitions : List.of(500, 2000)) {
+        var clusterInfo = skewedCluster(brokers, partitions);
+        for (var balancer : List.of(Balancer.Official.Greedy, Balancer.Official.Annealing)) {
+          var result =
+              BalancerBenchmark.experiment()
+                  .setBalancer(balancer.create())
+                  .setClusterInfo(clusterInfo)
+                  .setClusterBean(ClusterBean.EMPTY)
+                  .setExecutionTimeout(timeout)
+                  .setAlgorithmConfig(
+                      AlgorithmConfig.builder().clusterInfo(clusterInfo).clusterCost(cost).build())
+                  .setExperimentTrials(trials)
+                  .start()
+                  .join();
+          System.out.printf(
+              "%8d %10d %12s %10.5f %10.5f %10.5f %10d%n",
+              brokers,
+              partitions,
+              balancer.alias(),
+              result.initial().value(),
+              result.mean().orElse(Double.NaN),
+              result.bestCost().map(ClusterCost::value).orElse(Double.NaN),
+              result.costs().size());
+        }
+      }
+    }
+  }
+
+  /**
+   * @param brokers number of brokers
+   * @param partitions number of partitions. The partitions are spread over 10 topics
+   * @return a cluster whose first half of brokers hosts 90% of the partitions
+   */
+  public static ClusterInfo skewedCluster(int brokers, int partitions) {
+    Function<Set<Integer>, Map<Integer, Set<String>>> folders =
+        ids ->
+            ids.stream()
+                .collect(Collectors.toMap(id -> id, ignored -> Set.of("/ssd1", "/ssd2", "/ssd3")));
+    var old = IntStream.range(0, brokers / 2).boxed().collect(Collectors.toSet());
+    var joined = IntStream.range(brokers / 2, brokers).boxed().collect(Collectors.toSet());
+    var builder = ClusterInfo.builder().addNode(old).addFolders(folders.apply(old));
+    for (var i = 0; i < 9; i++) builder.addTopic("old-" + i, partitions / 10, (short) 2);
+    builder.addNode(joined).addFolders(folders.apply(joined));
+    builder.addTopic("new", partitions - partitions / 10 * 9, (short) 2);
+    return builder.build();
+  }
+}
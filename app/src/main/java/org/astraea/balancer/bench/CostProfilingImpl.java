@@ -21,16 +21,24 @@ import java.util.Collections;
 import java.util.LongSummaryStatistics;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.ToDoubleFunction;
 import org.astraea.common.admin.ClusterInfo;
+import org.astraea.common.admin.CompactAllocation;
+import org.astraea.common.admin.Replica;
+import org.astraea.common.admin.TopicPartition;
 import org.astraea.common.balancer.AlgorithmConfig;
 import org.astraea.common.balancer.Balancer;
 import org.astraea.common.cost.ClusterCost;
 import org.astraea.common.cost.HasClusterCost;
 import org.astraea.common.cost.HasMoveCost;
 import org.astraea.common.cost.MoveCost;
+import org.astraea.common.metrics.BeanQuery;
 import org.astraea.common.metrics.ClusterBean;
+import org.astraea.common.metrics.JndiClient;
 import org.astraea.common.metrics.collector.MetricSensor;
 
 class CostProfilingImpl implements BalancerBenchmark.CostProfilingBuilder {
@@ -79,23 +87,70 @@ class CostProfilingImpl implements BalancerBenchmark.CostProfilingBuilder {
     final var moveCostFunction = config.moveCostFunction();
     final var moveCostTimeSeries = new ConcurrentHashMap<Long, MoveCost>();
     final var moveCostProcessingTimeNs = new LongSummaryStatistics();
+    // the balancer exposes its counters by this id, so it must not be shared with other runs
+    final var executionId = "CostProfiling-" + UUID.randomUUID();
     final var newConfig =
         AlgorithmConfig.builder(config)
             .clusterInfo(clusterInfo)
             .clusterBean(clusterBean)
             .timeout(timeout)
+            .executionId(executionId)
             .clusterCost(
                 new HasClusterCost() {
+                  private void profile(long start, ClusterCost clusterCost) {
+                    final var stop = System.nanoTime();
+                    costTimeSeries.put(stop, clusterCost);
+                    // the balancer might evaluate the cost concurrently
+                    synchronized (clusterCostProcessingTimeNs) {
+                      clusterCostProcessingTimeNs.accept((stop - start));
+                    }
+                  }
+
                   @Override
                   public ClusterCost clusterCost(ClusterInfo clusterInfo, ClusterBean clusterBean) {
                     final var start = System.nanoTime();
                     final var clusterCost = costFunction.clusterCost(clusterInfo, clusterBean);
-                    final var stop = System.nanoTime();
-                    costTimeSeries.put(stop, clusterCost);
-                    clusterCostProcessingTimeNs.accept((stop - start));
+                    profile(start, clusterCost);
                     return clusterCost;
                   }
 
+                  @Override
+                  public State state(ClusterInfo clusterInfo, ClusterBean clusterBean) {
+                    final var start = System.nanoTime();
+                    final var state = costFunction.state(clusterInfo, clusterBean);
+                    profile(start, state.cost());
+                    return state;
+                  }
+
+                  @Override
+                  public State delta(
+                      ClusterInfo base,
+                      State baseState,
+                      ClusterInfo after,
+                      Set<TopicPartition> changedPartitions,
+                      ClusterBean clusterBean) {
+                    final var start = System.nanoTime();
+                    final var state =
+                        costFunction.delta(base, baseState, after, changedPartitions, clusterBean);
+                    profile(start, state.cost());
+                    return state;
+                  }
+
+                  @Override
+                  public double compactCost(CompactAllocation allocation, ClusterBean clusterBean) {
+                    final var start = System.nanoTime();
+                    final var value = costFunction.compactCost(allocation, clusterBean);
+                    // NaN means the compact allocation is unsupported, so nothing is evaluated
+                    if (!Double.isNaN(value)) profile(start, () -> value);
+                    return value;
+                  }
+
+                  @Override
+                  public Optional<ToDoubleFunction<Replica>> replicaLoad(
+                      ClusterInfo clusterInfo, ClusterBean clusterBean) {
+                    return costFunction.replicaLoad(clusterInfo, clusterBean);
+                  }
+
                   @Override
                   public Optional<MetricSensor> metricSensor() {
                     return costFunction.metricSensor();
@@ -115,7 +170,9 @@ class CostProfilingImpl implements BalancerBenchmark.CostProfilingBuilder {
                     final var moveCost = moveCostFunction.moveCost(before, after, clusterBean);
                     final var stop = System.nanoTime();
                     moveCostTimeSeries.put(stop, moveCost);
-                    moveCostProcessingTimeNs.accept((stop - start));
+                    synchronized (moveCostProcessingTimeNs) {
+                      moveCostProcessingTimeNs.accept((stop - start));
+                    }
                     return moveCost;
                   }
 
@@ -137,6 +194,22 @@ class CostProfilingImpl implements BalancerBenchmark.CostProfilingBuilder {
           var executionStart = System.nanoTime();
           var plan = balancer.offer(newConfig);
           var executionStop = System.nanoTime();
+          long candidates;
+          try (var client = JndiClient.local()) {
+            candidates =
+                client
+                    .beans(
+                        BeanQuery.builder()
+                            .domainName("astraea.balancer")
+                            .property("id", executionId)
+                            .propertyListPattern(true)
+                            .build())
+                    .stream()
+                    .map(bean -> bean.attributes().get("Candidate"))
+                    .filter(value -> value instanceof Long)
+                    .mapToLong(value -> (Long) value)
+                    .sum();
+          }
 
           return new BalancerBenchmark.CostProfilingResult() {
 
@@ -182,6 +255,11 @@ class CostProfilingImpl implements BalancerBenchmark.CostProfilingBuilder {
                   moveCostProcessingTimeNs.getMax(),
                   moveCostProcessingTimeNs.getSum());
             }
+
+            @Override
+            public long candidates() {
+              return candidates;
+            }
           };
         });
   }
@@ -0,0 +1,96 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.astraea.balancer.bench;
+
+import com.sun.management.ThreadMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.function.IntUnaryOperator;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.astraea.common.Configuration;
+import org.astraea.common.admin.BrokerTopic;
+import org.astraea.common.admin.ClusterInfo;
+import org.astraea.common.admin.NodeInfo;
+import org.astraea.common.admin.Replica;
+import org.astraea.common.partitioner.StrictCostPartitioner;
+
+/**
+ * Compare the cost of choosing the partition of a record. The "legacy" way queries the cluster info
+ * for each record, and the "table" way calls {@link StrictCostPartitioner}, which reads the routing
+ * table. The cpu usage is estimated for a producer sending 1M records per second.
+ */
+public final class RoutingTableBenchmark {
+
+  public static void main(String[] args) {
+    var brokers = args.length > 0 ? Integer.parseInt(args[0]) : 10;
+    var partitions = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+    var records = args.length > 2 ? Integer.parseInt(args[2]) : 10_000_000;
+    var nodes =
+        IntStream.range(0, brokers)
+            .mapToObj(id -> NodeInfo.of(id, "host", 11111))
+            .collect(Collectors.toUnmodifiableList());
+    var replicas = new ArrayList<Replica>();
+    for (var p = 0; p < partitions; p++)
+      replicas.add(
+          Replica.builder()
+              .topic("topic")
+              .partition(p)
+              .path("/tmp/aa")
+              .nodeInfo(nodes.get(p % brokers))
+              .buildLeader());
+    var clusterInfo = ClusterInfo.of("fake", nodes, Map.of(), replicas);
+
+    try (var partitioner = new StrictCostPartitioner()) {
+      // the weights are not refreshed during the benchmark
+      partitioner.configure(Configuration.of(Map.of("round.robin.lease", "1h")));
+      System.out.printf(
+          "%10s %12s %16s %18s%n", "mode", "ns/record", "bytes/record", "cpu at 1M/s");
+      print("legacy", records, i -> legacy(clusterInfo, i % (brokers + 1) - 1));
+      print("table", records, i -> partitioner.partition("topic", null, null, clusterInfo));
+    }
+  }
+
+  /**
+   * @param target the target broker. Negative value means there is no target
+   */
+  private static int legacy(ClusterInfo clusterInfo, int target) {
+    var partitionLeaders = clusterInfo.replicaLeaders("topic");
+    var candidate =
+        target < 0 ? partitionLeaders : clusterInfo.replicaLeaders(BrokerTopic.of(target, "topic"));
+    candidate = candidate.isEmpty() ? partitionLeaders : candidate;
+    return candidate.get((int) (Math.random() * candidate.size())).partition();
+  }
+
+  private static void print(String mode, int records, IntUnaryOperator partitioner) {
+    var bean = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+    var thread = Thread.currentThread().getId();
+    var sum = 0L;
+    // warm up
+    for (var i = 0; i < records; i++) sum += partitioner.applyAsInt(i);
+    var bytes = bean.getThreadAllocatedBytes(thread);
+    var start = System.nanoTime();
+    for (var i = 0; i < records; i++) sum += partitioner.applyAsInt(i);
+    var ns = (double) (System.nanoTime() - start) / records;
+    var allocated = (double) (bean.getThreadAllocatedBytes(thread) - bytes) / records;
+    System.out.printf(
+        "%10s %12.1f %16.1f %17.1f%% (checksum %d)%n", mode, ns, allocated, ns / 10, sum);
+  }
+
+  private RoutingTableBenchmark() {}
+}
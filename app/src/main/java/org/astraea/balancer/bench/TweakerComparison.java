@@ -0,0 +1,105 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.astraea.balancer.bench;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import org.astraea.common.balancer.AlgorithmConfig;
+import org.astraea.common.balancer.algorithms.GreedyBalancer;
+import org.astraea.common.cost.ClusterCost;
+import org.astraea.common.cost.HasClusterCost;
+import org.astraea.common.cost.ReplicaLeaderCost;
+import org.astraea.common.cost.ReplicaNumberCost;
+import org.astraea.common.metrics.ClusterBean;
+
+/**
+ * Profile {@link GreedyBalancer} with the shuffle tweaker and the guided tweaker on the same skewed
+ * clusters. The accepted candidates are the ones improving the best cost, since greedy balancer
+ * accepts the improving candidates only.
+ */
+public final class TweakerComparison {
+
+  public static void main(String[] args) {
+    var timeout = Duration.ofSeconds(args.length > 0 ? Integer.parseInt(args[0]) : 3);
+    var cost =
+        HasClusterCost.of(Map.of(new ReplicaNumberCost(), 1.0, new ReplicaLeaderCost(), 1.0));
+    System.out.printf(
+        "%8s %10s %8s %12s %12s %10s %10s %10s%n",
+        "brokers",
+        "partitions",
+        "tweaker",
+        "candidates",
+        "candidates/s",
+        "accepted",
+        "ratio",
+        "cost");
+    for (var brokers : List.of(6, 12, 24)) {
+      for (var partitions : List.of(500, 2000)) {
+        var clusterInfo = BalancerComparison.skewedCluster(brokers, partitions);
+        for (var tweaker : List.of("shuffle", "guided")) {
+          var result =
+              BalancerBenchmark.costProfiling()
+                  .setBalancer(new GreedyBalancer())
+                  .setClusterInfo(clusterInfo)
+                  .setClusterBean(ClusterBean.EMPTY)
+                  .setExecutionTimeout(timeout)
+                  .setAlgorithmConfig(
+                      AlgorithmConfig.builder()
+                          .clusterInfo(clusterInfo)
+                          .clusterCost(cost)
+                          .config(GreedyBalancer.TWEAKER_CONFIG, tweaker)
+                          .build())
+                  .start()
+                  .join();
+          var candidates = result.candidates();
+          var accepted = accepted(result.costTimeSeries());
+          System.out.printf(
+              "%8d %10d %8s %12d %12.1f %10d %10.4f %10.5f%n",
+              brokers,
+              partitions,
+              tweaker,
+              candidates,
+              result.candidatesPerSecond(),
+              accepted,
+              candidates == 0 ? 0 : (double) accepted / candidates,
+              result.plan().map(p -> p.proposalClusterCost().value()).orElse(Double.NaN));
+        }
+      }
+    }
+  }
+
+  /**
+   * @return the number of costs which are lower than all previous costs. The first cost is the
+   *     initial allocation, so it is not counted
+   */
+  private static long accepted(Map<Long, ClusterCost> costTimeSeries) {
+    var min = Double.MAX_VALUE;
+    var count = 0L;
+    for (var cost :
+        costTimeSeries.entrySet().stream()
+            .sorted(Map.Entry.comparingByKey())
+            .map(e -> e.getValue().value())
+            .toArray(Double[]::new)) {
+      if (cost < min) {
+        min = cost;
+        count++;
+      }
+    }
+    return Math.max(0, count - 1);
+  }
+}
@@ -0,0 +1,120 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.astraea.metrics.bench;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import org.astraea.common.ByteUtils;
+import org.astraea.common.metrics.BeanObject;
+
+/**
+ * Compare the size and the decode time of the beans of a fetch cycle. The "legacy" way writes a
+ * protobuf record per bean, and the "batch" way writes a batch per broker.
+ */
+public final class BeanBatchBenchmark {
+
+  public static void main(String[] args) {
+    var brokers = args.length > 0 ? Integer.parseInt(args[0]) : 40;
+    var partitions = args.length > 1 ? Integer.parseInt(args[1]) : 500;
+    var rounds = args.length > 2 ? Integer.parseInt(args[2]) : 20;
+    var beans = beans(partitions);
+    System.out.printf(
+        "%10s %10s %16s %18s%n", "mode", "beans", "bytes per cycle", "decode(ms/cycle)");
+
+    var legacy = beans.stream().map(ByteUtils::toBytes).toList();
+    var legacyBytes = legacy.stream().mapToLong(b -> b.length).sum() * brokers;
+    var legacyTime =
+        measure(
+            rounds,
+            () -> {
+              for (var i = 0; i < brokers; i++) legacy.forEach(ByteUtils::readBeanObject);
+            });
+    System.out.printf(
+        "%10s %10d %16d %18.2f%n", "legacy", beans.size() * brokers, legacyBytes, legacyTime);
+
+    for (var compression : List.of(false, true)) {
+      var batch = ByteUtils.toBytes(beans, compression);
+      var time =
+          measure(
+              rounds,
+              () -> {
+                for (var i = 0; i < brokers; i++) ByteUtils.readBeanObjects(batch);
+              });
+      System.out.printf(
+          "%10s %10d %16d %18.2f%n",
+          compression ? "batch+zip" : "batch",
+          beans.size() * brokers,
+          (long) batch.length * brokers,
+          time);
+    }
+  }
+
+  private static double measure(int rounds, Runnable runnable) {
+    // warm up
+    runnable.run();
+    var start = System.nanoTime();
+    for (var i = 0; i < rounds; i++) runnable.run();
+    return (System.nanoTime() - start) / 1_000_000D / rounds;
+  }
+
+  /** The beans of a broker hosting the given number of partitions. */
+  private static List<BeanObject> beans(int partitions) {
+    var result = new ArrayList<BeanObject>();
+    var now = System.currentTimeMillis();
+    for (var p = 0; p < partitions; p++)
+      for (var name : List.of("Size", "LogEndOffset", "LogStartOffset", "NumLogSegments"))
+        result.add(
+            new BeanObject(
+                "kafka.log",
+                Map.of(
+                    "type",
+                    "Log",
+                    "name",
+                    name,
+                    "topic",
+                    "topic-" + (p % 50),
+                    "partition",
+                    String.valueOf(p / 50)),
+                Map.of("Value", (long) p * 1024),
+                now));
+    for (var name : List.of("BytesInPerSec", "BytesOutPerSec", "MessagesInPerSec"))
+      result.add(
+          new BeanObject(
+              "kafka.server",
+              Map.of("type", "BrokerTopicMetrics", "name", name),
+              Map.of(
+                  "Count",
+                  123456789L,
+                  "MeanRate",
+                  1024.5,
+                  "OneMinuteRate",
+                  1000.1,
+                  "FiveMinuteRate",
+                  998.2,
+                  "FifteenMinuteRate",
+                  997.3,
+                  "EventType",
+                  "bytes",
+                  "RateUnit",
+                  "SECONDS"),
+              now));
+    return result;
+  }
+
+  private BeanBatchBenchmark() {}
+}
@@ -0,0 +1,161 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.astraea.metrics.bench;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.LongSummaryStatistics;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.astraea.common.metrics.BeanObject;
+import org.astraea.common.metrics.ClusterBean;
+import org.astraea.common.metrics.ClusterBeanIndex;
+import org.astraea.common.metrics.HasBeanObject;
+
+/**
+ * Compare the cost of generating a new {@link ClusterBean} after each receive. The "rebuild" way
+ * copies all beans and regroups the indexes from scratch (the way MetricStore used to do), and the
+ * "incremental" way updates {@link ClusterBeanIndex} with the new beans only.
+ */
+public final class ClusterBeanBenchmark {
+
+  public static void main(String[] args) {
+    var brokers = 60;
+    System.out.printf(
+        "%10s %12s %16s %16s %16s %16s%n",
+        "beans", "mode", "avg latency(us)", "max latency(us)", "alloc/round(KB)", "rounds");
+    for (var partitions : List.of(100, 1000, 5000, 20000)) {
+      var rounds = 20;
+      for (var result :
+          List.of(rebuild(brokers, partitions, rounds), incremental(brokers, partitions, rounds))) {
+        System.out.printf(
+            "%10d %12s %16.2f %16.2f %16.2f %16d%n",
+            result.beans(),
+            result.mode(),
+            result.latencyNs().getAverage() / 1000,
+            result.latencyNs().getMax() / 1000D,
+            result.allocatedBytes() / (double) rounds / 1024,
+            rounds);
+      }
+    }
+  }
+
+  /**
+   * @param brokers number of brokers
+   * @param partitions number of partition-level beans of each broker
+   * @param rounds number of receives. Each receive brings a new bean for a tenth of partitions
+   * @return the latency and allocation of generating snapshot by regrouping all beans
+   */
+  public static Result rebuild(int brokers, int partitions, int rounds) {
+    var store = new ConcurrentHashMap<Integer, Collection<HasBeanObject>>();
+    for (var id = 0; id < brokers; id++)
+      store.computeIfAbsent(id, ignored -> new ConcurrentLinkedQueue<>()).addAll(beans(partitions));
+    return measure(
+        "rebuild",
+        brokers * partitions,
+        rounds,
+        partitions,
+        received -> {
+          received.forEach((id, bs) -> store.get(id).addAll(bs));
+          var clusterBean =
+              ClusterBean.of(
+                  store.entrySet().stream()
+                      .collect(
+                          Collectors.toUnmodifiableMap(
+                              Map.Entry::getKey, e -> List.copyOf(e.getValue()))));
+          // trigger the lazy indexes
+          clusterBean.partitions();
+          clusterBean.replicas();
+          clusterBean.topics();
+          clusterBean.brokerTopics();
+          return clusterBean;
+        });
+  }
+
+  /**
+   * @param brokers number of brokers
+   * @param partitions number of partition-level beans of each broker
+   * @param rounds number of receives. Each receive brings a new bean for a tenth of partitions
+   * @return the latency and allocation of generating snapshot by {@link ClusterBeanIndex}
+   */
+  public static Result incremental(int brokers, int partitions, int rounds) {
+    var index = ClusterBeanIndex.of();
+    for (var id = 0; id < brokers; id++) index.add(id, beans(partitions));
+    index.snapshot();
+    return measure(
+        "incremental",
+        brokers * partitions,
+        rounds,
+        partitions,
+        received -> {
+          received.forEach(index::add);
+          return index.snapshot();
+        });
+  }
+
+  private static Result measure(
+      String mode,
+      int total,
+      int rounds,
+      int partitions,
+      Function<Map<Integer, List<HasBeanObject>>, ClusterBean> receive) {
+    var bean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    var thread = Thread.currentThread().getId();
+    var latency = new LongSummaryStatistics();
+    var allocated = 0L;
+    for (var round = 0; round < rounds; round++) {
+      // prepare the received beans outside the measurement
+      var received =
+          IntStream.range(0, total / partitions)
+              .boxed()
+              .collect(Collectors.toMap(id -> id, id -> beans(partitions / 10)));
+      var startBytes = bean.getThreadAllocatedBytes(thread);
+      var start = System.nanoTime();
+      receive.apply(received);
+      latency.accept(System.nanoTime() - start);
+      allocated += bean.getThreadAllocatedBytes(thread) - startBytes;
+    }
+    return new Result(mode, total, latency, allocated);
+  }
+
+  private static List<HasBeanObject> beans(int partitions) {
+    var result = new ArrayList<HasBeanObject>(partitions);
+    var now = System.currentTimeMillis();
+    for (var p = 0; p < partitions; p++) {
+      var bean =
+          new BeanObject(
+              "kafka.log",
+              Map.of(
+                  "type", "Log", "name", "Size", "topic", "t" + (p % 100), "partition", "" + p),
+              Map.of("Value", (long) p),
+              now);
+      result.add(() -> bean);
+    }
+    return result;
+  }
+
+  public record Result(
+      String mode, int beans, LongSummaryStatistics latencyNs, long allocatedBytes) {}
+
+  private ClusterBeanBenchmark() {}
+}
@@ -0,0 +1,159 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.astraea.metrics.bench;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Hashtable;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.MBeanServer;
+import javax.management.MBeanServerFactory;
+import javax.management.ObjectName;
+import javax.management.remote.JMXConnectorServer;
+import javax.management.remote.JMXConnectorServerFactory;
+import javax.management.remote.JMXServiceURL;
+import javax.management.remote.MBeanServerForwarder;
+import org.astraea.common.Utils;
+import org.astraea.common.metrics.BeanQuery;
+import org.astraea.common.metrics.JndiClient;
+import org.astraea.common.metrics.collector.MetricFetcher;
+
+/**
+ * Count the RMI round trips of fetching {@link MetricFetcher#QUERIES} from many jmx servers. Each
+ * jmx server is a stub hosting a mbean for each non-pattern query and a mbean per topic for each
+ * pattern query, and the round trips are counted by a {@link MBeanServerForwarder} which sees all
+ * remote calls. The first cycle runs with empty caches, so it costs as many round trips as the
+ * client without caches does: one {@code queryNames} per query, and one {@code getMBeanInfo} and
+ * one {@code getAttributes} per mbean.
+ */
+public final class JndiClientBenchmark {
+
+  public static void main(String[] args) throws Exception {
+    var brokers = args.length > 0 ? Integer.parseInt(args[0]) : 50;
+    var topics = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+    var cycles = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+
+    var calls = new LongAdder();
+    var servers = new ArrayList<JMXConnectorServer>(brokers);
+    var clients = new ArrayList<JndiClient>(brokers);
+    try {
+      var beans = 0;
+      for (var i = 0; i < brokers; i++) {
+        var mBeanServer = MBeanServerFactory.newMBeanServer();
+        beans = register(mBeanServer, topics);
+        var server =
+            JMXConnectorServerFactory.newJMXConnectorServer(
+                new JMXServiceURL("service:jmx:rmi://127.0.0.1"), null, mBeanServer);
+        server.setMBeanServerForwarder(counting(calls));
+        server.start();
+        servers.add(server);
+        clients.add(JndiClient.of(server.getAddress()));
+      }
+      System.out.printf("brokers: %d, mbeans per broker: %d%n", brokers, beans);
+      System.out.printf(
+          "%8s %14s %16s %14s%n", "cycle", "round trips", "per broker", "latency(ms)");
+      for (var cycle = 0; cycle < cycles; cycle++) {
+        var before = calls.sum();
+        var start = System.nanoTime();
+        var fetched = 0;
+        for (var client : clients)
+          for (var query : MetricFetcher.QUERIES) fetched += client.beans(query, e -> {}).size();
+        var elapsed = (System.nanoTime() - start) / 1_000_000D;
+        var roundTrips = calls.sum() - before;
+        System.out.printf(
+            "%8d %14d %16.1f %14.2f%n", cycle, roundTrips, (double) roundTrips / brokers, elapsed);
+        if (fetched == 0) throw new IllegalStateException("no mbean is fetched");
+      }
+    } finally {
+      clients.forEach(Utils::close);
+      for (var server : servers) server.stop();
+    }
+  }
+
+  /**
+   * Register the mbeans matching {@link MetricFetcher#QUERIES}.
+   *
+   * @return the number of registered mbeans
+   */
+  private static int register(MBeanServer mBeanServer, int topics) throws Exception {
+    var count = 0;
+    for (var query : MetricFetcher.QUERIES) {
+      if (query.domainName().contains("*")) continue;
+      for (var name : names(query, topics)) {
+        if (mBeanServer.isRegistered(name)) continue;
+        mBeanServer.registerMBean(new Gauge(), name);
+        count++;
+      }
+    }
+    return count;
+  }
+
+  private static List<ObjectName> names(BeanQuery query, int topics) throws Exception {
+    var pattern = query.properties().values().stream().anyMatch(v -> v.contains("*"));
+    var names = new ArrayList<ObjectName>();
+    for (var i = 0; i < (pattern ? topics : 1); i++) {
+      var properties = new Hashtable<String, String>();
+      for (var e : query.properties().entrySet())
+        properties.put(e.getKey(), e.getValue().replace("*", "t" + i));
+      names.add(ObjectName.getInstance(query.domainName(), properties));
+    }
+    return names;
+  }
+
+  private static MBeanServerForwarder counting(LongAdder calls) {
+    var target = new MBeanServer[1];
+    return (MBeanServerForwarder)
+        Proxy.newProxyInstance(
+            MBeanServerForwarder.class.getClassLoader(),
+            new Class<?>[] {MBeanServerForwarder.class},
+            (proxy, method, args) -> {
+              if (method.getName().equals("getMBeanServer")) return target[0];
+              if (method.getName().equals("setMBeanServer")) {
+                target[0] = (MBeanServer) args[0];
+                return null;
+              }
+              calls.increment();
+              try {
+                return method.invoke(target[0], args);
+              } catch (InvocationTargetException e) {
+                throw e.getCause();
+              }
+            });
+  }
+
+  public interface GaugeMBean {
+    long getValue();
+
+    long getCount();
+  }
+
+  public static class Gauge implements GaugeMBean {
+    @Override
+    public long getValue() {
+      return System.nanoTime();
+    }
+
+    @Override
+    public long getCount() {
+      return 1;
+    }
+  }
+
+  private JndiClientBenchmark() {}
+}
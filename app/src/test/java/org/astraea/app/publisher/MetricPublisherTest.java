@@ -38,6 +38,13 @@ public class MetricPublisherTest {
     };
     var arguments = MetricPublisher.Arguments.parse(new MetricPublisher.Arguments(), args);
     Assertions.assertEquals("localhost:8000", arguments.jmxAddress.get("1001"));
+    Assertions.assertFalse(arguments.batch);
+
+    var batch =
+        MetricPublisher.Arguments.parse(
+            new MetricPublisher.Arguments(),
+            new String[] {"--bootstrap.servers", "localhost:9092", "--jmxPort", "7091", "--batch"});
+    Assertions.assertTrue(batch.batch);
   }
 
   @Test
@@ -0,0 +1,313 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.astraea.common;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+import org.astraea.common.metrics.BeanObject;
+
+/**
+ * The batch format of {@link BeanObject}s. The layout is shown below.
+ *
+ * <pre>
+ * magic (1 byte, always 0)
+ * version (1 byte)
+ * flags (1 byte, bit 0: the body is compressed by deflate)
+ * [uncompressed size (varint), if compressed]
+ * body:
+ *   dictionary: size (varint), [length (varint), utf-8 bytes] * size
+ *   columns: [length (varint), values] * 6, the order is int, long, float, double, boolean, string
+ *   base timestamp (zigzag varint)
+ *   beans: size (varint), [bean] * size
+ *     bean: domain (index), timestamp - base (varint), properties size (varint),
+ *           [key (index), value (index)] * size, attributes size (varint),
+ *           [name (index), type (1 byte)] * size
+ * </pre>
+ *
+ * <p>The attribute values must be Integer, Long, Float, Double, Boolean or String, and the other
+ * attributes are skipped. All strings, including the string values of attributes, are stored in
+ * the dictionary once, and the attribute values are stored in the column of their type in the order
+ * of appearance. The legacy format is a protobuf message, which never starts with 0 since 0 is not
+ * a valid field tag, so the reader is able to tell them apart by the first byte.
+ */
+final class BeanObjectBatch {
+
+  static final byte MAGIC = 0;
+  static final byte VERSION = 1;
+  private static final byte COMPRESSED = 1;
+
+  /** The small body is not compressed since deflate can't save much. */
+  private static final int COMPRESSION_THRESHOLD = 512;
+
+  private static final byte INT = 0;
+  private static final byte LONG = 1;
+  private static final byte FLOAT = 2;
+  private static final byte DOUBLE = 3;
+  private static final byte BOOLEAN = 4;
+  private static final byte STRING = 5;
+  private static final int COLUMNS = 6;
+  private static final byte UNSUPPORTED = -1;
+
+  static boolean isBatch(byte[] bytes) {
+    return bytes != null && bytes.length > 0 && bytes[0] == MAGIC;
+  }
+
+  static byte[] encode(Collection<BeanObject> beans, boolean compression) {
+    var dictionary = new LinkedHashMap<String, Integer>();
+    var columns = new Output[COLUMNS];
+    for (var i = 0; i < COLUMNS; i++) columns[i] = new Output();
+    var headers = new Output();
+    var base = beans.stream().mapToLong(BeanObject::createdTimestamp).min().orElse(0);
+
+    headers.varint(beans.size());
+    for (var bean : beans) {
+      headers.varint(index(dictionary, bean.domainName()));
+      headers.varint(bean.createdTimestamp() - base);
+      headers.varint(bean.properties().size());
+      bean.properties()
+          .forEach(
+              (key, value) -> {
+                headers.varint(index(dictionary, key));
+                headers.varint(index(dictionary, value));
+              });
+      // the attributes which can't be encoded are skipped, so they don't fail the whole batch
+      headers.varint(
+          (int) bean.attributes().values().stream().filter(v -> type(v) != UNSUPPORTED).count());
+      bean.attributes()
+          .forEach(
+              (name, value) -> {
+                var type = type(value);
+                if (type == UNSUPPORTED) return;
+                headers.varint(index(dictionary, name));
+                headers.write(type);
+                switch (type) {
+                  case INT -> columns[INT].zigzag((int) value);
+                  case LONG -> columns[LONG].zigzag((long) value);
+                  case FLOAT -> columns[FLOAT].fixed(Float.floatToIntBits((float) value), 4);
+                  case DOUBLE -> columns[DOUBLE].fixed(Double.doubleToLongBits((double) value), 8);
+                  case BOOLEAN -> columns[BOOLEAN].write((boolean) value ? 1 : 0);
+                  default -> columns[STRING].varint(index(dictionary, (String) value));
+                }
+              });
+    }
+
+    var body = new Output();
+    body.varint(dictionary.size());
+    dictionary.keySet().forEach(body::string);
+    for (var column : columns) {
+      body.varint(column.size());
+      body.append(column);
+    }
+    body.zigzag(base);
+    body.append(headers);
+
+    var result = new Output();
+    result.write(MAGIC);
+    result.write(VERSION);
+    if (compression && body.size() >= COMPRESSION_THRESHOLD) {
+      var compressed = deflate(body.toByteArray());
+      if (compressed.length < body.size()) {
+        result.write(COMPRESSED);
+        result.varint(body.size());
+        result.writeBytes(compressed);
+        return result.toByteArray();
+      }
+    }
+    result.write(0);
+    result.append(body);
+    return result.toByteArray();
+  }
+
+  static List<BeanObject> decode(byte[] bytes) {
+    if (!isBatch(bytes) || bytes.length < 3)
+      throw new IllegalArgumentException("The data is not a batch of beans");
+    if (bytes[1] != VERSION)
+      throw new IllegalArgumentException("Unsupported version of bean batch: " + bytes[1]);
+    var body = new Input(bytes, 3);
+    if ((bytes[2] & COMPRESSED) != 0) {
+      var size = (int) body.varint();
+      body = new Input(inflate(bytes, body.offset, size), 0);
+    }
+
+    var dictionary = new String[(int) body.varint()];
+    for (var i = 0; i < dictionary.length; i++) dictionary[i] = body.string();
+    var columns = new Input[COLUMNS];
+    for (var i = 0; i < COLUMNS; i++) {
+      var length = (int) body.varint();
+      columns[i] = new Input(body.bytes, body.offset);
+      body.offset += length;
+    }
+    var base = body.zigzag();
+
+    var size = (int) body.varint();
+    var beans = new ArrayList<BeanObject>(size);
+    for (var i = 0; i < size; i++) {
+      var domain = dictionary[(int) body.varint()];
+      var timestamp = base + body.varint();
+      var properties = new HashMap<String, String>();
+      for (var p = (int) body.varint(); p > 0; p--)
+        properties.put(dictionary[(int) body.varint()], dictionary[(int) body.varint()]);
+      var attributes = new HashMap<String, Object>();
+      for (var a = (int) body.varint(); a > 0; a--) {
+        var name = dictionary[(int) body.varint()];
+        var type = body.bytes[body.offset++];
+        Object value =
+            switch (type) {
+              case INT -> (int) columns[INT].zigzag();
+              case LONG -> columns[LONG].zigzag();
+              case FLOAT -> Float.intBitsToFloat((int) columns[FLOAT].fixed(4));
+              case DOUBLE -> Double.longBitsToDouble(columns[DOUBLE].fixed(8));
+              case BOOLEAN -> columns[BOOLEAN].bytes[columns[BOOLEAN].offset++] != 0;
+              case STRING -> dictionary[(int) columns[STRING].varint()];
+              default -> throw new IllegalArgumentException("Unknown attribute type: " + type);
+            };
+        attributes.put(name, value);
+      }
+      beans.add(new BeanObject(domain, properties, attributes, timestamp));
+    }
+    return beans;
+  }
+
+  private static int index(Map<String, Integer> dictionary, String value) {
+    var index = dictionary.get(value);
+    if (index != null) return index;
+    dictionary.put(value, dictionary.size());
+    return dictionary.size() - 1;
+  }
+
+  private static byte type(Object value) {
+    if (value instanceof Integer) return INT;
+    if (value instanceof Long) return LONG;
+    if (value instanceof Float) return FLOAT;
+    if (value instanceof Double) return DOUBLE;
+    if (value instanceof Boolean) return BOOLEAN;
+    if (value instanceof String) return STRING;
+    return UNSUPPORTED;
+  }
+
+  private static byte[] deflate(byte[] data) {
+    var deflater = new Deflater(Deflater.BEST_SPEED);
+    try {
+      deflater.setInput(data);
+      deflater.finish();
+      var output = new Output();
+      var buffer = new byte[4096];
+      while (!deflater.finished()) output.write(buffer, 0, deflater.deflate(buffer));
+      return output.toByteArray();
+    } finally {
+      deflater.end();
+    }
+  }
+
+  private static byte[] inflate(byte[] data, int offset, int size) {
+    var inflater = new Inflater();
+    try {
+      inflater.setInput(data, offset, data.length - offset);
+      var result = new byte[size];
+      var filled = 0;
+      while (filled < size) {
+        var count = inflater.inflate(result, filled, size - filled);
+        if (count == 0 && (inflater.finished() || inflater.needsInput()))
+          throw new IllegalArgumentException("The compressed bean batch is truncated");
+        filled += count;
+      }
+      return result;
+    } catch (DataFormatException e) {
+      throw new IllegalArgumentException(e);
+    } finally {
+      inflater.end();
+    }
+  }
+
+  private static final class Output extends ByteArrayOutputStream {
+
+    private void varint(long value) {
+      while ((value & ~0x7FL) != 0) {
+        write((int) ((value & 0x7F) | 0x80));
+        value >>>= 7;
+      }
+      write((int) value);
+    }
+
+    private void zigzag(long value) {
+      varint((value << 1) ^ (value >> 63));
+    }
+
+    private void fixed(long value, int bytes) {
+      for (var i = 0; i < bytes; i++) write((int) (value >>> (8 * i)));
+    }
+
+    private void append(Output other) {
+      write(other.buf, 0, other.count);
+    }
+
+    private void string(String value) {
+      var bytes = value.getBytes(StandardCharsets.UTF_8);
+      varint(bytes.length);
+      writeBytes(bytes);
+    }
+  }
+
+  private static final class Input {
+    private final byte[] bytes;
+    private int offset;
+
+    private Input(byte[] bytes, int offset) {
+      this.bytes = bytes;
+      this.offset = offset;
+    }
+
+    private long varint() {
+      var result = 0L;
+      for (var shift = 0; shift < 64; shift += 7) {
+        var b = bytes[offset++];
+        result |= (long) (b & 0x7F) << shift;
+        if ((b & 0x80) == 0) return result;
+      }
+      throw new IllegalArgumentException("Malformed varint");
+    }
+
+    private long zigzag() {
+      var value = varint();
+      return (value >>> 1) ^ -(value & 1);
+    }
+
+    private long fixed(int size) {
+      var result = 0L;
+      for (var i = 0; i < size; i++) result |= (long) (bytes[offset++] & 0xFF) << (8 * i);
+      return result;
+    }
+
+    private String string() {
+      var length = (int) varint();
+      var result = new String(bytes, offset, length, StandardCharsets.UTF_8);
+      offset += length;
+      return result;
+    }
+  }
+
+  private BeanObjectBatch() {}
+}
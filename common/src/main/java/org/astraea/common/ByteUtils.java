@@ -20,6 +20,8 @@ import java.io.InputStream;
 import java.nio.ByteBuffer;
 import java.nio.channels.ReadableByteChannel;
 import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
@@ -171,6 +173,18 @@ public final class ByteUtils {
     return beanBuilder.build().toByteArray();
   }
 
+  /**
+   * Serialize the beans into a batch. The strings are deduplicated by a dictionary, and the
+   * attribute values are stored in typed columns. Use {@link #readBeanObjects(byte[])} to read it.
+   *
+   * @param values beans to serialize
+   * @param compression true if the batch should be compressed
+   * @return the batch
+   */
+  public static byte[] toBytes(Collection<BeanObject> values, boolean compression) {
+    return BeanObjectBatch.encode(values, compression);
+  }
+
   /** Serialize ClusterInfo by protocol buffer. */
   public static byte[] toBytes(ClusterInfo value) {
     return ClusterInfoOuterClass.ClusterInfo.newBuilder()
@@ -306,6 +320,18 @@ public final class ByteUtils {
                     Map.Entry::getKey, e -> Objects.requireNonNull(toObject(e.getValue())))));
   }
 
+  /**
+   * Deserialize the data generated by either {@link #toBytes(Collection, boolean)} or {@link
+   * #toBytes(BeanObject)}.
+   *
+   * @param bytes a batch of beans or a single bean
+   * @return the beans
+   */
+  public static List<BeanObject> readBeanObjects(byte[] bytes) {
+    if (BeanObjectBatch.isBatch(bytes)) return BeanObjectBatch.decode(bytes);
+    return List.of(readBeanObject(bytes));
+  }
+
   /** Deserialize to ClusterInfo with protocol buffer */
   public static ClusterInfo readClusterInfo(byte[] bytes) {
     var outerClusterInfo =
@@ -50,6 +50,12 @@ public interface ClusterInfo {
    * raised.
    */
   static Set<TopicPartition> findNonFulfilledAllocation(ClusterInfo source, ClusterInfo target) {
+    // the overlays sharing the same base know which partitions are changed
+    var changed = changedByOverlay(source, target);
+    if (changed.isPresent())
+      return changed.get().stream()
+          .filter(tp -> !placementMatch(source.replicas(tp), target.replicas(tp)))
+          .collect(Collectors.toUnmodifiableSet());
 
     final var sourceTopicPartition =
         source.replicaStream().map(Replica::topicPartition).collect(Collectors.toSet());
@@ -69,6 +75,30 @@ public interface ClusterInfo {
         .collect(Collectors.toUnmodifiableSet());
   }
 
+  /**
+   * Find the topic/partitions which might have different replicas in the given allocations. It is
+   * cheap if both allocations are built from the same base by {@link ClusterInfoBuilder}, since the
+   * overlays know which partitions are touched. Otherwise, all topic/partitions of target are
+   * returned. Note that the result can include some unchanged partitions.
+   */
+  static Set<TopicPartition> changedPartitions(ClusterInfo source, ClusterInfo target) {
+    return changedByOverlay(source, target).orElseGet(target::topicPartitions);
+  }
+
+  private static Optional<Set<TopicPartition>> changedByOverlay(
+      ClusterInfo source, ClusterInfo target) {
+    var sourceBase =
+        source instanceof OverlayClusterInfo ? ((OverlayClusterInfo) source).base() : source;
+    var targetBase =
+        target instanceof OverlayClusterInfo ? ((OverlayClusterInfo) target).base() : target;
+    if (sourceBase != targetBase) return Optional.empty();
+    return Optional.of(
+        Stream.of(source, target)
+            .filter(c -> c instanceof OverlayClusterInfo)
+            .flatMap(c -> ((OverlayClusterInfo) c).changedPartitions().stream())
+            .collect(Collectors.toUnmodifiableSet()));
+  }
+
   /**
    * Determine if both of the replicas can be considered as equal in terms of its placement.
    *
@@ -18,6 +18,7 @@ package org.astraea.common.admin;
 
 import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -39,9 +40,17 @@ public class ClusterInfoBuilder {
           BiFunction<List<NodeInfo>, List<Replica>, Map.Entry<List<NodeInfo>, List<Replica>>>>
       alterations;
 
+  // the alterations which touch only one partition. If all alterations are partition-level, the
+  // result is built as an overlay of the source cluster rather than a full copy.
+  private final List<
+          Map.Entry<TopicPartition, BiFunction<List<NodeInfo>, List<Replica>, List<Replica>>>>
+      partitionAlterations;
+  private boolean partitionLevelOnly = true;
+
   ClusterInfoBuilder(ClusterInfo source) {
     this.sourceCluster = source;
     this.alterations = new ArrayList<>();
+    this.partitionAlterations = new ArrayList<>();
   }
 
   /**
@@ -52,6 +61,7 @@ public class ClusterInfoBuilder {
    */
   public ClusterInfoBuilder applyNodes(
       BiFunction<List<NodeInfo>, List<Replica>, List<NodeInfo>> alteration) {
+    this.partitionLevelOnly = false;
     this.alterations.add(
         (nodes, replicas) -> Map.entry(alteration.apply(nodes, replicas), replicas));
     return this;
@@ -65,10 +75,39 @@ public class ClusterInfoBuilder {
    */
   public ClusterInfoBuilder applyReplicas(
       BiFunction<List<NodeInfo>, List<Replica>, List<Replica>> alteration) {
+    this.partitionLevelOnly = false;
     this.alterations.add((nodes, replicas) -> Map.entry(nodes, alteration.apply(nodes, replicas)));
     return this;
   }
 
+  /**
+   * Alter the replica list of a partition. The alteration must keep the number and the order of
+   * replicas.
+   *
+   * @param partition to alter
+   * @param alteration a function that return the new replica list of the partition.
+   * @return this.
+   */
+  private ClusterInfoBuilder applyPartition(
+      TopicPartition partition,
+      BiFunction<List<NodeInfo>, List<Replica>, List<Replica>> alteration) {
+    this.partitionAlterations.add(Map.entry(partition, alteration));
+    this.alterations.add(
+        (nodes, replicas) -> {
+          var origin =
+              replicas.stream()
+                  .filter(r -> r.topicPartition().equals(partition))
+                  .collect(Collectors.toUnmodifiableList());
+          var altered = alteration.apply(nodes, origin).iterator();
+          return Map.entry(
+              nodes,
+              replicas.stream()
+                  .map(r -> r.topicPartition().equals(partition) ? altered.next() : r)
+                  .collect(Collectors.toUnmodifiableList()));
+        });
+    return this;
+  }
+
   /**
    * Add fake brokers into the cluster state.
    *
@@ -245,7 +284,8 @@ public class ClusterInfoBuilder {
   public ClusterInfoBuilder reassignReplica(
       TopicPartitionReplica replica, int toBroker, String toDir) {
     Objects.requireNonNull(toDir);
-    return applyReplicas(
+    return applyPartition(
+        replica.topicPartition(),
         (nodes, replicas) -> {
           var newNode =
               nodes.stream()
@@ -277,7 +317,8 @@ public class ClusterInfoBuilder {
    * @return this.
    */
   public ClusterInfoBuilder setPreferredLeader(TopicPartitionReplica replica) {
-    return applyReplicas(
+    return applyPartition(
+        replica.topicPartition(),
         (nodes, replicas) -> {
           var matched = new AtomicBoolean(false);
           var collect =
@@ -287,8 +328,7 @@ public class ClusterInfoBuilder {
                         if (r.topicPartitionReplica().equals(replica)) {
                           matched.set(true);
                           return Replica.builder(r).isLeader(true).isPreferredLeader(true).build();
-                        } else if (r.topicPartition().equals(replica.topicPartition())
-                            && (r.isPreferredLeader() || r.isLeader())) {
+                        } else if (r.isPreferredLeader() || r.isLeader()) {
                           return Replica.builder(r)
                               .isLeader(false)
                               .isPreferredLeader(false)
@@ -309,6 +349,16 @@ public class ClusterInfoBuilder {
    * ClusterInfo}.
    */
   public ClusterInfo build() {
+    if (partitionLevelOnly && !partitionAlterations.isEmpty()) {
+      // only the touched partitions are copied
+      var nodes = sourceCluster.nodes();
+      var changes = new HashMap<TopicPartition, List<Replica>>();
+      for (var e : partitionAlterations) {
+        var current = changes.getOrDefault(e.getKey(), sourceCluster.replicas(e.getKey()));
+        changes.put(e.getKey(), List.copyOf(e.getValue().apply(nodes, current)));
+      }
+      return OverlayClusterInfo.of(sourceCluster, changes);
+    }
     var nodes = sourceCluster.nodes();
     var replicas = sourceCluster.replicas();
     for (var alteration : alterations) {
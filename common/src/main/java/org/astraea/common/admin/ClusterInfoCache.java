@@ -0,0 +1,263 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.astraea.common.admin;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import org.apache.kafka.common.Cluster;
+import org.apache.kafka.common.Node;
+import org.apache.kafka.common.PartitionInfo;
+
+/**
+ * The {@link ClusterInfo} cache for the clients, such as partitioner and assignor. It fetches only
+ * the topics used by the client, and the snapshot is refreshed in background when the lease
+ * expires, so the caller never waits for the admin. The leadership and replicas are taken from the
+ * metadata of the client itself, and the sizes and paths of replicas are taken from the latest
+ * snapshot. A failed update is retried after a backoff, which is doubled by each consecutive
+ * failure and capped by the lease. The caller which can't work without the sizes of new topics can
+ * wait for them by {@link #awaitTrackedTopics(Duration)}. This class is thread-safe.
+ */
+public final class ClusterInfoCache {
+
+  private static final Duration RETRY_BACKOFF = Duration.ofMillis(100);
+
+  public static ClusterInfoCache of(Admin admin, Duration lease) {
+    return new ClusterInfoCache(admin, lease);
+  }
+
+  private record Cached(
+      Cluster metadata, ClusterInfo snapshot, int version, ClusterInfo clusterInfo) {}
+
+  private final Admin admin;
+  private final Duration lease;
+  private final Set<String> topics = ConcurrentHashMap.newKeySet();
+  // the topics are never removed, so the version is increased only if there are new topics
+  private final AtomicInteger version = new AtomicInteger();
+  private final AtomicLong lastUpdated = new AtomicLong(-1);
+  private final AtomicBoolean updating = new AtomicBoolean(false);
+  private volatile int fetchedVersion = -1;
+  // they are updated by the running update only
+  private volatile int failures = 0;
+  private volatile long lastFailed = -1;
+  private volatile ClusterInfo snapshot = ClusterInfo.empty();
+  private volatile Cached cached = null;
+  // it is completed when the latest update ends
+  private volatile CompletableFuture<Void> update = CompletableFuture.completedFuture(null);
+
+  private ClusterInfoCache(Admin admin, Duration lease) {
+    this.admin = admin;
+    this.lease = lease;
+  }
+
+  /**
+   * @param topic to fetch by the next update
+   */
+  public void track(String topic) {
+    if (!topics.contains(topic) && topics.add(topic)) version.incrementAndGet();
+  }
+
+  /**
+   * @param topics to fetch by the next update
+   */
+  public void track(Collection<String> topics) {
+    topics.forEach(this::track);
+  }
+
+  /**
+   * @return the latest cluster info fetched by admin. It contains the tracked topics only
+   */
+  public ClusterInfo snapshot() {
+    return snapshot;
+  }
+
+  /**
+   * Fetch the tracked topics in background if the lease expires or there are new topics. Only one
+   * update is running at the same time, and no update is started during the backoff of failure.
+   *
+   * @return true if a new update is started
+   */
+  public boolean tryToUpdate() {
+    var now = System.nanoTime();
+    var current = version.get();
+    var last = lastUpdated.get();
+    if (fetchedVersion == current && last >= 0 && now - last < lease.toNanos()) return false;
+    if (failures > 0 && now - lastFailed < backoff(failures)) return false;
+    if (!updating.compareAndSet(false, true)) return false;
+    lastUpdated.set(now);
+    var update = new CompletableFuture<Void>();
+    this.update = update;
+    admin
+        .clusterInfo(Set.copyOf(topics))
+        .whenComplete(
+            (c, e) -> {
+              if (c != null) {
+                snapshot = c;
+                fetchedVersion = current;
+                lastUpdated.set(System.nanoTime());
+                failures = 0;
+              } else {
+                lastFailed = System.nanoTime();
+                failures = failures + 1;
+              }
+              updating.set(false);
+              update.complete(null);
+            });
+    return true;
+  }
+
+  /**
+   * Wait for the snapshot containing all tracked topics. An update is started if there is no
+   * running update, and the wait gives up when the update fails or the timeout expires.
+   *
+   * @param timeout the max time to wait
+   * @return true if the snapshot contains all tracked topics
+   */
+  public boolean awaitTrackedTopics(Duration timeout) {
+    var deadline = System.nanoTime() + timeout.toNanos();
+    while (fetchedVersion != version.get()) {
+      var running = tryToUpdate() || updating.get();
+      var update = this.update;
+      // no update is allowed during the backoff of failure
+      if (!running && update.isDone()) return fetchedVersion == version.get();
+      var remaining = deadline - System.nanoTime();
+      if (remaining <= 0) return false;
+      try {
+        update.get(remaining, TimeUnit.NANOSECONDS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return false;
+      } catch (ExecutionException | TimeoutException e) {
+        return false;
+      }
+      if (failures > 0) return false;
+    }
+    return true;
+  }
+
+  /**
+   * @return the nanoseconds to wait before retrying the failed update
+   */
+  private long backoff(int failures) {
+    return Math.min(lease.toNanos(), RETRY_BACKOFF.toNanos() << Math.min(failures - 1, 20));
+  }
+
+  /**
+   * Build the cluster info of the tracked topics by the metadata of client. The result is reused
+   * until the metadata, the snapshot or the tracked topics get changed.
+   *
+   * @param metadata the latest metadata of client
+   * @return cluster info having the leadership of metadata and the sizes of snapshot
+   */
+  public ClusterInfo clusterInfo(Cluster metadata) {
+    var current = cached;
+    var snapshot = this.snapshot;
+    var version = this.version.get();
+    if (current != null
+        && current.metadata == metadata
+        && current.snapshot == snapshot
+        && current.version == version) return current.clusterInfo;
+    var clusterInfo = of(metadata, snapshot, Set.copyOf(topics));
+    cached = new Cached(metadata, snapshot, version, clusterInfo);
+    return clusterInfo;
+  }
+
+  /**
+   * @param metadata offers the nodes and the replicas of topics
+   * @param snapshot offers the configs of topics and the sizes and paths of replicas
+   * @param topics to keep
+   * @return the cluster info of topics
+   */
+  static ClusterInfo of(Cluster metadata, ClusterInfo snapshot, Set<String> topics) {
+    // prefer the nodes of snapshot since they have more information
+    var nodes = new LinkedHashMap<Integer, NodeInfo>();
+    snapshot.nodes().forEach(n -> nodes.put(n.id(), n));
+    metadata.nodes().forEach(n -> nodes.putIfAbsent(n.id(), NodeInfo.of(n)));
+
+    var replicas = new ArrayList<Replica>();
+    for (var topic : topics)
+      for (var partition : metadata.partitionsForTopic(topic))
+        replicas.addAll(replicas(partition, metadata.internalTopics().contains(topic), snapshot));
+
+    var clusterId =
+        Optional.ofNullable(metadata.clusterResource().clusterId()).orElse(snapshot.clusterId());
+    return ClusterInfo.of(
+        clusterId,
+        List.copyOf(nodes.values()),
+        snapshot.topics().entrySet().stream()
+            .filter(e -> topics.contains(e.getKey()))
+            .collect(Collectors.toUnmodifiableMap(Map.Entry::getKey, Map.Entry::getValue)),
+        replicas);
+  }
+
+  private static Collection<Replica> replicas(
+      PartitionInfo partition, boolean internal, ClusterInfo snapshot) {
+    var nodes = partition.replicas() == null ? new Node[0] : partition.replicas();
+    var isr = ids(partition.inSyncReplicas());
+    var offline = ids(partition.offlineReplicas());
+    var leader = partition.leader() == null ? -1 : partition.leader().id();
+    var replicas = new ArrayList<Replica>(nodes.length);
+    for (var index = 0; index < nodes.length; index++) {
+      var node = nodes[index];
+      var known =
+          snapshot
+              .replicaStream(
+                  TopicPartitionReplica.of(partition.topic(), partition.partition(), node.id()))
+              .filter(r -> !r.isFuture())
+              .findFirst();
+      var builder =
+          known
+              .map(Replica::builder)
+              // the replica is not fetched by admin yet
+              .orElseGet(
+                  () ->
+                      Replica.builder()
+                          .topic(partition.topic())
+                          .partition(partition.partition())
+                          .nodeInfo(NodeInfo.of(node)));
+      replicas.add(
+          builder
+              .internal(internal)
+              .isLeader(node.id() == leader)
+              .isSync(isr.contains(node.id()))
+              .isOffline(offline.contains(node.id()) || node.isEmpty())
+              .isPreferredLeader(index == 0)
+              .build());
+    }
+    return replicas;
+  }
+
+  private static Set<Integer> ids(Node[] nodes) {
+    if (nodes == null) return Set.of();
+    return Arrays.stream(nodes).map(Node::id).collect(Collectors.toUnmodifiableSet());
+  }
+}
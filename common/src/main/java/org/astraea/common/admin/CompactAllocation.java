@@ -0,0 +1,454 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.astraea.common.admin;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A compact and mutable encoding of replica placement. The partitions and brokers are interned to
+ * int ids, and the replicas are stored by primitive arrays (called slots) so the balancer is able
+ * to tweak the placement and evaluate the cost without allocating objects for each candidate.
+ *
+ * <ul>
+ *   <li>The replicas of partition {@code p} are in slots {@code [replicaStart(p), replicaEnd(p))}
+ *       and they keep the order of {@link ClusterInfo#replicas(TopicPartition)}
+ *   <li>The broker index {@code b} is mapped to broker id by {@link #brokerId(int)}
+ *   <li>The folder of a slot is an index to {@link #folder(int, int)}. -1 means the path is unknown
+ * </ul>
+ *
+ * <p>All changes are recorded by a journal, so the caller can {@link #rollback()} a rejected
+ * tweak or {@link #commit()} an accepted one. {@link #toClusterInfo()} converts the current
+ * placement back to {@link ClusterInfo}, and only the changed partitions get copied.
+ *
+ * <p>This class is not thread-safe.
+ */
+public final class CompactAllocation {
+
+  public static CompactAllocation of(ClusterInfo clusterInfo) {
+    return new CompactAllocation(clusterInfo);
+  }
+
+  private final ClusterInfo source;
+
+  // ---------------------[immutable layout]---------------------//
+  private final TopicPartition[] partitions;
+  private final Map<TopicPartition, Integer> partitionIndex;
+  private final int[] offsets;
+  private final Replica[] replicas;
+  private final int[] partitionOf;
+  private final boolean[] offline;
+  private final long[] size;
+
+  private final NodeInfo[] nodes;
+  private final int nodeCount;
+  private final boolean[] isBroker;
+  private final Map<Integer, Integer> brokerIndex;
+  private final String[][] folders;
+
+  private final int[] originBroker;
+  private final int[] originFolder;
+  private final int[] originLeader;
+
+  // ---------------------[mutable placement]---------------------//
+  private final int[] broker;
+  private final int[] folder;
+  private final int[] leader;
+  private final int[] replicaCount;
+  private final int[] leaderCount;
+
+  // each entry is (slot or -partition - 1, old broker or old leader, old folder)
+  private int[] journal = new int[3 * 16];
+  private int journalSize = 0;
+
+  // the partitions touched since creation. It is a superset of the changed partitions
+  private final boolean[] touched;
+  private final int[] touchedPartitions;
+  private int touchedSize = 0;
+
+  private CompactAllocation(ClusterInfo clusterInfo) {
+    this.source = clusterInfo;
+
+    // intern brokers. The nodes come first, and then the unknown brokers hosting replicas
+    var brokerNodes = new LinkedHashMap<Integer, NodeInfo>();
+    clusterInfo.nodes().forEach(node -> brokerNodes.putIfAbsent(node.id(), node));
+    this.nodeCount = brokerNodes.size();
+    clusterInfo
+        .replicaStream()
+        .forEach(r -> brokerNodes.putIfAbsent(r.nodeInfo().id(), r.nodeInfo()));
+    this.nodes = brokerNodes.values().toArray(NodeInfo[]::new);
+    this.brokerIndex = new HashMap<>();
+    for (var b = 0; b < nodes.length; b++) brokerIndex.put(nodes[b].id(), b);
+    this.isBroker = new boolean[nodes.length];
+    var folderIndex = new ArrayList<Map<String, Integer>>(nodes.length);
+    for (var b = 0; b < nodes.length; b++) {
+      var paths = new LinkedHashMap<String, Integer>();
+      if (b < nodeCount && nodes[b] instanceof Broker) {
+        isBroker[b] = true;
+        ((Broker) nodes[b]).dataFolders().forEach(f -> paths.putIfAbsent(f.path(), paths.size()));
+      }
+      folderIndex.add(paths);
+    }
+
+    // intern partitions and replicas
+    this.partitions =
+        clusterInfo.topicPartitions().stream().sorted().toArray(TopicPartition[]::new);
+    this.partitionIndex = new HashMap<>();
+    this.offsets = new int[partitions.length + 1];
+    var all = new ArrayList<Replica>(clusterInfo.replicas().size());
+    for (var p = 0; p < partitions.length; p++) {
+      partitionIndex.put(partitions[p], p);
+      offsets[p] = all.size();
+      all.addAll(clusterInfo.replicas(partitions[p]));
+    }
+    offsets[partitions.length] = all.size();
+    this.replicas = all.toArray(Replica[]::new);
+    this.partitionOf = new int[replicas.length];
+    this.offline = new boolean[replicas.length];
+    this.size = new long[replicas.length];
+    this.broker = new int[replicas.length];
+    this.folder = new int[replicas.length];
+    this.leader = new int[partitions.length];
+    this.replicaCount = new int[nodes.length];
+    this.leaderCount = new int[nodes.length];
+    Arrays.fill(leader, -1);
+    for (var p = 0; p < partitions.length; p++) {
+      for (var slot = offsets[p]; slot < offsets[p + 1]; slot++) {
+        var replica = replicas[slot];
+        var b = brokerIndex.get(replica.nodeInfo().id());
+        var paths = folderIndex.get(b);
+        partitionOf[slot] = p;
+        offline[slot] = replica.isOffline();
+        size[slot] = replica.size();
+        broker[slot] = b;
+        folder[slot] =
+            replica.path() == null ? -1 : paths.computeIfAbsent(replica.path(), k -> paths.size());
+        replicaCount[b]++;
+        if (replica.isLeader() && leader[p] == -1) {
+          leader[p] = slot;
+          if (!offline[slot]) leaderCount[b]++;
+        }
+      }
+    }
+    this.folders =
+        folderIndex.stream()
+            .map(paths -> paths.keySet().toArray(String[]::new))
+            .toArray(String[][]::new);
+    this.originBroker = broker.clone();
+    this.originFolder = folder.clone();
+    this.originLeader = leader.clone();
+    this.touched = new boolean[partitions.length];
+    this.touchedPartitions = new int[partitions.length];
+  }
+
+  // ---------------------[partitions]---------------------//
+
+  /**
+   * @return the number of partitions
+   */
+  public int partitions() {
+    return partitions.length;
+  }
+
+  public TopicPartition partition(int p) {
+    return partitions[p];
+  }
+
+  /**
+   * @return the index of partition, or -1 if the partition is nonexistent
+   */
+  public int partitionIndex(TopicPartition partition) {
+    return partitionIndex.getOrDefault(partition, -1);
+  }
+
+  /**
+   * @return the first slot of partition
+   */
+  public int replicaStart(int p) {
+    return offsets[p];
+  }
+
+  /**
+   * @return the slot after the last replica of partition
+   */
+  public int replicaEnd(int p) {
+    return offsets[p + 1];
+  }
+
+  /**
+   * @return the slot of the leader, or -1 if the partition has no leader
+   */
+  public int leader(int p) {
+    return leader[p];
+  }
+
+  /**
+   * @return true if any replica of the partition is located at the broker
+   */
+  public boolean hosts(int p, int b) {
+    for (var slot = offsets[p]; slot < offsets[p + 1]; slot++) if (broker[slot] == b) return true;
+    return false;
+  }
+
+  // ---------------------[replicas]---------------------//
+
+  /**
+   * @return the number of replicas (slots)
+   */
+  public int replicas() {
+    return replicas.length;
+  }
+
+  public int partitionOf(int slot) {
+    return partitionOf[slot];
+  }
+
+  public int broker(int slot) {
+    return broker[slot];
+  }
+
+  public int folder(int slot) {
+    return folder[slot];
+  }
+
+  public boolean isOffline(int slot) {
+    return offline[slot];
+  }
+
+  public long size(int slot) {
+    return size[slot];
+  }
+
+  public boolean isLeader(int slot) {
+    return leader[partitionOf[slot]] == slot;
+  }
+
+  // ---------------------[brokers]---------------------//
+
+  /**
+   * @return the number of brokers. It includes the unknown brokers hosting replicas
+   */
+  public int brokers() {
+    return nodes.length;
+  }
+
+  public int brokerId(int b) {
+    return nodes[b].id();
+  }
+
+  /**
+   * @return the index of broker, or -1 if the broker is nonexistent
+   */
+  public int brokerIndex(int brokerId) {
+    return brokerIndex.getOrDefault(brokerId, -1);
+  }
+
+  /**
+   * @return true if the broker is one of {@link ClusterInfo#nodes()}
+   */
+  public boolean isNode(int b) {
+    return b < nodeCount;
+  }
+
+  /**
+   * @return true if the broker is one of {@link ClusterInfo#brokers()}
+   */
+  public boolean isBroker(int b) {
+    return isBroker[b];
+  }
+
+  /**
+   * @return the number of known data folders of the broker
+   */
+  public int folders(int b) {
+    return folders[b].length;
+  }
+
+  public String folder(int b, int f) {
+    return f < 0 ? null : folders[b][f];
+  }
+
+  /**
+   * @return the number of replicas hosted by the broker
+   */
+  public int replicaCount(int b) {
+    return replicaCount[b];
+  }
+
+  /**
+   * @return the number of online leaders hosted by the broker
+   */
+  public int leaderCount(int b) {
+    return leaderCount[b];
+  }
+
+  // ---------------------[mutation]---------------------//
+
+  /**
+   * Move the replica to another broker.
+   *
+   * @param slot the replica to move
+   * @param b the index of target broker
+   * @param f the index of target folder
+   */
+  public void reassign(int slot, int b, int f) {
+    var p = partitionOf[slot];
+    if (broker[slot] != b && hosts(p, b))
+      throw new IllegalArgumentException(
+          "Broker " + brokerId(b) + " already hosts a replica of " + partitions[p]);
+    if (f < -1 || f >= folders[b].length)
+      throw new IllegalArgumentException("No such folder: " + f + " of broker " + brokerId(b));
+    record(slot, broker[slot], folder[slot]);
+    move(slot, b);
+    folder[slot] = f;
+    touch(p);
+  }
+
+  /**
+   * Let the replica become the leader (and the preferred leader) of its partition.
+   *
+   * @param slot the new leader
+   */
+  public void setLeader(int slot) {
+    var p = partitionOf[slot];
+    record(-p - 1, leader[p], 0);
+    changeLeader(p, slot);
+    touch(p);
+  }
+
+  /** Accept all changes since last commit or rollback. */
+  public void commit() {
+    journalSize = 0;
+  }
+
+  /** Revert all changes since last commit or rollback. */
+  public void rollback() {
+    while (journalSize > 0) {
+      journalSize -= 3;
+      var target = journal[journalSize];
+      if (target >= 0) {
+        move(target, journal[journalSize + 1]);
+        folder[target] = journal[journalSize + 2];
+      } else changeLeader(-target - 1, journal[journalSize + 1]);
+    }
+  }
+
+  /**
+   * @return true if there are some changes which are not committed or rolled back
+   */
+  public boolean hasPendingChanges() {
+    return journalSize > 0;
+  }
+
+  private void move(int slot, int b) {
+    var from = broker[slot];
+    if (from == b) return;
+    var online = leader[partitionOf[slot]] == slot && !offline[slot];
+    replicaCount[from]--;
+    replicaCount[b]++;
+    if (online) {
+      leaderCount[from]--;
+      leaderCount[b]++;
+    }
+    broker[slot] = b;
+  }
+
+  private void changeLeader(int p, int slot) {
+    var previous = leader[p];
+    if (previous == slot) return;
+    if (previous != -1 && !offline[previous]) leaderCount[broker[previous]]--;
+    if (slot != -1 && !offline[slot]) leaderCount[broker[slot]]++;
+    leader[p] = slot;
+  }
+
+  private void record(int target, int value0, int value1) {
+    if (journalSize + 3 > journal.length) journal = Arrays.copyOf(journal, journal.length * 2);
+    journal[journalSize] = target;
+    journal[journalSize + 1] = value0;
+    journal[journalSize + 2] = value1;
+    journalSize += 3;
+  }
+
+  private void touch(int p) {
+    if (touched[p]) return;
+    touched[p] = true;
+    touchedPartitions[touchedSize++] = p;
+  }
+
+  // ---------------------[conversion]---------------------//
+
+  /**
+   * @return the ClusterInfo used to create this allocation
+   */
+  public ClusterInfo source() {
+    return source;
+  }
+
+  /**
+   * Convert current placement to {@link ClusterInfo}. The result is an overlay of {@link
+   * #source()}, so only the changed partitions get copied.
+   *
+   * @return cluster info of current placement
+   */
+  public ClusterInfo toClusterInfo() {
+    var changes = new HashMap<TopicPartition, List<Replica>>();
+    for (var i = 0; i < touchedSize; i++) {
+      var p = touchedPartitions[i];
+      var leaderChanged = leader[p] != originLeader[p];
+      var moved = false;
+      for (var slot = offsets[p]; slot < offsets[p + 1]; slot++)
+        moved |= broker[slot] != originBroker[slot] || folder[slot] != originFolder[slot];
+      if (!leaderChanged && !moved) continue;
+      var result = new ArrayList<Replica>(offsets[p + 1] - offsets[p]);
+      for (var slot = offsets[p]; slot < offsets[p + 1]; slot++) {
+        var replica = replicas[slot];
+        var slotMoved = broker[slot] != originBroker[slot] || folder[slot] != originFolder[slot];
+        if (!slotMoved && !leaderChanged) {
+          result.add(replica);
+          continue;
+        }
+        var builder = Replica.builder(replica);
+        if (slotMoved)
+          builder.nodeInfo(nodes[broker[slot]]).path(folder(broker[slot], folder[slot]));
+        if (leaderChanged) builder.isLeader(slot == leader[p]).isPreferredLeader(slot == leader[p]);
+        result.add(builder.build());
+      }
+      changes.put(partitions[p], result);
+    }
+    if (changes.isEmpty()) return source;
+    return OverlayClusterInfo.of(source, changes);
+  }
+
+  @Override
+  public String toString() {
+    var sb = new StringBuilder();
+    for (var p = 0; p < partitions.length; p++) {
+      sb.append(partitions[p]).append(" [");
+      for (var slot = offsets[p]; slot < offsets[p + 1]; slot++) {
+        if (slot != offsets[p]) sb.append(", ");
+        sb.append(brokerId(broker[slot]));
+        if (leader[p] == slot) sb.append("*");
+      }
+      sb.append("]").append(System.lineSeparator());
+    }
+    return sb.toString();
+  }
+}
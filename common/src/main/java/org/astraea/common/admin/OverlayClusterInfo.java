@@ -0,0 +1,209 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.astraea.common.admin;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.astraea.common.Lazy;
+
+/**
+ * A copy-on-write view of a base {@link ClusterInfo}. It records the replica lists of changed
+ * partitions only, and the queries consult the changed partitions first and then fall back to the
+ * indexes of base. Hence, creating an overlay costs O(number of changed replicas) even if the base
+ * cluster has a huge number of replicas.
+ *
+ * <p>The changed partitions must keep the same number of replicas, so the overlay has exactly the
+ * same topic/partitions as the base.
+ */
+class OverlayClusterInfo implements ClusterInfo {
+
+  /**
+   * create an overlay on the given base. If the base is an overlay too, the changes get merged to
+   * avoid a deep chain of overlays.
+   *
+   * @param base the cluster to be overlaid
+   * @param changes the new replica lists of changed partitions
+   * @return overlay cluster info
+   */
+  static OverlayClusterInfo of(ClusterInfo base, Map<TopicPartition, List<Replica>> changes) {
+    if (base instanceof OverlayClusterInfo) {
+      var overlay = (OverlayClusterInfo) base;
+      var merged = new HashMap<>(overlay.changes);
+      merged.putAll(changes);
+      return new OverlayClusterInfo(overlay.base, merged);
+    }
+    return new OverlayClusterInfo(base, changes);
+  }
+
+  private final ClusterInfo base;
+  private final Map<TopicPartition, List<Replica>> changes;
+
+  // the base replica -> the replica in this overlay
+  private final Map<Replica, Replica> replaced = new IdentityHashMap<>();
+  // the replicas moved to another broker, grouped by the new broker
+  private final Map<Integer, List<Replica>> movedIn = new HashMap<>();
+  private final Set<String> changedTopics;
+
+  private final Lazy<List<Replica>> all;
+  private final Lazy<Set<TopicPartitionReplica>> topicPartitionReplicas;
+
+  private OverlayClusterInfo(ClusterInfo base, Map<TopicPartition, List<Replica>> changes) {
+    this.base = base;
+    this.changes = Map.copyOf(changes);
+    this.changes.forEach(
+        (tp, replicas) -> {
+          var origin = base.replicas(tp);
+          if (origin.size() != replicas.size())
+            throw new IllegalArgumentException(
+                "The number of replicas of " + tp + " can't be changed by overlay");
+          for (var i = 0; i < origin.size(); i++) {
+            var before = origin.get(i);
+            var after = replicas.get(i);
+            if (before == after) continue;
+            replaced.put(before, after);
+            if (before.nodeInfo().id() != after.nodeInfo().id())
+              movedIn
+                  .computeIfAbsent(after.nodeInfo().id(), ignored -> new ArrayList<>())
+                  .add(after);
+          }
+        });
+    this.changedTopics =
+        this.changes.keySet().stream()
+            .map(TopicPartition::topic)
+            .collect(Collectors.toUnmodifiableSet());
+    this.all =
+        Lazy.of(() -> replace(base.replicaStream()).collect(Collectors.toUnmodifiableList()));
+    this.topicPartitionReplicas =
+        Lazy.of(
+            () ->
+                replicaStream()
+                    .map(Replica::topicPartitionReplica)
+                    .collect(Collectors.toUnmodifiableSet()));
+  }
+
+  /**
+   * @return the base of this overlay
+   */
+  ClusterInfo base() {
+    return base;
+  }
+
+  /**
+   * @return the partitions which might be changed from base
+   */
+  Set<TopicPartition> changedPartitions() {
+    return changes.keySet();
+  }
+
+  private Stream<Replica> replace(Stream<Replica> replicas) {
+    if (replaced.isEmpty()) return replicas;
+    return replicas.map(r -> replaced.getOrDefault(r, r));
+  }
+
+  @Override
+  public Stream<Replica> replicaStream(String topic) {
+    if (!changedTopics.contains(topic)) return base.replicaStream(topic);
+    return replace(base.replicaStream(topic));
+  }
+
+  @Override
+  public Stream<Replica> replicaStream(TopicPartition partition) {
+    var changed = changes.get(partition);
+    if (changed != null) return changed.stream();
+    return base.replicaStream(partition);
+  }
+
+  @Override
+  public Stream<Replica> replicaStream(TopicPartitionReplica replica) {
+    if (!changes.containsKey(replica.topicPartition())) return base.replicaStream(replica);
+    return replicaStream(replica.topicPartition())
+        .filter(r -> r.nodeInfo().id() == replica.brokerId());
+  }
+
+  @Override
+  public Stream<Replica> replicaStream(int broker) {
+    var stayed = replace(base.replicaStream(broker)).filter(r -> r.nodeInfo().id() == broker);
+    var moved = movedIn.getOrDefault(broker, List.of());
+    return moved.isEmpty() ? stayed : Stream.concat(stayed, moved.stream());
+  }
+
+  @Override
+  public Stream<Replica> replicaStream(BrokerTopic brokerTopic) {
+    if (!changedTopics.contains(brokerTopic.topic())) return base.replicaStream(brokerTopic);
+    var stayed =
+        replace(base.replicaStream(brokerTopic))
+            .filter(r -> r.nodeInfo().id() == brokerTopic.broker());
+    var moved =
+        movedIn.getOrDefault(brokerTopic.broker(), List.of()).stream()
+            .filter(r -> r.topic().equals(brokerTopic.topic()));
+    return Stream.concat(stayed, moved);
+  }
+
+  @Override
+  public Set<TopicPartition> topicPartitions() {
+    return base.topicPartitions();
+  }
+
+  @Override
+  public Set<TopicPartitionReplica> topicPartitionReplicas() {
+    if (changes.isEmpty()) return base.topicPartitionReplicas();
+    return topicPartitionReplicas.get();
+  }
+
+  @Override
+  public String clusterId() {
+    return base.clusterId();
+  }
+
+  @Override
+  public Set<String> topicNames() {
+    return base.topicNames();
+  }
+
+  @Override
+  public List<NodeInfo> nodes() {
+    return base.nodes();
+  }
+
+  @Override
+  public Stream<Replica> replicaStream() {
+    return all.get().stream();
+  }
+
+  @Override
+  public Map<String, Topic> topics() {
+    return base.topics();
+  }
+
+  @Override
+  public List<Replica> replicas() {
+    return all.get();
+  }
+
+  @Override
+  public List<Replica> replicas(TopicPartition topicPartition) {
+    var changed = changes.get(topicPartition);
+    if (changed != null) return changed;
+    return base.replicas(topicPartition);
+  }
+}
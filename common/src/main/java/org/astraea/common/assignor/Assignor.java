@@ -16,16 +16,13 @@
  */
 package org.astraea.common.assignor;
 
-import java.util.Collections;
-import java.util.HashMap;
+import java.time.Duration;
 import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Optional;
-import java.util.concurrent.CompletionStage;
 import java.util.function.BiConsumer;
 import java.util.function.Function;
-import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import org.apache.kafka.clients.consumer.ConsumerPartitionAssignor;
 import org.apache.kafka.common.Cluster;
@@ -34,20 +31,23 @@ import org.astraea.common.Configuration;
 import org.astraea.common.Utils;
 import org.astraea.common.admin.Admin;
 import org.astraea.common.admin.ClusterInfo;
+import org.astraea.common.admin.ClusterInfoCache;
 import org.astraea.common.admin.NodeInfo;
 import org.astraea.common.admin.TopicPartition;
 import org.astraea.common.consumer.ConsumerConfigs;
 import org.astraea.common.cost.HasPartitionCost;
 import org.astraea.common.cost.ReplicaLeaderSizeCost;
-import org.astraea.common.metrics.JndiClient;
-import org.astraea.common.metrics.MBeanClient;
 import org.astraea.common.metrics.collector.MetricStore;
+import org.astraea.common.metrics.collector.SharedMetricStore;
 import org.astraea.common.partitioner.PartitionerUtils;
 
 /** Abstract assignor implementation which does some common work (e.g., configuration). */
 public abstract class Assignor implements ConsumerPartitionAssignor, Configurable {
   public static final String COST_PREFIX = "assignor.cost";
   public static final String JMX_PORT = "jmx.port";
+  private static final Duration CLUSTER_INFO_LEASE = Duration.ofSeconds(15);
+  // the max time to wait for the sizes of new topics
+  private static final Duration FIRST_SNAPSHOT_TIMEOUT = Duration.ofSeconds(5);
   Function<Integer, Integer> jmxPortGetter =
       (id) -> {
         throw new NoSuchElementException("must define either broker.x.jmx.port or jmx.port");
@@ -59,12 +59,13 @@ public abstract class Assignor implements ConsumerPartitionAssignor, Configurabl
   protected MetricStore metricStore = null;
 
   protected Admin admin = null;
+  ClusterInfoCache clusterInfoCache = null;
 
   /**
    * Perform the group assignment given the member subscriptions and current cluster metadata.
    *
    * @param subscriptions Map from the member id to their respective topic subscription.
-   * @param clusterInfo Current cluster information fetched by admin.
+   * @param clusterInfo Current cluster information of the subscribed topics.
    * @return Map from each member to the list of partitions assigned to them.
    */
   protected abstract Map<String, List<TopicPartition>> assign(
@@ -94,24 +95,36 @@ public abstract class Assignor implements ConsumerPartitionAssignor, Configurabl
   }
 
   /**
-   * update cluster information
+   * Build the cluster info of subscribed topics. It does not wait for the admin, so the rebalance
+   * latency does not grow with the size of cluster, except for the new topics. The sizes of new
+   * topics are unknown until they are fetched, so the assignment waits for them at most {@link
+   * #FIRST_SNAPSHOT_TIMEOUT}. If the admin is too slow, the new topics are assigned with zero size.
    *
+   * @param metadata the metadata of consumer
+   * @param subscriptions the subscriptions of consumers
    * @return cluster information
    */
-  private ClusterInfo updateClusterInfo() {
-    return admin.topicNames(false).thenCompose(admin::clusterInfo).toCompletableFuture().join();
+  private ClusterInfo clusterInfo(Cluster metadata, Map<String, SubscriptionInfo> subscriptions) {
+    subscriptions.values().forEach(s -> clusterInfoCache.track(s.topics()));
+    clusterInfoCache.tryToUpdate();
+    if (!clusterInfoCache.awaitTrackedTopics(FIRST_SNAPSHOT_TIMEOUT))
+      System.err.printf(
+          "The sizes of subscribed topics are not fetched in %s, so they are assigned with zero"
+              + " size%n",
+          FIRST_SNAPSHOT_TIMEOUT);
+    return clusterInfoCache.clusterInfo(metadata);
   }
 
   // -----------------------[kafka method]-----------------------//
 
   @Override
   public final GroupAssignment assign(Cluster metadata, GroupSubscription groupSubscription) {
-    var clusterInfo = updateClusterInfo();
     // convert Kafka's data structure to ours
     var subscriptionsPerMember = GroupSubscriptionInfo.from(groupSubscription).groupSubscription();
+    var clusterInfo = clusterInfo(metadata, subscriptionsPerMember);
 
-    // TODO: Detected if consumers subscribed to the same topics.
-    // For now, assume that the consumers only subscribed to identical topics
+    // the consumers may subscribe to different topics, so the implementation should assign the
+    // partitions only to the consumers subscribing to them (see CostAwareAssignor)
 
     return new GroupAssignment(
         assign(subscriptionsPerMember, clusterInfo).entrySet().stream()
@@ -139,6 +152,7 @@ public abstract class Assignor implements ConsumerPartitionAssignor, Configurabl
                 () ->
                     new IllegalArgumentException(
                         ConsumerConfigs.BOOTSTRAP_SERVERS_CONFIG + " must be defined"));
+    clusterInfoCache = ClusterInfoCache.of(admin, CLUSTER_INFO_LEASE);
     var costFunctions =
         Utils.costFunctions(
             config.filteredPrefixConfigs(COST_PREFIX).raw(), HasPartitionCost.class, config);
@@ -154,31 +168,17 @@ public abstract class Assignor implements ConsumerPartitionAssignor, Configurabl
                 .or(() -> defaultJMXPort)
                 .orElseThrow(
                     () -> new NoSuchElementException("failed to get jmx port for broker: " + id));
-    Supplier<CompletionStage<Map<Integer, MBeanClient>>> clientSupplier =
-        () ->
-            admin
-                .brokers()
-                .thenApply(
-                    brokers -> {
-                      var map = new HashMap<Integer, JndiClient>();
-                      brokers.forEach(
-                          b ->
-                              map.put(
-                                  b.id(), JndiClient.of(b.host(), jmxPortGetter.apply(b.id()))));
-                      // add local client to fetch consumer metrics
-                      map.put(-1, JndiClient.local());
-                      return Collections.unmodifiableMap(map);
-                    });
+    // the assignors of the same cluster share the metric store
     metricStore =
-        MetricStore.builder()
-            .localReceiver(clientSupplier)
-            .sensorsSupplier(
-                () ->
-                    this.costFunction
-                        .metricSensor()
-                        .map(s -> Map.of(s, (BiConsumer<Integer, Exception>) (integer, e) -> {}))
-                        .orElse(Map.of()))
-            .build();
+        SharedMetricStore.of(
+            config.string(ConsumerConfigs.BOOTSTRAP_SERVERS_CONFIG),
+            defaultJMXPort,
+            customJMXPort,
+            () ->
+                this.costFunction
+                    .metricSensor()
+                    .map(s -> Map.of(s, (BiConsumer<Integer, Exception>) (integer, e) -> {}))
+                    .orElse(Map.of()));
     configure(config);
   }
 }
@@ -0,0 +1,296 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.astraea.common.assignor;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Collectors;
+import org.apache.kafka.clients.consumer.ConsumerGroupMetadata;
+import org.astraea.common.Configuration;
+import org.astraea.common.admin.ClusterInfo;
+import org.astraea.common.admin.TopicPartition;
+import org.astraea.common.consumer.ConsumerConfigs;
+import org.astraea.common.cost.NoSufficientMetricsException;
+
+/**
+ * This assignor balances the load of consumers. The load of a partition is the sum of its share of
+ * total partition cost, which is computed by the cost functions (the default cost function is
+ * {@link org.astraea.common.cost.ReplicaLeaderSizeCost}), and its share of total consumer lag. The
+ * partitions are assigned from the heaviest one to the consumer having the lowest load among the
+ * consumers subscribing to the topic, so the consumers are allowed to subscribe to different
+ * topics.
+ *
+ * <p>A partition is kept by its previous owner if moving it to the lightest consumer saves less
+ * than `move.threshold` (default 0.1) of the average load of consumers. The eager protocol doesn't
+ * report the owned partitions, so each consumer carries its last assignment by the user data of
+ * subscription. The weight of lag is defined by `lag.weight` (default 1). The lag is computed by
+ * the committed offsets of `group.id`, so it is ignored if the group id is not defined or the
+ * offsets are not fetched in `lag.timeout` (default 3s).
+ */
+public class CostAwareAssignor extends Assignor {
+  public static final String LAG_WEIGHT_KEY = "lag.weight";
+  public static final String MOVE_THRESHOLD_KEY = "move.threshold";
+  public static final String LAG_TIMEOUT_KEY = "lag.timeout";
+
+  /** The key of user data carrying the partitions assigned by last rebalance. */
+  static final String OWNED_PARTITIONS_KEY = "owned.partitions";
+
+  double lagWeight = 1;
+  double moveThreshold = 0.1;
+  Duration lagTimeout = Duration.ofSeconds(3);
+  Optional<String> groupId = Optional.empty();
+
+  // the partitions assigned to this consumer by last rebalance
+  private volatile List<TopicPartition> assigned = List.of();
+
+  @Override
+  protected void configure(Configuration config) {
+    this.groupId = config.string(ConsumerConfigs.GROUP_ID_CONFIG);
+    config.string(LAG_WEIGHT_KEY).map(Double::parseDouble).ifPresent(w -> this.lagWeight = w);
+    config
+        .string(MOVE_THRESHOLD_KEY)
+        .map(Double::parseDouble)
+        .ifPresent(t -> this.moveThreshold = t);
+    config.duration(LAG_TIMEOUT_KEY).ifPresent(t -> this.lagTimeout = t);
+    if (lagWeight < 0)
+      throw new IllegalArgumentException(LAG_WEIGHT_KEY + " should not be negative");
+    if (moveThreshold < 0)
+      throw new IllegalArgumentException(MOVE_THRESHOLD_KEY + " should not be negative");
+  }
+
+  @Override
+  protected Map<String, List<TopicPartition>> assign(
+      Map<String, SubscriptionInfo> subscriptions, ClusterInfo clusterInfo) {
+    var topics =
+        subscriptions.values().stream()
+            .flatMap(s -> s.topics().stream())
+            .collect(Collectors.toUnmodifiableSet());
+    var partitions =
+        clusterInfo.topicPartitions().stream()
+            .filter(tp -> topics.contains(tp.topic()))
+            .collect(Collectors.toUnmodifiableSet());
+    var lags = lagWeight > 0 ? lags(partitions) : Map.<TopicPartition, Long>of();
+    return balance(
+        subscriptions, loads(partitions, costs(clusterInfo), lags, lagWeight), moveThreshold);
+  }
+
+  /**
+   * @return the cost of partitions, or empty if there is no sufficient metrics
+   */
+  private Map<TopicPartition, Double> costs(ClusterInfo clusterInfo) {
+    try {
+      return costFunction.partitionCost(clusterInfo, metricStore.clusterBean()).value();
+    } catch (NoSufficientMetricsException e) {
+      // balance the partitions by lag (or the number of partitions) until the metrics are ready
+      return Map.of();
+    }
+  }
+
+  /**
+   * @return the lag of partitions, or empty if the group id is not defined or the offsets are not
+   *     fetched in time
+   */
+  private Map<TopicPartition, Long> lags(Set<TopicPartition> partitions) {
+    if (groupId.isEmpty() || partitions.isEmpty()) return Map.of();
+    var lags =
+        admin
+            .consumerGroups(Set.of(groupId.get()))
+            .thenCompose(
+                groups -> {
+                  var committed =
+                      groups.stream()
+                          .flatMap(g -> g.consumeProgress().entrySet().stream())
+                          .filter(e -> partitions.contains(e.getKey()))
+                          .collect(
+                              Collectors.toUnmodifiableMap(
+                                  Map.Entry::getKey, Map.Entry::getValue));
+                  if (committed.isEmpty())
+                    return CompletableFuture.completedFuture(Map.<TopicPartition, Long>of());
+                  return admin
+                      .latestOffsets(committed.keySet())
+                      .thenApply(latest -> lags(committed, latest));
+                })
+            .toCompletableFuture();
+    try {
+      return lags.get(lagTimeout.toMillis(), TimeUnit.MILLISECONDS);
+    } catch (TimeoutException | ExecutionException e) {
+      // the rebalance can't wait for the admin, so the partitions are balanced by cost only
+      return Map.of();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return Map.of();
+    }
+  }
+
+  private static Map<TopicPartition, Long> lags(
+      Map<TopicPartition, Long> committed, Map<TopicPartition, Long> latest) {
+    return latest.entrySet().stream()
+        .collect(
+            Collectors.toUnmodifiableMap(
+                Map.Entry::getKey, e -> Math.max(0, e.getValue() - committed.get(e.getKey()))));
+  }
+
+  /**
+   * Normalize the cost and lag of partitions to their shares of total, and sum them up by the
+   * weight of lag. If there is neither cost nor lag, all partitions have the same load.
+   *
+   * @return the load of each partition
+   */
+  static Map<TopicPartition, Double> loads(
+      Set<TopicPartition> partitions,
+      Map<TopicPartition, Double> costs,
+      Map<TopicPartition, Long> lags,
+      double lagWeight) {
+    var totalCost =
+        partitions.stream().mapToDouble(tp -> Math.max(0, costs.getOrDefault(tp, 0D))).sum();
+    var totalLag = partitions.stream().mapToLong(tp -> lags.getOrDefault(tp, 0L)).sum();
+    var useLag = lagWeight > 0 && totalLag > 0;
+    if (totalCost <= 0 && !useLag)
+      return partitions.stream().collect(Collectors.toUnmodifiableMap(tp -> tp, tp -> 1D));
+    return partitions.stream()
+        .collect(
+            Collectors.toUnmodifiableMap(
+                tp -> tp,
+                tp -> {
+                  var load =
+                      totalCost <= 0 ? 0 : Math.max(0, costs.getOrDefault(tp, 0D)) / totalCost;
+                  if (useLag) load += lagWeight * lags.getOrDefault(tp, 0L) / totalLag;
+                  return load;
+                }));
+  }
+
+  /**
+   * Assign the partitions from the heaviest one to the consumer having the lowest load. The
+   * partitions of the topics subscribed by fewer consumers are assigned first. The partition stays
+   * at its previous owner if the owner still subscribes to the topic and the owner is heavier than
+   * the lightest consumer by less than the threshold.
+   *
+   * @param subscriptions the subscriptions of consumers
+   * @param loads the load of partitions to assign
+   * @param moveThreshold the ratio of the average load of consumers
+   * @return the assignments of consumers
+   */
+  static Map<String, List<TopicPartition>> balance(
+      Map<String, SubscriptionInfo> subscriptions,
+      Map<TopicPartition, Double> loads,
+      double moveThreshold) {
+    var assignments = new HashMap<String, List<TopicPartition>>();
+    var consumerLoads = new HashMap<String, Double>();
+    var subscribers = new HashMap<String, Set<String>>();
+    var owners = new HashMap<TopicPartition, String>();
+    subscriptions.forEach(
+        (consumer, subscription) -> {
+          assignments.put(consumer, new ArrayList<>());
+          consumerLoads.put(consumer, 0D);
+          subscription
+              .topics()
+              .forEach(
+                  topic ->
+                      subscribers.computeIfAbsent(topic, ignored -> new TreeSet<>()).add(consumer));
+          ownedPartitions(subscription).forEach(tp -> owners.putIfAbsent(tp, consumer));
+        });
+    if (subscriptions.isEmpty()) return assignments;
+
+    var threshold =
+        moveThreshold * loads.values().stream().mapToDouble(v -> v).sum() / subscriptions.size();
+    Comparator<String> lightest =
+        Comparator.<String>comparingDouble(consumerLoads::get)
+            .thenComparingInt(c -> assignments.get(c).size());
+    // the partitions having fewer candidates are assigned first, since they have fewer choices
+    loads.entrySet().stream()
+        .sorted(
+            Comparator.<Map.Entry<TopicPartition, Double>>comparingInt(
+                    e -> subscribers.getOrDefault(e.getKey().topic(), Set.of()).size())
+                .thenComparing(Map.Entry.<TopicPartition, Double>comparingByValue().reversed())
+                .thenComparing(Map.Entry.comparingByKey()))
+        .forEach(
+            e -> {
+              var candidates = subscribers.getOrDefault(e.getKey().topic(), Set.of());
+              if (candidates.isEmpty()) return;
+              var target = candidates.stream().min(lightest).get();
+              var owner = owners.get(e.getKey());
+              if (owner != null
+                  && candidates.contains(owner)
+                  && consumerLoads.get(owner) - consumerLoads.get(target) <= threshold)
+                target = owner;
+              assignments.get(target).add(e.getKey());
+              consumerLoads.merge(target, e.getValue(), Double::sum);
+            });
+    return assignments;
+  }
+
+  /**
+   * @return the partitions owned by the consumer. The eager protocol doesn't report the owned
+   *     partitions, so they are read from the user data
+   */
+  static List<TopicPartition> ownedPartitions(SubscriptionInfo subscription) {
+    if (!subscription.ownedPartitions().isEmpty()) return subscription.ownedPartitions();
+    return Optional.ofNullable(subscription.userData())
+        .map(userData -> userData.get(OWNED_PARTITIONS_KEY))
+        .map(
+            value ->
+                Arrays.stream(value.split(";"))
+                    .map(TopicPartition::of)
+                    .collect(Collectors.toUnmodifiableList()))
+        .orElse(List.of());
+  }
+
+  /**
+   * @return the user data in the format of {@link SubscriptionInfo#userData()}, or null if there
+   *     is no assigned partitions
+   */
+  static ByteBuffer userData(List<TopicPartition> partitions) {
+    if (partitions.isEmpty()) return null;
+    var value =
+        OWNED_PARTITIONS_KEY
+            + "="
+            + partitions.stream().map(TopicPartition::toString).collect(Collectors.joining(";"));
+    return ByteBuffer.wrap(value.getBytes(StandardCharsets.UTF_8));
+  }
+
+  @Override
+  public ByteBuffer subscriptionUserData(Set<String> topics) {
+    return userData(assigned);
+  }
+
+  @Override
+  public void onAssignment(Assignment assignment, ConsumerGroupMetadata metadata) {
+    assigned =
+        assignment.partitions().stream()
+            .map(TopicPartition::from)
+            .collect(Collectors.toUnmodifiableList());
+  }
+
+  @Override
+  public String name() {
+    return "cost-aware";
+  }
+}
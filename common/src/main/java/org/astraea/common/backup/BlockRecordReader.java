@@ -0,0 +1,165 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.astraea.common.backup;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.function.Predicate;
+import org.astraea.common.Utils;
+import org.astraea.common.consumer.Record;
+
+/**
+ * The reader skips the blocks by their index, so the blocks out of the ranges or before the seek
+ * position are not decompressed. If the source is able to rewind, seeking backward is supported.
+ */
+final class BlockRecordReader implements RecordReader {
+
+  /** The blocks of a backup file. */
+  interface Source extends AutoCloseable {
+
+    /**
+     * @return the index of next block, or empty if there is no more blocks
+     */
+    Optional<RecordBlock.Index> next() throws IOException;
+
+    /**
+     * @return the records of the block returned by {@link #next()}
+     */
+    List<Record<byte[], byte[]>> records() throws IOException;
+
+    /** Skip the block returned by {@link #next()} */
+    void skip() throws IOException;
+
+    /**
+     * Move to the first block.
+     *
+     * @return false if this source can't move backward
+     */
+    boolean rewind();
+
+    @Override
+    void close();
+  }
+
+  /** The range is [from, to). */
+  record Range(long from, long to) {
+    static final Range ALL = new Range(Long.MIN_VALUE, Long.MAX_VALUE);
+
+    boolean contains(long value) {
+      return value >= from && value < to;
+    }
+
+    boolean overlaps(long min, long max) {
+      return min < to && max >= from;
+    }
+  }
+
+  private final Source source;
+  private final Range offsets;
+  private final Range timestamps;
+  private Iterator<Record<byte[], byte[]>> current = Collections.emptyIterator();
+  private Record<byte[], byte[]> next = null;
+  private boolean end = false;
+
+  // the blocks and records are skipped until the first record matching the seek
+  private Predicate<RecordBlock.Index> seekBlock = null;
+  private Predicate<Record<byte[], byte[]>> seekRecord = null;
+
+  BlockRecordReader(Source source, Range offsets, Range timestamps) {
+    this.source = source;
+    this.offsets = offsets;
+    this.timestamps = timestamps;
+  }
+
+  @Override
+  public boolean hasNext() {
+    while (next == null && !end) {
+      if (current.hasNext()) {
+        var record = current.next();
+        if (seekRecord != null) {
+          if (!seekRecord.test(record)) continue;
+          seekBlock = null;
+          seekRecord = null;
+        }
+        if (offsets.contains(record.offset()) && timestamps.contains(record.timestamp()))
+          next = record;
+        continue;
+      }
+      Utils.packException(
+          () -> {
+            var index = source.next();
+            if (index.isEmpty()) {
+              end = true;
+              source.close();
+            } else if (skip(index.get())) source.skip();
+            else current = source.records().iterator();
+          });
+    }
+    return next != null;
+  }
+
+  private boolean skip(RecordBlock.Index index) {
+    return !offsets.overlaps(index.minOffset(), index.maxOffset())
+        || !timestamps.overlaps(index.minTimestamp(), index.maxTimestamp())
+        || (seekBlock != null && seekBlock.test(index));
+  }
+
+  @Override
+  public Record<byte[], byte[]> next() {
+    if (hasNext()) {
+      var record = next;
+      next = null;
+      return record;
+    }
+    throw new NoSuchElementException("RecordReader has no more elements.");
+  }
+
+  @Override
+  public void seek(long offset) {
+    seek(index -> index.maxOffset() < offset, record -> record.offset() >= offset);
+  }
+
+  @Override
+  public void seekToTimestamp(long timestamp) {
+    seek(index -> index.maxTimestamp() < timestamp, record -> record.timestamp() >= timestamp);
+  }
+
+  private void seek(
+      Predicate<RecordBlock.Index> seekBlock, Predicate<Record<byte[], byte[]>> seekRecord) {
+    if (source.rewind()) {
+      current = Collections.emptyIterator();
+      next = null;
+      end = false;
+    } else if (next != null) {
+      // the record is not returned yet, so it is a candidate of seek
+      if (seekRecord.test(next)) return;
+      next = null;
+    }
+    this.seekBlock = seekBlock;
+    this.seekRecord = seekRecord;
+  }
+
+  @Override
+  public void close() {
+    end = true;
+    source.close();
+  }
+}
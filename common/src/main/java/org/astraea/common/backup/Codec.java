@@ -0,0 +1,132 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.astraea.common.backup;
+
+import com.github.luben.zstd.ZstdInputStreamNoFinalizer;
+import com.github.luben.zstd.ZstdOutputStreamNoFinalizer;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import net.jpountz.lz4.LZ4FrameInputStream;
+import net.jpountz.lz4.LZ4FrameOutputStream;
+import org.astraea.common.EnumInfo;
+import org.xerial.snappy.SnappyInputStream;
+import org.xerial.snappy.SnappyOutputStream;
+
+/** The codecs used to compress the blocks of backup file. The id is written to the block header. */
+enum Codec implements EnumInfo {
+  NONE((byte) 0) {
+    @Override
+    OutputStream wrap(OutputStream output) {
+      return output;
+    }
+
+    @Override
+    InputStream wrap(InputStream input) {
+      return input;
+    }
+  },
+  GZIP((byte) 1) {
+    @Override
+    OutputStream wrap(OutputStream output) throws IOException {
+      return new GZIPOutputStream(output, BUFFER_SIZE);
+    }
+
+    @Override
+    InputStream wrap(InputStream input) throws IOException {
+      return new GZIPInputStream(input, BUFFER_SIZE);
+    }
+  },
+  SNAPPY((byte) 2) {
+    @Override
+    OutputStream wrap(OutputStream output) {
+      return new SnappyOutputStream(output);
+    }
+
+    @Override
+    InputStream wrap(InputStream input) throws IOException {
+      return new SnappyInputStream(input);
+    }
+  },
+  LZ4((byte) 3) {
+    @Override
+    OutputStream wrap(OutputStream output) throws IOException {
+      return new LZ4FrameOutputStream(output);
+    }
+
+    @Override
+    InputStream wrap(InputStream input) throws IOException {
+      return new LZ4FrameInputStream(input);
+    }
+  },
+  ZSTD((byte) 4) {
+    @Override
+    OutputStream wrap(OutputStream output) throws IOException {
+      return new ZstdOutputStreamNoFinalizer(output);
+    }
+
+    @Override
+    InputStream wrap(InputStream input) throws IOException {
+      return new ZstdInputStreamNoFinalizer(input);
+    }
+  };
+
+  private static final int BUFFER_SIZE = 8 * 1024;
+
+  static Codec ofAlias(String alias) {
+    return EnumInfo.ignoreCaseEnum(Codec.class, alias);
+  }
+
+  static Codec of(byte id) {
+    return Arrays.stream(values())
+        .filter(c -> c.id == id)
+        .findFirst()
+        .orElseThrow(() -> new IllegalArgumentException("unknown codec id: " + id));
+  }
+
+  final byte id;
+
+  Codec(byte id) {
+    this.id = id;
+  }
+
+  /**
+   * @param output to write the compressed bytes
+   * @return the stream compressing the written bytes. Closing it finishes the compression and
+   *     closes the output
+   */
+  abstract OutputStream wrap(OutputStream output) throws IOException;
+
+  /**
+   * @param input to read the compressed bytes
+   * @return the stream decompressing the bytes of input
+   */
+  abstract InputStream wrap(InputStream input) throws IOException;
+
+  @Override
+  public String alias() {
+    return name().toLowerCase();
+  }
+
+  @Override
+  public String toString() {
+    return alias();
+  }
+}
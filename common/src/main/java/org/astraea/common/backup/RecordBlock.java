@@ -0,0 +1,453 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.astraea.common.backup;
+
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.CodedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import org.astraea.common.Header;
+import org.astraea.common.Utils;
+import org.astraea.common.consumer.Record;
+
+/**
+ * The block of records used by the version 1 of backup files. The layout of file is shown below.
+ *
+ * <pre>
+ * version (short)
+ * block*: BLOCK (byte), count (int), min/max offset (long), min/max timestamp (long),
+ *         codec (byte), raw size (int), compressed size (int), compressed records
+ * footer: INDEX (byte), count (int), [position (long), size (int), count (int),
+ *         min/max offset (long), min/max timestamp (long)]*
+ * trailer: position of footer (long), MAGIC (int)
+ * </pre>
+ *
+ * The records of a block are compressed together. The topic name is written only by the first
+ * record of the topic in the block, and the offset and timestamp are written as the delta from the
+ * previous record. The integers of records are written as the varints of protobuf, and the signed
+ * ones are zigzag encoded.
+ */
+final class RecordBlock {
+  static final byte BLOCK = 1;
+  static final byte INDEX = 0;
+  static final int MAGIC = 0x41535452;
+  static final int HEADER_SIZE = Byte.BYTES * 2 + Integer.BYTES * 3 + Long.BYTES * 4;
+  static final int TRAILER_SIZE = Long.BYTES + Integer.BYTES;
+  // the buffer of encoded records before they are passed to the compression stream
+  private static final int ENCODE_BUFFER_SIZE = 8 * 1024;
+
+  /**
+   * The metadata of block. It is also the entry of footer index.
+   *
+   * @param position the position of block in the file
+   * @param size the size of block in the file
+   */
+  record Index(
+      long position,
+      int size,
+      int count,
+      long minOffset,
+      long maxOffset,
+      long minTimestamp,
+      long maxTimestamp) {
+
+    void write(DataOutput output) throws IOException {
+      output.writeLong(position);
+      output.writeInt(size);
+      output.writeInt(count);
+      output.writeLong(minOffset);
+      output.writeLong(maxOffset);
+      output.writeLong(minTimestamp);
+      output.writeLong(maxTimestamp);
+    }
+
+    static Index read(DataInput input) throws IOException {
+      return new Index(
+          input.readLong(),
+          input.readInt(),
+          input.readInt(),
+          input.readLong(),
+          input.readLong(),
+          input.readLong(),
+          input.readLong());
+    }
+  }
+
+  /**
+   * Collect the records of a block and write them to output in compressed form. The records are
+   * encoded by a {@link CodedOutputStream}, which passes its buffer to the compression stream when
+   * the buffer is full, so the compression stream gets a few large writes.
+   */
+  static final class Encoder {
+    private final Codec codec;
+    // it grows with the compressed records instead of being allocated by the block size, so the
+    // writers of small partitions hold small buffers
+    private final Buffer buffer = new Buffer();
+    private final Map<String, Integer> topics = new HashMap<>();
+    private OutputStream records;
+    private CodedOutputStream coded;
+    private int count;
+    private long minOffset;
+    private long maxOffset;
+    private long minTimestamp;
+    private long maxTimestamp;
+    private long previousOffset;
+    private long previousTimestamp;
+
+    Encoder(Codec codec) {
+      this.codec = codec;
+      reset();
+    }
+
+    private void reset() {
+      buffer.reset();
+      records = Utils.packException(() -> codec.wrap(buffer));
+      coded = CodedOutputStream.newInstance(records, ENCODE_BUFFER_SIZE);
+      topics.clear();
+      count = 0;
+      minOffset = Long.MAX_VALUE;
+      maxOffset = Long.MIN_VALUE;
+      minTimestamp = Long.MAX_VALUE;
+      maxTimestamp = Long.MIN_VALUE;
+      previousOffset = 0;
+      previousTimestamp = 0;
+    }
+
+    void append(Record<byte[], byte[]> record) throws IOException {
+      var topicIndex = topics.get(record.topic());
+      coded.writeUInt32NoTag(topicIndex == null ? topics.size() : topicIndex);
+      if (topicIndex == null) {
+        coded.writeStringNoTag(record.topic());
+        topics.put(record.topic(), topics.size());
+      }
+      coded.writeSInt32NoTag(record.partition());
+      coded.writeSInt64NoTag(record.offset() - previousOffset);
+      coded.writeSInt64NoTag(record.timestamp() - previousTimestamp);
+      writeBytes(record.key(), coded);
+      writeBytes(record.value(), coded);
+      var headers = record.headers();
+      coded.writeUInt32NoTag(headers.size());
+      for (var header : headers) {
+        coded.writeStringNoTag(header.key());
+        writeBytes(header.value(), coded);
+      }
+
+      previousOffset = record.offset();
+      previousTimestamp = record.timestamp();
+      minOffset = Math.min(minOffset, record.offset());
+      maxOffset = Math.max(maxOffset, record.offset());
+      minTimestamp = Math.min(minTimestamp, record.timestamp());
+      maxTimestamp = Math.max(maxTimestamp, record.timestamp());
+      count++;
+    }
+
+    /**
+     * @return the number of records in this block
+     */
+    int count() {
+      return count;
+    }
+
+    /**
+     * @return the size of uncompressed records
+     */
+    int size() {
+      return coded.getTotalBytesWritten();
+    }
+
+    /**
+     * Compress the records to output, and then this encoder is ready for next block.
+     *
+     * @param output to write
+     * @param position the position of output
+     * @return the index of written block
+     */
+    Index write(DataOutput output, long position) throws IOException {
+      var rawSize = size();
+      coded.flush();
+      records.close();
+      var index =
+          new Index(
+              position,
+              HEADER_SIZE + buffer.size(),
+              count,
+              minOffset,
+              maxOffset,
+              minTimestamp,
+              maxTimestamp);
+      output.writeByte(BLOCK);
+      output.writeInt(count);
+      output.writeLong(minOffset);
+      output.writeLong(maxOffset);
+      output.writeLong(minTimestamp);
+      output.writeLong(maxTimestamp);
+      output.writeByte(codec.id);
+      output.writeInt(rawSize);
+      output.writeInt(buffer.size());
+      buffer.writeTo(output);
+      reset();
+      return index;
+    }
+  }
+
+  /**
+   * The buffer of compressed records. It is reused by the blocks, and closing it does nothing, so
+   * the compression stream can be closed to finish the block.
+   */
+  private static final class Buffer extends ByteArrayOutputStream {
+
+    private void writeTo(DataOutput output) throws IOException {
+      output.write(buf, 0, count);
+    }
+  }
+
+  /**
+   * Read the blocks from a stream one by one. The header of block is read first, and then the
+   * caller can decide to decompress the records or to skip the block.
+   */
+  static final class Decoder implements AutoCloseable {
+    private final DataInputStream input;
+    private long position;
+    private Index current;
+    private Codec codec;
+    private int rawSize;
+    // the compressed bytes are decompressed at once, so the buffer is reused by the blocks
+    private byte[] compressed = new byte[0];
+
+    /**
+     * @param input to read
+     * @param position the position of input in the file
+     */
+    Decoder(InputStream input, long position) {
+      this.input = new DataInputStream(input);
+      this.position = position;
+    }
+
+    /**
+     * @return the position of next block
+     */
+    long position() {
+      return position;
+    }
+
+    /**
+     * Read the header of next block. The records of previous block get skipped if they are not
+     * read.
+     *
+     * @return the index of next block, or empty if the stream reaches the footer or EOF
+     */
+    Optional<Index> next() throws IOException {
+      if (current != null) skip();
+      // EOF happens if the file is not closed yet
+      if (input.read() != BLOCK) return Optional.empty();
+      var count = input.readInt();
+      var minOffset = input.readLong();
+      var maxOffset = input.readLong();
+      var minTimestamp = input.readLong();
+      var maxTimestamp = input.readLong();
+      codec = Codec.of(input.readByte());
+      rawSize = input.readInt();
+      var compressedSize = input.readInt();
+      current =
+          new Index(
+              position,
+              HEADER_SIZE + compressedSize,
+              count,
+              minOffset,
+              maxOffset,
+              minTimestamp,
+              maxTimestamp);
+      return Optional.of(current);
+    }
+
+    /**
+     * @return the records of the block returned by {@link #next()}
+     */
+    List<Record<byte[], byte[]>> records() throws IOException {
+      var compressedSize = current.size - HEADER_SIZE;
+      var count = current.count;
+      position += current.size;
+      current = null;
+      // the records are views of raw bytes, so a new array is required by each block
+      var raw = new byte[rawSize];
+      if (codec == Codec.NONE) {
+        input.readFully(raw);
+        return decode(raw, count);
+      }
+      if (compressed.length < compressedSize) compressed = new byte[compressedSize];
+      input.readFully(compressed, 0, compressedSize);
+      try (var stream = codec.wrap(new ByteArrayInputStream(compressed, 0, compressedSize))) {
+        if (stream.readNBytes(raw, 0, rawSize) != rawSize)
+          throw new EOFException("the block at " + (position - compressedSize) + " is broken");
+      }
+      return decode(raw, count);
+    }
+
+    /** Skip the records of the block returned by {@link #next()} */
+    void skip() throws IOException {
+      input.skipNBytes(current.size - HEADER_SIZE);
+      position += current.size;
+      current = null;
+    }
+
+    /**
+     * Skip the bytes to the given position. It is used to skip the blocks without reading their
+     * headers.
+     *
+     * @param position to move
+     */
+    void skipTo(long position) throws IOException {
+      if (current != null) skip();
+      if (position < this.position)
+        throw new IllegalArgumentException("can't move backward to " + position);
+      input.skipNBytes(position - this.position);
+      this.position = position;
+    }
+
+    @Override
+    public void close() {
+      Utils.close(input);
+    }
+  }
+
+  /**
+   * Read the footer index following the {@link #INDEX} marker.
+   *
+   * @param input to read
+   * @return the index of all blocks
+   */
+  static List<Index> readIndexes(DataInput input) throws IOException {
+    var count = input.readInt();
+    var indexes = new ArrayList<Index>(count);
+    for (var i = 0; i < count; i++) indexes.add(Index.read(input));
+    return indexes;
+  }
+
+  /** The records keep the positions of their fields, and the bytes are copied when accessed. */
+  private static List<Record<byte[], byte[]>> decode(byte[] raw, int count) throws IOException {
+    var input = CodedInputStream.newInstance(raw);
+    var topics = new ArrayList<String>();
+    var records = new ArrayList<Record<byte[], byte[]>>(count);
+    var offset = 0L;
+    var timestamp = 0L;
+    for (var i = 0; i < count; i++) {
+      var topicIndex = input.readUInt32();
+      if (topicIndex == topics.size()) topics.add(input.readStringRequireUtf8());
+      var topic = topics.get(topicIndex);
+      var partition = input.readSInt32();
+      offset += input.readSInt64();
+      timestamp += input.readSInt64();
+      var keySize = input.readSInt32();
+      var keyOffset = skip(input, keySize);
+      var valueSize = input.readSInt32();
+      var valueOffset = skip(input, valueSize);
+      var headersOffset = input.getTotalBytesRead();
+      var headerCount = input.readUInt32();
+      for (var j = 0; j < headerCount; j++) {
+        skip(input, input.readUInt32());
+        skip(input, input.readSInt32());
+      }
+      records.add(
+          new BlockRecord(
+              topic,
+              partition,
+              offset,
+              timestamp,
+              raw,
+              keyOffset,
+              keySize,
+              valueOffset,
+              valueSize,
+              headersOffset));
+    }
+    return records;
+  }
+
+  /**
+   * @return the position of skipped bytes
+   */
+  private static int skip(CodedInputStream input, int size) throws IOException {
+    var position = input.getTotalBytesRead();
+    if (size > 0) input.skipRawBytes(size);
+    return position;
+  }
+
+  /** -1 is written for null. */
+  private static void writeBytes(byte[] value, CodedOutputStream output) throws IOException {
+    if (value == null) {
+      output.writeSInt32NoTag(-1);
+      return;
+    }
+    output.writeSInt32NoTag(value.length);
+    output.writeRawBytes(value);
+  }
+
+  private static byte[] readBytes(CodedInputStream input) throws IOException {
+    var size = input.readSInt32();
+    if (size < 0) return null;
+    return input.readRawBytes(size);
+  }
+
+  private static final class BlockRecord extends RecordView {
+    private final int headersOffset;
+
+    private BlockRecord(
+        String topic,
+        int partition,
+        long offset,
+        long timestamp,
+        byte[] buffer,
+        int keyOffset,
+        int keySize,
+        int valueOffset,
+        int valueSize,
+        int headersOffset) {
+      super(
+          topic, partition, offset, timestamp, buffer, keyOffset, keySize, valueOffset, valueSize);
+      this.headersOffset = headersOffset;
+    }
+
+    @Override
+    List<Header> decodeHeaders() {
+      return Utils.packException(
+          () -> {
+            var input =
+                CodedInputStream.newInstance(buffer, headersOffset, buffer.length - headersOffset);
+            var count = input.readUInt32();
+            if (count == 0) return List.of();
+            var headers = new ArrayList<Header>(count);
+            for (var i = 0; i < count; i++)
+              headers.add(new Header(input.readStringRequireUtf8(), readBytes(input)));
+            return List.copyOf(headers);
+          });
+    }
+  }
+
+  private RecordBlock() {}
+}
@@ -20,16 +20,60 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.InputStream;
 import java.util.Iterator;
+import java.util.function.LongFunction;
 import org.astraea.common.Utils;
 import org.astraea.common.consumer.Record;
 
-public interface RecordReader extends Iterator<Record<byte[], byte[]>> {
+public interface RecordReader extends Iterator<Record<byte[], byte[]>>, AutoCloseable {
 
   static RecordReaderBuilder builder(File file) {
-    return Utils.packException(() -> builder(new FileInputStream(file)));
+    return builder(
+        file.length(),
+        position ->
+            Utils.packException(
+                () -> {
+                  var input = new FileInputStream(file);
+                  input.getChannel().position(position);
+                  return input;
+                }));
   }
 
   static RecordReaderBuilder builder(InputStream inputStream) {
     return new RecordReaderBuilder(inputStream);
   }
+
+  /**
+   * Create a reader which is able to jump to the blocks by the footer index, so only the required
+   * bytes are read. The streams are opened by the reader, and they are closed when the reader
+   * reaches the end or is closed.
+   *
+   * @param size the size of file
+   * @param inputs open the file from the given position
+   * @return builder
+   */
+  static RecordReaderBuilder builder(long size, LongFunction<InputStream> inputs) {
+    return new RecordReaderBuilder(size, inputs);
+  }
+
+  /**
+   * Move to the first record having offset equal to or larger than the given offset. The reader
+   * built by {@link #builder(InputStream)} can't move backward, so the records returned already
+   * are not returned again.
+   *
+   * @param offset to seek
+   */
+  void seek(long offset);
+
+  /**
+   * Move to the first record having timestamp equal to or larger than the given timestamp. The
+   * reader built by {@link #builder(InputStream)} can't move backward, so the records returned
+   * already are not returned again.
+   *
+   * @param timestamp to seek
+   */
+  void seekToTimestamp(long timestamp);
+
+  /** Close the streams opened by this reader. The stream passed by caller is not closed. */
+  @Override
+  void close();
 }
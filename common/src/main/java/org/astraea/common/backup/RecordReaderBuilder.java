@@ -16,14 +16,18 @@
  */
 package org.astraea.common.backup;
 
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.WireFormat;
 import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.NoSuchElementException;
 import java.util.Optional;
 import java.util.function.Function;
-import java.util.stream.Collectors;
+import java.util.function.LongFunction;
 import java.util.zip.GZIPInputStream;
 import org.astraea.common.ByteUtils;
 import org.astraea.common.Header;
@@ -33,121 +37,341 @@ import org.astraea.common.generated.RecordOuterClass;
 
 public class RecordReaderBuilder {
 
-  private static final Function<InputStream, RecordReader> V0 =
-      inputStream ->
-          new RecordReader() {
-            private Record<byte[], byte[]> current = null;
+  // read the gap between blocks rather than opening another stream if the gap is small
+  private static final long MAX_SKIPPED_BYTES = 1024 * 1024;
 
-            @Override
-            public boolean hasNext() {
-              // Try to parse a record from the inputStream. And store the parsed record for
-              // RecordReader#next().
-              if (current == null) current = readRecord(inputStream);
+  /** There is no block in version 0, so each record is treated as a block. */
+  private static BlockRecordReader.Source v0(InputStream inputStream, boolean owned) {
+    return new BlockRecordReader.Source() {
+      private Record<byte[], byte[]> current = null;
 
-              // nextCache is null if the stream reach EOF.
-              return current != null;
-            }
+      @Override
+      public Optional<RecordBlock.Index> next() {
+        current = readRecord(inputStream);
+        if (current == null) return Optional.empty();
+        return Optional.of(
+            new RecordBlock.Index(
+                -1,
+                0,
+                1,
+                current.offset(),
+                current.offset(),
+                current.timestamp(),
+                current.timestamp()));
+      }
 
-            @Override
-            public Record<byte[], byte[]> next() {
-              if (hasNext()) {
-                var next = current;
-                current = null;
-                return next;
-              }
-              throw new NoSuchElementException("RecordReader has no more elements.");
-            }
-          };
+      @Override
+      public List<Record<byte[], byte[]>> records() {
+        return List.of(current);
+      }
 
-  /** Parsed message if successful, or null if the stream is at EOF. */
-  private static Record<byte[], byte[]> readRecord(InputStream inputStream) {
-    var outerRecord =
-        Utils.packException(() -> RecordOuterClass.Record.parseDelimitedFrom(inputStream));
-    // inputStream reaches EOF
-    if (outerRecord == null) return null;
+      @Override
+      public void skip() {}
+
+      @Override
+      public boolean rewind() {
+        return false;
+      }
 
-    return new Record<>() {
       @Override
-      public String topic() {
-        return outerRecord.getTopic();
+      public void close() {
+        if (owned) Utils.close(inputStream);
       }
+    };
+  }
 
+  /** Read the blocks one by one. See {@link RecordBlock} for the layout. */
+  private static BlockRecordReader.Source v1(InputStream inputStream, boolean owned) {
+    var decoder = new RecordBlock.Decoder(inputStream, Short.BYTES);
+    return new BlockRecordReader.Source() {
       @Override
-      public List<Header> headers() {
-        return outerRecord.getHeadersList().stream()
-            .map(header -> new Header(header.getKey(), header.getValue().toByteArray()))
-            .collect(Collectors.toUnmodifiableList());
+      public Optional<RecordBlock.Index> next() throws IOException {
+        return decoder.next();
       }
 
       @Override
-      public byte[] key() {
-        return outerRecord.getKey().toByteArray();
+      public List<Record<byte[], byte[]>> records() throws IOException {
+        return decoder.records();
       }
 
       @Override
-      public byte[] value() {
-        return outerRecord.getValue().toByteArray();
+      public void skip() throws IOException {
+        decoder.skip();
       }
 
       @Override
-      public long offset() {
-        return outerRecord.getOffset();
+      public boolean rewind() {
+        return false;
       }
 
       @Override
-      public long timestamp() {
-        return outerRecord.getTimestamp();
+      public void close() {
+        if (owned) decoder.close();
       }
+    };
+  }
+
+  /** Read the blocks from the positions recorded by the footer index. */
+  private static BlockRecordReader.Source v1(
+      List<RecordBlock.Index> indexes, LongFunction<InputStream> inputs) {
+    return new BlockRecordReader.Source() {
+      private int next = 0;
+      private RecordBlock.Decoder decoder = null;
 
       @Override
-      public int partition() {
-        return outerRecord.getPartition();
+      public Optional<RecordBlock.Index> next() {
+        if (next >= indexes.size()) return Optional.empty();
+        return Optional.of(indexes.get(next++));
       }
 
       @Override
-      public int serializedKeySize() {
-        return outerRecord.getKey().size();
+      public List<Record<byte[], byte[]>> records() throws IOException {
+        var index = indexes.get(next - 1);
+        if (decoder != null
+            && (decoder.position() > index.position()
+                || index.position() - decoder.position() > MAX_SKIPPED_BYTES)) close();
+        if (decoder == null)
+          decoder = new RecordBlock.Decoder(inputs.apply(index.position()), index.position());
+        else decoder.skipTo(index.position());
+        decoder.next();
+        return decoder.records();
       }
 
       @Override
-      public int serializedValueSize() {
-        return outerRecord.getValue().size();
+      public void skip() {
+        // the block is skipped by the next read
       }
 
       @Override
-      public Optional<Integer> leaderEpoch() {
-        return Optional.empty();
+      public boolean rewind() {
+        next = 0;
+        return true;
+      }
+
+      @Override
+      public void close() {
+        if (decoder != null) decoder.close();
+        decoder = null;
       }
     };
   }
 
+  /** Parsed message if successful, or null if the stream is at EOF. */
+  private static Record<byte[], byte[]> readRecord(InputStream inputStream) {
+    return Utils.packException(
+        () -> {
+          var firstByte = inputStream.read();
+          // inputStream reaches EOF
+          if (firstByte < 0) return null;
+          var bytes = new byte[CodedInputStream.readRawVarint32(firstByte, inputStream)];
+          if (inputStream.readNBytes(bytes, 0, bytes.length) != bytes.length)
+            throw new EOFException("the record is truncated");
+          return V0Record.parse(bytes);
+        });
+  }
+
+  /**
+   * The fields of {@link RecordOuterClass.Record} are parsed by hand, so the key and value are not
+   * copied until they are accessed. The fields are matched by the field numbers of the generated
+   * message.
+   */
+  private static final class V0Record extends RecordView {
+
+    private static V0Record parse(byte[] bytes) throws IOException {
+      var input = CodedInputStream.newInstance(bytes);
+      var topic = "";
+      var partition = 0;
+      var offset = 0L;
+      var timestamp = 0L;
+      // the empty bytes are not written, so the default key and value are empty rather than null
+      var keyOffset = 0;
+      var keySize = 0;
+      var valueOffset = 0;
+      var valueSize = 0;
+      for (var tag = input.readTag(); tag != 0; tag = input.readTag()) {
+        switch (WireFormat.getTagFieldNumber(tag)) {
+          case RecordOuterClass.Record.TOPIC_FIELD_NUMBER:
+            topic = input.readStringRequireUtf8();
+            break;
+          case RecordOuterClass.Record.PARTITION_FIELD_NUMBER:
+            partition = input.readInt32();
+            break;
+          case RecordOuterClass.Record.OFFSET_FIELD_NUMBER:
+            offset = input.readInt64();
+            break;
+          case RecordOuterClass.Record.TIMESTAMP_FIELD_NUMBER:
+            timestamp = input.readInt64();
+            break;
+          case RecordOuterClass.Record.KEY_FIELD_NUMBER:
+            keySize = input.readRawVarint32();
+            keyOffset = input.getTotalBytesRead();
+            input.skipRawBytes(keySize);
+            break;
+          case RecordOuterClass.Record.VALUE_FIELD_NUMBER:
+            valueSize = input.readRawVarint32();
+            valueOffset = input.getTotalBytesRead();
+            input.skipRawBytes(valueSize);
+            break;
+          default:
+            input.skipField(tag);
+        }
+      }
+      return new V0Record(
+          topic, partition, offset, timestamp, bytes, keyOffset, keySize, valueOffset, valueSize);
+    }
+
+    private V0Record(
+        String topic,
+        int partition,
+        long offset,
+        long timestamp,
+        byte[] buffer,
+        int keyOffset,
+        int keySize,
+        int valueOffset,
+        int valueSize) {
+      super(
+          topic, partition, offset, timestamp, buffer, keyOffset, keySize, valueOffset, valueSize);
+    }
+
+    @Override
+    List<Header> decodeHeaders() {
+      return Utils.packException(
+          () -> {
+            var input = CodedInputStream.newInstance(buffer);
+            var headers = new ArrayList<Header>();
+            for (var tag = input.readTag(); tag != 0; tag = input.readTag()) {
+              if (WireFormat.getTagFieldNumber(tag)
+                  != RecordOuterClass.Record.HEADERS_FIELD_NUMBER) {
+                input.skipField(tag);
+                continue;
+              }
+              var limit = input.pushLimit(input.readRawVarint32());
+              var key = "";
+              var value = new byte[0];
+              for (var headerTag = input.readTag(); headerTag != 0; headerTag = input.readTag()) {
+                var field = WireFormat.getTagFieldNumber(headerTag);
+                if (field == RecordOuterClass.Record.Header.KEY_FIELD_NUMBER)
+                  key = input.readStringRequireUtf8();
+                else if (field == RecordOuterClass.Record.Header.VALUE_FIELD_NUMBER)
+                  value = input.readByteArray();
+                else input.skipField(headerTag);
+              }
+              input.popLimit(limit);
+              headers.add(new Header(key, value));
+            }
+            return List.copyOf(headers);
+          });
+    }
+  }
+
+  // null if the streams are opened by the reader
   private InputStream fs;
+  private boolean owned = false;
+  private final long size;
+  private final LongFunction<InputStream> inputs;
+  private Function<InputStream, InputStream> wrapper = Function.identity();
+  private BlockRecordReader.Range offsets = BlockRecordReader.Range.ALL;
+  private BlockRecordReader.Range timestamps = BlockRecordReader.Range.ALL;
 
   RecordReaderBuilder(InputStream inputStream) {
     this.fs = inputStream;
+    this.size = -1;
+    this.inputs = null;
+  }
+
+  RecordReaderBuilder(long size, LongFunction<InputStream> inputs) {
+    this.fs = null;
+    this.size = size;
+    this.inputs = inputs;
+  }
+
+  private InputStream open(long position) {
+    return wrapper.apply(inputs.apply(position));
   }
 
   public RecordReaderBuilder compression() throws IOException {
+    // the positions of compressed file are useless, so the file is read from the beginning
+    if (fs == null) {
+      fs = open(0);
+      owned = true;
+    }
     this.fs = new GZIPInputStream(this.fs);
     return this;
   }
 
   public RecordReaderBuilder buffered() {
-    this.fs = new BufferedInputStream(this.fs);
+    if (fs == null) wrapper = wrapper.andThen(BufferedInputStream::new);
+    else this.fs = new BufferedInputStream(this.fs);
     return this;
   }
 
   public RecordReaderBuilder buffered(int size) {
-    this.fs = new BufferedInputStream(this.fs, size);
+    if (fs == null) wrapper = wrapper.andThen(input -> new BufferedInputStream(input, size));
+    else this.fs = new BufferedInputStream(this.fs, size);
     return this;
   }
 
+  /**
+   * Read the records having offset in [from, to) only. The blocks out of the range are skipped.
+   *
+   * @param from the first offset (inclusive)
+   * @param to the last offset (exclusive)
+   * @return this builder
+   */
+  public RecordReaderBuilder offsetRange(long from, long to) {
+    if (from > to) throw new IllegalArgumentException("from: " + from + " is larger than " + to);
+    this.offsets = new BlockRecordReader.Range(from, to);
+    return this;
+  }
+
+  /**
+   * Read the records having timestamp in [from, to) only. The blocks out of the range are skipped.
+   *
+   * @param from the first timestamp (inclusive)
+   * @param to the last timestamp (exclusive)
+   * @return this builder
+   */
+  public RecordReaderBuilder timestampRange(long from, long to) {
+    if (from > to) throw new IllegalArgumentException("from: " + from + " is larger than " + to);
+    this.timestamps = new BlockRecordReader.Range(from, to);
+    return this;
+  }
+
+  /**
+   * @return the footer index, or empty if the file is not closed normally
+   */
+  private Optional<List<RecordBlock.Index>> indexes() throws IOException {
+    if (size < Short.BYTES + RecordBlock.TRAILER_SIZE) return Optional.empty();
+    long position;
+    try (var trailer = new DataInputStream(open(size - RecordBlock.TRAILER_SIZE))) {
+      position = trailer.readLong();
+      if (trailer.readInt() != RecordBlock.MAGIC) return Optional.empty();
+    }
+    try (var footer = new DataInputStream(open(position))) {
+      if (footer.readByte() != RecordBlock.INDEX) return Optional.empty();
+      return Optional.of(RecordBlock.readIndexes(footer));
+    }
+  }
+
   public RecordReader build() {
-    var version = ByteUtils.readShort(fs);
+    var closeInput = fs == null || owned;
+    var input = fs == null ? open(0) : fs;
+    var version = ByteUtils.readShort(input);
     switch (version) {
       case 0:
-        return V0.apply(fs);
+        return new BlockRecordReader(v0(input, closeInput), offsets, timestamps);
+      case 1:
+        if (fs == null) {
+          var indexes = Utils.packException(this::indexes);
+          if (indexes.isPresent()) {
+            Utils.close(input);
+            return new BlockRecordReader(v1(indexes.get(), this::open), offsets, timestamps);
+          }
+        }
+        return new BlockRecordReader(v1(input, closeInput), offsets, timestamps);
       default:
+        if (closeInput) Utils.close(input);
         throw new IllegalArgumentException("unsupported version: " + version);
     }
   }
@@ -0,0 +1,131 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.astraea.common.backup;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import org.astraea.common.Header;
+import org.astraea.common.consumer.Record;
+
+/**
+ * A record backed by the bytes read from a backup file. The key, value and headers are copied from
+ * the backing bytes on first access, so the records which are skipped or only filtered by offset
+ * and timestamp don't allocate them.
+ */
+abstract class RecordView implements Record<byte[], byte[]> {
+  private final String topic;
+  private final int partition;
+  private final long offset;
+  private final long timestamp;
+  final byte[] buffer;
+  private final int keyOffset;
+  private final int keySize;
+  private final int valueOffset;
+  private final int valueSize;
+  private byte[] key;
+  private byte[] value;
+  private List<Header> headers;
+
+  /**
+   * @param buffer the backing bytes
+   * @param keyOffset the position of key in the buffer
+   * @param keySize the size of key, or -1 if the key is null
+   * @param valueOffset the position of value in the buffer
+   * @param valueSize the size of value, or -1 if the value is null
+   */
+  RecordView(
+      String topic,
+      int partition,
+      long offset,
+      long timestamp,
+      byte[] buffer,
+      int keyOffset,
+      int keySize,
+      int valueOffset,
+      int valueSize) {
+    this.topic = topic;
+    this.partition = partition;
+    this.offset = offset;
+    this.timestamp = timestamp;
+    this.buffer = buffer;
+    this.keyOffset = keyOffset;
+    this.keySize = keySize;
+    this.valueOffset = valueOffset;
+    this.valueSize = valueSize;
+  }
+
+  /**
+   * @return the headers decoded from the backing bytes
+   */
+  abstract List<Header> decodeHeaders();
+
+  @Override
+  public String topic() {
+    return topic;
+  }
+
+  @Override
+  public int partition() {
+    return partition;
+  }
+
+  @Override
+  public long offset() {
+    return offset;
+  }
+
+  @Override
+  public long timestamp() {
+    return timestamp;
+  }
+
+  @Override
+  public byte[] key() {
+    if (key == null && keySize >= 0)
+      key = Arrays.copyOfRange(buffer, keyOffset, keyOffset + keySize);
+    return key;
+  }
+
+  @Override
+  public byte[] value() {
+    if (value == null && valueSize >= 0)
+      value = Arrays.copyOfRange(buffer, valueOffset, valueOffset + valueSize);
+    return value;
+  }
+
+  @Override
+  public List<Header> headers() {
+    if (headers == null) headers = decodeHeaders();
+    return headers;
+  }
+
+  @Override
+  public int serializedKeySize() {
+    return keySize;
+  }
+
+  @Override
+  public int serializedValueSize() {
+    return valueSize;
+  }
+
+  @Override
+  public Optional<Integer> leaderEpoch() {
+    return Optional.empty();
+  }
+}
@@ -16,27 +16,47 @@
  */
 package org.astraea.common.backup;
 
-import com.google.protobuf.ByteString;
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.WireFormat;
 import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.LongAdder;
 import java.util.function.Function;
-import java.util.stream.Collectors;
 import java.util.zip.GZIPOutputStream;
 import org.astraea.common.ByteUtils;
 import org.astraea.common.DataSize;
+import org.astraea.common.Header;
 import org.astraea.common.Utils;
 import org.astraea.common.consumer.Record;
 import org.astraea.common.generated.RecordOuterClass;
 
 public class RecordWriterBuilder {
 
+  // the field numbers of the generated messages
+  private static final int TOPIC = RecordOuterClass.Record.TOPIC_FIELD_NUMBER;
+  private static final int PARTITION = RecordOuterClass.Record.PARTITION_FIELD_NUMBER;
+  private static final int OFFSET = RecordOuterClass.Record.OFFSET_FIELD_NUMBER;
+  private static final int TIMESTAMP = RecordOuterClass.Record.TIMESTAMP_FIELD_NUMBER;
+  private static final int KEY = RecordOuterClass.Record.KEY_FIELD_NUMBER;
+  private static final int VALUE = RecordOuterClass.Record.VALUE_FIELD_NUMBER;
+  private static final int HEADERS = RecordOuterClass.Record.HEADERS_FIELD_NUMBER;
+  private static final int HEADER_KEY = RecordOuterClass.Record.Header.KEY_FIELD_NUMBER;
+  private static final int HEADER_VALUE = RecordOuterClass.Record.Header.VALUE_FIELD_NUMBER;
+
+  /**
+   * The records are written in the wire format of {@link RecordOuterClass.Record}. The fields are
+   * encoded to the stream directly, so neither the message nor the copies of bytes are created.
+   */
   private static final Function<OutputStream, RecordWriter> V0 =
       outputStream ->
           new RecordWriter() {
+            private final CodedOutputStream output = CodedOutputStream.newInstance(outputStream);
             private final AtomicInteger count = new AtomicInteger();
             private final LongAdder size = new LongAdder();
 
@@ -45,34 +65,12 @@ public class RecordWriterBuilder {
             @Override
             public void append(Record<byte[], byte[]> record) {
               Utils.packException(
-                  () ->
-                      RecordOuterClass.Record.newBuilder()
-                          .setTopic(record.topic())
-                          .setPartition(record.partition())
-                          .setOffset(record.offset())
-                          .setTimestamp(record.timestamp())
-                          .setKey(
-                              record.key() == null
-                                  ? ByteString.EMPTY
-                                  : ByteString.copyFrom(record.key()))
-                          .setValue(
-                              record.value() == null
-                                  ? ByteString.EMPTY
-                                  : ByteString.copyFrom(record.value()))
-                          .addAllHeaders(
-                              record.headers().stream()
-                                  .map(
-                                      header ->
-                                          RecordOuterClass.Record.Header.newBuilder()
-                                              .setKey(header.key())
-                                              .setValue(
-                                                  header.value() == null
-                                                      ? ByteString.EMPTY
-                                                      : ByteString.copyFrom(header.value()))
-                                              .build())
-                                  .collect(Collectors.toUnmodifiableList()))
-                          .build()
-                          .writeDelimitedTo(outputStream));
+                  () -> {
+                    var recordSize = v0Size(record);
+                    output.writeUInt32NoTag(recordSize);
+                    writeV0(record, output);
+                    size.add(CodedOutputStream.computeUInt32SizeNoTag(recordSize) + recordSize);
+                  });
               count.incrementAndGet();
               this.latestAppendTimestamp.set(System.currentTimeMillis());
             }
@@ -94,23 +92,157 @@ public class RecordWriterBuilder {
 
             @Override
             public void flush() {
-              Utils.packException(outputStream::flush);
+              Utils.packException(
+                  () -> {
+                    output.flush();
+                    outputStream.flush();
+                  });
             }
 
             @Override
             public void close() {
               Utils.packException(
                   () -> {
+                    output.flush();
                     outputStream.flush();
                     outputStream.close();
                   });
             }
           };
 
-  public static final short LATEST_VERSION = (short) 0;
+  // the fields having default value are not written, and it is same to the generated message
+  private static int v0Size(Record<byte[], byte[]> record) {
+    var size = 0;
+    if (!record.topic().isEmpty())
+      size += CodedOutputStream.computeStringSize(TOPIC, record.topic());
+    if (record.partition() != 0)
+      size += CodedOutputStream.computeInt32Size(PARTITION, record.partition());
+    if (record.offset() != 0) size += CodedOutputStream.computeInt64Size(OFFSET, record.offset());
+    if (record.timestamp() != 0)
+      size += CodedOutputStream.computeInt64Size(TIMESTAMP, record.timestamp());
+    if (!isEmpty(record.key())) size += CodedOutputStream.computeByteArraySize(KEY, record.key());
+    if (!isEmpty(record.value()))
+      size += CodedOutputStream.computeByteArraySize(VALUE, record.value());
+    for (var header : record.headers()) {
+      var headerSize = v0Size(header);
+      size +=
+          CodedOutputStream.computeTagSize(HEADERS)
+              + CodedOutputStream.computeUInt32SizeNoTag(headerSize)
+              + headerSize;
+    }
+    return size;
+  }
+
+  private static int v0Size(Header header) {
+    var size = 0;
+    if (!header.key().isEmpty())
+      size += CodedOutputStream.computeStringSize(HEADER_KEY, header.key());
+    if (!isEmpty(header.value()))
+      size += CodedOutputStream.computeByteArraySize(HEADER_VALUE, header.value());
+    return size;
+  }
+
+  private static void writeV0(Record<byte[], byte[]> record, CodedOutputStream output)
+      throws IOException {
+    if (!record.topic().isEmpty()) output.writeString(TOPIC, record.topic());
+    if (record.partition() != 0) output.writeInt32(PARTITION, record.partition());
+    if (record.offset() != 0) output.writeInt64(OFFSET, record.offset());
+    if (record.timestamp() != 0) output.writeInt64(TIMESTAMP, record.timestamp());
+    if (!isEmpty(record.key())) output.writeByteArray(KEY, record.key());
+    if (!isEmpty(record.value())) output.writeByteArray(VALUE, record.value());
+    for (var header : record.headers()) {
+      output.writeTag(HEADERS, WireFormat.WIRETYPE_LENGTH_DELIMITED);
+      output.writeUInt32NoTag(v0Size(header));
+      if (!header.key().isEmpty()) output.writeString(HEADER_KEY, header.key());
+      if (!isEmpty(header.value())) output.writeByteArray(HEADER_VALUE, header.value());
+    }
+  }
+
+  private static boolean isEmpty(byte[] bytes) {
+    return bytes == null || bytes.length == 0;
+  }
+
+  /**
+   * The records are grouped into blocks, and each block is compressed by the codec. See {@link
+   * RecordBlock} for the layout.
+   */
+  private static RecordWriter v1(OutputStream outputStream, Codec codec, int blockSize) {
+    return new RecordWriter() {
+      private final DataOutputStream output = new DataOutputStream(outputStream);
+      private final RecordBlock.Encoder encoder = new RecordBlock.Encoder(codec);
+      private final List<RecordBlock.Index> indexes = new ArrayList<>();
+      private final AtomicInteger count = new AtomicInteger();
+      // the version is written already
+      private long position = Short.BYTES;
+
+      private final AtomicLong latestAppendTimestamp = new AtomicLong();
+
+      private void writeBlock() throws IOException {
+        if (encoder.count() == 0) return;
+        var index = encoder.write(output, position);
+        indexes.add(index);
+        position += index.size();
+      }
+
+      @Override
+      public void append(Record<byte[], byte[]> record) {
+        Utils.packException(
+            () -> {
+              encoder.append(record);
+              if (encoder.size() >= blockSize) writeBlock();
+            });
+        count.incrementAndGet();
+        this.latestAppendTimestamp.set(System.currentTimeMillis());
+      }
+
+      @Override
+      public long latestAppendTimestamp() {
+        return this.latestAppendTimestamp.get();
+      }
+
+      @Override
+      public DataSize size() {
+        // the records in current block are not compressed yet
+        return DataSize.Byte.of(position + encoder.size());
+      }
+
+      @Override
+      public int count() {
+        return count.get();
+      }
+
+      @Override
+      public void flush() {
+        Utils.packException(
+            () -> {
+              writeBlock();
+              output.flush();
+            });
+      }
+
+      @Override
+      public void close() {
+        Utils.packException(
+            () -> {
+              writeBlock();
+              output.writeByte(RecordBlock.INDEX);
+              output.writeInt(indexes.size());
+              for (var index : indexes) index.write(output);
+              output.writeLong(position);
+              output.writeInt(RecordBlock.MAGIC);
+              output.flush();
+              output.close();
+            });
+      }
+    };
+  }
+
+  public static final short LATEST_VERSION = (short) 1;
 
   private final short version;
   private OutputStream fs;
+  private Codec codec = Codec.LZ4;
+  private DataSize blockSize = DataSize.MB.of(1);
 
   RecordWriterBuilder(short version, OutputStream outputStream) {
     this.version = version;
@@ -132,6 +264,26 @@ public class RecordWriterBuilder {
     return this;
   }
 
+  /**
+   * @param codec the name of codec used to compress the blocks. It can be none, gzip, snappy, lz4
+   *     or zstd. It is used by version 1 only, and the default is lz4
+   */
+  public RecordWriterBuilder codec(String codec) {
+    this.codec = Codec.ofAlias(codec);
+    return this;
+  }
+
+  /**
+   * @param blockSize the size of uncompressed records in a block. It is used by version 1 only,
+   *     and the default is 1MB
+   */
+  public RecordWriterBuilder blockSize(DataSize blockSize) {
+    if (blockSize.bytes() <= 0 || blockSize.bytes() > Integer.MAX_VALUE)
+      throw new IllegalArgumentException("the block size should be in (0, 2GB)");
+    this.blockSize = blockSize;
+    return this;
+  }
+
   public RecordWriter build() {
     return Utils.packException(
         () -> {
@@ -139,6 +291,9 @@ public class RecordWriterBuilder {
             case 0:
               fs.write(ByteUtils.toBytes(version));
               return V0.apply(fs);
+            case 1:
+              fs.write(ByteUtils.toBytes(version));
+              return v1(fs, codec, (int) blockSize.bytes());
             default:
               throw new IllegalArgumentException("unsupported version: " + version);
           }
@@ -21,6 +21,7 @@ import org.astraea.common.Configuration;
 import org.astraea.common.EnumInfo;
 import org.astraea.common.Utils;
 import org.astraea.common.admin.ClusterInfo;
+import org.astraea.common.balancer.algorithms.AnnealingBalancer;
 import org.astraea.common.balancer.algorithms.GreedyBalancer;
 import org.astraea.common.balancer.algorithms.SingleStepBalancer;
 import org.astraea.common.cost.ClusterCost;
@@ -75,7 +76,8 @@ public interface Balancer {
   /** The official implementation of {@link Balancer}. */
   enum Official implements EnumInfo {
     SingleStep(SingleStepBalancer.class),
-    Greedy(GreedyBalancer.class);
+    Greedy(GreedyBalancer.class),
+    Annealing(AnnealingBalancer.class);
 
     private final Class<? extends Balancer> balancerClass;
 
@@ -0,0 +1,298 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.astraea.common.balancer.algorithms;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.DoubleAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+import org.astraea.common.Utils;
+import org.astraea.common.admin.ClusterInfo;
+import org.astraea.common.admin.TopicPartition;
+import org.astraea.common.balancer.AlgorithmConfig;
+import org.astraea.common.balancer.Balancer;
+import org.astraea.common.balancer.BalancerConfigs;
+import org.astraea.common.balancer.tweakers.ShuffleTweaker;
+import org.astraea.common.cost.HasClusterCost;
+import org.astraea.common.metrics.MBeanRegister;
+
+/**
+ * A simulated-annealing algorithm. Unlike {@link GreedyBalancer}, it accepts a worse allocation
+ * with probability {@code exp(-(after - before) / temperature)}, so the search is able to walk out
+ * of a local minimum. The temperature cools down exponentially from {@link
+ * #TEMPERATURE_INITIAL_CONFIG} to {@link #TEMPERATURE_FINAL_CONFIG} over the execution time.
+ *
+ * <p>The partitions moved by recent accepted tweaks are kept in a tabu list, and the tweaks
+ * touching them are rejected unless they beat the best allocation found so far. The search
+ * restarts from the best allocation if there is no improvement after {@link
+ * #RESTART_INTERVAL_CONFIG} candidates.
+ *
+ * <p>The best allocation is updated only if it complies with both the cluster constraint and the
+ * movement constraint of {@link AlgorithmConfig}.
+ */
+public class AnnealingBalancer implements Balancer {
+
+  public static final String SHUFFLE_TWEAKER_MIN_STEP_CONFIG = "shuffle.tweaker.min.step";
+  public static final String SHUFFLE_TWEAKER_MAX_STEP_CONFIG = "shuffle.tweaker.max.step";
+  public static final String ITERATION_CONFIG = "iteration";
+
+  /**
+   * The temperature at the beginning of the search. It should be in the same order as the cost
+   * difference of a single tweak, otherwise the search is either a random walk (too high) or a
+   * hill-climbing (too low).
+   */
+  public static final String TEMPERATURE_INITIAL_CONFIG = "temperature.initial";
+
+  /** The temperature at the end of the search. It must be smaller than the initial temperature. */
+  public static final String TEMPERATURE_FINAL_CONFIG = "temperature.final";
+
+  /** The number of recently accepted tweaks whose partitions can't be moved again. */
+  public static final String TABU_SIZE_CONFIG = "tabu.size";
+
+  /** The number of non-improving candidates before restarting from the best allocation. */
+  public static final String RESTART_INTERVAL_CONFIG = "restart.interval";
+
+  public static final Set<String> ALL_CONFIGS =
+      new TreeSet<>(
+          Utils.constants(AnnealingBalancer.class, name -> name.endsWith("CONFIG"), String.class));
+
+  private final AtomicInteger run = new AtomicInteger();
+
+  private static double positive(String config, double value) {
+    if (!(value > 0) || Double.isInfinite(value))
+      throw new IllegalArgumentException(config + " should be positive, but it is " + value);
+    return value;
+  }
+
+  @Override
+  public Optional<Plan> offer(AlgorithmConfig config) {
+    final var minStep =
+        config
+            .balancerConfig()
+            .string(SHUFFLE_TWEAKER_MIN_STEP_CONFIG)
+            .map(Integer::parseInt)
+            .map(Utils::requirePositive)
+            .orElse(1);
+    final var maxStep =
+        config
+            .balancerConfig()
+            .string(SHUFFLE_TWEAKER_MAX_STEP_CONFIG)
+            .map(Integer::parseInt)
+            .map(Utils::requirePositive)
+            .orElse(5);
+    final var iteration =
+        config
+            .balancerConfig()
+            .string(ITERATION_CONFIG)
+            .map(Integer::parseInt)
+            .map(Utils::requirePositive)
+            .orElse(Integer.MAX_VALUE);
+    final var initialTemperature =
+        config
+            .balancerConfig()
+            .string(TEMPERATURE_INITIAL_CONFIG)
+            .map(Double::parseDouble)
+            .map(value -> positive(TEMPERATURE_INITIAL_CONFIG, value))
+            .orElse(0.01);
+    final var finalTemperature =
+        config
+            .balancerConfig()
+            .string(TEMPERATURE_FINAL_CONFIG)
+            .map(Double::parseDouble)
+            .map(value -> positive(TEMPERATURE_FINAL_CONFIG, value))
+            .orElse(Math.min(0.00001, initialTemperature));
+    final var tabuSize =
+        config
+            .balancerConfig()
+            .string(TABU_SIZE_CONFIG)
+            .map(Integer::parseInt)
+            .map(Utils::requirePositive)
+            .orElse(32);
+    final var restartInterval =
+        config
+            .balancerConfig()
+            .string(RESTART_INTERVAL_CONFIG)
+            .map(Integer::parseInt)
+            .map(Utils::requirePositive)
+            .orElse(1000);
+    final var allowedTopics =
+        config
+            .balancerConfig()
+            .regexString(BalancerConfigs.BALANCER_ALLOWED_TOPICS_REGEX)
+            .map(Pattern::asMatchPredicate)
+            .orElse((ignore) -> true);
+    final var allowedBrokers =
+        config
+            .balancerConfig()
+            .regexString(BalancerConfigs.BALANCER_ALLOWED_BROKERS_REGEX)
+            .map(Pattern::asMatchPredicate)
+            .<Predicate<Integer>>map(
+                predicate -> (brokerId) -> predicate.test(Integer.toString(brokerId)))
+            .orElse((ignore) -> true);
+    if (finalTemperature > initialTemperature)
+      throw new IllegalArgumentException(
+          TEMPERATURE_FINAL_CONFIG
+              + " should not be larger than "
+              + TEMPERATURE_INITIAL_CONFIG
+              + ", but they are "
+              + finalTemperature
+              + " and "
+              + initialTemperature);
+
+    final var currentClusterInfo = config.clusterInfo();
+    final var clusterBean = config.clusterBean();
+    final var allocationTweaker =
+        ShuffleTweaker.builder()
+            .numberOfShuffle(() -> ThreadLocalRandom.current().nextInt(minStep, maxStep))
+            .allowedTopics(allowedTopics)
+            .allowedBrokers(allowedBrokers)
+            .build();
+    final var clusterCostFunction = config.clusterCostFunction();
+    final var moveCostFunction = config.moveCostFunction();
+    final var initialState = clusterCostFunction.state(currentClusterInfo, clusterBean);
+    final var initialCost = initialState.cost();
+
+    // register JMX
+    var currentIteration = new LongAdder();
+    var currentRestart = new LongAdder();
+    var currentCandidate = new LongAdder();
+    var currentMinCost =
+        new DoubleAccumulator((l, r) -> Double.isNaN(r) ? l : Math.min(l, r), initialCost.value());
+    var currentTemperature = new DoubleAccumulator((l, r) -> r, initialTemperature);
+    MBeanRegister.local()
+        .domainName("astraea.balancer")
+        .property("id", config.executionId())
+        .property("algorithm", AnnealingBalancer.class.getSimpleName())
+        .property("run", Integer.toString(run.getAndIncrement()))
+        .attribute("Iteration", Long.class, currentIteration::sum)
+        .attribute("MinCost", Double.class, currentMinCost::get)
+        .attribute("Temperature", Double.class, currentTemperature::get)
+        .attribute("Restart", Long.class, currentRestart::sum)
+        .attribute("Candidate", Long.class, currentCandidate::sum)
+        .register();
+
+    final var start = System.currentTimeMillis();
+    final var executionTime = Math.max(1, config.timeout().toMillis());
+    final var tabu = new Tabu(tabuSize);
+    var current = new Solution(currentClusterInfo, initialState);
+    var best = current;
+    Plan bestPlan = null;
+    var candidates = allocationTweaker.generate(current.allocation()).iterator();
+    var sinceImprovement = 0;
+    for (var loop = 0; loop < iteration; loop++) {
+      var elapsed = System.currentTimeMillis() - start;
+      if (elapsed >= executionTime || !candidates.hasNext()) break;
+      // exponential cooling over the elapsed fraction of execution time or iterations
+      var progress =
+          Math.max(
+              (double) elapsed / executionTime,
+              iteration == Integer.MAX_VALUE ? 0 : (double) loop / iteration);
+      var temperature =
+          initialTemperature * Math.pow(finalTemperature / initialTemperature, progress);
+      currentTemperature.accumulate(temperature);
+
+      var candidate = candidates.next();
+      currentCandidate.add(1);
+      var changed = ClusterInfo.findNonFulfilledAllocation(current.allocation(), candidate);
+      var state =
+          clusterCostFunction.delta(
+              current.allocation(), current.state(), candidate, changed, clusterBean);
+      var candidateCost = state.cost();
+      var beatBest = config.clusterConstraint().test(best.state().cost(), candidateCost);
+      var currentCost = current.state().cost();
+      var accepted =
+          (beatBest || !tabu.contains(changed))
+              && (config.clusterConstraint().test(currentCost, candidateCost)
+                  || acceptWorse(currentCost.value(), candidateCost.value(), temperature))
+              && config
+                  .movementConstraint()
+                  .test(
+                      moveCostFunction.moveCost(
+                          currentClusterInfo,
+                          candidate,
+                          ClusterInfo.changedPartitions(currentClusterInfo, candidate),
+                          clusterBean));
+
+      if (accepted) {
+        current = new Solution(candidate, state);
+        candidates = allocationTweaker.generate(candidate).iterator();
+        tabu.add(changed);
+        currentIteration.add(1);
+      }
+      if (accepted && beatBest) {
+        best = current;
+        bestPlan = new Plan(currentClusterInfo, initialCost, candidate, candidateCost);
+        currentMinCost.accumulate(candidateCost.value());
+        sinceImprovement = 0;
+      } else if (++sinceImprovement >= restartInterval) {
+        // restart from the best-so-far allocation
+        current = best;
+        candidates = allocationTweaker.generate(best.allocation()).iterator();
+        tabu.clear();
+        currentRestart.add(1);
+        sinceImprovement = 0;
+      }
+    }
+    return Optional.ofNullable(bestPlan);
+  }
+
+  private static boolean acceptWorse(double current, double candidate, double temperature) {
+    var delta = candidate - current;
+    if (Double.isNaN(delta) || Double.isInfinite(delta)) return false;
+    return ThreadLocalRandom.current().nextDouble() < Math.exp(-delta / temperature);
+  }
+
+  private record Solution(ClusterInfo allocation, HasClusterCost.State state) {}
+
+  /** The partitions moved by the latest accepted tweaks. */
+  private static class Tabu {
+    private final int size;
+    private final ArrayDeque<Set<TopicPartition>> moves = new ArrayDeque<>();
+    private final Map<TopicPartition, Integer> counts = new HashMap<>();
+
+    private Tabu(int size) {
+      this.size = size;
+    }
+
+    private boolean contains(Set<TopicPartition> partitions) {
+      if (counts.isEmpty()) return false;
+      for (var tp : partitions) if (counts.containsKey(tp)) return true;
+      return false;
+    }
+
+    private void add(Set<TopicPartition> partitions) {
+      moves.addLast(partitions);
+      partitions.forEach(tp -> counts.merge(tp, 1, Integer::sum));
+      if (moves.size() > size)
+        for (var tp : moves.removeFirst())
+          counts.computeIfPresent(tp, (ignored, count) -> count == 1 ? null : count - 1);
+    }
+
+    private void clear() {
+      moves.clear();
+      counts.clear();
+    }
+  }
+}
@@ -19,21 +19,28 @@ package org.astraea.common.balancer.algorithms;
 import java.util.Optional;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
 import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.concurrent.atomic.DoubleAccumulator;
 import java.util.concurrent.atomic.LongAdder;
-import java.util.function.BiFunction;
 import java.util.function.Predicate;
 import java.util.function.Supplier;
 import java.util.regex.Pattern;
+import java.util.stream.IntStream;
 import org.astraea.common.Utils;
 import org.astraea.common.admin.ClusterInfo;
+import org.astraea.common.admin.CompactAllocation;
 import org.astraea.common.balancer.AlgorithmConfig;
 import org.astraea.common.balancer.Balancer;
 import org.astraea.common.balancer.BalancerConfigs;
+import org.astraea.common.balancer.tweakers.AllocationTweaker;
+import org.astraea.common.balancer.tweakers.CostGuidedTweaker;
 import org.astraea.common.balancer.tweakers.ShuffleTweaker;
 import org.astraea.common.cost.ClusterCost;
+import org.astraea.common.cost.HasClusterCost;
 import org.astraea.common.metrics.MBeanRegister;
 
 /**
@@ -103,6 +110,24 @@ public class GreedyBalancer implements Balancer {
   public static final String SHUFFLE_TWEAKER_MAX_STEP_CONFIG = "shuffle.tweaker.max.step";
 
   public static final String ITERATION_CONFIG = "iteration";
+
+  /**
+   * The number of workers exploring the state space concurrently. Each worker tweaks the current
+   * best allocation and publishes the improvement atomically. The other workers restart from the
+   * new best allocation once it gets published. Noted that the cost functions must be thread-safe
+   * if this value is larger than 1.
+   */
+  public static final String PARALLELISM_CONFIG = "parallelism";
+
+  /**
+   * The way to propose candidates. {@code shuffle}(default) moves random replicas to random
+   * brokers. {@code guided} moves the heavy replicas of the most loaded brokers to the least loaded
+   * brokers, where the load is broken down by {@link HasClusterCost#replicaLoad}. The replica count
+   * is used as the load if the cost function doesn't support the break down. See {@link
+   * CostGuidedTweaker}.
+   */
+  public static final String TWEAKER_CONFIG = "tweaker";
+
   public static final Set<String> ALL_CONFIGS =
       new TreeSet<>(
           Utils.constants(GreedyBalancer.class, name -> name.endsWith("CONFIG"), String.class));
@@ -134,6 +159,25 @@ public class GreedyBalancer implements Balancer {
             .map(Integer::parseInt)
             .map(Utils::requirePositive)
             .orElse(Integer.MAX_VALUE);
+    final var parallelism =
+        config
+            .balancerConfig()
+            .string(PARALLELISM_CONFIG)
+            .map(Integer::parseInt)
+            .map(Utils::requirePositive)
+            .orElse(1);
+    final var guided =
+        config
+            .balancerConfig()
+            .string(TWEAKER_CONFIG)
+            .map(
+                tweaker -> {
+                  if (tweaker.equals("guided")) return true;
+                  if (tweaker.equals("shuffle")) return false;
+                  throw new IllegalArgumentException(
+                      "Unknown " + TWEAKER_CONFIG + ": " + tweaker + ", use shuffle or guided");
+                })
+            .orElse(false);
     final var allowedTopics =
         config
             .balancerConfig()
@@ -151,47 +195,74 @@ public class GreedyBalancer implements Balancer {
 
     final var currentClusterInfo = config.clusterInfo();
     final var clusterBean = config.clusterBean();
-    final var allocationTweaker =
+    final var clusterCostFunction = config.clusterCostFunction();
+    final var shuffleTweaker =
         ShuffleTweaker.builder()
             .numberOfShuffle(() -> ThreadLocalRandom.current().nextInt(minStep, maxStep))
             .allowedTopics(allowedTopics)
             .allowedBrokers(allowedBrokers)
             .build();
-    final var clusterCostFunction = config.clusterCostFunction();
+    final AllocationTweaker allocationTweaker =
+        guided
+            ? CostGuidedTweaker.builder(
+                    clusterCostFunction
+                        .replicaLoad(currentClusterInfo, clusterBean)
+                        .orElse(replica -> 1))
+                .numberOfShuffle(() -> ThreadLocalRandom.current().nextInt(minStep, maxStep))
+                .allowedTopics(allowedTopics)
+                .allowedBrokers(allowedBrokers)
+                .build()
+            : shuffleTweaker;
     final var moveCostFunction = config.moveCostFunction();
-    final var initialCost = clusterCostFunction.clusterCost(currentClusterInfo, clusterBean);
+    final var initialState = clusterCostFunction.state(currentClusterInfo, clusterBean);
+    final var initialCost = initialState.cost();
 
     final var loop = new AtomicInteger(iteration);
+    final var currentCandidate = new LongAdder();
     final var start = System.currentTimeMillis();
     final var executionTime = config.timeout().toMillis();
     Supplier<Boolean> moreRoom =
         () -> System.currentTimeMillis() - start < executionTime && loop.getAndDecrement() > 0;
-    BiFunction<ClusterInfo, ClusterCost, Optional<Plan>> next =
-        (currentAllocation, currentCost) ->
+    // the candidates are overlays of current allocation, so the cost is evaluated by the changed
+    // partitions only
+    Search next =
+        (current, stillValid) ->
             allocationTweaker
-                .generate(currentAllocation)
-                .takeWhile(ignored -> moreRoom.get())
+                .generate(current.allocation())
+                .takeWhile(ignored -> stillValid.get() && moreRoom.get())
                 .filter(
                     newAllocation ->
                         config
                             .movementConstraint()
                             .test(
                                 moveCostFunction.moveCost(
-                                    currentClusterInfo, newAllocation, clusterBean)))
+                                    currentClusterInfo,
+                                    newAllocation,
+                                    ClusterInfo.changedPartitions(
+                                        currentClusterInfo, newAllocation),
+                                    clusterBean)))
                 .map(
-                    newAllocation ->
-                        new Plan(
-                            config.clusterInfo(),
-                            initialCost,
-                            newAllocation,
-                            clusterCostFunction.clusterCost(newAllocation, clusterBean)))
+                    newAllocation -> {
+                      currentCandidate.add(1);
+                      var state =
+                          clusterCostFunction.delta(
+                              current.allocation(),
+                              current.state(),
+                              newAllocation,
+                              ClusterInfo.findNonFulfilledAllocation(
+                                  current.allocation(), newAllocation),
+                              clusterBean);
+                      return new Solution(
+                          newAllocation,
+                          state,
+                          new Plan(config.clusterInfo(), initialCost, newAllocation, state.cost()));
+                    })
                 .filter(
-                    plan ->
-                        config.clusterConstraint().test(currentCost, plan.proposalClusterCost()))
+                    solution ->
+                        config
+                            .clusterConstraint()
+                            .test(current.state().cost(), solution.state().cost()))
                 .findFirst();
-    var currentCost = initialCost;
-    var currentAllocation = currentClusterInfo;
-    var currentSolution = Optional.<Plan>empty();
 
     // register JMX
     var currentIteration = new LongAdder();
@@ -204,17 +275,111 @@ public class GreedyBalancer implements Balancer {
         .property("run", Integer.toString(run.getAndIncrement()))
         .attribute("Iteration", Long.class, currentIteration::sum)
         .attribute("MinCost", Double.class, currentMinCost::get)
+        .attribute("Candidate", Long.class, currentCandidate::sum)
         .register();
 
-    while (true) {
+    if (parallelism > 1) {
+      // the tweaker generates nothing, so there is nothing to search
+      if (allocationTweaker.generate(currentClusterInfo).findAny().isEmpty())
+        return Optional.empty();
+      var best = new AtomicReference<>(new Solution(currentClusterInfo, initialState, null));
+      currentIteration.add(1);
+      Runnable worker =
+          () -> {
+            while (System.currentTimeMillis() - start < executionTime && loop.get() > 0) {
+              var base = best.get();
+              next.apply(base, () -> best.get() == base)
+                  .filter(solution -> best.compareAndSet(base, solution))
+                  .ifPresent(
+                      solution -> {
+                        currentIteration.add(1);
+                        currentMinCost.accumulate(solution.state().cost().value());
+                      });
+            }
+          };
+      var executor = Executors.newFixedThreadPool(parallelism);
+      try {
+        CompletableFuture.allOf(
+                IntStream.range(0, parallelism)
+                    .mapToObj(ignored -> CompletableFuture.runAsync(worker, executor))
+                    .toArray(CompletableFuture[]::new))
+            .join();
+      } finally {
+        executor.shutdownNow();
+      }
+      return Optional.ofNullable(best.get().plan());
+    }
+
+    // the cost function is able to score the compact allocation, so the candidates are tweaked in
+    // place and only the accepted one is converted to ClusterInfo
+    var allocation = guided ? null : CompactAllocation.of(currentClusterInfo);
+    if (allocation != null
+        && !Double.isNaN(clusterCostFunction.compactCost(allocation, clusterBean))) {
+      var shuffle = shuffleTweaker.compact(allocation);
+      if (shuffle.isEmpty()) return Optional.empty();
+      var currentCost = initialCost;
+      ClusterInfo proposal = null;
       currentIteration.add(1);
       currentMinCost.accumulate(currentCost.value());
-      var newPlan = next.apply(currentAllocation, currentCost);
-      if (newPlan.isEmpty()) break;
-      currentSolution = newPlan;
-      currentCost = currentSolution.get().proposalClusterCost();
-      currentAllocation = currentSolution.get().proposal();
+      while (moreRoom.get()) {
+        shuffle.tweak();
+        currentCandidate.add(1);
+        var value = clusterCostFunction.compactCost(allocation, clusterBean);
+        ClusterCost candidateCost = () -> value;
+        if (config.clusterConstraint().test(currentCost, candidateCost)) {
+          var candidate = allocation.toClusterInfo();
+          if (config
+              .movementConstraint()
+              .test(
+                  moveCostFunction.moveCost(
+                      currentClusterInfo,
+                      candidate,
+                      ClusterInfo.changedPartitions(currentClusterInfo, candidate),
+                      clusterBean))) {
+            allocation.commit();
+            proposal = candidate;
+            currentCost = candidateCost;
+            currentIteration.add(1);
+            currentMinCost.accumulate(value);
+            continue;
+          }
+        }
+        allocation.rollback();
+      }
+      return Optional.ofNullable(proposal)
+          .map(
+              p ->
+                  new Plan(
+                      config.clusterInfo(),
+                      initialCost,
+                      p,
+                      clusterCostFunction.clusterCost(p, clusterBean)));
     }
-    return currentSolution;
+
+    var currentSolution = new Solution(currentClusterInfo, initialState, null);
+    while (true) {
+      currentIteration.add(1);
+      currentMinCost.accumulate(currentSolution.state().cost().value());
+      var newSolution = next.apply(currentSolution, () -> true);
+      if (newSolution.isEmpty()) break;
+      currentSolution = newSolution.get();
+    }
+    return Optional.ofNullable(currentSolution.plan());
+  }
+
+  /**
+   * The allocation and its cost state. The plan is null if there is no improvement. It is shared by
+   * the workers in parallel mode.
+   */
+  private record Solution(ClusterInfo allocation, HasClusterCost.State state, Plan plan) {}
+
+  @FunctionalInterface
+  private interface Search {
+    /**
+     * @param current the base of tweaking
+     * @param stillValid the search stops if the base is no longer valid
+     * @return the first better solution
+     */
+    Optional<Solution> apply(Solution current, Supplier<Boolean> stillValid);
   }
 }
@@ -0,0 +1,481 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.astraea.common.balancer.executor;
+
+import static org.astraea.common.admin.ClusterInfo.findNonFulfilledAllocation;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.astraea.common.Configuration;
+import org.astraea.common.DataSize;
+import org.astraea.common.Utils;
+import org.astraea.common.admin.Admin;
+import org.astraea.common.admin.BrokerConfigs;
+import org.astraea.common.admin.ClusterInfo;
+import org.astraea.common.admin.Replica;
+import org.astraea.common.admin.TopicConfigs;
+import org.astraea.common.admin.TopicPartition;
+import org.astraea.common.metrics.MBeanRegister;
+
+/**
+ * Execute the plan partition by partition. The reassignments are submitted in batches which are
+ * capped by {@link #MAX_BYTES_IN_FLIGHT_CONFIG} and {@link #MAX_MOVES_PER_BROKER_CONFIG}, and the
+ * next reassignment is submitted as soon as a running one is done, so a large partition doesn't
+ * hold back the others. The replication of moving replicas is throttled by {@link
+ * #THROTTLE_CONFIG} if it is defined, and the throttles are cleared after the execution.
+ *
+ * <p>The progress is exposed by JMX (domain: astraea.balancer, executor: BatchedPlanExecutor).
+ */
+public class BatchedPlanExecutor implements RebalancePlanExecutor {
+
+  /** The upper bound of the bytes being moved at the same time. */
+  public static final String MAX_BYTES_IN_FLIGHT_CONFIG = "max.bytes.in.flight";
+
+  /** The upper bound of the partition reassignments involving a broker at the same time. */
+  public static final String MAX_MOVES_PER_BROKER_CONFIG = "max.moves.per.broker";
+
+  /** The replication throttle (per second) applied to the moving replicas. */
+  public static final String THROTTLE_CONFIG = "throttle";
+
+  /** The interval of checking the running reassignments. */
+  public static final String POLL_INTERVAL_CONFIG = "poll.interval";
+
+  public static final Set<String> ALL_CONFIGS =
+      new TreeSet<>(
+          Utils.constants(
+              BatchedPlanExecutor.class, name -> name.endsWith("_CONFIG"), String.class));
+
+  private static final AtomicInteger RUN = new AtomicInteger();
+
+  private final boolean enableDataDirectoryMigration;
+  private final long maxBytesInFlight;
+  private final int maxMovesPerBroker;
+  private final Optional<DataSize> throttle;
+  private final Duration pollInterval;
+
+  public BatchedPlanExecutor(Configuration configuration) {
+    this.enableDataDirectoryMigration =
+        configuration
+            .string(CONFIG_ENABLE_DATA_DIRECTORY_MIGRATION)
+            .map(Boolean::parseBoolean)
+            .orElse(false);
+    this.maxBytesInFlight =
+        configuration.dataSize(MAX_BYTES_IN_FLIGHT_CONFIG).orElse(DataSize.Gib.of(10)).bytes();
+    if (maxBytesInFlight <= 0)
+      throw new IllegalArgumentException(
+          MAX_BYTES_IN_FLIGHT_CONFIG + " should be positive, but it is " + maxBytesInFlight);
+    this.maxMovesPerBroker =
+        configuration
+            .integer(MAX_MOVES_PER_BROKER_CONFIG)
+            .map(Utils::requirePositive)
+            .orElse(2);
+    this.throttle = configuration.dataSize(THROTTLE_CONFIG);
+    this.pollInterval = configuration.duration(POLL_INTERVAL_CONFIG).orElse(Duration.ofSeconds(1));
+  }
+
+  @Override
+  public CompletionStage<Void> run(Admin admin, ClusterInfo targetAllocation, Duration timeout) {
+    return admin
+        .topicNames(true)
+        .thenCompose(admin::clusterInfo)
+        .thenApply(
+            clusterInfo -> {
+              if (clusterInfo
+                  .replicaStream()
+                  .anyMatch(r -> r.isFuture() || r.isRemoving() || r.isAdding()))
+                throw new IllegalArgumentException(
+                    "There are moving replicas. Stop re-balance plan");
+              return moves(clusterInfo, targetAllocation);
+            })
+        .thenCompose(
+            moves ->
+                admin
+                    .declarePreferredDataFolders(
+                        moves.stream()
+                            .flatMap(m -> targetAllocation.replicas(m.partition()).stream())
+                            .collect(
+                                Collectors.toMap(Replica::topicPartitionReplica, Replica::path)))
+                    .thenApply(ignored -> moves))
+        .thenCompose(
+            moves -> {
+              // the execution keeps polling the cluster until all moves are done, so it gets a
+              // thread of its own rather than blocking the common pool
+              var executor = Executors.newSingleThreadExecutor();
+              return CompletableFuture.runAsync(
+                      () -> execute(admin, targetAllocation, moves, timeout), executor)
+                  .whenComplete((ignored, e) -> executor.shutdown());
+            });
+  }
+
+  private void execute(Admin admin, ClusterInfo target, List<Move> moves, Duration timeout) {
+    var scheduler = new Scheduler(moves, maxBytesInFlight, maxMovesPerBroker);
+    var start = System.currentTimeMillis();
+    MBeanRegister.local()
+        .domainName("astraea.balancer")
+        .property("executor", BatchedPlanExecutor.class.getSimpleName())
+        .property("run", Integer.toString(RUN.getAndIncrement()))
+        .attribute("TotalBytes", Long.class, scheduler::totalBytes)
+        .attribute("MovedBytes", Long.class, scheduler::movedBytes)
+        .attribute("TotalPartitions", Integer.class, moves::size)
+        .attribute("DonePartitions", Integer.class, scheduler::done)
+        .attribute("InFlightPartitions", Integer.class, scheduler::inFlightSize)
+        .attribute(
+            "EtaSeconds",
+            Long.class,
+            () -> scheduler.eta(Duration.ofMillis(System.currentTimeMillis() - start)).toSeconds())
+        .register();
+
+    var throttled = new Throttled();
+    try {
+      var lastProgress = System.currentTimeMillis();
+      while (!scheduler.finished()) {
+        var started = scheduler.next();
+        if (!started.isEmpty()) {
+          if (throttle.isPresent()) throttled.apply(admin, started, throttle.get());
+          admin
+              .moveToBrokers(
+                  started.stream()
+                      .collect(
+                          Collectors.toMap(
+                              Move::partition, Move::brokers, (l, r) -> l, LinkedHashMap::new)))
+              .toCompletableFuture()
+              .join();
+        }
+        Utils.sleep(pollInterval);
+
+        var inFlight = scheduler.inFlight();
+        var current =
+            admin
+                .clusterInfo(
+                    inFlight.stream().map(m -> m.partition().topic()).collect(Collectors.toSet()))
+                .toCompletableFuture()
+                .join();
+        var movedBytes = scheduler.movedBytes();
+        inFlight.forEach(m -> scheduler.progress(m, m.progress(current)));
+        if (scheduler.movedBytes() > movedBytes) lastProgress = System.currentTimeMillis();
+        var finished =
+            inFlight.stream().filter(m -> m.isDone(current)).collect(Collectors.toList());
+        if (finished.isEmpty()) {
+          // the timeout is counted from the latest progress rather than the start of execution
+          if (System.currentTimeMillis() - lastProgress > timeout.toMillis())
+            throw new IllegalStateException(
+                "Failed to move "
+                    + inFlight.stream().map(Move::partition).collect(Collectors.toSet()));
+          continue;
+        }
+        lastProgress = System.currentTimeMillis();
+        var partitions = finished.stream().map(Move::partition).collect(Collectors.toSet());
+        if (enableDataDirectoryMigration) {
+          var replicas =
+              partitions.stream()
+                  .flatMap(tp -> target.replicas(tp).stream())
+                  .collect(Collectors.toMap(Replica::topicPartitionReplica, Replica::path));
+          admin.moveToFolders(replicas).toCompletableFuture().join();
+          StraightPlanExecutor.assertion(
+              admin.waitReplicasSynced(replicas.keySet(), timeout).toCompletableFuture().join(),
+              "Failed to sync " + replicas.keySet());
+        }
+        admin.preferredLeaderElection(partitions).toCompletableFuture().join();
+        finished.forEach(scheduler::complete);
+      }
+      var partitions = moves.stream().map(Move::partition).collect(Collectors.toSet());
+      StraightPlanExecutor.assertion(
+          admin.waitPreferredLeaderSynced(partitions, timeout).toCompletableFuture().join(),
+          "Failed to re-election for " + partitions);
+    } finally {
+      throttled.clear(admin);
+    }
+  }
+
+  /**
+   * @return the partitions to move. The largest partitions come first, so the small partitions can
+   *     fill the rest of the slots.
+   */
+  static List<Move> moves(ClusterInfo current, ClusterInfo target) {
+    return findNonFulfilledAllocation(current, target).stream()
+        .map(tp -> Move.of(current.replicas(tp), target.replicas(tp)))
+        .sorted(Comparator.comparingLong(Move::bytes).reversed())
+        .collect(Collectors.toUnmodifiableList());
+  }
+
+  /**
+   * A partition reassignment.
+   *
+   * @param partition to move
+   * @param brokers the target brokers. The preferred leader is the first one
+   * @param sources the brokers hosting the replicas currently
+   * @param bytes the size of data to copy
+   */
+  record Move(TopicPartition partition, List<Integer> brokers, Set<Integer> sources, long bytes) {
+
+    static Move of(List<Replica> current, List<Replica> target) {
+      var brokers =
+          target.stream()
+              .sorted(Comparator.comparing(Replica::isPreferredLeader).reversed())
+              .map(r -> r.nodeInfo().id())
+              .collect(Collectors.toUnmodifiableList());
+      var sources =
+          current.stream().map(r -> r.nodeInfo().id()).collect(Collectors.toUnmodifiableSet());
+      var size = current.stream().mapToLong(Replica::size).max().orElse(0);
+      var adding = brokers.stream().filter(id -> !sources.contains(id)).count();
+      return new Move(target.get(0).topicPartition(), brokers, sources, size * adding);
+    }
+
+    /** @return the brokers sending or receiving data */
+    Set<Integer> involved() {
+      return Stream.concat(brokers.stream(), sources.stream()).collect(Collectors.toSet());
+    }
+
+    /** @return the brokers receiving data */
+    Set<Integer> adding() {
+      return brokers.stream().filter(id -> !sources.contains(id)).collect(Collectors.toSet());
+    }
+
+    /** @return the size of data copied to the new replicas */
+    long progress(ClusterInfo current) {
+      var adding = adding();
+      var copied =
+          current.replicas(partition).stream()
+              .filter(r -> adding.contains(r.nodeInfo().id()))
+              .mapToLong(Replica::size)
+              .sum();
+      return Math.min(bytes, copied);
+    }
+
+    /**
+     * @return true if the replicas are moved to the target brokers and the new replicas are in
+     *     sync. The replicas which stay on the same brokers are not checked, since their lag has
+     *     nothing to do with this move.
+     */
+    boolean isDone(ClusterInfo current) {
+      var replicas = current.replicas(partition);
+      var adding = adding();
+      return replicas.size() == brokers.size()
+          && replicas.stream()
+              .allMatch(
+                  r ->
+                      brokers.contains(r.nodeInfo().id())
+                          && !r.isFuture()
+                          && !r.isAdding()
+                          && !r.isRemoving()
+                          && (r.isSync() || !adding.contains(r.nodeInfo().id())));
+    }
+  }
+
+  /**
+   * Decide which moves to submit. A pending move is submitted if both the bytes in flight and the
+   * moves of involved brokers are under the limits. A move exceeding the bytes limit by itself is
+   * submitted only if there is nothing in flight, otherwise it would never get executed.
+   */
+  static class Scheduler {
+    private final List<Move> pending;
+    private final Map<Move, Long> inFlight = new LinkedHashMap<>();
+    private final Map<Integer, Integer> brokerMoves = new HashMap<>();
+    private final long maxBytes;
+    private final int maxMovesPerBroker;
+    private final long totalBytes;
+    private volatile long movedBytes = 0;
+    private volatile long completedBytes = 0;
+    private volatile int done = 0;
+    private volatile int inFlightSize = 0;
+    private long bytesInFlight = 0;
+
+    Scheduler(List<Move> moves, long maxBytes, int maxMovesPerBroker) {
+      this.pending = new ArrayList<>(moves);
+      this.maxBytes = maxBytes;
+      this.maxMovesPerBroker = maxMovesPerBroker;
+      this.totalBytes = moves.stream().mapToLong(Move::bytes).sum();
+    }
+
+    synchronized List<Move> next() {
+      var started = new ArrayList<Move>();
+      var iter = pending.iterator();
+      while (iter.hasNext()) {
+        var move = iter.next();
+        var involved = move.involved();
+        var fitBytes = inFlight.isEmpty() || bytesInFlight + move.bytes() <= maxBytes;
+        var fitBrokers =
+            involved.stream().allMatch(id -> brokerMoves.getOrDefault(id, 0) < maxMovesPerBroker);
+        if (!fitBytes || !fitBrokers) continue;
+        iter.remove();
+        inFlight.put(move, 0L);
+        bytesInFlight += move.bytes();
+        involved.forEach(id -> brokerMoves.merge(id, 1, Integer::sum));
+        started.add(move);
+      }
+      inFlightSize = inFlight.size();
+      return started;
+    }
+
+    synchronized void progress(Move move, long bytes) {
+      if (inFlight.containsKey(move)) inFlight.put(move, bytes);
+      movedBytes = completedBytes + inFlight.values().stream().mapToLong(b -> b).sum();
+    }
+
+    synchronized void complete(Move move) {
+      if (inFlight.remove(move) == null) return;
+      bytesInFlight -= move.bytes();
+      move.involved()
+          .forEach(id -> brokerMoves.computeIfPresent(id, (k, v) -> v == 1 ? null : v - 1));
+      completedBytes += move.bytes();
+      done++;
+      inFlightSize = inFlight.size();
+      progress(move, 0);
+    }
+
+    synchronized List<Move> inFlight() {
+      return List.copyOf(inFlight.keySet());
+    }
+
+    synchronized boolean finished() {
+      return pending.isEmpty() && inFlight.isEmpty();
+    }
+
+    long totalBytes() {
+      return totalBytes;
+    }
+
+    long movedBytes() {
+      return movedBytes;
+    }
+
+    int done() {
+      return done;
+    }
+
+    int inFlightSize() {
+      return inFlightSize;
+    }
+
+    /**
+     * @param elapsed the time since the execution started
+     * @return the estimated remaining time, based on the average rate so far. It is zero if nothing
+     *     has been moved yet
+     */
+    Duration eta(Duration elapsed) {
+      var moved = movedBytes;
+      if (moved <= 0) return Duration.ZERO;
+      return Duration.ofMillis((long) ((double) (totalBytes - moved) / moved * elapsed.toMillis()));
+    }
+  }
+
+  /** The throttles applied by this executor. They are removed by {@link #clear(Admin)}. */
+  private static class Throttled {
+    private final Map<String, Set<String>> leaders = new HashMap<>();
+    private final Map<String, Set<String>> followers = new HashMap<>();
+    private final Set<Integer> brokers = new HashSet<>();
+
+    private void apply(Admin admin, List<Move> moves, DataSize rate) {
+      var leaderAppend = new HashMap<String, Set<String>>();
+      var followerAppend = new HashMap<String, Set<String>>();
+      var newBrokers = new HashSet<Integer>();
+      for (var move : moves) {
+        var topic = move.partition().topic();
+        var partition = move.partition().partition();
+        move.sources()
+            .forEach(
+                id ->
+                    leaderAppend
+                        .computeIfAbsent(topic, t -> new HashSet<>())
+                        .add(partition + ":" + id));
+        move.adding()
+            .forEach(
+                id ->
+                    followerAppend
+                        .computeIfAbsent(topic, t -> new HashSet<>())
+                        .add(partition + ":" + id));
+        move.involved().stream().filter(id -> !brokers.contains(id)).forEach(newBrokers::add);
+      }
+      var value = String.valueOf(rate.bytes());
+      admin
+          .setBrokerConfigs(
+              newBrokers.stream()
+                  .collect(
+                      Collectors.toMap(
+                          id -> id,
+                          id ->
+                              Map.of(
+                                  BrokerConfigs.LEADER_REPLICATION_THROTTLED_RATE_CONFIG,
+                                  value,
+                                  BrokerConfigs.FOLLOWER_REPLICATION_THROTTLED_RATE_CONFIG,
+                                  value))))
+          .thenCompose(
+              ignored -> admin.appendTopicConfigs(topicConfigs(leaderAppend, followerAppend)))
+          .toCompletableFuture()
+          .join();
+      brokers.addAll(newBrokers);
+      leaderAppend.forEach((t, v) -> leaders.computeIfAbsent(t, k -> new HashSet<>()).addAll(v));
+      followerAppend.forEach(
+          (t, v) -> followers.computeIfAbsent(t, k -> new HashSet<>()).addAll(v));
+    }
+
+    private void clear(Admin admin) {
+      if (brokers.isEmpty() && leaders.isEmpty() && followers.isEmpty()) return;
+      admin
+          .subtractTopicConfigs(topicConfigs(leaders, followers))
+          .thenCompose(
+              ignored ->
+                  admin.unsetBrokerConfigs(
+                      brokers.stream()
+                          .collect(
+                              Collectors.toMap(
+                                  id -> id,
+                                  id ->
+                                      Set.of(
+                                          BrokerConfigs.LEADER_REPLICATION_THROTTLED_RATE_CONFIG,
+                                          BrokerConfigs
+                                              .FOLLOWER_REPLICATION_THROTTLED_RATE_CONFIG)))))
+          .toCompletableFuture()
+          .join();
+    }
+
+    private static Map<String, Map<String, String>> topicConfigs(
+        Map<String, Set<String>> leaders, Map<String, Set<String>> followers) {
+      var configs = new HashMap<String, Map<String, String>>();
+      leaders.forEach(
+          (topic, replicas) ->
+              configs
+                  .computeIfAbsent(topic, t -> new HashMap<>())
+                  .put(
+                      TopicConfigs.LEADER_REPLICATION_THROTTLED_REPLICAS_CONFIG,
+                      String.join(",", replicas)));
+      followers.forEach(
+          (topic, replicas) ->
+              configs
+                  .computeIfAbsent(topic, t -> new HashMap<>())
+                  .put(
+                      TopicConfigs.FOLLOWER_REPLICATION_THROTTLED_REPLICAS_CONFIG,
+                      String.join(",", replicas)));
+      return configs;
+    }
+  }
+}
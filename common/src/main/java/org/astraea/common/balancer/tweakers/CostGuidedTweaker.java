@@ -0,0 +1,338 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.astraea.common.balancer.tweakers;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.function.ToDoubleFunction;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.astraea.common.admin.Broker;
+import org.astraea.common.admin.ClusterInfo;
+import org.astraea.common.admin.ClusterInfoBuilder;
+import org.astraea.common.admin.Replica;
+import org.astraea.common.admin.TopicPartition;
+
+/**
+ * The {@link CostGuidedTweaker} proposes a new log placement by moving load from the busy brokers
+ * to the idle brokers. Unlike {@link ShuffleTweaker}, which moves replicas blindly, it breaks down
+ * the load of brokers by the given replica load (see {@link
+ * org.astraea.common.cost.HasClusterCost#replicaLoad}) and then
+ *
+ * <ol>
+ *   <li>picks a source broker with probability proportional to its load above average.
+ *   <li>picks a replica of the source broker with probability proportional to its load.
+ *   <li>either hands over the leadership to the follower located at the least loaded broker, or
+ *       moves the replica to one of the least loaded brokers which don't host the partition.
+ * </ol>
+ *
+ * The load of brokers is updated after each change, so the changes of one candidate don't pile up
+ * on the same broker. A change is applied only if the target broker doesn't become busier than the
+ * source broker.
+ */
+public class CostGuidedTweaker implements AllocationTweaker {
+
+  // pick the target from a few least loaded brokers to keep the candidates diverse
+  private static final int TARGET_CHOICES = 3;
+
+  private final Supplier<Integer> numberOfShuffle;
+  private final Predicate<String> allowedTopics;
+  private final Predicate<Integer> allowedBrokers;
+  private final ToDoubleFunction<Replica> replicaLoad;
+
+  public CostGuidedTweaker(
+      Supplier<Integer> numberOfShuffle,
+      Predicate<String> allowedTopics,
+      Predicate<Integer> allowedBrokers,
+      ToDoubleFunction<Replica> replicaLoad) {
+    this.numberOfShuffle = numberOfShuffle;
+    this.allowedTopics = allowedTopics;
+    this.allowedBrokers = allowedBrokers;
+    this.replicaLoad = replicaLoad;
+  }
+
+  /**
+   * @param replicaLoad the load of a replica. The load of a broker is the sum of its replicas
+   * @return builder
+   */
+  public static Builder builder(ToDoubleFunction<Replica> replicaLoad) {
+    return new Builder(replicaLoad);
+  }
+
+  @Override
+  public Stream<ClusterInfo> generate(ClusterInfo baseAllocation) {
+    final var brokers =
+        baseAllocation.brokers().stream()
+            .filter(b -> allowedBrokers.test(b.id()))
+            .collect(Collectors.toUnmodifiableList());
+    // Unable to do any meaningful log migration without two allowed brokers
+    if (brokers.size() < 2) return Stream.of();
+
+    final var layout = new Layout(baseAllocation, brokers);
+    // No replica to working on.
+    if (Arrays.stream(layout.sources).allMatch(Source::isEmpty)) return Stream.of();
+
+    return Stream.generate(
+        () -> {
+          final var candidate = new Candidate(layout);
+          final var shuffleCount = numberOfShuffle.get();
+          // a few attempts might be wasted by the partitions touched already
+          for (int attempt = 0, shuffled = 0;
+              attempt < shuffleCount * 4 && shuffled < shuffleCount;
+              attempt++) {
+            if (candidate.tweak()) shuffled++;
+          }
+          return candidate.builder.build();
+        });
+  }
+
+  /** The immutable information of base allocation, shared by all candidates. */
+  private class Layout {
+    private final ClusterInfo base;
+    private final List<Integer> ids;
+    private final List<List<String>> folders;
+    private final Map<Integer, Integer> index = new HashMap<>();
+    private final double[] load;
+    private final Source[] sources;
+
+    private Layout(ClusterInfo base, List<Broker> brokers) {
+      this.base = base;
+      this.ids = brokers.stream().map(Broker::id).collect(Collectors.toUnmodifiableList());
+      this.folders =
+          brokers.stream()
+              .map(
+                  b ->
+                      b.dataFolders().stream()
+                          .map(Broker.DataFolder::path)
+                          .collect(Collectors.toUnmodifiableList()))
+              .collect(Collectors.toUnmodifiableList());
+      for (var i = 0; i < ids.size(); i++) index.put(ids.get(i), i);
+      this.load = new double[ids.size()];
+      this.sources = new Source[ids.size()];
+      for (var i = 0; i < ids.size(); i++) {
+        var replicas = base.replicaStream(ids.get(i)).collect(Collectors.toUnmodifiableList());
+        load[i] = replicas.stream().mapToDouble(replicaLoad).sum();
+        sources[i] =
+            new Source(
+                replicas.stream()
+                    .filter(r -> allowedTopics.test(r.topic()))
+                    .filter(
+                        r -> ShuffleTweaker.eligiblePartition(base.replicas(r.topicPartition())))
+                    .collect(Collectors.toUnmodifiableList()),
+                replicaLoad);
+      }
+    }
+  }
+
+  /** The changes and the estimated broker load of a candidate. */
+  private class Candidate {
+    private final Layout layout;
+    private final ClusterInfoBuilder builder;
+    private final double[] load;
+    private final Set<TopicPartition> touched = new HashSet<>();
+    private final ThreadLocalRandom random = ThreadLocalRandom.current();
+
+    private Candidate(Layout layout) {
+      this.layout = layout;
+      this.builder = ClusterInfo.builder(layout.base);
+      this.load = layout.load.clone();
+    }
+
+    /**
+     * @return true if a change is applied
+     */
+    private boolean tweak() {
+      var source = hotBroker();
+      var replica = layout.sources[source].pick(random);
+      if (touched.contains(replica.topicPartition())) return false;
+      var replicas = layout.base.replicas(replica.topicPartition());
+      var leadershipFirst = replica.isLeader() && random.nextBoolean();
+      var finished =
+          leadershipFirst
+              ? handOver(source, replica, replicas) || move(source, replica, replicas)
+              : move(source, replica, replicas)
+                  || (replica.isLeader() && handOver(source, replica, replicas));
+      if (finished) touched.add(replica.topicPartition());
+      return finished;
+    }
+
+    private boolean handOver(int source, Replica leader, List<Replica> replicas) {
+      var target = -1;
+      Replica follower = null;
+      for (var r : replicas) {
+        var i = layout.index.get(r.nodeInfo().id());
+        if (r.isLeader() || i == null) continue;
+        if (target == -1 || load[i] < load[target]) {
+          target = i;
+          follower = r;
+        }
+      }
+      if (follower == null) return false;
+      var delta = replicaLoad.applyAsDouble(leader) - replicaLoad.applyAsDouble(follower);
+      if (load[target] + delta > load[source]) return false;
+      builder.setPreferredLeader(follower.topicPartitionReplica());
+      load[source] -= delta;
+      load[target] += delta;
+      return true;
+    }
+
+    private boolean move(int source, Replica replica, List<Replica> replicas) {
+      var target = coldBroker(replicas);
+      var delta = replicaLoad.applyAsDouble(replica);
+      if (target == -1 || load[target] + delta > load[source]) return false;
+      var folders = layout.folders.get(target);
+      builder.reassignReplica(
+          replica.topicPartitionReplica(),
+          layout.ids.get(target),
+          folders.get(random.nextInt(folders.size())));
+      load[source] -= delta;
+      load[target] += delta;
+      return true;
+    }
+
+    /**
+     * @return the index of a broker having replicas to move. The probability is proportional to
+     *     the load above average, or uniform if all brokers have the same load.
+     */
+    private int hotBroker() {
+      var sources = layout.sources;
+      var average = Arrays.stream(load).average().orElse(0);
+      var total = 0D;
+      for (var i = 0; i < load.length; i++)
+        if (!sources[i].isEmpty() && load[i] > average) total += load[i] - average;
+      if (total > 0) {
+        var point = random.nextDouble(total);
+        for (var i = 0; i < load.length; i++) {
+          if (sources[i].isEmpty() || load[i] <= average) continue;
+          point -= load[i] - average;
+          if (point < 0) return i;
+        }
+      }
+      // pick a random broker by reservoir sampling
+      var chosen = -1;
+      var seen = 0;
+      for (var i = 0; i < load.length; i++) {
+        if (sources[i].isEmpty()) continue;
+        seen++;
+        if (random.nextInt(seen) == 0) chosen = i;
+      }
+      return chosen;
+    }
+
+    /**
+     * @return the index of a random broker among the least loaded brokers which are below average,
+     *     have folders and don't host the partition. If all such brokers are above average, the
+     *     least loaded one is returned. -1 if there is no such broker
+     */
+    private int coldBroker(List<Replica> replicas) {
+      var candidates = new int[TARGET_CHOICES];
+      var size = 0;
+      for (var i = 0; i < load.length; i++) {
+        if (layout.folders.get(i).isEmpty() || hosts(replicas, i)) continue;
+        // insert into the sorted candidates
+        var position = size;
+        while (position > 0 && load[candidates[position - 1]] > load[i]) position--;
+        if (position >= TARGET_CHOICES) continue;
+        var end = Math.min(size, TARGET_CHOICES - 1);
+        System.arraycopy(candidates, position, candidates, position + 1, end - position);
+        candidates[position] = i;
+        size = Math.min(size + 1, TARGET_CHOICES);
+      }
+      if (size == 0) return -1;
+      var average = Arrays.stream(load).average().orElse(0);
+      var belowAverage = 0;
+      while (belowAverage < size && load[candidates[belowAverage]] < average) belowAverage++;
+      return belowAverage == 0 ? candidates[0] : candidates[random.nextInt(belowAverage)];
+    }
+
+    private boolean hosts(List<Replica> replicas, int broker) {
+      var id = layout.ids.get(broker);
+      for (var r : replicas) if (r.nodeInfo().id() == id) return true;
+      return false;
+    }
+  }
+
+  /** The movable replicas of a broker, sampled by their load. */
+  private static class Source {
+    private final List<Replica> replicas;
+    private final double[] cumulative;
+
+    private Source(List<Replica> replicas, ToDoubleFunction<Replica> replicaLoad) {
+      this.replicas = replicas;
+      this.cumulative = new double[replicas.size()];
+      var sum = 0D;
+      for (var i = 0; i < replicas.size(); i++) {
+        sum += Math.max(0, replicaLoad.applyAsDouble(replicas.get(i)));
+        cumulative[i] = sum;
+      }
+    }
+
+    private boolean isEmpty() {
+      return replicas.isEmpty();
+    }
+
+    private Replica pick(ThreadLocalRandom random) {
+      var total = cumulative[cumulative.length - 1];
+      if (!(total > 0)) return replicas.get(random.nextInt(replicas.size()));
+      var point = random.nextDouble(total);
+      // find the first replica whose cumulative load is larger than the point
+      var i = Arrays.binarySearch(cumulative, point);
+      if (i < 0) return replicas.get(-i - 1);
+      while (i < cumulative.length - 1 && cumulative[i] <= point) i++;
+      return replicas.get(i);
+    }
+  }
+
+  public static class Builder {
+
+    private final ToDoubleFunction<Replica> replicaLoad;
+    private Supplier<Integer> numberOfShuffle = () -> ThreadLocalRandom.current().nextInt(1, 5);
+    private Predicate<String> allowedTopics = (name) -> true;
+    private Predicate<Integer> allowedBrokers = (name) -> true;
+
+    private Builder(ToDoubleFunction<Replica> replicaLoad) {
+      this.replicaLoad = Objects.requireNonNull(replicaLoad);
+    }
+
+    public Builder numberOfShuffle(Supplier<Integer> numberOfShuffle) {
+      this.numberOfShuffle = numberOfShuffle;
+      return this;
+    }
+
+    public Builder allowedTopics(Predicate<String> allowedTopics) {
+      this.allowedTopics = allowedTopics;
+      return this;
+    }
+
+    public Builder allowedBrokers(Predicate<Integer> allowedBrokers) {
+      this.allowedBrokers = allowedBrokers;
+      return this;
+    }
+
+    public CostGuidedTweaker build() {
+      return new CostGuidedTweaker(numberOfShuffle, allowedTopics, allowedBrokers, replicaLoad);
+    }
+  }
+}
@@ -25,9 +25,11 @@ import java.util.concurrent.ThreadLocalRandom;
 import java.util.function.Predicate;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 import java.util.stream.Stream;
 import org.astraea.common.EnumInfo;
 import org.astraea.common.admin.ClusterInfo;
+import org.astraea.common.admin.CompactAllocation;
 import org.astraea.common.admin.Replica;
 import org.astraea.common.admin.TopicPartitionReplica;
 
@@ -44,7 +46,7 @@ import org.astraea.common.admin.TopicPartitionReplica;
  *       replica set before this action) into the replica set.
  * </ol>
  */
-public class ShuffleTweaker {
+public class ShuffleTweaker implements AllocationTweaker {
 
   private final Supplier<Integer> numberOfShuffle;
   private final Predicate<String> allowedTopics;
@@ -63,6 +65,7 @@ public class ShuffleTweaker {
     return new Builder();
   }
 
+  @Override
   public Stream<ClusterInfo> generate(ClusterInfo baseAllocation) {
     // There is no broker
     if (baseAllocation.nodes().isEmpty()) return Stream.of();
@@ -187,6 +190,134 @@ public class ShuffleTweaker {
         });
   }
 
+  /**
+   * Create a tweaker which shuffles the {@link CompactAllocation} in place. It applies the same
+   * operations as {@link #generate(ClusterInfo)}, but it doesn't allocate objects for each
+   * candidate.
+   *
+   * @param allocation to shuffle
+   * @return a tweaker bound to the given allocation. It is not thread-safe
+   */
+  public CompactShuffle compact(CompactAllocation allocation) {
+    return new CompactShuffle(allocation);
+  }
+
+  /** Shuffle a {@link CompactAllocation} in place. */
+  public class CompactShuffle {
+    private final CompactAllocation allocation;
+    // the slots of legal replicas. It is shuffled partially for each tweak
+    private final int[] legalSlots;
+    private final boolean[] targetBrokers;
+    // the slot is forbidden in this tweak if its stamp is equal to current epoch
+    private final int[] stamps;
+    private int epoch = 0;
+
+    private CompactShuffle(CompactAllocation allocation) {
+      this.allocation = allocation;
+      var singleFolder =
+          allocation.brokers() == 1 && allocation.isBroker(0) && allocation.folders(0) == 1;
+      this.legalSlots =
+          singleFolder
+              ? new int[0]
+              : IntStream.range(0, allocation.partitions())
+                  .filter(p -> allowedTopics.test(allocation.partition(p).topic()))
+                  .filter(this::eligible)
+                  .flatMap(
+                      p -> IntStream.range(allocation.replicaStart(p), allocation.replicaEnd(p)))
+                  .filter(slot -> allowedBrokers.test(allocation.brokerId(allocation.broker(slot))))
+                  .toArray();
+      this.targetBrokers = new boolean[allocation.brokers()];
+      for (var b = 0; b < allocation.brokers(); b++)
+        targetBrokers[b] =
+            allocation.isBroker(b)
+                && allocation.folders(b) > 0
+                && allowedBrokers.test(allocation.brokerId(b));
+      this.stamps = new int[allocation.replicas()];
+    }
+
+    private boolean eligible(int p) {
+      var start = allocation.replicaStart(p);
+      // only one replica and it is offline
+      if (allocation.replicaEnd(p) - start == 1 && allocation.isOffline(start)) return false;
+      // no leader
+      return allocation.leader(p) != -1;
+    }
+
+    /**
+     * @return true if there is no replica to shuffle
+     */
+    public boolean isEmpty() {
+      return legalSlots.length == 0;
+    }
+
+    /**
+     * Apply a few random changes to the allocation. The changes are recorded by the journal of
+     * allocation, so the caller can roll back them.
+     *
+     * @return the number of applied changes
+     */
+    public int tweak() {
+      var random = ThreadLocalRandom.current();
+      var shuffleCount = numberOfShuffle.get();
+      epoch++;
+      var shuffled = 0;
+      for (var i = 0; i < legalSlots.length && shuffled < shuffleCount; i++) {
+        // partial Fisher-Yates shuffle
+        var j = random.nextInt(i, legalSlots.length);
+        var slot = legalSlots[j];
+        legalSlots[j] = legalSlots[i];
+        legalSlots[i] = slot;
+        if (stamps[slot] == epoch) continue;
+        var leadershipFirst = random.nextBoolean();
+        var finished =
+            leadershipFirst
+                ? changeLeadership(slot, random) || changeReplicaList(slot, random)
+                : changeReplicaList(slot, random) || changeLeadership(slot, random);
+        if (finished) shuffled++;
+      }
+      return shuffled;
+    }
+
+    private boolean changeLeadership(int slot, ThreadLocalRandom random) {
+      var p = allocation.partitionOf(slot);
+      var target = -1;
+      if (allocation.isLeader(slot)) {
+        // pick a random follower by reservoir sampling
+        var seen = 0;
+        for (var s = allocation.replicaStart(p); s < allocation.replicaEnd(p); s++) {
+          if (s == slot || !available(s)) continue;
+          seen++;
+          if (random.nextInt(seen) == 0) target = s;
+        }
+      } else if (available(allocation.leader(p))) target = allocation.leader(p);
+      if (target == -1) return false;
+      allocation.setLeader(allocation.isLeader(slot) ? target : slot);
+      stamps[slot] = epoch;
+      stamps[target] = epoch;
+      return true;
+    }
+
+    private boolean available(int slot) {
+      return stamps[slot] != epoch
+          && allowedBrokers.test(allocation.brokerId(allocation.broker(slot)));
+    }
+
+    private boolean changeReplicaList(int slot, ThreadLocalRandom random) {
+      var p = allocation.partitionOf(slot);
+      var target = -1;
+      var seen = 0;
+      for (var b = 0; b < targetBrokers.length; b++) {
+        if (!targetBrokers[b] || allocation.hosts(p, b)) continue;
+        seen++;
+        if (random.nextInt(seen) == 0) target = b;
+      }
+      if (target == -1) return false;
+      allocation.reassign(slot, target, random.nextInt(allocation.folders(target)));
+      stamps[slot] = epoch;
+      return true;
+    }
+  }
+
   private static <T> T randomElement(Collection<T> collection) {
     return collection.stream()
         .skip(ThreadLocalRandom.current().nextInt(0, collection.size()))
@@ -194,7 +325,7 @@ public class ShuffleTweaker {
         .orElseThrow();
   }
 
-  private static boolean eligiblePartition(Collection<Replica> replicas) {
+  static boolean eligiblePartition(Collection<Replica> replicas) {
     return Stream.<Predicate<Collection<Replica>>>of(
             // only one replica and it is offline
             r -> r.size() == 1 && r.stream().findFirst().orElseThrow().isOffline(),
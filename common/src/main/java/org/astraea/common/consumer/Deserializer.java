@@ -69,6 +69,10 @@ public interface Deserializer<T> {
       (topic, headers, data) -> data == null ? null : ByteUtils.toDouble(data);
   Deserializer<BeanObject> BEAN_OBJECT = (topic, headers, data) -> ByteUtils.readBeanObject(data);
 
+  /** It accepts both the batch of beans and the single bean serialized by BEAN_OBJECT. */
+  Deserializer<List<BeanObject>> BEAN_OBJECTS =
+      (topic, headers, data) -> ByteUtils.readBeanObjects(data);
+
   /**
    * create Custom JsonDeserializer
    *
@@ -46,7 +46,10 @@ public class BrokerInputCost implements HasBrokerCost, HasClusterCost {
   @Override
   public Optional<MetricSensor> metricSensor() {
     return Optional.of(
-        (client, ignored) -> List.of(ServerMetrics.BrokerTopic.BYTES_IN_PER_SEC.fetch(client)));
+        MetricSensor.of(
+            List.of(ServerMetrics.BrokerTopic.BYTES_IN_PER_SEC.query()),
+            (client, ignored) ->
+                List.of(ServerMetrics.BrokerTopic.BYTES_IN_PER_SEC.fetch(client))));
   }
 
   @Override
@@ -45,7 +45,10 @@ public class BrokerOutputCost implements HasBrokerCost, HasClusterCost {
   @Override
   public Optional<MetricSensor> metricSensor() {
     return Optional.of(
-        (client, ignored) -> List.of(ServerMetrics.BrokerTopic.BYTES_OUT_PER_SEC.fetch(client)));
+        MetricSensor.of(
+            List.of(ServerMetrics.BrokerTopic.BYTES_OUT_PER_SEC.query()),
+            (client, ignored) ->
+                List.of(ServerMetrics.BrokerTopic.BYTES_OUT_PER_SEC.fetch(client))));
   }
 
   @Override
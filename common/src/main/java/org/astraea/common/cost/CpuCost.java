@@ -57,7 +57,10 @@ public class CpuCost implements HasBrokerCost {
 
   @Override
   public Optional<MetricSensor> metricSensor() {
-    return Optional.of((client, ignored) -> List.of(HostMetrics.operatingSystem(client)));
+    return Optional.of(
+        MetricSensor.of(
+            List.of(HostMetrics.OPERATING_SYSTEM_QUERY),
+            (client, ignored) -> List.of(HostMetrics.operatingSystem(client))));
   }
 
   @Override
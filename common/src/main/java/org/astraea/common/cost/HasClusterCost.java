@@ -16,10 +16,18 @@
  */
 package org.astraea.common.cost;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.ToDoubleFunction;
 import java.util.stream.Collectors;
 import org.astraea.common.admin.ClusterInfo;
+import org.astraea.common.admin.CompactAllocation;
+import org.astraea.common.admin.Replica;
+import org.astraea.common.admin.TopicPartition;
 import org.astraea.common.function.Bi3Function;
 import org.astraea.common.metrics.ClusterBean;
 import org.astraea.common.metrics.collector.MetricSensor;
@@ -36,45 +44,123 @@ public interface HasClusterCost extends CostFunction {
                 .map(Optional::get)
                 .collect(Collectors.toUnmodifiableList()));
 
+    var totalWeight = costAndWeight.values().stream().mapToDouble(x -> x).sum();
+    var functions = costAndWeight.keySet().toArray(HasClusterCost[]::new);
+    var weights = Arrays.stream(functions).mapToDouble(costAndWeight::get).toArray();
+    Function<Map<HasClusterCost, ClusterCost>, ClusterCost> composite =
+        scores -> {
+          var compositeScore =
+              costAndWeight.keySet().stream()
+                  .mapToDouble(
+                      cost -> scores.get(cost).value() * costAndWeight.get(cost) / totalWeight)
+                  .sum();
+
+          return ClusterCost.of(
+              compositeScore,
+              () -> {
+                Bi3Function<HasClusterCost, ClusterCost, Double, String> descriptiveName =
+                    (function, cost, weight) ->
+                        "{\""
+                            + function.toString()
+                            + "\" cost "
+                            + cost.value()
+                            + " weight "
+                            + weight
+                            + " description "
+                            + cost
+                            + " }";
+                return "WeightCompositeClusterCost["
+                    + costAndWeight.entrySet().stream()
+                        .sorted(Map.Entry.<HasClusterCost, Double>comparingByValue().reversed())
+                        .map(
+                            e ->
+                                descriptiveName.apply(
+                                    e.getKey(), scores.get(e.getKey()), e.getValue()))
+                        .collect(Collectors.joining(", "))
+                    + "] = "
+                    + compositeScore;
+              });
+        };
+
     return new HasClusterCost() {
       @Override
       public ClusterCost clusterCost(ClusterInfo clusterInfo, ClusterBean clusterBean) {
-        var scores =
-            costAndWeight.entrySet().stream()
+        return composite.apply(
+            costAndWeight.keySet().stream()
                 .collect(
                     Collectors.toUnmodifiableMap(
-                        Map.Entry::getKey, e -> e.getKey().clusterCost(clusterInfo, clusterBean)));
-        var totalWeight = costAndWeight.values().stream().mapToDouble(x -> x).sum();
-        var compositeScore =
+                        Function.identity(), e -> e.clusterCost(clusterInfo, clusterBean))));
+      }
+
+      @Override
+      public State state(ClusterInfo clusterInfo, ClusterBean clusterBean) {
+        var states =
             costAndWeight.keySet().stream()
-                .mapToDouble(
-                    cost -> scores.get(cost).value() * costAndWeight.get(cost) / totalWeight)
-                .sum();
-
-        return ClusterCost.of(
-            compositeScore,
-            () -> {
-              Bi3Function<HasClusterCost, ClusterCost, Double, String> descriptiveName =
-                  (function, cost, weight) ->
-                      "{\""
-                          + function.toString()
-                          + "\" cost "
-                          + cost.value()
-                          + " weight "
-                          + weight
-                          + " description "
-                          + cost
-                          + " }";
-              return "WeightCompositeClusterCost["
-                  + costAndWeight.entrySet().stream()
-                      .sorted(Map.Entry.<HasClusterCost, Double>comparingByValue().reversed())
-                      .map(
-                          e ->
-                              descriptiveName.apply(
-                                  e.getKey(), scores.get(e.getKey()), e.getValue()))
-                      .collect(Collectors.joining(", "))
-                  + "] = "
-                  + compositeScore;
+                .collect(
+                    Collectors.toUnmodifiableMap(
+                        Function.identity(), e -> e.state(clusterInfo, clusterBean)));
+        return new CompositeState(states, composite);
+      }
+
+      @Override
+      public State delta(
+          ClusterInfo base,
+          State baseState,
+          ClusterInfo after,
+          Set<TopicPartition> changedPartitions,
+          ClusterBean clusterBean) {
+        if (!(baseState instanceof CompositeState))
+          return HasClusterCost.super.delta(
+              base, baseState, after, changedPartitions, clusterBean);
+        var baseStates = ((CompositeState) baseState).states;
+        var states =
+            costAndWeight.keySet().stream()
+                .collect(
+                    Collectors.toUnmodifiableMap(
+                        Function.identity(),
+                        e ->
+                            e.delta(
+                                base,
+                                baseStates.get(e),
+                                after,
+                                changedPartitions,
+                                clusterBean)));
+        return new CompositeState(states, composite);
+      }
+
+      @Override
+      public double compactCost(CompactAllocation allocation, ClusterBean clusterBean) {
+        var score = 0D;
+        for (var i = 0; i < functions.length; i++) {
+          var value = functions[i].compactCost(allocation, clusterBean);
+          if (Double.isNaN(value)) return Double.NaN;
+          score += value * weights[i] / totalWeight;
+        }
+        return score;
+      }
+
+      @Override
+      public Optional<ToDoubleFunction<Replica>> replicaLoad(
+          ClusterInfo clusterInfo, ClusterBean clusterBean) {
+        // the load of each function is normalized by its total load, so the loads in different
+        // units are comparable
+        var loads = new ArrayList<ToDoubleFunction<Replica>>();
+        var factors = new ArrayList<Double>();
+        for (var i = 0; i < functions.length; i++) {
+          var load = functions[i].replicaLoad(clusterInfo, clusterBean);
+          if (load.isEmpty()) continue;
+          var total = clusterInfo.replicaStream().mapToDouble(load.get()).sum();
+          if (total <= 0) continue;
+          loads.add(load.get());
+          factors.add(weights[i] / totalWeight / total);
+        }
+        if (loads.isEmpty()) return Optional.empty();
+        return Optional.of(
+            replica -> {
+              var sum = 0D;
+              for (var i = 0; i < loads.size(); i++)
+                sum += loads.get(i).applyAsDouble(replica) * factors.get(i);
+              return sum;
             });
       }
 
@@ -104,4 +190,103 @@ public interface HasClusterCost extends CostFunction {
    * @return the score of cluster.
    */
   ClusterCost clusterCost(ClusterInfo clusterInfo, ClusterBean clusterBean);
+
+  /**
+   * Aggregate the given allocation into a {@link State}. The state keeps the information (for
+   * example, the per-broker aggregates) required to evaluate a slightly changed allocation by
+   * {@link #delta(ClusterInfo, State, ClusterInfo, Set, ClusterBean)}. The default implementation
+   * keeps the cost only.
+   *
+   * @param clusterInfo cluster information
+   * @param clusterBean cluster metrics
+   * @return the state of given allocation
+   */
+  default State state(ClusterInfo clusterInfo, ClusterBean clusterBean) {
+    var cost = clusterCost(clusterInfo, clusterBean);
+    return () -> cost;
+  }
+
+  /**
+   * Evaluate the allocation derived from the base allocation incrementally. The implementation
+   * should only look up the replicas of changed partitions, so the complexity is proportional to
+   * the number of changed replicas rather than all replicas. The default implementation evaluates
+   * the after allocation from scratch.
+   *
+   * @param base the base allocation
+   * @param baseState the state of base allocation. It must be created by this cost function
+   * @param after the allocation derived from base allocation
+   * @param changedPartitions the partitions having different replicas in the after allocation. It
+   *     is fine to include some unchanged partitions.
+   * @param clusterBean cluster metrics
+   * @return the state of after allocation
+   */
+  default State delta(
+      ClusterInfo base,
+      State baseState,
+      ClusterInfo after,
+      Set<TopicPartition> changedPartitions,
+      ClusterBean clusterBean) {
+    return state(after, clusterBean);
+  }
+
+  /**
+   * Evaluate the cost of a {@link CompactAllocation} directly. It is used by the balancer to score
+   * the candidates without converting them to {@link ClusterInfo}, so the implementation should
+   * avoid allocating objects. The returned value must be equal to the value of {@link
+   * #clusterCost(ClusterInfo, ClusterBean)} with {@link CompactAllocation#toClusterInfo()}.
+   *
+   * @param allocation the compact allocation
+   * @param clusterBean cluster metrics
+   * @return the cost value, or {@link Double#NaN} if this cost function doesn't support the compact
+   *     allocation
+   */
+  default double compactCost(CompactAllocation allocation, ClusterBean clusterBean) {
+    return Double.NaN;
+  }
+
+  /**
+   * Break down the load measured by this cost function into replicas. The load of a broker is the
+   * sum of the load of replicas hosted by it, and moving load from the busy brokers to the idle
+   * brokers is expected to lower the cost. The returned function depends on the partition and the
+   * role of the replica only, so it is applicable to the replicas of other allocations derived from
+   * the given cluster. The default implementation doesn't support the break down.
+   *
+   * @param clusterInfo cluster information
+   * @param clusterBean cluster metrics
+   * @return the load of a replica, or empty if this cost function can't break down the load
+   */
+  default Optional<ToDoubleFunction<Replica>> replicaLoad(
+      ClusterInfo clusterInfo, ClusterBean clusterBean) {
+    return Optional.empty();
+  }
+
+  /** The aggregated information of an allocation. */
+  @FunctionalInterface
+  interface State {
+    /**
+     * @return the cost of the allocation
+     */
+    ClusterCost cost();
+  }
+
+  class CompositeState implements State {
+    private final Map<HasClusterCost, State> states;
+    private final ClusterCost cost;
+
+    private CompositeState(
+        Map<HasClusterCost, State> states,
+        Function<Map<HasClusterCost, ClusterCost>, ClusterCost> composite) {
+      this.states = states;
+      this.cost =
+          composite.apply(
+              states.entrySet().stream()
+                  .collect(
+                      Collectors.toUnmodifiableMap(Map.Entry::getKey, e -> e.getValue().cost())));
+    }
+
+    @Override
+    public ClusterCost cost() {
+      return cost;
+    }
+  }
 }
@@ -18,8 +18,10 @@ package org.astraea.common.cost;
 
 import java.util.Collection;
 import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Collectors;
 import org.astraea.common.admin.ClusterInfo;
+import org.astraea.common.admin.TopicPartition;
 import org.astraea.common.metrics.ClusterBean;
 import org.astraea.common.metrics.collector.MetricSensor;
 
@@ -48,6 +50,20 @@ public interface HasMoveCost extends CostFunction {
         return () -> overflow;
       }
 
+      @Override
+      public MoveCost moveCost(
+          ClusterInfo before,
+          ClusterInfo after,
+          Set<TopicPartition> changedPartitions,
+          ClusterBean clusterBean) {
+        var moveCosts =
+            hasMoveCosts.stream()
+                .map(c -> c.moveCost(before, after, changedPartitions, clusterBean))
+                .collect(Collectors.toSet());
+        var overflow = moveCosts.stream().anyMatch(MoveCost::overflow);
+        return () -> overflow;
+      }
+
       @Override
       public Optional<MetricSensor> metricSensor() {
         return sensor;
@@ -73,4 +89,25 @@ public interface HasMoveCost extends CostFunction {
    * @return the score of migrate cost
    */
   MoveCost moveCost(ClusterInfo before, ClusterInfo after, ClusterBean clusterBean);
+
+  /**
+   * score migrate cost from originClusterInfo to newClusterInfo by the given partitions only. The
+   * balancers call this method with the partitions touched by the tweaker, so the implementations
+   * are able to skip the unchanged partitions. The default implementation falls back to {@link
+   * #moveCost(ClusterInfo, ClusterInfo, ClusterBean)}.
+   *
+   * @param before the clusterInfo before migrate
+   * @param after the mocked clusterInfo generate from balancer
+   * @param changedPartitions the partitions which might be changed. It can include some unchanged
+   *     partitions, but it must include all changed partitions.
+   * @param clusterBean cluster metrics
+   * @return the score of migrate cost
+   */
+  default MoveCost moveCost(
+      ClusterInfo before,
+      ClusterInfo after,
+      Set<TopicPartition> changedPartitions,
+      ClusterBean clusterBean) {
+    return moveCost(before, after, clusterBean);
+  }
 }
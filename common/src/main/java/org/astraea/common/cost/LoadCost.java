@@ -150,10 +150,14 @@ public class LoadCost implements HasBrokerCost {
   @Override
   public Optional<MetricSensor> metricSensor() {
     return Optional.of(
-        (client, ignored) ->
+        MetricSensor.of(
             List.of(
-                ServerMetrics.BrokerTopic.BYTES_IN_PER_SEC.fetch(client),
-                ServerMetrics.BrokerTopic.BYTES_OUT_PER_SEC.fetch(client)));
+                ServerMetrics.BrokerTopic.BYTES_IN_PER_SEC.query(),
+                ServerMetrics.BrokerTopic.BYTES_OUT_PER_SEC.query()),
+            (client, ignored) ->
+                List.of(
+                    ServerMetrics.BrokerTopic.BYTES_IN_PER_SEC.fetch(client),
+                    ServerMetrics.BrokerTopic.BYTES_OUT_PER_SEC.fetch(client))));
   }
 
   @Override
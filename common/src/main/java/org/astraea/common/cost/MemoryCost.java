@@ -57,7 +57,10 @@ public class MemoryCost implements HasBrokerCost {
 
   @Override
   public Optional<MetricSensor> metricSensor() {
-    return Optional.of((client, ignored) -> List.of(HostMetrics.jvmMemory(client)));
+    return Optional.of(
+        MetricSensor.of(
+            List.of(HostMetrics.JVM_MEMORY_QUERY),
+            (client, ignored) -> List.of(HostMetrics.jvmMemory(client))));
   }
 
   @Override
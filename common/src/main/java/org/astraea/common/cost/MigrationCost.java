@@ -16,8 +16,11 @@
  */
 package org.astraea.common.cost;
 
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.function.Function;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
@@ -25,6 +28,7 @@ import java.util.stream.Stream;
 import org.astraea.common.admin.ClusterInfo;
 import org.astraea.common.admin.NodeInfo;
 import org.astraea.common.admin.Replica;
+import org.astraea.common.admin.TopicPartition;
 
 public class MigrationCost {
 
@@ -51,6 +55,41 @@ public class MigrationCost {
         new MigrationCost(CHANGED_REPLICAS, migrateReplicaNum));
   }
 
+  /**
+   * Calculate the migration costs by the given partitions only. It is much cheaper than {@link
+   * #migrationCosts(ClusterInfo, ClusterInfo)} if the caller already knows which partitions get
+   * changed.
+   *
+   * @param before the ClusterInfo before migrated replicas
+   * @param after the ClusterInfo after migrated replicas
+   * @param changedPartitions the partitions which might be changed. It is fine to include some
+   *     unchanged partitions
+   * @return migration costs
+   */
+  public static List<MigrationCost> migrationCosts(
+      ClusterInfo before, ClusterInfo after, Set<TopicPartition> changedPartitions) {
+    var nodes = nodes(before, after);
+    return List.of(
+        new MigrationCost(
+            TO_SYNC_BYTES,
+            migratedChanged(
+                before, after, false, (ignore) -> true, Replica::size, changedPartitions, nodes)),
+        new MigrationCost(
+            TO_FETCH_BYTES,
+            migratedChanged(
+                before, after, true, (ignore) -> true, Replica::size, changedPartitions, nodes)),
+        new MigrationCost(
+            REPLICA_LEADERS_TO_ADDED,
+            migratedChanged(
+                before, after, true, Replica::isLeader, ignore -> 1L, changedPartitions, nodes)),
+        new MigrationCost(
+            REPLICA_LEADERS_TO_REMOVE,
+            migratedChanged(
+                before, after, false, Replica::isLeader, ignore -> 1L, changedPartitions, nodes)),
+        new MigrationCost(
+            CHANGED_REPLICAS, changedReplicaNumber(before, after, changedPartitions, nodes)));
+  }
+
   public MigrationCost(String name, Map<Integer, Long> brokerCosts) {
     this.name = name;
     this.brokerCosts = brokerCosts;
@@ -76,6 +115,29 @@ public class MigrationCost {
     return migratedChanged(before, after, false, Replica::isLeader, ignore -> 1L);
   }
 
+  static Map<Integer, Long> replicaNumChanged(
+      ClusterInfo before, ClusterInfo after, Set<TopicPartition> changedPartitions) {
+    return changedReplicaNumber(before, after, changedPartitions, nodes(before, after));
+  }
+
+  static Map<Integer, Long> replicaLeaderToAdd(
+      ClusterInfo before, ClusterInfo after, Set<TopicPartition> changedPartitions) {
+    return migratedChanged(
+        before,
+        after,
+        true,
+        Replica::isLeader,
+        ignore -> 1L,
+        changedPartitions,
+        nodes(before, after));
+  }
+
+  private static Set<Integer> nodes(ClusterInfo before, ClusterInfo after) {
+    return Stream.concat(before.nodes().stream(), after.nodes().stream())
+        .map(NodeInfo::id)
+        .collect(Collectors.toUnmodifiableSet());
+  }
+
   /**
    * @param before the ClusterInfo before migrated replicas
    * @param after the ClusterInfo after migrated replicas
@@ -92,24 +154,14 @@ public class MigrationCost {
       Function<Replica, Long> replicaFunction) {
     var source = migrateOut ? after : before;
     var dest = migrateOut ? before : after;
-    var changePartitions = ClusterInfo.findNonFulfilledAllocation(source, dest);
     var cost =
-        changePartitions.stream()
-            .flatMap(
-                p ->
-                    dest.replicas(p).stream()
-                        .filter(predicate)
-                        .filter(r -> !source.replicas(p).contains(r)))
-            .map(
-                r -> {
-                  if (migrateOut) return dest.replicaLeader(r.topicPartition()).orElse(r);
-                  return r;
-                })
-            .collect(
-                Collectors.groupingBy(
-                    r -> r.nodeInfo().id(),
-                    Collectors.mapping(
-                        Function.identity(), Collectors.summingLong(replicaFunction::apply))));
+        migratedChanged(
+            source,
+            dest,
+            migrateOut,
+            predicate,
+            replicaFunction,
+            ClusterInfo.findNonFulfilledAllocation(source, dest));
     return Stream.concat(dest.nodes().stream(), source.nodes().stream())
         .map(NodeInfo::id)
         .distinct()
@@ -117,6 +169,58 @@ public class MigrationCost {
         .collect(Collectors.toMap(Function.identity(), n -> cost.getOrDefault(n, 0L)));
   }
 
+  private static Map<Integer, Long> migratedChanged(
+      ClusterInfo before,
+      ClusterInfo after,
+      boolean migrateOut,
+      Predicate<Replica> predicate,
+      Function<Replica, Long> replicaFunction,
+      Set<TopicPartition> partitions,
+      Set<Integer> nodes) {
+    var source = migrateOut ? after : before;
+    var dest = migrateOut ? before : after;
+    var cost =
+        migratedChanged(
+            source,
+            dest,
+            migrateOut,
+            predicate,
+            replicaFunction,
+            partitions.stream()
+                .filter(p -> !ClusterInfo.placementMatch(source.replicas(p), dest.replicas(p)))
+                .collect(Collectors.toUnmodifiableSet()));
+    return nodes.stream()
+        .collect(Collectors.toMap(Function.identity(), n -> cost.getOrDefault(n, 0L)));
+  }
+
+  /**
+   * @return the cost of brokers having changed replicas
+   */
+  private static Map<Integer, Long> migratedChanged(
+      ClusterInfo source,
+      ClusterInfo dest,
+      boolean migrateOut,
+      Predicate<Replica> predicate,
+      Function<Replica, Long> replicaFunction,
+      Set<TopicPartition> changePartitions) {
+    return changePartitions.stream()
+        .flatMap(
+            p ->
+                dest.replicas(p).stream()
+                    .filter(predicate)
+                    .filter(r -> !source.replicas(p).contains(r)))
+        .map(
+            r -> {
+              if (migrateOut) return dest.replicaLeader(r.topicPartition()).orElse(r);
+              return r;
+            })
+        .collect(
+            Collectors.groupingBy(
+                r -> r.nodeInfo().id(),
+                Collectors.mapping(
+                    Function.identity(), Collectors.summingLong(replicaFunction::apply))));
+  }
+
   static boolean changedRecordSizeOverflow(
       ClusterInfo before, ClusterInfo after, Predicate<Replica> predicate, long limit) {
     var totalRemovedSize = 0L;
@@ -150,6 +254,39 @@ public class MigrationCost {
     return Math.max(totalRemovedSize, totalAddedSize) > limit;
   }
 
+  /**
+   * The same as {@link #changedRecordSizeOverflow(ClusterInfo, ClusterInfo, Predicate, long)}, but
+   * it checks the given partitions only.
+   */
+  static boolean changedRecordSizeOverflow(
+      ClusterInfo before,
+      ClusterInfo after,
+      Set<TopicPartition> changedPartitions,
+      Predicate<Replica> predicate,
+      long limit) {
+    var totalRemovedSize = 0L;
+    var totalAddedSize = 0L;
+    for (var tp : changedPartitions) {
+      var beforeReplicas = before.replicas(tp);
+      var afterReplicas = after.replicas(tp);
+      totalRemovedSize +=
+          beforeReplicas.stream()
+              .filter(predicate)
+              .filter(r -> !afterReplicas.contains(r))
+              .mapToLong(Replica::size)
+              .sum();
+      totalAddedSize +=
+          afterReplicas.stream()
+              .filter(predicate)
+              .filter(r -> !beforeReplicas.contains(r))
+              .mapToLong(Replica::size)
+              .sum();
+      // if migrate cost overflow, leave early and return true
+      if (totalRemovedSize > limit || totalAddedSize > limit) return true;
+    }
+    return false;
+  }
+
   private static Map<Integer, Long> changedReplicaNumber(ClusterInfo before, ClusterInfo after) {
     return Stream.concat(before.nodes().stream(), after.nodes().stream())
         .map(NodeInfo::id)
@@ -182,4 +319,27 @@ public class MigrationCost {
                   return newLeaders - removedLeaders;
                 }));
   }
+
+  private static Map<Integer, Long> changedReplicaNumber(
+      ClusterInfo before,
+      ClusterInfo after,
+      Set<TopicPartition> changedPartitions,
+      Set<Integer> nodes) {
+    var result = new HashMap<Integer, Long>();
+    nodes.forEach(id -> result.put(id, 0L));
+    changedPartitions.forEach(
+        tp -> {
+          var beforeBrokers =
+              before.replicaStream(tp).map(r -> r.nodeInfo().id()).collect(Collectors.toSet());
+          var afterBrokers =
+              after.replicaStream(tp).map(r -> r.nodeInfo().id()).collect(Collectors.toSet());
+          beforeBrokers.stream()
+              .filter(id -> !afterBrokers.contains(id))
+              .forEach(id -> result.merge(id, -1L, Long::sum));
+          afterBrokers.stream()
+              .filter(id -> !beforeBrokers.contains(id))
+              .forEach(id -> result.merge(id, 1L, Long::sum));
+        });
+    return Collections.unmodifiableMap(result);
+  }
 }
@@ -19,11 +19,15 @@ package org.astraea.common.cost;
 import java.time.Duration;
 import java.util.Collection;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
 import java.util.function.Function;
+import java.util.function.ToDoubleFunction;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import org.astraea.common.Configuration;
@@ -103,6 +107,11 @@ public abstract class NetworkCost implements HasClusterCost {
 
   @Override
   public ClusterCost clusterCost(ClusterInfo clusterInfo, ClusterBean clusterBean) {
+    return state(clusterInfo, clusterBean).cost();
+  }
+
+  @Override
+  public State state(ClusterInfo clusterInfo, ClusterBean clusterBean) {
     noMetricCheck(clusterBean);
 
     // The partition load calculation takes considerable time with many partitions. cache the
@@ -119,11 +128,7 @@ public abstract class NetworkCost implements HasClusterCost {
                     broker ->
                         clusterInfo
                             .replicaStream(broker.id())
-                            .mapToLong(
-                                replica -> {
-                                  // ingress might come from producer-send or follower-fetch.
-                                  return ingress(cachedCalculation, replica.topicPartition());
-                                })
+                            .mapToLong(replica -> ingress(cachedCalculation, replica))
                             .sum()));
     var brokerEgressRate =
         clusterInfo.brokers().stream()
@@ -133,27 +138,9 @@ public abstract class NetworkCost implements HasClusterCost {
                     broker ->
                         clusterInfo
                             .replicaStream(broker.id())
-                            .mapToLong(
-                                replica -> {
-                                  // egress is composed of consumer-fetch and follower-fetch.
-                                  // this implementation assumes no consumer rack awareness fetcher
-                                  // enabled so all consumers fetch data from the leader only.
-                                  return replica.isLeader()
-                                      ? egress(cachedCalculation, replica.topicPartition())
-                                          + ingress(cachedCalculation, replica.topicPartition())
-                                              // Multiply by the number of follower replicas. This
-                                              // number considers both online replicas and offline
-                                              // replicas since an offline replica is probably a
-                                              // transient behavior. So the offline state should get
-                                              // resolved in the near future, we count it in
-                                              // advance.
-                                              * (clusterInfo
-                                                      .replicas(replica.topicPartition())
-                                                      .size()
-                                                  - 1)
-                                      : 0;
-                                })
+                            .mapToLong(replica -> egress(cachedCalculation, clusterInfo, replica))
                             .sum()));
+    var brokers = Set.copyOf(brokerIngressRate.keySet());
     // add the brokers having no replicas into map
     clusterInfo.nodes().stream()
         .filter(node -> !brokerIngressRate.containsKey(node.id()))
@@ -163,6 +150,76 @@ public abstract class NetworkCost implements HasClusterCost {
               brokerEgressRate.put(node.id(), 0L);
             });
 
+    return new NetworkState(cachedCalculation, brokers, brokerIngressRate, brokerEgressRate);
+  }
+
+  @Override
+  public State delta(
+      ClusterInfo base,
+      State baseState,
+      ClusterInfo after,
+      Set<TopicPartition> changedPartitions,
+      ClusterBean clusterBean) {
+    if (!(baseState instanceof NetworkState) || ((NetworkState) baseState).owner() != this)
+      return HasClusterCost.super.delta(base, baseState, after, changedPartitions, clusterBean);
+    var state = (NetworkState) baseState;
+    var calculation = state.calculation;
+    var brokerIngressRate = new HashMap<>(state.brokerIngressRate);
+    var brokerEgressRate = new HashMap<>(state.brokerEgressRate);
+    BiConsumer<ClusterInfo, Long> update =
+        (clusterInfo, sign) ->
+            changedPartitions.forEach(
+                tp ->
+                    clusterInfo
+                        .replicaStream(tp)
+                        .filter(replica -> state.brokers.contains(replica.nodeInfo().id()))
+                        .forEach(
+                            replica -> {
+                              var id = replica.nodeInfo().id();
+                              brokerIngressRate.merge(
+                                  id, sign * ingress(calculation, replica), Long::sum);
+                              brokerEgressRate.merge(
+                                  id, sign * egress(calculation, clusterInfo, replica), Long::sum);
+                            }));
+    update.accept(base, -1L);
+    update.accept(after, 1L);
+    return new NetworkState(calculation, state.brokers, brokerIngressRate, brokerEgressRate);
+  }
+
+  /** The load of a replica is the measured bandwidth it brings to the hosting broker. */
+  @Override
+  public Optional<ToDoubleFunction<Replica>> replicaLoad(
+      ClusterInfo clusterInfo, ClusterBean clusterBean) {
+    noMetricCheck(clusterBean);
+    final var calculation = calculationCache.computeIfAbsent(clusterBean, CachedCalculation::new);
+    ToDoubleFunction<Replica> load =
+        bandwidthType == BandwidthType.Ingress
+            ? replica -> ingress(calculation, replica)
+            : replica -> egress(calculation, clusterInfo, replica);
+    return Optional.of(load);
+  }
+
+  /** ingress might come from producer-send or follower-fetch. */
+  private long ingress(CachedCalculation calculation, Replica replica) {
+    return ingress(calculation, replica.topicPartition());
+  }
+
+  private long egress(CachedCalculation calculation, ClusterInfo clusterInfo, Replica replica) {
+    // egress is composed of consumer-fetch and follower-fetch. this implementation assumes no
+    // consumer rack awareness fetcher enabled so all consumers fetch data from the leader only.
+    return replica.isLeader()
+        ? egress(calculation, replica.topicPartition())
+            + ingress(calculation, replica.topicPartition())
+                // Multiply by the number of follower replicas. This number considers both online
+                // replicas and offline replicas since an offline replica is probably a transient
+                // behavior. So the offline state should get resolved in the near future, we count
+                // it in advance.
+                * (clusterInfo.replicas(replica.topicPartition()).size() - 1)
+        : 0;
+  }
+
+  private ClusterCost score(
+      Map<Integer, Long> brokerIngressRate, Map<Integer, Long> brokerEgressRate) {
     // the rate we are measuring
     var brokerRate =
         (bandwidthType == BandwidthType.Ingress) ? brokerIngressRate : brokerEgressRate;
@@ -195,16 +252,27 @@ public abstract class NetworkCost implements HasClusterCost {
     // TODO: We need a reliable way to access the actual current cluster info. To do that we need to
     //  obtain the replica info, so we intentionally sample log size but never use it.
     //  https://github.com/skiptests/astraea/pull/1240#discussion_r1044487473
+    var queries =
+        Stream.concat(
+                Stream.of(
+                    HostMetrics.JVM_MEMORY_QUERY,
+                    ServerMetrics.Topic.BYTES_IN_PER_SEC.query(),
+                    ServerMetrics.Topic.BYTES_OUT_PER_SEC.query(),
+                    LogMetrics.Log.SIZE.query()),
+                clusterInfoSensor.queries().stream())
+            .collect(Collectors.toUnmodifiableList());
     return Optional.of(
-        (client, clusterBean) ->
-            Stream.of(
-                    List.of(HostMetrics.jvmMemory(client)),
-                    ServerMetrics.Topic.BYTES_IN_PER_SEC.fetch(client),
-                    ServerMetrics.Topic.BYTES_OUT_PER_SEC.fetch(client),
-                    LogMetrics.Log.SIZE.fetch(client),
-                    clusterInfoSensor.fetch(client, clusterBean))
-                .flatMap(Collection::stream)
-                .collect(Collectors.toUnmodifiableList()));
+        MetricSensor.of(
+            queries,
+            (client, clusterBean) ->
+                Stream.of(
+                        List.of(HostMetrics.jvmMemory(client)),
+                        ServerMetrics.Topic.BYTES_IN_PER_SEC.fetch(client),
+                        ServerMetrics.Topic.BYTES_OUT_PER_SEC.fetch(client),
+                        LogMetrics.Log.SIZE.fetch(client),
+                        clusterInfoSensor.fetch(client, clusterBean))
+                    .flatMap(Collection::stream)
+                    .collect(Collectors.toUnmodifiableList())));
   }
 
   private Map<BrokerTopic, List<Replica>> mapLeaderAllocation(ClusterInfo clusterInfo) {
@@ -350,6 +418,36 @@ public abstract class NetworkCost implements HasClusterCost {
     }
   }
 
+  private class NetworkState implements State {
+    private final CachedCalculation calculation;
+    // the brokers whose replicas are counted
+    private final Set<Integer> brokers;
+    private final Map<Integer, Long> brokerIngressRate;
+    private final Map<Integer, Long> brokerEgressRate;
+    private final ClusterCost cost;
+
+    private NetworkState(
+        CachedCalculation calculation,
+        Set<Integer> brokers,
+        Map<Integer, Long> brokerIngressRate,
+        Map<Integer, Long> brokerEgressRate) {
+      this.calculation = calculation;
+      this.brokers = brokers;
+      this.brokerIngressRate = brokerIngressRate;
+      this.brokerEgressRate = brokerEgressRate;
+      this.cost = score(brokerIngressRate, brokerEgressRate);
+    }
+
+    private NetworkCost owner() {
+      return NetworkCost.this;
+    }
+
+    @Override
+    public ClusterCost cost() {
+      return cost;
+    }
+  }
+
   static class NetworkClusterCost implements ClusterCost {
     final double score;
     final Map<Integer, Long> brokerRate;
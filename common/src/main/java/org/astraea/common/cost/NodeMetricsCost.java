@@ -19,6 +19,7 @@ package org.astraea.common.cost;
 import java.util.Collection;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.stream.Collectors;
@@ -72,6 +73,9 @@ public abstract class NodeMetricsCost implements HasBrokerCost {
 
   @Override
   public Optional<MetricSensor> metricSensor() {
-    return Optional.of((client, clusterBean) -> ProducerMetrics.node(client));
+    return Optional.of(
+        MetricSensor.of(
+            List.of(ProducerMetrics.NODE_QUERY),
+            (client, clusterBean) -> ProducerMetrics.node(client)));
   }
 }
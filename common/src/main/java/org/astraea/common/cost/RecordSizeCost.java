@@ -19,12 +19,14 @@ package org.astraea.common.cost;
 import static org.astraea.common.cost.MigrationCost.changedRecordSizeOverflow;
 
 import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 import org.astraea.common.Configuration;
 import org.astraea.common.DataSize;
 import org.astraea.common.admin.ClusterInfo;
 import org.astraea.common.admin.NodeInfo;
 import org.astraea.common.admin.Replica;
+import org.astraea.common.admin.TopicPartition;
 import org.astraea.common.metrics.ClusterBean;
 
 public class RecordSizeCost
@@ -53,16 +55,30 @@ public class RecordSizeCost
 
   @Override
   public MoveCost moveCost(ClusterInfo before, ClusterInfo after, ClusterBean clusterBean) {
-    var maxMigratedSize =
-        config
-            .string(MAX_MIGRATE_SIZE_KEY)
-            .map(DataSize::of)
-            .map(DataSize::bytes)
-            .orElse(Long.MAX_VALUE);
-    var overflow = changedRecordSizeOverflow(before, after, ignored -> true, maxMigratedSize);
+    var overflow = changedRecordSizeOverflow(before, after, ignored -> true, maxMigratedSize());
     return () -> overflow;
   }
 
+  @Override
+  public MoveCost moveCost(
+      ClusterInfo before,
+      ClusterInfo after,
+      Set<TopicPartition> changedPartitions,
+      ClusterBean clusterBean) {
+    var overflow =
+        changedRecordSizeOverflow(
+            before, after, changedPartitions, ignored -> true, maxMigratedSize());
+    return () -> overflow;
+  }
+
+  private long maxMigratedSize() {
+    return config
+        .string(MAX_MIGRATE_SIZE_KEY)
+        .map(DataSize::of)
+        .map(DataSize::bytes)
+        .orElse(Long.MAX_VALUE);
+  }
+
   @Override
   public PartitionCost partitionCost(ClusterInfo clusterInfo, ClusterBean clusterBean) {
     var result =
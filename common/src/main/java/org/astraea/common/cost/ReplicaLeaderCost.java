@@ -18,12 +18,18 @@ package org.astraea.common.cost;
 
 import static org.astraea.common.cost.MigrationCost.replicaLeaderToAdd;
 
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.ToDoubleFunction;
 import java.util.stream.Collectors;
 import org.astraea.common.Configuration;
 import org.astraea.common.admin.ClusterInfo;
+import org.astraea.common.admin.CompactAllocation;
+import org.astraea.common.admin.Replica;
+import org.astraea.common.admin.TopicPartition;
 import org.astraea.common.metrics.ClusterBean;
 import org.astraea.common.metrics.broker.ServerMetrics;
 import org.astraea.common.metrics.collector.MetricSensor;
@@ -52,14 +58,87 @@ public class ReplicaLeaderCost implements HasBrokerCost, HasClusterCost, HasMove
 
   @Override
   public ClusterCost clusterCost(ClusterInfo clusterInfo, ClusterBean clusterBean) {
-    var brokerScore = leaderCount(clusterInfo);
-    var value = dispersion.calculate(brokerScore.values());
-    return ClusterCost.of(
-        value,
-        () ->
-            brokerScore.values().stream()
-                .map(Object::toString)
-                .collect(Collectors.joining(", ", "{", "}")));
+    return state(clusterInfo, clusterBean).cost();
+  }
+
+  @Override
+  public State state(ClusterInfo clusterInfo, ClusterBean clusterBean) {
+    return new LeaderCountState(leaderCount(clusterInfo));
+  }
+
+  @Override
+  public State delta(
+      ClusterInfo base,
+      State baseState,
+      ClusterInfo after,
+      Set<TopicPartition> changedPartitions,
+      ClusterBean clusterBean) {
+    if (!(baseState instanceof LeaderCountState))
+      return HasClusterCost.super.delta(base, baseState, after, changedPartitions, clusterBean);
+    var brokerScore = new HashMap<>(((LeaderCountState) baseState).brokerScore);
+    changedPartitions.forEach(
+        tp -> {
+          base.replicaStream(tp)
+              .filter(Replica::isLeader)
+              .filter(Replica::isOnline)
+              .forEach(r -> brokerScore.computeIfPresent(r.nodeInfo().id(), (id, c) -> c - 1));
+          after
+              .replicaStream(tp)
+              .filter(Replica::isLeader)
+              .filter(Replica::isOnline)
+              .forEach(r -> brokerScore.computeIfPresent(r.nodeInfo().id(), (id, c) -> c + 1));
+        });
+    return new LeaderCountState(brokerScore);
+  }
+
+  /** Each online leader counts as one. */
+  @Override
+  public Optional<ToDoubleFunction<Replica>> replicaLoad(
+      ClusterInfo clusterInfo, ClusterBean clusterBean) {
+    return Optional.of(replica -> replica.isLeader() && replica.isOnline() ? 1 : 0);
+  }
+
+  /** It computes the coefficient of variation of leader count, the same as {@link #dispersion}. */
+  @Override
+  public double compactCost(CompactAllocation allocation, ClusterBean clusterBean) {
+    var nodes = 0;
+    var sum = 0D;
+    for (var b = 0; b < allocation.brokers(); b++) {
+      if (!allocation.isNode(b)) continue;
+      nodes++;
+      sum += allocation.leaderCount(b);
+    }
+    if (nodes == 0 || sum == 0) return 0;
+    var avg = sum / nodes;
+    var variance = 0D;
+    for (var b = 0; b < allocation.brokers(); b++) {
+      if (!allocation.isNode(b)) continue;
+      var diff = allocation.leaderCount(b) - avg;
+      variance += diff * diff;
+    }
+    return Math.sqrt(variance / nodes) / avg;
+  }
+
+  private class LeaderCountState implements State {
+    private final Map<Integer, Integer> brokerScore;
+    private final ClusterCost cost;
+
+    private LeaderCountState(Map<Integer, Integer> brokerScore) {
+      this.brokerScore = brokerScore;
+      var value = dispersion.calculate(brokerScore.values());
+      this.cost =
+          ClusterCost.of(
+              value,
+              () ->
+                  brokerScore.values().stream()
+                      .map(Object::toString)
+                      .collect(Collectors.joining(", ", "{", "}")));
+    }
+
+    @Override
+    public ClusterCost cost() {
+      return cost;
+    }
   }
 
   static Map<Integer, Integer> leaderCount(ClusterInfo clusterInfo) {
@@ -71,7 +150,9 @@ public class ReplicaLeaderCost implements HasBrokerCost, HasClusterCost, HasMove
   @Override
   public Optional<MetricSensor> metricSensor() {
     return Optional.of(
-        (client, ignored) -> List.of(ServerMetrics.ReplicaManager.LEADER_COUNT.fetch(client)));
+        MetricSensor.of(
+            List.of(ServerMetrics.ReplicaManager.LEADER_COUNT.query()),
+            (client, ignored) -> List.of(ServerMetrics.ReplicaManager.LEADER_COUNT.fetch(client))));
   }
 
   public Configuration config() {
@@ -80,7 +161,19 @@ public class ReplicaLeaderCost implements HasBrokerCost, HasClusterCost, HasMove
 
   @Override
   public MoveCost moveCost(ClusterInfo before, ClusterInfo after, ClusterBean clusterBean) {
-    var replicaLeaderIn = replicaLeaderToAdd(before, after);
+    return moveCost(replicaLeaderToAdd(before, after));
+  }
+
+  @Override
+  public MoveCost moveCost(
+      ClusterInfo before,
+      ClusterInfo after,
+      Set<TopicPartition> changedPartitions,
+      ClusterBean clusterBean) {
+    return moveCost(replicaLeaderToAdd(before, after, changedPartitions));
+  }
+
+  private MoveCost moveCost(Map<Integer, Long> replicaLeaderIn) {
     var maxMigratedLeader =
         config.string(MAX_MIGRATE_LEADER_KEY).map(Long::parseLong).orElse(Long.MAX_VALUE);
     var overflow =
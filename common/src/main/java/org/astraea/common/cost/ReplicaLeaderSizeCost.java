@@ -20,11 +20,13 @@ import static org.astraea.common.cost.MigrationCost.changedRecordSizeOverflow;
 
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Collectors;
 import org.astraea.common.Configuration;
 import org.astraea.common.DataSize;
 import org.astraea.common.admin.ClusterInfo;
 import org.astraea.common.admin.Replica;
+import org.astraea.common.admin.TopicPartition;
 import org.astraea.common.metrics.ClusterBean;
 import org.astraea.common.metrics.collector.MetricSensor;
 
@@ -60,13 +62,31 @@ public class ReplicaLeaderSizeCost
 
   @Override
   public MoveCost moveCost(ClusterInfo before, ClusterInfo after, ClusterBean clusterBean) {
-    var maxMigratedLeaderSize =
-        config.string(COST_LIMIT_KEY).map(DataSize::of).map(DataSize::bytes).orElse(Long.MAX_VALUE);
     var overflow =
-        changedRecordSizeOverflow(before, after, Replica::isLeader, maxMigratedLeaderSize);
+        changedRecordSizeOverflow(before, after, Replica::isLeader, maxMigratedLeaderSize());
     return () -> overflow;
   }
 
+  @Override
+  public MoveCost moveCost(
+      ClusterInfo before,
+      ClusterInfo after,
+      Set<TopicPartition> changedPartitions,
+      ClusterBean clusterBean) {
+    var overflow =
+        changedRecordSizeOverflow(
+            before, after, changedPartitions, Replica::isLeader, maxMigratedLeaderSize());
+    return () -> overflow;
+  }
+
+  private long maxMigratedLeaderSize() {
+    return config
+        .string(COST_LIMIT_KEY)
+        .map(DataSize::of)
+        .map(DataSize::bytes)
+        .orElse(Long.MAX_VALUE);
+  }
+
   /**
    * @param clusterInfo the clusterInfo that offers the metrics related to topic/partition size
    * @return a BrokerCost contains the used space for each broker
@@ -18,12 +18,18 @@ package org.astraea.common.cost;
 
 import static org.astraea.common.cost.MigrationCost.replicaNumChanged;
 
+import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.ToDoubleFunction;
 import java.util.stream.Collectors;
 import org.astraea.common.Configuration;
 import org.astraea.common.admin.ClusterInfo;
+import org.astraea.common.admin.CompactAllocation;
 import org.astraea.common.admin.NodeInfo;
+import org.astraea.common.admin.Replica;
+import org.astraea.common.admin.TopicPartition;
 import org.astraea.common.metrics.ClusterBean;
 import org.astraea.common.metrics.collector.MetricSensor;
 
@@ -48,43 +54,136 @@ public class ReplicaNumberCost implements HasClusterCost, HasMoveCost {
 
   @Override
   public MoveCost moveCost(ClusterInfo before, ClusterInfo after, ClusterBean clusterBean) {
-    var moveCost = replicaNumChanged(before, after);
+    return moveCost(replicaNumChanged(before, after));
+  }
+
+  @Override
+  public MoveCost moveCost(
+      ClusterInfo before,
+      ClusterInfo after,
+      Set<TopicPartition> changedPartitions,
+      ClusterBean clusterBean) {
+    return moveCost(replicaNumChanged(before, after, changedPartitions));
+  }
+
+  private MoveCost moveCost(Map<Integer, Long> replicaNumChanged) {
     var maxMigratedReplicas =
         config.string(COST_LIMIT_KEY).map(Long::parseLong).orElse(Long.MAX_VALUE);
     var overflow =
-        maxMigratedReplicas < moveCost.values().stream().map(Math::abs).mapToLong(s -> s).sum();
+        maxMigratedReplicas
+            < replicaNumChanged.values().stream().map(Math::abs).mapToLong(s -> s).sum();
     return () -> overflow;
   }
 
   @Override
   public ClusterCost clusterCost(ClusterInfo clusterInfo, ClusterBean clusterBean) {
-    var totalReplicas = clusterInfo.replicas().size();
-
-    // no need to rebalance
-    if (totalReplicas == 0) return ClusterCost.of(0, () -> "no replica");
+    return state(clusterInfo, clusterBean).cost();
+  }
 
+  @Override
+  public State state(ClusterInfo clusterInfo, ClusterBean clusterBean) {
     var replicaPerBroker =
         clusterInfo
             .replicaStream()
             .collect(Collectors.groupingBy(r -> r.nodeInfo().id(), Collectors.counting()));
-    var summary = replicaPerBroker.values().stream().mapToLong(x -> x).summaryStatistics();
-
-    var anyBrokerEmpty =
-        clusterInfo.brokers().stream()
-            .map(NodeInfo::id)
-            .anyMatch(alive -> !replicaPerBroker.containsKey(alive));
-    var max = summary.getMax();
-    var min = anyBrokerEmpty ? 0 : summary.getMin();
-    // complete balance
-    if (max - min == 0) return ClusterCost.of(0, () -> "complete balance " + max);
-    // complete balance in terms of integer
-    // The following case will trigger if the number of replicas is not integer times of brokers.
-    // For example: allocate 4 replicas to 3 brokers. The ideal placement state will be (2,1,1),
-    // (1,2,1) or (1,1,2). All these cases should be considered as optimal solution since the number
-    // of replica must be integer. And this case will be trigger if the (max - min) equals 1. If
-    // such case is detected, return 0 as the optimal state of this cost function was found.
-    if (max - min == 1) return ClusterCost.of(0, () -> "integer balance " + max);
-    return ClusterCost.of((double) (max - min) / (totalReplicas), summary::toString);
+    return new ReplicaNumberState(
+        clusterInfo.brokers().stream().map(NodeInfo::id).collect(Collectors.toUnmodifiableSet()),
+        replicaPerBroker);
+  }
+
+  @Override
+  public State delta(
+      ClusterInfo base,
+      State baseState,
+      ClusterInfo after,
+      Set<TopicPartition> changedPartitions,
+      ClusterBean clusterBean) {
+    if (!(baseState instanceof ReplicaNumberState))
+      return HasClusterCost.super.delta(base, baseState, after, changedPartitions, clusterBean);
+    var state = (ReplicaNumberState) baseState;
+    var replicaPerBroker = new HashMap<>(state.replicaPerBroker);
+    changedPartitions.forEach(
+        tp -> {
+          base.replicaStream(tp)
+              .forEach(r -> replicaPerBroker.merge(r.nodeInfo().id(), -1L, Long::sum));
+          after
+              .replicaStream(tp)
+              .forEach(r -> replicaPerBroker.merge(r.nodeInfo().id(), 1L, Long::sum));
+        });
+    // the broker having no replica is not counted
+    replicaPerBroker.values().removeIf(count -> count == 0);
+    return new ReplicaNumberState(state.brokers, replicaPerBroker);
+  }
+
+  /** Each replica counts as one. */
+  @Override
+  public Optional<ToDoubleFunction<Replica>> replicaLoad(
+      ClusterInfo clusterInfo, ClusterBean clusterBean) {
+    return Optional.of(replica -> 1);
+  }
+
+  @Override
+  public double compactCost(CompactAllocation allocation, ClusterBean clusterBean) {
+    var total = 0L;
+    var max = Long.MIN_VALUE;
+    var min = Long.MAX_VALUE;
+    var anyBrokerEmpty = false;
+    for (var b = 0; b < allocation.brokers(); b++) {
+      long count = allocation.replicaCount(b);
+      // the broker having no replica is not counted
+      if (count == 0) {
+        anyBrokerEmpty |= allocation.isBroker(b);
+        continue;
+      }
+      total += count;
+      max = Math.max(max, count);
+      min = Math.min(min, count);
+    }
+    if (total == 0) return 0;
+    if (anyBrokerEmpty) min = 0;
+    if (max - min <= 1) return 0;
+    return (double) (max - min) / total;
+  }
+
+  private static class ReplicaNumberState implements State {
+    private final Set<Integer> brokers;
+    private final Map<Integer, Long> replicaPerBroker;
+    private final ClusterCost cost;
+
+    private ReplicaNumberState(Set<Integer> brokers, Map<Integer, Long> replicaPerBroker) {
+      this.brokers = brokers;
+      this.replicaPerBroker = replicaPerBroker;
+      this.cost = cost(brokers, replicaPerBroker);
+    }
+
+    @Override
+    public ClusterCost cost() {
+      return cost;
+    }
+
+    private static ClusterCost cost(Set<Integer> brokers, Map<Integer, Long> replicaPerBroker) {
+      var totalReplicas = replicaPerBroker.values().stream().mapToLong(x -> x).sum();
+
+      // no need to rebalance
+      if (totalReplicas == 0) return ClusterCost.of(0, () -> "no replica");
+
+      var summary = replicaPerBroker.values().stream().mapToLong(x -> x).summaryStatistics();
+
+      var anyBrokerEmpty = brokers.stream().anyMatch(alive -> !replicaPerBroker.containsKey(alive));
+      var max = summary.getMax();
+      var min = anyBrokerEmpty ? 0 : summary.getMin();
+      // complete balance
+      if (max - min == 0) return ClusterCost.of(0, () -> "complete balance " + max);
+      // complete balance in terms of integer
+      // The following case will trigger if the number of replicas is not integer times of
+      // brokers. For example: allocate 4 replicas to 3 brokers. The ideal placement state will be
+      // (2,1,1), (1,2,1) or (1,1,2). All these cases should be considered as optimal solution since
+      // the number of replica must be integer. And this case will be trigger if the (max - min)
+      // equals 1. If such case is detected, return 0 as the optimal state of this cost function was
+      // found.
+      if (max - min == 1) return ClusterCost.of(0, () -> "integer balance " + max);
+      return ClusterCost.of((double) (max - min) / (totalReplicas), summary::toString);
+    }
   }
 
   @Override
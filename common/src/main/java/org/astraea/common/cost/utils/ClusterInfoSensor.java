@@ -25,6 +25,7 @@ import java.util.stream.Stream;
 import org.astraea.common.admin.ClusterInfo;
 import org.astraea.common.admin.NodeInfo;
 import org.astraea.common.admin.Replica;
+import org.astraea.common.metrics.BeanQuery;
 import org.astraea.common.metrics.ClusterBean;
 import org.astraea.common.metrics.HasBeanObject;
 import org.astraea.common.metrics.broker.ClusterMetrics;
@@ -47,6 +48,14 @@ public class ClusterInfoSensor implements MetricSensor {
         .collect(Collectors.toUnmodifiableList());
   }
 
+  @Override
+  public Collection<BeanQuery> queries() {
+    return List.of(
+        ServerMetrics.KafkaServer.CLUSTER_ID.query(),
+        LogMetrics.Log.SIZE.query(),
+        ClusterMetrics.Partition.REPLICAS_COUNT.query());
+  }
+
   /**
    * Create a {@link ClusterInfo} from the metrics of a given {@link ClusterBean}. The {@link
    * ClusterInfo} might lack some information due to the incompetent metrics info.
@@ -38,10 +38,17 @@ public interface ClusterBean {
     return ClusterBean.of(
         clusterBean.all().entrySet().stream()
             .filter(e -> nodeFilter.test(e.getKey()))
-            .collect(Collectors.toUnmodifiableMap(Map.Entry::getKey, Map.Entry::getValue)));
+            .collect(Collectors.toUnmodifiableMap(Map.Entry::getKey, Map.Entry::getValue)),
+        clusterBean.history());
   }
 
   static ClusterBean of(Map<Integer, ? extends Collection<? extends HasBeanObject>> allBeans) {
+    return of(allBeans, MetricHistory.EMPTY);
+  }
+
+  static ClusterBean of(
+      Map<Integer, ? extends Collection<? extends HasBeanObject>> allBeans,
+      MetricHistory history) {
     return new ClusterBean() {
       final Lazy<Map<String, List<HasBeanObject>>> topicCache =
           Lazy.of(() -> map((id, bean) -> bean.topicIndex()));
@@ -130,6 +137,11 @@ public interface ClusterBean {
         return all.get().keySet();
       }
 
+      @Override
+      public MetricHistory history() {
+        return history;
+      }
+
       private <Key> Map<Key, List<HasBeanObject>> map(
           BiFunction<Integer, HasBeanObject, Optional<Key>> keyMapper) {
         return all().entrySet().stream()
@@ -226,4 +238,16 @@ public interface ClusterBean {
    * @return the broker ids which have metrics
    */
   Set<Integer> brokerIds();
+
+  /**
+   * The history keeps the numeric attributes of metrics for a longer time window than the beans of
+   * this cluster bean. Noted that the history is shared by all cluster beans generated by the same
+   * store, so it is not a snapshot.
+   *
+   * @return the history of numeric metrics. {@link MetricHistory#EMPTY} is returned if the history
+   *     is disabled.
+   */
+  default MetricHistory history() {
+    return MetricHistory.EMPTY;
+  }
 }
@@ -0,0 +1,300 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.astraea.common.metrics;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.astraea.common.Lazy;
+import org.astraea.common.admin.BrokerTopic;
+import org.astraea.common.admin.TopicPartition;
+import org.astraea.common.admin.TopicPartitionReplica;
+
+/**
+ * A mutable store of metrics which keeps the broker/topic/partition/replica indexes of {@link
+ * ClusterBean} up to date incrementally. The beans and indexes of each broker are kept by an
+ * immutable shard, and an update replaces the shard of the updated broker only. Hence, {@link
+ * #snapshot()} shares the shards of all untouched brokers with the previous snapshot rather than
+ * regrouping or copying all beans from scratch.
+ *
+ * <p>This class is thread-safe. The returned snapshots are immutable.
+ */
+public final class ClusterBeanIndex {
+
+  public static ClusterBeanIndex of() {
+    return of(MetricHistory.EMPTY);
+  }
+
+  /**
+   * @param history to be exposed by {@link ClusterBean#history()} of snapshots
+   * @return an empty index
+   */
+  public static ClusterBeanIndex of(MetricHistory history) {
+    return new ClusterBeanIndex(history);
+  }
+
+  private final MetricHistory history;
+
+  private final Map<Integer, Shard> shards = new HashMap<>();
+
+  private ClusterBean snapshot;
+  private boolean dirty = false;
+
+  private ClusterBeanIndex(MetricHistory history) {
+    this.history = history;
+    this.snapshot = ClusterBean.of(Map.of(), history);
+  }
+
+  /**
+   * append the beans to the specify broker.
+   *
+   * @param broker broker id
+   * @param beans to append
+   */
+  public synchronized void add(int broker, Collection<? extends HasBeanObject> beans) {
+    if (beans.isEmpty()) return;
+    shards.put(broker, shards.getOrDefault(broker, Shard.EMPTY).add(broker, beans));
+    dirty = true;
+  }
+
+  /**
+   * remove the beans which are created before the given time.
+   *
+   * @param before the expired time in milliseconds
+   * @return true if there are some beans get removed
+   */
+  public synchronized boolean expire(long before) {
+    var removed = false;
+    var iter = shards.entrySet().iterator();
+    while (iter.hasNext()) {
+      var entry = iter.next();
+      var shard = entry.getValue();
+      if (shard.beans.stream().allMatch(bean -> bean.createdTimestamp() >= before)) continue;
+      removed = true;
+      var remains =
+          shard.beans.stream()
+              .filter(bean -> bean.createdTimestamp() >= before)
+              .collect(Collectors.toUnmodifiableList());
+      if (remains.isEmpty()) iter.remove();
+      else entry.setValue(Shard.EMPTY.add(entry.getKey(), remains));
+    }
+    dirty |= removed;
+    return removed;
+  }
+
+  /**
+   * @return the total number of stored beans
+   */
+  public synchronized int size() {
+    return shards.values().stream().mapToInt(shard -> shard.beans.size()).sum();
+  }
+
+  /**
+   * Create an immutable view of current beans. If nothing is changed since the last call, the
+   * previous snapshot is returned directly. Otherwise, the new snapshot references the current
+   * shards, so it costs the number of brokers only.
+   *
+   * @return an immutable {@link ClusterBean}
+   */
+  public synchronized ClusterBean snapshot() {
+    if (!dirty) return snapshot;
+    snapshot = new Snapshot(Map.copyOf(shards), history);
+    dirty = false;
+    return snapshot;
+  }
+
+  /** The immutable beans and indexes of a broker. */
+  private static final class Shard {
+    private static final Shard EMPTY = new Shard(List.of(), Map.of(), Map.of(), Map.of(), Map.of());
+
+    private final List<HasBeanObject> beans;
+    private final Map<String, List<HasBeanObject>> topics;
+    private final Map<TopicPartition, List<HasBeanObject>> partitions;
+    private final Map<TopicPartitionReplica, List<HasBeanObject>> replicas;
+    private final Map<BrokerTopic, List<HasBeanObject>> brokerTopics;
+
+    private Shard(
+        List<HasBeanObject> beans,
+        Map<String, List<HasBeanObject>> topics,
+        Map<TopicPartition, List<HasBeanObject>> partitions,
+        Map<TopicPartitionReplica, List<HasBeanObject>> replicas,
+        Map<BrokerTopic, List<HasBeanObject>> brokerTopics) {
+      this.beans = beans;
+      this.topics = topics;
+      this.partitions = partitions;
+      this.replicas = replicas;
+      this.brokerTopics = brokerTopics;
+    }
+
+    /**
+     * @return a new shard having both the beans of this shard and the added beans. The index keys
+     *     which are not touched by the added beans share the lists with this shard.
+     */
+    private Shard add(int broker, Collection<? extends HasBeanObject> added) {
+      return new Shard(
+          concat(beans, added),
+          merge(topics, added, HasBeanObject::topicIndex),
+          merge(partitions, added, HasBeanObject::partitionIndex),
+          merge(replicas, added, bean -> bean.replicaIndex(broker)),
+          merge(brokerTopics, added, bean -> bean.brokerTopicIndex(broker)));
+    }
+
+    private static List<HasBeanObject> concat(
+        List<HasBeanObject> previous, Collection<? extends HasBeanObject> added) {
+      var result = new ArrayList<HasBeanObject>(previous.size() + added.size());
+      result.addAll(previous);
+      result.addAll(added);
+      return Collections.unmodifiableList(result);
+    }
+
+    private static <Key> Map<Key, List<HasBeanObject>> merge(
+        Map<Key, List<HasBeanObject>> previous,
+        Collection<? extends HasBeanObject> added,
+        Function<HasBeanObject, Optional<Key>> keyMapper) {
+      var grouped = new HashMap<Key, List<HasBeanObject>>();
+      added.forEach(
+          bean ->
+              keyMapper
+                  .apply(bean)
+                  .ifPresent(
+                      key -> grouped.computeIfAbsent(key, k -> new ArrayList<>()).add(bean)));
+      if (grouped.isEmpty()) return previous;
+      var result = new HashMap<>(previous);
+      grouped.forEach(
+          (key, beans) -> result.put(key, concat(previous.getOrDefault(key, List.of()), beans)));
+      return Collections.unmodifiableMap(result);
+    }
+  }
+
+  private static class Snapshot implements ClusterBean {
+    private final Map<Integer, Shard> shards;
+    private final Map<Integer, Collection<HasBeanObject>> all;
+    private final MetricHistory history;
+    private final Lazy<Set<String>> topics;
+    private final Lazy<Set<TopicPartition>> partitions;
+    private final Lazy<Set<TopicPartitionReplica>> replicas;
+    private final Lazy<Set<BrokerTopic>> brokerTopics;
+
+    private Snapshot(Map<Integer, Shard> shards, MetricHistory history) {
+      this.shards = shards;
+      this.all =
+          shards.entrySet().stream()
+              .collect(
+                  Collectors.toUnmodifiableMap(
+                      Map.Entry::getKey, e -> (Collection<HasBeanObject>) e.getValue().beans));
+      this.history = history;
+      this.topics = Lazy.of(() -> keys(shard -> shard.topics));
+      this.partitions = Lazy.of(() -> keys(shard -> shard.partitions));
+      this.replicas = Lazy.of(() -> keys(shard -> shard.replicas));
+      this.brokerTopics = Lazy.of(() -> keys(shard -> shard.brokerTopics));
+    }
+
+    private <Key> Set<Key> keys(Function<Shard, Map<Key, List<HasBeanObject>>> index) {
+      return shards.values().stream()
+          .flatMap(shard -> index.apply(shard).keySet().stream())
+          .collect(Collectors.toUnmodifiableSet());
+    }
+
+    private <Key, Bean extends HasBeanObject> Stream<Bean> lookup(
+        Function<Shard, Map<Key, List<HasBeanObject>>> index, Key key, Class<Bean> metricClass) {
+      return filter(
+          shards.values().stream()
+              .flatMap(shard -> index.apply(shard).getOrDefault(key, List.of()).stream()),
+          metricClass);
+    }
+
+    @Override
+    public Map<Integer, Collection<HasBeanObject>> all() {
+      return all;
+    }
+
+    @Override
+    public <Bean extends HasBeanObject> Stream<Bean> topicMetrics(
+        String topic, Class<Bean> metricClass) {
+      return lookup(shard -> shard.topics, topic, metricClass);
+    }
+
+    @Override
+    public <Bean extends HasBeanObject> Stream<Bean> partitionMetrics(
+        TopicPartition topicPartition, Class<Bean> metricClass) {
+      return lookup(shard -> shard.partitions, topicPartition, metricClass);
+    }
+
+    @Override
+    public <Bean extends HasBeanObject> Stream<Bean> replicaMetrics(
+        TopicPartitionReplica replica, Class<Bean> metricClass) {
+      return lookup(shard -> shard.replicas, replica, metricClass);
+    }
+
+    @Override
+    public <Bean extends HasBeanObject> Stream<Bean> brokerTopicMetrics(
+        BrokerTopic brokerTopic, Class<Bean> metricClass) {
+      return lookup(shard -> shard.brokerTopics, brokerTopic, metricClass);
+    }
+
+    @Override
+    public <Bean extends HasBeanObject> Stream<Bean> brokerMetrics(
+        int brokerId, Class<Bean> metricClass) {
+      return filter(all.getOrDefault(brokerId, List.of()).stream(), metricClass);
+    }
+
+    @Override
+    public Set<String> topics() {
+      return topics.get();
+    }
+
+    @Override
+    public Set<TopicPartition> partitions() {
+      return partitions.get();
+    }
+
+    @Override
+    public Set<TopicPartitionReplica> replicas() {
+      return replicas.get();
+    }
+
+    @Override
+    public Set<BrokerTopic> brokerTopics() {
+      return brokerTopics.get();
+    }
+
+    @Override
+    public Set<Integer> brokerIds() {
+      return all.keySet();
+    }
+
+    @Override
+    public MetricHistory history() {
+      return history;
+    }
+
+    private static <Bean extends HasBeanObject> Stream<Bean> filter(
+        Stream<HasBeanObject> beans, Class<Bean> metricClass) {
+      return beans
+          .filter(bean -> metricClass.isAssignableFrom(bean.getClass()))
+          .map(metricClass::cast);
+    }
+  }
+}
@@ -23,23 +23,36 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
 import java.util.stream.Collectors;
-import java.util.stream.Stream;
+import java.util.stream.IntStream;
 import javax.management.AttributeNotFoundException;
 import javax.management.InstanceNotFoundException;
+import javax.management.IntrospectionException;
 import javax.management.MBeanException;
 import javax.management.MBeanFeatureInfo;
 import javax.management.MBeanServerConnection;
-import javax.management.ObjectInstance;
+import javax.management.ObjectName;
 import javax.management.ReflectionException;
 import javax.management.RuntimeMBeanException;
-import javax.management.remote.JMXConnectorFactory;
 import javax.management.remote.JMXServiceURL;
 import org.astraea.common.Utils;
 
 /** A MBeanClient used to retrieve mbean value from remote Jmx server. */
 public interface JndiClient extends MBeanClient, AutoCloseable {
+
+  /**
+   * The number of remote calls of a query running at the same time (see {@link
+   * #beans(BeanQuery, Consumer, Executor)}).
+   */
+  int CONCURRENT_CALLS = 4;
+
   /**
    * @param host the address of jmx server
    * @param port the port of jmx server
@@ -56,26 +69,28 @@ public interface JndiClient extends MBeanClient, AutoCloseable {
     }
   }
 
+  /**
+   * The returned client keeps the connection alive and reconnects it if the connection gets broken.
+   * The names of mbeans and their attributes are cached until the set of mbeans changes, so the
+   * following queries take a single round trip for each mbean.
+   *
+   * @param jmxServiceURL the address of jmx server
+   * @return a mbean client using JNDI to lookup metrics.
+   */
   static JndiClient of(JMXServiceURL jmxServiceURL) {
-    return Utils.packException(
-        () -> {
-          var jmxConnector = JMXConnectorFactory.connect(jmxServiceURL);
-          return new BasicMBeanClient(
-              jmxConnector.getMBeanServerConnection(),
-              jmxServiceURL.getHost(),
-              jmxServiceURL.getPort()) {
-            @Override
-            public void close() {
-              Utils.close(jmxConnector);
-            }
-          };
-        });
+    return new RemoteMBeanClient(jmxServiceURL);
   }
 
   static JndiClient local() {
     return new BasicMBeanClient(ManagementFactory.getPlatformMBeanServer(), Utils.hostname(), -1);
   }
 
+  /**
+   * Break the connection in use, so the pending calls fail rather than wait for the remote server.
+   * The following calls use a new connection. It does nothing if the client has no connection.
+   */
+  default void reset() {}
+
   @Override
   default void close() {}
 
@@ -92,22 +107,58 @@ public interface JndiClient extends MBeanClient, AutoCloseable {
       this.port = port;
     }
 
+    MBeanServerConnection connection() {
+      return connection;
+    }
+
+    /**
+     * Execute the remote call.
+     *
+     * @param getter the remote call
+     * @return the result of the call
+     */
+    <T> T call(Utils.Getter<T> getter) {
+      return Utils.packException(getter);
+    }
+
+    /**
+     * @param objectName the name of an existent mbean
+     * @return the names of all attributes of the mbean
+     */
+    String[] attributeNames(ObjectName objectName)
+        throws InstanceNotFoundException, IntrospectionException, ReflectionException, IOException {
+      return Arrays.stream(connection().getMBeanInfo(objectName).getAttributes())
+          .map(MBeanFeatureInfo::getName)
+          .toArray(String[]::new);
+    }
+
+    /**
+     * @param pattern the object name pattern
+     * @return the names of the mbeans matching the pattern
+     */
+    Set<ObjectName> objectNames(ObjectName pattern) throws IOException {
+      return connection().queryNames(pattern, null);
+    }
+
+    /**
+     * Called when the attribute is not acceptable by the mbean.
+     *
+     * @param objectName the name of mbean
+     * @param attributeName the unacceptable attribute
+     */
+    void unsupported(ObjectName objectName, String attributeName) {}
+
+    /**
+     * @return the number of {@link #reset()}. The calls running during a reset are given up
+     */
+    long resets() {
+      return 0;
+    }
+
     @Override
     public BeanObject bean(BeanQuery beanQuery) {
-      return Utils.packException(
-          () -> {
-            // ask for MBeanInfo
-            var mBeanInfo = connection.getMBeanInfo(beanQuery.objectName());
-
-            // create a list builder all available attributes name
-            var attributeName =
-                Arrays.stream(mBeanInfo.getAttributes())
-                    .map(MBeanFeatureInfo::getName)
-                    .collect(Collectors.toList());
-
-            // query the result
-            return queryBean(beanQuery, attributeName);
-          });
+      return call(
+          () -> queryBean(beanQuery, Arrays.asList(attributeNames(beanQuery.objectName()))));
     }
 
     BeanObject queryBean(BeanQuery beanQuery, Collection<String> attributeNameCollection)
@@ -119,7 +170,7 @@ public interface JndiClient extends MBeanClient, AutoCloseable {
       // fetch attribute value from mbean server
       var attributeNameArray = attributeNameCollection.toArray(new String[0]);
       var attributeList =
-          connection.getAttributes(beanQuery.objectName(), attributeNameArray).asList();
+          connection().getAttributes(beanQuery.objectName(), attributeNameArray).asList();
 
       // collect attribute name & value into a map
       var attributes = new HashMap<String, Object>();
@@ -132,13 +183,14 @@ public interface JndiClient extends MBeanClient, AutoCloseable {
       for (var str : attributeNameArray) {
         if (attributes.containsKey(str)) continue;
         try {
-          attributes.put(str, connection.getAttribute(beanQuery.objectName(), str));
+          attributes.put(str, connection().getAttribute(beanQuery.objectName(), str));
         } catch (RuntimeMBeanException e) {
           if (!(e.getCause() instanceof UnsupportedOperationException))
             throw new IllegalStateException(e);
           // the UnsupportedOperationException is thrown when we query unacceptable
           // attribute. we just skip it as it is normal case to
           // return "acceptable" attribute only
+          unsupported(beanQuery.objectName(), str);
         }
       }
 
@@ -149,24 +201,65 @@ public interface JndiClient extends MBeanClient, AutoCloseable {
     @Override
     public Collection<BeanObject> beans(
         BeanQuery beanQuery, Consumer<RuntimeException> errorHandle) {
-      return Utils.packException(
-          () ->
-              connection.queryMBeans(beanQuery.objectName(), null).stream()
-                  // Parallelize the sampling of bean objects. The underlying RMI is thread-safe.
-                  // https://github.com/skiptests/astraea/issues/1553#issuecomment-1461143723
-                  .parallel()
-                  .map(ObjectInstance::getObjectName)
-                  .map(BeanQuery::fromObjectName)
-                  .flatMap(
-                      query -> {
-                        try {
-                          return Stream.of(bean(query));
-                        } catch (RuntimeException e) {
-                          errorHandle.accept(e);
-                          return Stream.empty();
-                        }
-                      })
-                  .collect(Collectors.toUnmodifiableList()));
+      // The beans are fetched by the caller thread rather than a parallel stream, since a hung
+      // connection would stall the common pool shared by the whole JVM.
+      return beans(beanQuery, errorHandle, Runnable::run);
+    }
+
+    /**
+     * The caller thread and {@link #CONCURRENT_CALLS} - 1 tasks of executor take the mbeans one by
+     * one, so a query of many mbeans is not bounded by the round trip of each mbean. The caller
+     * thread keeps fetching even if the executor is busy.
+     */
+    @Override
+    public Collection<BeanObject> beans(
+        BeanQuery beanQuery, Consumer<RuntimeException> errorHandle, Executor executor) {
+      var resets = resets();
+      var queries =
+          call(() -> objectNames(beanQuery.objectName())).stream()
+              .map(BeanQuery::fromObjectName)
+              .collect(Collectors.toUnmodifiableList());
+      var beans = new BeanObject[queries.size()];
+      var next = new AtomicInteger();
+      Runnable fetch =
+          () -> {
+            for (var i = next.getAndIncrement(); i < queries.size(); i = next.getAndIncrement()) {
+              checkReset(resets);
+              try {
+                beans[i] = bean(queries.get(i));
+              } catch (RuntimeException e) {
+                errorHandle.accept(e);
+              }
+            }
+          };
+      var tasks =
+          IntStream.range(1, Math.min(CONCURRENT_CALLS, queries.size()))
+              .mapToObj(ignored -> CompletableFuture.runAsync(fetch, executor))
+              .collect(Collectors.toUnmodifiableList());
+      try {
+        fetch.run();
+        for (var task : tasks) task.get();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IllegalStateException(e);
+      } catch (ExecutionException e) {
+        if (e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+        throw new IllegalStateException(e.getCause());
+      } finally {
+        // stop the tasks from taking the remaining mbeans
+        next.set(queries.size());
+      }
+      return Arrays.stream(beans).filter(Objects::nonNull).collect(Collectors.toUnmodifiableList());
+    }
+
+    /**
+     * @param resets the number of resets when the query started
+     * @throws IllegalStateException if the client is reset after the query started
+     */
+    void checkReset(long resets) {
+      if (resets() != resets)
+        throw new IllegalStateException(
+            "the connection to " + host + ":" + port + " is reset during the query");
     }
 
     /**
@@ -177,7 +270,7 @@ public interface JndiClient extends MBeanClient, AutoCloseable {
      * @return a {@link List} of domain name {@link String}
      */
     List<String> domains() {
-      return Utils.packException(() -> Arrays.asList(connection.getDomains()));
+      return call(() -> Arrays.asList(connection().getDomains()));
     }
   }
 }
@@ -18,6 +18,7 @@ package org.astraea.common.metrics;
 
 import java.util.Collection;
 import java.util.Set;
+import java.util.concurrent.Executor;
 import java.util.function.Consumer;
 import javax.management.ObjectName;
 
@@ -56,4 +57,19 @@ public interface MBeanClient {
    * @return A {@link Set} of {@link BeanObject}, all BeanObject has its own attributes resolved.
    */
   Collection<BeanObject> beans(BeanQuery beanQuery, Consumer<RuntimeException> errorHandle);
+
+  /**
+   * Query mBeans by pattern, and the mbeans are fetched by the executor concurrently. The default
+   * implementation fetches the mbeans by the caller thread.
+   *
+   * @param beanQuery the pattern to query
+   * @param errorHandle used to handle the error when fetching specify bean from remote server. It
+   *     may be called by the threads of executor
+   * @param executor runs the remote calls. The caller thread waits for the calls
+   * @return A {@link Set} of {@link BeanObject}, all BeanObject has its own attributes resolved.
+   */
+  default Collection<BeanObject> beans(
+      BeanQuery beanQuery, Consumer<RuntimeException> errorHandle, Executor executor) {
+    return beans(beanQuery, errorHandle);
+  }
 }
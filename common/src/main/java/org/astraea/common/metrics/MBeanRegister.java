@@ -192,5 +192,15 @@ public class MBeanRegister {
             ManagementFactory.getPlatformMBeanServer().registerMBean(mBean, name);
           });
     }
+
+    /** Remove this Mbean from the local JVM MBean server. Nothing happens if it is absent. */
+    public void unregister() {
+      Utils.packException(
+          () -> {
+            var name = new ObjectName(domainName, new Hashtable<>(properties));
+            var server = ManagementFactory.getPlatformMBeanServer();
+            if (server.isRegistered(name)) server.unregisterMBean(name);
+          });
+    }
   }
 }
@@ -0,0 +1,368 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.astraea.common.metrics;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Objects;
+import java.util.OptionalDouble;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+/**
+ * A time-windowed history of numeric attributes. Each (broker, bean, attribute) is stored by a ring
+ * buffer of primitive columns (timestamp and value), so the memory usage is proportional to the
+ * retained samples rather than the number of {@link BeanObject}. The samples falling into the same
+ * resolution window are downsampled to their average.
+ */
+public interface MetricHistory {
+
+  MetricHistory EMPTY =
+      new MetricHistory() {
+        @Override
+        public void record(int broker, Collection<? extends HasBeanObject> beans) {}
+
+        @Override
+        public void expire(long now) {}
+
+        @Override
+        public Set<Key> keys() {
+          return Set.of();
+        }
+
+        @Override
+        public Samples samples(Key key, long from, long to) {
+          return Samples.EMPTY;
+        }
+      };
+
+  static Builder builder() {
+    return new Builder();
+  }
+
+  /**
+   * append the numeric attributes of beans to history.
+   *
+   * @param broker the source of beans
+   * @param beans to record
+   */
+  void record(int broker, Collection<? extends HasBeanObject> beans);
+
+  /**
+   * remove the samples which are out of retention.
+   *
+   * @param now current time in milliseconds
+   */
+  void expire(long now);
+
+  /**
+   * @return all keys having samples
+   */
+  Set<Key> keys();
+
+  /**
+   * @param filter to select keys
+   * @return the keys accepted by filter
+   */
+  default Set<Key> keys(Predicate<Key> filter) {
+    return keys().stream().filter(filter).collect(Collectors.toUnmodifiableSet());
+  }
+
+  /**
+   * @param key to query
+   * @param from the start time (inclusive) in milliseconds
+   * @param to the end time (inclusive) in milliseconds
+   * @return the samples in the range
+   */
+  Samples samples(Key key, long from, long to);
+
+  /**
+   * @param key to query
+   * @param window the time window before now
+   * @return the samples in the window
+   */
+  default Samples samples(Key key, Duration window) {
+    var now = System.currentTimeMillis();
+    return samples(key, now - window.toMillis(), now);
+  }
+
+  default OptionalDouble avg(Key key, Duration window) {
+    return samples(key, window).avg();
+  }
+
+  default OptionalDouble max(Key key, Duration window) {
+    return samples(key, window).max();
+  }
+
+  default OptionalDouble percentile(Key key, Duration window, double percentile) {
+    return samples(key, window).percentile(percentile);
+  }
+
+  /** The identity of a series. */
+  record Key(int broker, String domain, Map<String, String> properties, String attribute) {
+
+    public static Key of(int broker, BeanObject bean, String attribute) {
+      return new Key(broker, bean.domainName(), bean.properties(), attribute);
+    }
+
+    public static Key of(int broker, HasBeanObject bean, String attribute) {
+      return of(broker, bean.beanObject(), attribute);
+    }
+  }
+
+  /** The immutable copy of samples. The timestamps are in ascending order. */
+  record Samples(long[] timestamps, double[] values) {
+    public static final Samples EMPTY = new Samples(new long[0], new double[0]);
+
+    public int size() {
+      return timestamps.length;
+    }
+
+    public OptionalDouble avg() {
+      return Arrays.stream(values).average();
+    }
+
+    public OptionalDouble max() {
+      return Arrays.stream(values).max();
+    }
+
+    public OptionalDouble min() {
+      return Arrays.stream(values).min();
+    }
+
+    /**
+     * @param percentile in (0, 1]
+     * @return the value using nearest-rank method
+     */
+    public OptionalDouble percentile(double percentile) {
+      if (percentile <= 0 || percentile > 1)
+        throw new IllegalArgumentException("percentile should be in (0, 1], but " + percentile);
+      if (values.length == 0) return OptionalDouble.empty();
+      var sorted = values.clone();
+      Arrays.sort(sorted);
+      var rank = (int) Math.ceil(percentile * sorted.length);
+      return OptionalDouble.of(sorted[Math.max(rank, 1) - 1]);
+    }
+
+    /**
+     * @return the rate of value change per second. It is useful to the cumulative counters.
+     */
+    public OptionalDouble ratePerSecond() {
+      if (values.length < 2) return OptionalDouble.empty();
+      var duration = timestamps[timestamps.length - 1] - timestamps[0];
+      if (duration <= 0) return OptionalDouble.empty();
+      return OptionalDouble.of((values[values.length - 1] - values[0]) * 1000 / duration);
+    }
+  }
+
+  class Builder {
+    private Duration retention = Duration.ofMinutes(30);
+    private Duration resolution = Duration.ofSeconds(1);
+
+    private Builder() {}
+
+    /**
+     * @param retention the samples older than it get removed
+     * @return this builder
+     */
+    public Builder retention(Duration retention) {
+      this.retention = Objects.requireNonNull(retention);
+      return this;
+    }
+
+    /**
+     * @param resolution the samples in the same resolution window are merged to their average
+     * @return this builder
+     */
+    public Builder resolution(Duration resolution) {
+      this.resolution = Objects.requireNonNull(resolution);
+      return this;
+    }
+
+    public MetricHistory build() {
+      if (retention.isNegative() || retention.isZero())
+        throw new IllegalArgumentException("retention should be positive");
+      if (resolution.isNegative())
+        throw new IllegalArgumentException("resolution can't be negative");
+      return new MetricHistoryImpl(retention.toMillis(), resolution.toMillis());
+    }
+  }
+
+  class MetricHistoryImpl implements MetricHistory {
+    private final long retention;
+    private final long resolution;
+    private final int maxCapacity;
+    private final Map<Key, Series> series = new ConcurrentHashMap<>();
+
+    private MetricHistoryImpl(long retention, long resolution) {
+      this.retention = retention;
+      this.resolution = resolution;
+      // the number of resolution windows in retention is the upper bound of samples
+      this.maxCapacity =
+          resolution == 0
+              ? Integer.MAX_VALUE - 8
+              : (int) Math.min(Integer.MAX_VALUE - 8, retention / resolution + 1);
+    }
+
+    @Override
+    public void record(int broker, Collection<? extends HasBeanObject> beans) {
+      beans.forEach(
+          bean -> {
+            var beanObject = bean.beanObject();
+            beanObject
+                .attributes()
+                .forEach(
+                    (attribute, value) -> {
+                      if (value instanceof Number)
+                        // append in the lock of key, so the series can't be removed by expire
+                        // after it is found and before the sample is appended
+                        series.compute(
+                            Key.of(broker, beanObject, attribute),
+                            (ignored, s) -> {
+                              var result = s == null ? new Series(maxCapacity) : s;
+                              result.append(
+                                  beanObject.createdTimestamp(),
+                                  ((Number) value).doubleValue(),
+                                  resolution,
+                                  retention);
+                              return result;
+                            });
+                    });
+          });
+    }
+
+    @Override
+    public void expire(long now) {
+      series
+          .keySet()
+          .forEach(
+              key -> series.computeIfPresent(key, (k, s) -> s.expire(now - retention) ? null : s));
+    }
+
+    @Override
+    public Set<Key> keys() {
+      return Set.copyOf(series.keySet());
+    }
+
+    @Override
+    public Samples samples(Key key, long from, long to) {
+      var s = series.get(key);
+      if (s == null) return Samples.EMPTY;
+      return s.samples(from, to);
+    }
+  }
+
+  /** A growable ring buffer of (timestamp, value, count) columns. */
+  class Series {
+    private static final int INITIAL_CAPACITY = 8;
+    private final int maxCapacity;
+    private long[] timestamps;
+    private double[] values;
+    // the number of merged samples of each slot
+    private int[] counts;
+    private int head = 0;
+    private int size = 0;
+
+    private Series(int maxCapacity) {
+      this.maxCapacity = maxCapacity;
+      var capacity = Math.min(INITIAL_CAPACITY, maxCapacity);
+      this.timestamps = new long[capacity];
+      this.values = new double[capacity];
+      this.counts = new int[capacity];
+    }
+
+    private int index(int offset) {
+      return (head + offset) % timestamps.length;
+    }
+
+    private synchronized void append(
+        long timestamp, double value, long resolution, long retention) {
+      if (size > 0) {
+        var last = index(size - 1);
+        // the out-of-order sample is dropped
+        if (timestamp < timestamps[last]) return;
+        if (resolution > 0 && timestamp / resolution == timestamps[last] / resolution) {
+          counts[last] += 1;
+          values[last] += (value - values[last]) / counts[last];
+          timestamps[last] = timestamp;
+          return;
+        }
+      }
+      expire(timestamp - retention);
+      if (size == timestamps.length) {
+        if (size < maxCapacity) grow();
+        else {
+          // overwrite the oldest sample
+          head = index(1);
+          size -= 1;
+        }
+      }
+      var next = index(size);
+      timestamps[next] = timestamp;
+      values[next] = value;
+      counts[next] = 1;
+      size += 1;
+    }
+
+    private void grow() {
+      var capacity = (int) Math.min(maxCapacity, timestamps.length * 2L);
+      var newTimestamps = new long[capacity];
+      var newValues = new double[capacity];
+      var newCounts = new int[capacity];
+      for (var i = 0; i < size; i++) {
+        var index = index(i);
+        newTimestamps[i] = timestamps[index];
+        newValues[i] = values[index];
+        newCounts[i] = counts[index];
+      }
+      timestamps = newTimestamps;
+      values = newValues;
+      counts = newCounts;
+      head = 0;
+    }
+
+    /**
+     * @return true if this series becomes empty
+     */
+    private synchronized boolean expire(long before) {
+      while (size > 0 && timestamps[head] < before) {
+        head = index(1);
+        size -= 1;
+      }
+      return size == 0;
+    }
+
+    private synchronized Samples samples(long from, long to) {
+      var start = 0;
+      while (start < size && timestamps[index(start)] < from) start++;
+      var end = size;
+      while (end > start && timestamps[index(end - 1)] > to) end--;
+      if (start == end) return Samples.EMPTY;
+      var ts = new long[end - start];
+      var vs = new double[end - start];
+      for (var i = start; i < end; i++) {
+        ts[i - start] = timestamps[index(i)];
+        vs[i - start] = values[index(i)];
+      }
+      return new Samples(ts, vs);
+    }
+  }
+}
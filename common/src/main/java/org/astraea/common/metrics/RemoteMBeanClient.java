@@ -0,0 +1,245 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.astraea.common.metrics;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.management.InstanceNotFoundException;
+import javax.management.IntrospectionException;
+import javax.management.MBeanServerConnection;
+import javax.management.MBeanServerDelegate;
+import javax.management.MBeanServerNotification;
+import javax.management.Notification;
+import javax.management.NotificationListener;
+import javax.management.ObjectName;
+import javax.management.ReflectionException;
+import javax.management.remote.JMXConnectionNotification;
+import javax.management.remote.JMXConnector;
+import javax.management.remote.JMXConnectorFactory;
+import javax.management.remote.JMXServiceURL;
+import org.astraea.common.Utils;
+
+/**
+ * A {@link JndiClient} keeping a connection to remote jmx server.
+ *
+ * <ul>
+ *   <li>The names of mbeans matching a pattern and the attribute names of a mbean are cached, so
+ *       fetching a known mbean costs a single {@code getAttributes} call. The caches are cleared
+ *       when the server reports a mbean (un)registration.
+ *   <li>The connection is marked as broken when the connector reports a failure (the connector
+ *       checks the connection periodically), and it is re-created by the next call. A call failed
+ *       by {@link IOException} is retried once with a new connection.
+ * </ul>
+ */
+class RemoteMBeanClient extends JndiClient.BasicMBeanClient {
+
+  private final JMXServiceURL url;
+  private final Map<ObjectName, Set<ObjectName>> objectNames = new ConcurrentHashMap<>();
+  private final Map<ObjectName, String[]> attributeNames = new ConcurrentHashMap<>();
+  // it is increased whenever the caches get cleared. A query result is cached only if there is no
+  // clear during the query, otherwise the stale result would be put back after the clear.
+  private final AtomicLong generation = new AtomicLong();
+  // it is increased by reset. The calls running during a reset are not retried
+  private final AtomicLong resets = new AtomicLong();
+  private final NotificationListener registrationListener = this::onRegistration;
+  private final NotificationListener connectionListener = this::onConnection;
+  private final Object lock = new Object();
+
+  private volatile JMXConnector connector;
+  private volatile MBeanServerConnection connection;
+
+  /** true if the mbean (un)registrations are subscribed. Otherwise, the caches are not used. */
+  private volatile boolean cacheable = false;
+
+  private volatile boolean healthy = false;
+  private volatile boolean closed = false;
+
+  RemoteMBeanClient(JMXServiceURL url) {
+    super(null, url.getHost(), url.getPort());
+    this.url = url;
+    Utils.packException(this::connect);
+  }
+
+  @Override
+  MBeanServerConnection connection() {
+    return connection;
+  }
+
+  @Override
+  <T> T call(Utils.Getter<T> getter) {
+    var start = resets.get();
+    var used = connection;
+    if (!healthy && !closed) used = reconnect(used);
+    try {
+      return Utils.packException(getter);
+    } catch (UncheckedIOException e) {
+      // the call broken by reset is given up, otherwise the retry may hang again
+      if (closed || resets.get() != start) throw e;
+      reconnect(used);
+      return Utils.packException(getter);
+    }
+  }
+
+  @Override
+  String[] attributeNames(ObjectName objectName)
+      throws InstanceNotFoundException, IntrospectionException, ReflectionException, IOException {
+    if (!cacheable) return super.attributeNames(objectName);
+    var names = attributeNames.get(objectName);
+    if (names != null) return names;
+    var start = generation.get();
+    names = super.attributeNames(objectName);
+    cache(attributeNames, objectName, names, start);
+    return names;
+  }
+
+  @Override
+  Set<ObjectName> objectNames(ObjectName pattern) throws IOException {
+    if (!cacheable) return super.objectNames(pattern);
+    var names = objectNames.get(pattern);
+    if (names != null) return names;
+    var start = generation.get();
+    names = Set.copyOf(super.objectNames(pattern));
+    cache(objectNames, pattern, names, start);
+    return names;
+  }
+
+  /**
+   * Put the query result into cache if the caches are not cleared since the query started. The
+   * generation is checked after putting, so a clear happening at the same time either removes the
+   * value or gets noticed here.
+   */
+  private <K, V> void cache(Map<K, V> cache, K key, V value, long start) {
+    if (generation.get() != start) return;
+    cache.put(key, value);
+    if (generation.get() != start) cache.remove(key, value);
+  }
+
+  /**
+   * @return the number of cache clears
+   */
+  long generation() {
+    return generation.get();
+  }
+
+  @Override
+  void unsupported(ObjectName objectName, String attributeName) {
+    // don't ask for the unacceptable attribute again
+    attributeNames.computeIfPresent(
+        objectName,
+        (ignored, names) ->
+            Arrays.stream(names).filter(n -> !n.equals(attributeName)).toArray(String[]::new));
+  }
+
+  @Override
+  public void close() {
+    synchronized (lock) {
+      closed = true;
+      healthy = false;
+      disconnect();
+      invalidate();
+    }
+  }
+
+  @Override
+  long resets() {
+    return resets.get();
+  }
+
+  @Override
+  public void reset() {
+    // the lock is not required since the next call re-creates the connection anyway. Also, the lock
+    // may be held by a call waiting for the connection
+    resets.incrementAndGet();
+    healthy = false;
+    disconnect();
+  }
+
+  private void onRegistration(Notification notification, Object handback) {
+    if (!(notification instanceof MBeanServerNotification)) return;
+    // a new mbean may match the cached patterns, and a removed mbean must not be queried
+    generation.incrementAndGet();
+    objectNames.clear();
+    if (MBeanServerNotification.UNREGISTRATION_NOTIFICATION.equals(notification.getType()))
+      attributeNames.remove(((MBeanServerNotification) notification).getMBeanName());
+  }
+
+  private void onConnection(Notification notification, Object handback) {
+    // the notification may come from a replaced connector
+    if (notification.getSource() != connector) return;
+    var type = notification.getType();
+    if (JMXConnectionNotification.FAILED.equals(type)
+        || JMXConnectionNotification.CLOSED.equals(type)) healthy = false;
+    // the caches can't be trusted since some (un)registrations may be missed
+    if (!JMXConnectionNotification.OPENED.equals(type)) invalidate();
+  }
+
+  private void invalidate() {
+    generation.incrementAndGet();
+    objectNames.clear();
+    attributeNames.clear();
+  }
+
+  /**
+   * Re-create the connection if the broken connection is still in use.
+   *
+   * @param broken the connection which got broken
+   * @return the connection in use
+   */
+  private MBeanServerConnection reconnect(MBeanServerConnection broken) {
+    synchronized (lock) {
+      if (closed) throw new IllegalStateException("The client to " + url + " is closed");
+      if (healthy && connection != broken) return connection;
+      disconnect();
+      Utils.packException(this::connect);
+      return connection;
+    }
+  }
+
+  private void connect() throws IOException {
+    synchronized (lock) {
+      invalidate();
+      connector = JMXConnectorFactory.connect(url);
+      connector.addConnectionNotificationListener(connectionListener, null, null);
+      connection = connector.getMBeanServerConnection();
+      try {
+        connection.addNotificationListener(
+            MBeanServerDelegate.DELEGATE_NAME, registrationListener, null, null);
+        cacheable = true;
+      } catch (InstanceNotFoundException e) {
+        // the server doesn't report the (un)registrations, so we can't tell when to update caches
+        cacheable = false;
+      }
+      healthy = true;
+    }
+  }
+
+  void disconnect() {
+    var current = connector;
+    if (current == null) return;
+    connector = null;
+    try {
+      current.close();
+    } catch (IOException e) {
+      // the connection is broken already
+    }
+  }
+}
@@ -75,6 +75,10 @@ public final class ClusterMetrics {
       return EnumInfo.ignoreCaseEnum(ClusterMetrics.Partition.class, alias);
     }
 
+    public BeanQuery query() {
+      return ALL.get(this);
+    }
+
     public List<PartitionMetric> fetch(MBeanClient client) {
       return client.beans(ALL.get(this)).stream()
           .map(PartitionMetric::new)
@@ -174,6 +174,10 @@ public final class LogMetrics {
           .collect(Collectors.toUnmodifiableList());
     }
 
+    public BeanQuery query() {
+      return ALL.get(this);
+    }
+
     public List<Gauge> fetch(MBeanClient mBeanClient) {
       return mBeanClient.beans(ALL.get(this)).stream()
           .map(Gauge::new)
@@ -92,6 +92,10 @@ public final class ServerMetrics {
       return metricName;
     }
 
+    public BeanQuery query() {
+      return ALL.get(this);
+    }
+
     public HasBeanObject fetch(MBeanClient mBeanClient) {
       switch (this) {
         case CLUSTER_ID:
@@ -266,6 +270,10 @@ public final class ServerMetrics {
       return alias();
     }
 
+    public BeanQuery query() {
+      return ALL.get(this);
+    }
+
     public List<Topic.Meter> fetch(MBeanClient mBeanClient) {
       return mBeanClient.beans(ALL.get(this)).stream()
           .map(Topic.Meter::new)
@@ -470,6 +478,10 @@ public final class ServerMetrics {
           .collect(Collectors.toUnmodifiableList());
     }
 
+    public BeanQuery query() {
+      return ALL.get(this);
+    }
+
     public Meter fetch(MBeanClient mBeanClient) {
       return new Meter(mBeanClient.bean(ALL.get(this)));
     }
@@ -537,6 +549,10 @@ public final class ServerMetrics {
       return metricName;
     }
 
+    public BeanQuery query() {
+      return ALL.get(this);
+    }
+
     public Gauge fetch(MBeanClient mBeanClient) {
       return new Gauge(mBeanClient.bean(ALL.get(this)));
     }
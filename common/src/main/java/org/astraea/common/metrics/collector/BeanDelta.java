@@ -0,0 +1,307 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.astraea.common.metrics.collector;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.astraea.common.ByteUtils;
+import org.astraea.common.Header;
+import org.astraea.common.Utils;
+import org.astraea.common.metrics.BeanObject;
+
+/**
+ * Publish the beans as a keyframe followed by deltas. A keyframe carries all beans, and a delta
+ * carries only the changed attributes of the beans since the last published cycle. The decoder
+ * rebuilds the changed beans by merging the deltas onto the keyframe it holds. Each frame of an
+ * identity carries an increasing sequence, and a delta which doesn't follow the keyframe held by
+ * the decoder, or skips some sequences, is dropped. Hence, a decoder which starts in the middle of
+ * stream, or misses some records, recovers at the next keyframe. A large frame is split into parts,
+ * and each part carries its index and the number of parts, so the decoder drops the deltas until
+ * all parts of the keyframe are received.
+ */
+final class BeanDelta {
+
+  /** The id of keyframe. Both keyframe and delta carry it. */
+  static final String KEYFRAME_HEADER = "astraea.metrics.keyframe";
+
+  /** The record having this header is a delta. Otherwise, it is (a part of) keyframe. */
+  static final String DELTA_HEADER = "astraea.metrics.delta";
+
+  /** The sequence of frame. It is increased by each frame of an identity. */
+  static final String SEQUENCE_HEADER = "astraea.metrics.sequence";
+
+  /** The index of the part of frame. */
+  static final String PART_HEADER = "astraea.metrics.part";
+
+  /** The number of parts of frame. */
+  static final String PARTS_HEADER = "astraea.metrics.parts";
+
+  /**
+   * @param keyframe the id of keyframe which the delta is based on
+   * @param sequence the sequence of frame. The records split from a frame have the same sequence
+   * @param delta true if the beans carry the changed attributes only
+   * @param part the index of this part
+   * @param parts the number of parts split from the frame
+   * @param beans the beans to publish
+   */
+  record Frame(
+      long keyframe, long sequence, boolean delta, int part, int parts, List<BeanObject> beans) {
+
+    /** Create a frame which is not split. */
+    Frame(long keyframe, long sequence, boolean delta, List<BeanObject> beans) {
+      this(keyframe, sequence, delta, 0, 1, beans);
+    }
+
+    /**
+     * @return the frame carried by the headers, or empty if the record is not published in delta
+     *     mode
+     */
+    static Optional<Frame> of(List<Header> headers, List<BeanObject> beans) {
+      var keyframe = header(headers, KEYFRAME_HEADER);
+      var sequence = header(headers, SEQUENCE_HEADER);
+      if (keyframe.isEmpty() || sequence.isEmpty()) return Optional.empty();
+      return Optional.of(
+          new Frame(
+              ByteUtils.toLong(keyframe.get()),
+              ByteUtils.toLong(sequence.get()),
+              header(headers, DELTA_HEADER).isPresent(),
+              header(headers, PART_HEADER).map(ByteUtils::toInteger).orElse(0),
+              header(headers, PARTS_HEADER).map(ByteUtils::toInteger).orElse(1),
+              beans));
+    }
+
+    private static Optional<byte[]> header(List<Header> headers, String key) {
+      return headers.stream().filter(h -> h.key().equals(key)).findFirst().map(Header::value);
+    }
+
+    /**
+     * @param maxBeans the max number of beans of a part
+     * @return the parts of this frame. They have the same keyframe and sequence
+     */
+    List<Frame> split(int maxBeans) {
+      if (beans.size() <= maxBeans) return List.of(this);
+      var count = (beans.size() + maxBeans - 1) / maxBeans;
+      return IntStream.range(0, count)
+          .mapToObj(
+              i ->
+                  new Frame(
+                      keyframe,
+                      sequence,
+                      delta,
+                      i,
+                      count,
+                      beans.subList(i * maxBeans, Math.min(beans.size(), (i + 1) * maxBeans))))
+          .collect(Collectors.toUnmodifiableList());
+    }
+
+    List<Header> headers() {
+      var headers = new ArrayList<Header>(5);
+      headers.add(Header.of(KEYFRAME_HEADER, ByteUtils.toBytes(keyframe)));
+      headers.add(Header.of(SEQUENCE_HEADER, ByteUtils.toBytes(sequence)));
+      headers.add(Header.of(PART_HEADER, ByteUtils.toBytes(part)));
+      headers.add(Header.of(PARTS_HEADER, ByteUtils.toBytes(parts)));
+      if (delta) headers.add(Header.of(DELTA_HEADER, new byte[0]));
+      return List.copyOf(headers);
+    }
+  }
+
+  /** The identity of bean. */
+  private record Key(String domainName, Map<String, String> properties) {
+    private static Key of(BeanObject bean) {
+      return new Key(bean.domainName(), bean.properties());
+    }
+  }
+
+  static final class Encoder {
+    private final int keyframeInterval;
+    private final Map<Integer, EncoderState> states = new ConcurrentHashMap<>();
+
+    /**
+     * @param keyframeInterval the number of cycles between keyframes. 1 means every cycle is a
+     *     keyframe
+     */
+    Encoder(int keyframeInterval) {
+      this.keyframeInterval = Utils.requirePositive(keyframeInterval);
+    }
+
+    /**
+     * Compare the beans with the last published values of the identity. A keyframe is generated if
+     * the keyframe interval is reached, or some published attributes disappear since the delta
+     * can't express the removal. A cycle may carry a part of beans (for example, a tier of {@link
+     * MetricFetcher}), so the published beans absent from the cycle are not regarded as removed.
+     */
+    Frame next(int id, Collection<BeanObject> beans) {
+      var state = states.computeIfAbsent(id, ignored -> new EncoderState());
+      synchronized (state) {
+        state.sequence++;
+        if (state.cycles++ % keyframeInterval != 0) {
+          var delta = delta(state.published, beans);
+          if (delta.isPresent()) {
+            delta.get().forEach(bean -> state.update(bean, false));
+            return new Frame(state.keyframe, state.sequence, true, delta.get());
+          }
+        }
+        state.keyframe = Math.max(System.currentTimeMillis(), state.keyframe + 1);
+        state.cycles = 1;
+        state.published.clear();
+        beans.forEach(bean -> state.update(bean, true));
+        return new Frame(state.keyframe, state.sequence, false, List.copyOf(beans));
+      }
+    }
+
+    /**
+     * Make the next frame of the identity a keyframe. It must be called if a frame fails to be
+     * sent, since the following deltas are based on the values which the receiver never gets.
+     */
+    void reset(int id) {
+      var state = states.get(id);
+      if (state == null) return;
+      synchronized (state) {
+        state.cycles = 0;
+      }
+    }
+
+    /**
+     * @return the changed beans with the changed attributes only, or empty if the change can't be
+     *     expressed by delta
+     */
+    private static Optional<List<BeanObject>> delta(
+        Map<Key, Map<String, Object>> published, Collection<BeanObject> beans) {
+      var changed = new ArrayList<BeanObject>();
+      for (var bean : beans) {
+        var last = published.get(Key.of(bean));
+        if (last == null) {
+          changed.add(bean);
+          continue;
+        }
+        if (!bean.attributes().keySet().containsAll(last.keySet())) return Optional.empty();
+        var attributes = new HashMap<String, Object>();
+        bean.attributes()
+            .forEach(
+                (name, value) -> {
+                  if (!Objects.equals(last.get(name), value)) attributes.put(name, value);
+                });
+        if (!attributes.isEmpty())
+          changed.add(
+              new BeanObject(
+                  bean.domainName(), bean.properties(), attributes, bean.createdTimestamp()));
+      }
+      return Optional.of(changed);
+    }
+  }
+
+  static final class Decoder {
+    private final Map<Integer, DecoderState> states = new HashMap<>();
+
+    /**
+     * @param id the identity of beans
+     * @param frame the received frame
+     * @return the beans of keyframe, or the changed beans (with all attributes) of delta. It is
+     *     empty if the delta is not based on the complete keyframe held by decoder or some frames
+     *     are missed
+     */
+    List<BeanObject> apply(int id, Frame frame) {
+      var state = states.computeIfAbsent(id, ignored -> new DecoderState());
+      if (!frame.delta()) {
+        // a large keyframe is split into many parts, and they have the same id
+        if (state.keyframe != frame.keyframe()) {
+          state.keyframe = frame.keyframe();
+          state.beans.clear();
+          state.parts.clear();
+        }
+        state.sequence = frame.sequence();
+        state.parts.set(frame.part());
+        state.expectedParts = frame.parts();
+        frame.beans().forEach(bean -> state.beans.put(Key.of(bean), bean));
+        return frame.beans();
+      }
+      // the keyframe missing some parts can't rebuild the beans
+      if (state.keyframe != frame.keyframe() || state.parts.cardinality() != state.expectedParts)
+        return List.of();
+      // a large delta is split into many parts also, and they have the same sequence
+      if (frame.sequence() != state.sequence && frame.sequence() != state.sequence + 1) {
+        // the held beans are stale since some deltas are missed
+        state.keyframe = NO_KEYFRAME;
+        state.beans.clear();
+        state.parts.clear();
+        return List.of();
+      }
+      state.sequence = frame.sequence();
+
+      var changed = new ArrayList<BeanObject>(frame.beans().size());
+      frame
+          .beans()
+          .forEach(
+              bean -> {
+                var last = state.beans.get(Key.of(bean));
+                if (last == null) {
+                  changed.add(bean);
+                  return;
+                }
+                var attributes = new HashMap<>(last.attributes());
+                attributes.putAll(bean.attributes());
+                changed.add(
+                    new BeanObject(
+                        bean.domainName(), bean.properties(), attributes, bean.createdTimestamp()));
+              });
+      changed.forEach(bean -> state.beans.put(Key.of(bean), bean));
+      return changed;
+    }
+  }
+
+  private static final long NO_KEYFRAME = -1;
+
+  private static final class EncoderState {
+    private long keyframe = NO_KEYFRAME;
+    private long sequence = 0;
+    private long cycles = 0;
+    private final Map<Key, Map<String, Object>> published = new HashMap<>();
+
+    private void update(BeanObject bean, boolean replace) {
+      if (replace) published.put(Key.of(bean), bean.attributes());
+      else
+        published.merge(
+            Key.of(bean),
+            bean.attributes(),
+            (last, changed) -> {
+              var attributes = new HashMap<>(last);
+              attributes.putAll(changed);
+              return attributes;
+            });
+    }
+  }
+
+  private static final class DecoderState {
+    private long keyframe = NO_KEYFRAME;
+    private long sequence = 0;
+    // the received parts of keyframe
+    private final BitSet parts = new BitSet();
+    private int expectedParts = 0;
+    private final Map<Key, BeanObject> beans = new HashMap<>();
+  }
+
+  private BeanDelta() {}
+}
@@ -17,30 +17,42 @@
 package org.astraea.common.metrics.collector;
 
 import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionStage;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.DelayQueue;
 import java.util.concurrent.Delayed;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.concurrent.locks.ReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 import java.util.stream.Stream;
+import org.astraea.common.ByteUtils;
 import org.astraea.common.FutureUtils;
 import org.astraea.common.Utils;
 import org.astraea.common.metrics.BeanObject;
 import org.astraea.common.metrics.BeanQuery;
+import org.astraea.common.metrics.JndiClient;
 import org.astraea.common.metrics.MBeanClient;
+import org.astraea.common.metrics.MBeanRegister;
 import org.astraea.common.metrics.broker.ClusterMetrics;
 import org.astraea.common.metrics.broker.ControllerMetrics;
 import org.astraea.common.metrics.broker.LogMetrics;
@@ -51,6 +63,7 @@ import org.astraea.common.metrics.client.consumer.ConsumerMetrics;
 import org.astraea.common.metrics.client.producer.ProducerMetrics;
 import org.astraea.common.metrics.connector.ConnectorMetrics;
 import org.astraea.common.metrics.platform.HostMetrics;
+import org.astraea.common.metrics.stats.Histogram;
 import org.astraea.common.producer.Producer;
 import org.astraea.common.producer.Record;
 import org.astraea.common.producer.Serializer;
@@ -95,25 +108,87 @@ public interface MetricFetcher extends AutoCloseable {
       return LocalSenderReceiver.of();
     }
 
+    /** Send each bean as a record by {@link Serializer#BEAN_OBJECT}. */
     static Sender topic(String bootstrapServer) {
+      return topic(bootstrapServer, false);
+    }
+
+    /**
+     * @param bootstrapServer the kafka cluster to store the beans
+     * @param batch true if the beans of each broker are sent as batches (see {@link
+     *     ByteUtils#toBytes(Collection, boolean)}), and a batch carries {@link
+     *     #MAX_BEANS_PER_RECORD} beans at most. The batches are readable only for the receiver
+     *     using {@code Deserializer.BEAN_OBJECTS}. Otherwise, each bean is sent as a record by
+     *     {@link Serializer#BEAN_OBJECT}.
+     * @return the sender writing the beans to the metric topic
+     */
+    static Sender topic(String bootstrapServer, boolean batch) {
+      return topic(bootstrapServer, batch, Optional.empty());
+    }
+
+    /**
+     * Send the beans in delta mode. The sender keeps the last published value of each bean, and
+     * it sends only the changed attributes, except for the keyframe which carries all beans. The
+     * delta is readable only for {@link MetricStore.Receiver#topic(String)}, which rebuilds the
+     * changed beans from the keyframe and deltas. A failed sending makes the next sending a
+     * keyframe.
+     *
+     * @param bootstrapServer the kafka cluster to store the beans
+     * @param keyframeInterval the number of sending between keyframes. 1 means all sending are
+     *     keyframes
+     * @return the sender writing the beans to the metric topic
+     */
+    static Sender delta(String bootstrapServer, int keyframeInterval) {
+      return topic(bootstrapServer, true, Optional.of(new BeanDelta.Encoder(keyframeInterval)));
+    }
+
+    private static Sender topic(
+        String bootstrapServer, boolean batch, Optional<BeanDelta.Encoder> encoder) {
       var producer =
           Producer.builder()
               .bootstrapServers(bootstrapServer)
               .keySerializer(Serializer.INTEGER)
-              .valueSerializer(Serializer.BEAN_OBJECT)
+              .valueSerializer(Serializer.BYTE_ARRAY)
               .build();
       String METRIC_TOPIC = "__metrics";
       return new Sender() {
         @Override
         public CompletionStage<Void> send(int id, Collection<BeanObject> beans) {
+          // the empty frame is sent also, otherwise the receiver sees a gap of sequences
           var records =
-              beans.stream()
-                  .map(bean -> Record.builder().topic(METRIC_TOPIC).key(id).value(bean).build())
+              encoder
+                  .map(e -> e.next(id, beans))
+                  .map(
+                      frame ->
+                          frame.split(MAX_BEANS_PER_RECORD).stream()
+                              .map(
+                                  part ->
+                                      Record.builder()
+                                          .topic(METRIC_TOPIC)
+                                          .key(id)
+                                          .value(ByteUtils.toBytes(part.beans(), true))
+                                          .headers(part.headers())
+                                          .build()))
+                  .orElseGet(
+                      () ->
+                          (batch ? batches(beans) : beans.stream().map(b -> ByteUtils.toBytes(b)))
+                              .map(
+                                  value ->
+                                      Record.builder()
+                                          .topic(METRIC_TOPIC)
+                                          .key(id)
+                                          .value(value)
+                                          .build()))
                   .collect(Collectors.toUnmodifiableList());
           return FutureUtils.sequence(
                   producer.send(records).stream()
                       .map(CompletionStage::toCompletableFuture)
                       .collect(Collectors.toUnmodifiableList()))
+              .whenComplete(
+                  (ignored, e) -> {
+                    // the following deltas can't be rebuilt without this frame
+                    if (e != null) encoder.ifPresent(en -> en.reset(id));
+                  })
               .thenAccept(ignored -> {});
         }
 
@@ -124,6 +199,21 @@ public interface MetricFetcher extends AutoCloseable {
       };
     }
 
+    /** Keep a batch from exceeding the default max size of kafka record. */
+    int MAX_BEANS_PER_RECORD = 5000;
+
+    private static Stream<byte[]> batches(Collection<BeanObject> beans) {
+      if (beans.isEmpty()) return Stream.empty();
+      var list = List.copyOf(beans);
+      return IntStream.range(0, (list.size() + MAX_BEANS_PER_RECORD - 1) / MAX_BEANS_PER_RECORD)
+          .mapToObj(
+              i ->
+                  list.subList(
+                      i * MAX_BEANS_PER_RECORD,
+                      Math.min(list.size(), (i + 1) * MAX_BEANS_PER_RECORD)))
+          .map(batch -> ByteUtils.toBytes(batch, true));
+    }
+
     CompletionStage<Void> send(int id, Collection<BeanObject> beans);
 
     @Override
@@ -135,22 +225,56 @@ public interface MetricFetcher extends AutoCloseable {
     private int threads = 4;
 
     private Duration fetchBeanDelay = Duration.ofSeconds(1);
+    private Function<BeanQuery, Duration> fetchBeanDelays = ignored -> null;
+    private Duration fetchBeanTimeout = Duration.ofSeconds(10);
     private Duration fetchMetadataDelay = Duration.ofMinutes(5);
     private Sender sender;
     private Supplier<CompletionStage<Map<Integer, MBeanClient>>> clientSupplier;
+    private Supplier<Collection<BeanQuery>> queriesSupplier = () -> QUERIES;
 
     private Builder() {}
 
+    /**
+     * @param threads the number of threads running the remote calls. Each identity is fetched by a
+     *     thread at a time, so the brokers are fetched concurrently if there are enough threads.
+     *     The mbeans of a query are fetched by {@link JndiClient#CONCURRENT_CALLS} calls at most
+     */
     public Builder threads(int threads) {
       this.threads = threads;
       return this;
     }
 
+    /**
+     * @param fetchBeanDelay the default interval of fetching beans
+     */
     public Builder fetchBeanDelay(Duration fetchBeanDelay) {
       this.fetchBeanDelay = fetchBeanDelay;
       return this;
     }
 
+    /**
+     * Set the interval of each query. The queries having the same interval form a tier, and each
+     * tier of each identity is scheduled independently, so the fast-moving meters can be fetched
+     * more often than the rarely changing gauges.
+     *
+     * @param fetchBeanDelays the interval of query. The query mapped to null uses the default
+     *     interval (see {@link #fetchBeanDelay(Duration)})
+     */
+    public Builder fetchBeanDelay(Function<BeanQuery, Duration> fetchBeanDelays) {
+      this.fetchBeanDelays = fetchBeanDelays;
+      return this;
+    }
+
+    /**
+     * @param fetchBeanTimeout the fetch of a tier taking longer than this timeout is stopped after
+     *     the running query, and the following fetches of the identity are backed off until a fetch
+     *     is done in time
+     */
+    public Builder fetchBeanTimeout(Duration fetchBeanTimeout) {
+      this.fetchBeanTimeout = fetchBeanTimeout;
+      return this;
+    }
+
     public Builder fetchMetadataDelay(Duration fetchMetadataDelay) {
       this.fetchMetadataDelay = fetchMetadataDelay;
       return this;
@@ -167,74 +291,189 @@ public interface MetricFetcher extends AutoCloseable {
       return this;
     }
 
+    /**
+     * @param queriesSupplier offers the queries to fetch. It is called by each fetch, so the
+     *     fetched beans follow the latest queries. Default is {@link #QUERIES}
+     */
+    public Builder queriesSupplier(Supplier<Collection<BeanQuery>> queriesSupplier) {
+      this.queriesSupplier = queriesSupplier;
+      return this;
+    }
+
     public MetricFetcher build() {
+      var defaultDelay = Objects.requireNonNull(fetchBeanDelay, "fetchBeanDelay can't be null");
+      var delays = Objects.requireNonNull(fetchBeanDelays, "fetchBeanDelay can't be null");
       return new MetricFetcherImpl(
           threads,
-          Objects.requireNonNull(fetchBeanDelay, "fetchBeanDelay can't be null"),
+          defaultDelay,
+          query -> Optional.ofNullable(delays.apply(query)).orElse(defaultDelay),
+          Objects.requireNonNull(fetchBeanTimeout, "fetchBeanTimeout can't be null"),
           Objects.requireNonNull(fetchMetadataDelay, "fetchMetadataDelay can't be null"),
           Objects.requireNonNull(sender, "sends can't be null"),
-          Objects.requireNonNull(clientSupplier, "clientSupplier can't be null"));
+          Objects.requireNonNull(clientSupplier, "clientSupplier can't be null"),
+          Objects.requireNonNull(queriesSupplier, "queriesSupplier can't be null"));
     }
   }
 
+  /**
+   * Each tier (the queries having the same interval) of each identity is a work of the delay
+   * queue. A single scheduler thread takes the due works and hands them to the fetch threads, so
+   * the blocking remote calls never run on the scheduler or the common pool. The fetch of a tier is
+   * completed by the timeout even if the remote call hangs, and the beans fetched so far are sent.
+   * The works of an identity are not executed at the same time, so a hung broker occupies a fetch
+   * thread at most, and the scrape of all brokers takes about the time of the slowest healthy one
+   * if there are enough fetch threads. The tier whose fetch is timeout or failed is backed off
+   * exponentially, and the missed deadlines are skipped rather than caught up one by one. The late
+   * works are spread by a random jitter to avoid firing at the same time.
+   *
+   * <p>The scheduler lag and the fetch latency of each identity are exposed by JMX (domain:
+   * astraea.metrics, type: MetricFetcher). Both are histograms in milliseconds.
+   */
   class MetricFetcherImpl implements MetricFetcher {
+
+    /** The interval of backed-off identity is 2^MAX_BACKOFF times of the interval at most. */
+    static final int MAX_BACKOFF = 4;
+
+    /** The delay of the work whose identity is being fetched by another work. */
+    private static final Duration BUSY_DELAY = Duration.ofMillis(100);
+
+    private static final AtomicInteger FETCHER_ID = new AtomicInteger();
+
     private volatile Map<Integer, MBeanClient> clients = new HashMap<>();
 
-    private final Map<Integer, Collection<BeanObject>> latest = new ConcurrentHashMap<>();
+    // the latest beans of each identity and tier
+    private final Map<Integer, Map<Duration, Collection<BeanObject>>> latest =
+        new ConcurrentHashMap<>();
+
+    private final Map<Integer, Identity> identities = new ConcurrentHashMap<>();
+
+    // the scheduled works. It is used to add the work for new tier
+    private final Set<DelayedIdentity.Key> scheduled = ConcurrentHashMap.newKeySet();
+
+    // the works generated by stale metadata are discarded
+    private final AtomicInteger generation = new AtomicInteger();
 
     private final AtomicBoolean closed = new AtomicBoolean(false);
 
     private final DelayQueue<DelayedIdentity> works = new DelayQueue<>();
 
-    private final ReadWriteLock lock = new ReentrantReadWriteLock();
-
     private final Sender sender;
 
+    // takes the due works from the delay queue
+    private final ExecutorService scheduler = Executors.newSingleThreadExecutor();
+
+    // runs the blocking remote calls
     private final ExecutorService executor;
 
+    // runs the remote calls of the mbeans matching a query. It is separated from the fetch threads,
+    // which wait for those calls
+    private final ExecutorService beanExecutor;
+
+    // handles the fetched beans, so it is not blocked by the hung remote calls
+    private final ExecutorService postProcessor;
+
     private final Supplier<CompletionStage<Map<Integer, MBeanClient>>> clientSupplier;
 
+    private final Supplier<Collection<BeanQuery>> queriesSupplier;
+
     private final Duration fetchBeanDelay;
 
+    private final Function<BeanQuery, Duration> fetchBeanDelays;
+
+    private final Duration fetchBeanTimeout;
+
+    private final Histogram schedulerLag = Histogram.of();
+
+    private final String fetcherId = String.valueOf(FETCHER_ID.getAndIncrement());
+
+    private final MBeanRegister.LocalRegister schedulerLagRegister;
+
     private MetricFetcherImpl(
         int threads,
         Duration fetchBeanDelay,
+        Function<BeanQuery, Duration> fetchBeanDelays,
+        Duration fetchBeanTimeout,
         Duration fetchMetadataDelay,
         Sender sender,
-        Supplier<CompletionStage<Map<Integer, MBeanClient>>> clientSupplier) {
+        Supplier<CompletionStage<Map<Integer, MBeanClient>>> clientSupplier,
+        Supplier<Collection<BeanQuery>> queriesSupplier) {
       this.fetchBeanDelay = fetchBeanDelay;
+      this.fetchBeanDelays = fetchBeanDelays;
+      this.fetchBeanTimeout = fetchBeanTimeout;
+      this.queriesSupplier = queriesSupplier;
       this.sender = sender;
       this.clientSupplier = clientSupplier;
       this.executor = Executors.newFixedThreadPool(threads);
-      var metadataUpdateId = -((int) System.currentTimeMillis());
-      works.put(new DelayedIdentity(Duration.ZERO, metadataUpdateId));
-      Runnable job =
+      this.beanExecutor = Executors.newFixedThreadPool(threads * JndiClient.CONCURRENT_CALLS);
+      this.postProcessor = Executors.newFixedThreadPool(threads);
+      this.schedulerLagRegister =
+          schedulerLag.attributes(
+              MBeanRegister.local()
+                  .domainName("astraea.metrics")
+                  .property("type", "MetricFetcher")
+                  .property("fetcher", fetcherId)
+                  .property("name", "SchedulerLag"));
+      schedulerLagRegister.register();
+      works.put(DelayedIdentity.metadata(Duration.ZERO));
+      scheduler.execute(
           () -> {
             try {
               while (!closed.get()) {
-                var identity = works.take();
-                try {
-                  if (identity.id == metadataUpdateId) {
+                var work = works.take();
+                if (work.interval == null) {
+                  try {
                     updateMetadata();
-                    continue;
+                  } catch (Exception e) {
+                    // TODO: it needs better error handling
+                    e.printStackTrace();
+                  } finally {
+                    works.put(DelayedIdentity.metadata(fetchMetadataDelay));
                   }
-                  updateData(identity);
-                } catch (Exception e) {
-                  // TODO: it needs better error handling
-                  e.printStackTrace();
-                } finally {
-                  works.put(
-                      new DelayedIdentity(
-                          identity.id == metadataUpdateId ? fetchMetadataDelay : fetchBeanDelay,
-                          identity.id));
+                  continue;
+                }
+                if (work.key.generation() != generation.get()) continue;
+                var identity = identities.computeIfAbsent(work.key.id(), this::identity);
+                if (!identity.busy.compareAndSet(false, true)) {
+                  works.put(work.defer(BUSY_DELAY));
+                  continue;
                 }
+                var lag = Math.max(0, System.nanoTime() - work.expectedNs);
+                schedulerLag.record(TimeUnit.NANOSECONDS.toMillis(lag));
+                updateData(work, identity)
+                    .whenComplete(
+                        (keep, e) -> {
+                          if (e != null) {
+                            identity.backoff(work.interval);
+                            // TODO: it needs better error handling
+                            e.printStackTrace();
+                          }
+                          if (e != null || keep)
+                            works.put(work.next(identity.exponent(work.interval)));
+                          else scheduled.remove(work.key);
+                        });
               }
             } catch (InterruptedException ex) {
               // swallow
             }
-          };
+          });
+    }
 
-      IntStream.range(0, threads).forEach(ignored -> executor.execute(job));
+    private Identity identity(int id) {
+      var identity = new Identity();
+      identity.register =
+          identity
+              .latency
+              .attributes(
+                  MBeanRegister.local()
+                      .domainName("astraea.metrics")
+                      .property("type", "MetricFetcher")
+                      .property("fetcher", fetcherId)
+                      .property("name", "FetchLatency")
+                      .property("id", String.valueOf(id)))
+              .attribute("Timeouts", Long.class, identity.timeouts::sum)
+              .attribute("Backoff", Integer.class, () -> 1 << identity.maxBackoff());
+      identity.register.register();
+      return identity;
     }
 
     private void updateMetadata() {
@@ -247,39 +486,142 @@ public interface MetricFetcher extends AutoCloseable {
                   e.printStackTrace();
                   return;
                 }
-                lock.writeLock().lock();
                 Map<Integer, MBeanClient> old;
-                try {
+                synchronized (this) {
                   old = clients;
                   clients = r;
-                  works.clear();
+                  // the works of old metadata are discarded when they are taken
+                  var current = generation.incrementAndGet();
+                  scheduled.clear();
+                  var intervals = intervals(queriesSupplier.get());
                   clients.forEach(
-                      (id, client) -> works.put(new DelayedIdentity(fetchBeanDelay, id)));
-                } finally {
-                  lock.writeLock().unlock();
+                      (id, client) -> intervals.forEach(i -> schedule(current, id, i)));
+                  removeDeparted(clients.keySet());
                 }
                 old.values().forEach(Utils::close);
+              },
+              executor);
+    }
+
+    /**
+     * Remove the mbeans and the latest beans of the identities which are gone.
+     *
+     * @param ids the current identities
+     */
+    private void removeDeparted(Set<Integer> ids) {
+      identities.keySet().stream()
+          .filter(id -> !ids.contains(id))
+          .collect(Collectors.toUnmodifiableList())
+          .forEach(
+              id -> {
+                var identity = identities.remove(id);
+                if (identity != null) identity.register.unregister();
               });
+      latest.keySet().retainAll(ids);
+    }
+
+    /**
+     * @return the intervals of queries. The default interval is always included since its work
+     *     finds out the new tiers
+     */
+    private Set<Duration> intervals(Collection<BeanQuery> queries) {
+      return Stream.concat(Stream.of(fetchBeanDelay), queries.stream().map(fetchBeanDelays))
+          .collect(Collectors.toUnmodifiableSet());
+    }
+
+    private void schedule(int generation, int id, Duration interval) {
+      var key = new DelayedIdentity.Key(generation, id, interval);
+      if (scheduled.add(key)) works.put(DelayedIdentity.first(key));
     }
 
-    private void updateData(DelayedIdentity identity) {
-      lock.readLock().lock();
-      Collection<BeanObject> beans;
+    /**
+     * Fetch the tier on the fetch threads. The identity is released when the remote calls return,
+     * but the returned stage is completed by the timeout also.
+     *
+     * @return false if the tier is gone
+     */
+    private CompletionStage<Boolean> updateData(DelayedIdentity work, Identity identity) {
+      var id = work.key.id();
+      var queries = queriesSupplier.get();
+      intervals(queries).forEach(interval -> schedule(work.key.generation(), id, interval));
+      var tier =
+          queries.stream()
+              .filter(q -> fetchBeanDelays.apply(q).equals(work.interval))
+              .collect(Collectors.toUnmodifiableList());
+      var client = clients.get(id);
+      if (tier.isEmpty() || client == null) {
+        identity.busy.set(false);
+        var beans = latest.get(id);
+        if (beans != null) beans.remove(work.interval);
+        return CompletableFuture.completedStage(
+            client != null && work.interval.equals(fetchBeanDelay));
+      }
+
+      var start = System.nanoTime();
+      var beans = Collections.synchronizedList(new ArrayList<BeanObject>());
+      var done = new CompletableFuture<Boolean>();
+      Future<?> task;
       try {
-        beans =
-            QUERIES.stream()
-                .flatMap(q -> clients.get(identity.id).beans(q, e -> {}).stream())
-                .collect(Collectors.toUnmodifiableList());
-      } finally {
-        lock.readLock().unlock();
+        task =
+            executor.submit(
+                () -> {
+                  try {
+                    for (var query : tier) {
+                      if (Thread.currentThread().isInterrupted()) break;
+                      beans.addAll(client.beans(query, e -> {}, beanExecutor));
+                    }
+                    done.complete(true);
+                  } catch (Exception e) {
+                    done.completeExceptionally(e);
+                  } finally {
+                    identity.busy.set(false);
+                  }
+                });
+      } catch (RejectedExecutionException e) {
+        identity.busy.set(false);
+        return CompletableFuture.failedStage(e);
       }
-      latest.put(identity.id, beans);
-      sender.send(identity.id, beans);
+      return done.completeOnTimeout(false, fetchBeanTimeout.toNanos(), TimeUnit.NANOSECONDS)
+          .thenApplyAsync(
+              completed -> {
+                if (!completed) {
+                  task.cancel(true);
+                  // the interrupt can't stop the blocking read of RMI, so the connection is broken
+                  // to fail the hung remote call
+                  if (client instanceof JndiClient jndiClient) jndiClient.reset();
+                }
+                var elapsed = System.nanoTime() - start;
+                identity.latency.record(TimeUnit.NANOSECONDS.toMillis(elapsed));
+                if (!completed || elapsed > fetchBeanTimeout.toNanos())
+                  identity.backoff(work.interval);
+                else identity.backoffs.remove(work.interval);
+
+                List<BeanObject> fetched;
+                synchronized (beans) {
+                  fetched = List.copyOf(beans);
+                }
+                // the identity may be gone during the fetch
+                if (clients.containsKey(id))
+                  latest.computeIfAbsent(id, ignored -> new ConcurrentHashMap<>())
+                      .put(work.interval, fetched);
+                // send the fetched tier only. The other tiers are sent by their own fetches, so the
+                // receiver doesn't get duplicate beans of the slow tiers
+                sender.send(id, fetched);
+                return true;
+              },
+              postProcessor);
+    }
+
+    private static List<BeanObject> merge(Map<Duration, Collection<BeanObject>> tiers) {
+      return tiers.values().stream()
+          .flatMap(Collection::stream)
+          .collect(Collectors.toUnmodifiableList());
     }
 
     @Override
     public Map<Integer, Collection<BeanObject>> latest() {
-      return Map.copyOf(latest);
+      return latest.entrySet().stream()
+          .collect(Collectors.toUnmodifiableMap(Map.Entry::getKey, e -> merge(e.getValue())));
     }
 
     @Override
@@ -290,20 +632,98 @@ public interface MetricFetcher extends AutoCloseable {
     @Override
     public void close() {
       closed.set(true);
+      scheduler.shutdownNow();
       executor.shutdownNow();
+      beanExecutor.shutdownNow();
+      postProcessor.shutdownNow();
+      Utils.packException(() -> scheduler.awaitTermination(30, TimeUnit.SECONDS));
       Utils.packException(() -> executor.awaitTermination(30, TimeUnit.SECONDS));
+      Utils.packException(() -> beanExecutor.awaitTermination(30, TimeUnit.SECONDS));
+      Utils.packException(() -> postProcessor.awaitTermination(30, TimeUnit.SECONDS));
+      schedulerLagRegister.unregister();
+      identities.values().forEach(identity -> identity.register.unregister());
       clients.values().forEach(Utils::close);
       sender.close();
     }
+
+    private static class Identity {
+      private final AtomicBoolean busy = new AtomicBoolean(false);
+      private final Histogram latency = Histogram.of();
+      private final LongAdder timeouts = new LongAdder();
+      private MBeanRegister.LocalRegister register;
+      // the exponent of backoff of each tier
+      private final Map<Duration, Integer> backoffs = new ConcurrentHashMap<>();
+
+      private void backoff(Duration interval) {
+        timeouts.increment();
+        backoffs.merge(interval, 1, (last, ignored) -> Math.min(MAX_BACKOFF, last + 1));
+      }
+
+      private int exponent(Duration interval) {
+        return backoffs.getOrDefault(interval, 0);
+      }
+
+      private int maxBackoff() {
+        return backoffs.values().stream().mapToInt(i -> i).max().orElse(0);
+      }
+    }
   }
 
   class DelayedIdentity implements Delayed {
+
+    /**
+     * @param generation the generation of metadata
+     * @param id the identity to fetch
+     * @param interval the interval of the tier
+     */
+    record Key(int generation, int id, Duration interval) {}
+
+    private final Key key;
+    // null means the work of updating metadata
+    private final Duration interval;
+    // the deadline given by the schedule. It is used to calculate the lag
+    private final long expectedNs;
     private final long deadlineNs;
-    private final int id;
 
-    private DelayedIdentity(Duration delay, int id) {
-      this.deadlineNs = delay.toNanos() + System.nanoTime();
-      this.id = id;
+    private static DelayedIdentity metadata(Duration delay) {
+      var deadline = System.nanoTime() + delay.toNanos();
+      return new DelayedIdentity(null, deadline, deadline);
+    }
+
+    private static DelayedIdentity first(Key key) {
+      var deadline = System.nanoTime() + key.interval().toNanos() + jitter(key.interval());
+      return new DelayedIdentity(key, deadline, deadline);
+    }
+
+    /**
+     * @return a random delay, which is a tenth of interval at most
+     */
+    private static long jitter(Duration interval) {
+      return ThreadLocalRandom.current().nextLong(interval.toNanos() / 10 + 1);
+    }
+
+    private DelayedIdentity(Key key, long expectedNs, long deadlineNs) {
+      this.key = key;
+      this.interval = key == null ? null : key.interval();
+      this.expectedNs = expectedNs;
+      this.deadlineNs = deadlineNs;
+    }
+
+    private DelayedIdentity defer(Duration delay) {
+      return new DelayedIdentity(key, expectedNs, System.nanoTime() + delay.toNanos());
+    }
+
+    /**
+     * @param backoff the exponent of backoff
+     * @return the next work. If the next deadline is missed already, it is skipped and the work is
+     *     executed after a jitter
+     */
+    private DelayedIdentity next(int backoff) {
+      var now = System.nanoTime();
+      var interval = this.interval.multipliedBy(1L << backoff);
+      var next = expectedNs + interval.toNanos();
+      if (next < now) next = now + jitter(interval);
+      return new DelayedIdentity(key, next, next);
     }
 
     @Override
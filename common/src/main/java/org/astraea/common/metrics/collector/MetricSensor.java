@@ -17,10 +17,14 @@
 package org.astraea.common.metrics.collector;
 
 import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Optional;
 import java.util.function.Consumer;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
+import javax.management.ObjectName;
+import org.astraea.common.metrics.BeanQuery;
 import org.astraea.common.metrics.ClusterBean;
 import org.astraea.common.metrics.HasBeanObject;
 
@@ -47,19 +51,54 @@ public interface MetricSensor {
       Collection<MetricSensor> metricSensors, Consumer<Exception> exceptionHandler) {
     if (metricSensors.isEmpty()) return Optional.empty();
     return Optional.of(
-        (client, clusterBean) ->
-            metricSensors.stream()
-                .flatMap(
-                    ms -> {
-                      try {
-                        return ms.fetch(client, clusterBean).stream();
-                      } catch (Exception ex) {
-                        exceptionHandler.accept(ex);
-                        return Stream.empty();
-                      }
-                    })
-                .collect(Collectors.toUnmodifiableList()));
+        of(
+            queries(metricSensors),
+            (client, clusterBean) ->
+                metricSensors.stream()
+                    .flatMap(
+                        ms -> {
+                          try {
+                            return ms.fetch(client, clusterBean).stream();
+                          } catch (Exception ex) {
+                            exceptionHandler.accept(ex);
+                            return Stream.empty();
+                          }
+                        })
+                    .collect(Collectors.toUnmodifiableList())));
   }
+
+  /**
+   * declare the queries used by the sensor.
+   *
+   * @param queries the queries used by the sensor
+   * @param sensor to generate the metrics
+   * @return sensor having the given queries
+   */
+  static MetricSensor of(Collection<BeanQuery> queries, MetricSensor sensor) {
+    var copy = List.copyOf(queries);
+    return new MetricSensor() {
+      @Override
+      public Collection<? extends HasBeanObject> fetch(BeanObjectClient client, ClusterBean bean) {
+        return sensor.fetch(client, bean);
+      }
+
+      @Override
+      public Collection<BeanQuery> queries() {
+        return copy;
+      }
+    };
+  }
+
+  /**
+   * @param metricSensors sensors
+   * @return the union of queries used by the sensors. The duplicate queries are removed
+   */
+  static Collection<BeanQuery> queries(Collection<MetricSensor> metricSensors) {
+    var queries = new LinkedHashMap<ObjectName, BeanQuery>();
+    metricSensors.forEach(s -> s.queries().forEach(q -> queries.putIfAbsent(q.objectName(), q)));
+    return List.copyOf(queries.values());
+  }
+
   /**
    * generate the metrics to stored by metrics collector. The implementation can use MBeanClient to
    * fetch metrics from remote/local mbean server. Or the implementation can generate custom metrics
@@ -70,4 +109,16 @@ public interface MetricSensor {
    * @return java metrics
    */
   Collection<? extends HasBeanObject> fetch(BeanObjectClient client, ClusterBean bean);
+
+  /**
+   * The queries of beans used by this sensor. The embedded fetcher of {@link MetricStore} fetches
+   * only the union of queries of active sensors, so the sensor declaring the queries can reduce
+   * the load of remote mbean server.
+   *
+   * @return the queries used by {@link #fetch(BeanObjectClient, ClusterBean)}. The default
+   *     implementation returns {@link MetricFetcher#QUERIES} since the sensor may use any of them
+   */
+  default Collection<BeanQuery> queries() {
+    return MetricFetcher.QUERIES;
+  }
 }
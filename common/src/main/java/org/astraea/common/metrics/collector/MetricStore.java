@@ -19,13 +19,12 @@ package org.astraea.common.metrics.collector;
 import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.List;
+import java.util.HashMap;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 import java.util.concurrent.CompletionStage;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ConcurrentSkipListSet;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
@@ -40,13 +39,14 @@ import org.astraea.common.Utils;
 import org.astraea.common.consumer.Consumer;
 import org.astraea.common.consumer.ConsumerConfigs;
 import org.astraea.common.consumer.Deserializer;
-import org.astraea.common.consumer.Record;
 import org.astraea.common.cost.NoSufficientMetricsException;
 import org.astraea.common.metrics.BeanObject;
 import org.astraea.common.metrics.BeanQuery;
 import org.astraea.common.metrics.ClusterBean;
+import org.astraea.common.metrics.ClusterBeanIndex;
 import org.astraea.common.metrics.HasBeanObject;
 import org.astraea.common.metrics.MBeanClient;
+import org.astraea.common.metrics.MetricHistory;
 
 public interface MetricStore extends AutoCloseable {
 
@@ -82,6 +82,13 @@ public interface MetricStore extends AutoCloseable {
       return LocalSenderReceiver.of();
     }
 
+    /**
+     * Read the beans from the metric topic. The records sent by {@link
+     * MetricFetcher.Sender#delta(String, int)} are rebuilt to the full beans, and the deltas
+     * received before the first keyframe, or after a missed delta, are skipped. A delta returns
+     * only the changed beans, so the {@link Builder#beanExpiration(Duration)} should be longer than
+     * the keyframe interval to keep the unchanged beans.
+     */
     static Receiver topic(String bootstrapServer) {
       String METRIC_TOPIC = "__metrics";
       var consumer =
@@ -91,16 +98,27 @@ public interface MetricStore extends AutoCloseable {
                   ConsumerConfigs.AUTO_OFFSET_RESET_CONFIG,
                   ConsumerConfigs.AUTO_OFFSET_RESET_EARLIEST)
               .keyDeserializer(Deserializer.INTEGER)
-              .valueDeserializer(Deserializer.BEAN_OBJECT)
+              .valueDeserializer(Deserializer.BEAN_OBJECTS)
               .build();
+      var decoder = new BeanDelta.Decoder();
       return new Receiver() {
         @Override
         public Map<Integer, Collection<BeanObject>> receive(Duration timeout) {
-          return consumer.poll(timeout).stream()
-              .collect(
-                  Collectors.groupingBy(
-                      Record::key,
-                      Collectors.mapping(Record::value, Collectors.toCollection(ArrayList::new))));
+          var result = new HashMap<Integer, Collection<BeanObject>>();
+          consumer
+              .poll(timeout)
+              .forEach(
+                  record -> {
+                    var beans =
+                        BeanDelta.Frame.of(record.headers(), record.value())
+                            .map(f -> decoder.apply(record.key(), f))
+                            .orElse(record.value());
+                    if (!beans.isEmpty())
+                      result
+                          .computeIfAbsent(record.key(), ignored -> new ArrayList<>())
+                          .addAll(beans);
+                  });
+          return result;
         }
 
         @Override
@@ -131,6 +149,7 @@ public interface MetricStore extends AutoCloseable {
 
     private Receiver receiver;
     private Duration beanExpiration = Duration.ofSeconds(10);
+    private MetricHistory history = MetricHistory.EMPTY;
 
     public Builder sensorsSupplier(
         Supplier<Map<MetricSensor, BiConsumer<Integer, Exception>>> sensorsSupplier) {
@@ -145,12 +164,19 @@ public interface MetricStore extends AutoCloseable {
 
     /**
      * Using an embedded fetcher build the receiver. The fetcher will keep fetching beans
-     * background, and it pushes all beans to store internally.
+     * background, and it pushes all beans to store internally. The fetcher fetches only the
+     * queries declared by the sensors (see {@link MetricSensor#queries()}), and the queries are
+     * recomputed from {@link #sensorsSupplier(Supplier)} by each fetch.
      */
     public Builder localReceiver(
         Supplier<CompletionStage<Map<Integer, MBeanClient>>> clientSupplier) {
       var cache = LocalSenderReceiver.of();
-      var fetcher = MetricFetcher.builder().clientSupplier(clientSupplier).sender(cache).build();
+      var fetcher =
+          MetricFetcher.builder()
+              .clientSupplier(clientSupplier)
+              .queriesSupplier(() -> MetricSensor.queries(sensorsSupplier.get().keySet()))
+              .sender(cache)
+              .build();
       return receiver(
           new Receiver() {
             @Override
@@ -174,17 +200,31 @@ public interface MetricStore extends AutoCloseable {
       return this;
     }
 
+    /**
+     * Keep the numeric attributes of metrics in the history. The retention of history is
+     * independent of {@link #beanExpiration(Duration)}, and it is accessible by {@link
+     * ClusterBean#history()}.
+     */
+    public Builder history(MetricHistory history) {
+      this.history = history;
+      return this;
+    }
+
     public MetricStore build() {
       return new MetricStoreImpl(
           Objects.requireNonNull(sensorsSupplier, "sensorsSupplier can't be null"),
           Objects.requireNonNull(receiver, "receiver can't be null"),
-          Objects.requireNonNull(beanExpiration, "beanExpiration can't be null"));
+          Objects.requireNonNull(beanExpiration, "beanExpiration can't be null"),
+          Objects.requireNonNull(history, "history can't be null"));
     }
   }
 
   class MetricStoreImpl implements MetricStore {
 
-    private final Map<Integer, Collection<HasBeanObject>> beans = new ConcurrentHashMap<>();
+    // maintain the indexes of beans incrementally
+    private final ClusterBeanIndex beans;
+
+    private final MetricHistory history;
 
     private final AtomicBoolean closed = new AtomicBoolean(false);
 
@@ -205,23 +245,20 @@ public interface MetricStore extends AutoCloseable {
     private MetricStoreImpl(
         Supplier<Map<MetricSensor, BiConsumer<Integer, Exception>>> sensorsSupplier,
         Receiver receiver,
-        Duration beanExpiration) {
+        Duration beanExpiration,
+        MetricHistory history) {
       this.receiver = receiver;
+      this.history = history;
+      this.beans = ClusterBeanIndex.of(history);
       // receiver + cleaner
       this.executor = Executors.newFixedThreadPool(2);
       Runnable cleanerJob =
           () -> {
             while (!closed.get()) {
               try {
-                var before = System.currentTimeMillis() - beanExpiration.toMillis();
-                var needUpdate =
-                    this.beans.values().stream()
-                        .map(
-                            beans ->
-                                beans.removeIf(
-                                    hasBeanObject -> hasBeanObject.createdTimestamp() < before))
-                        .collect(Collectors.toSet());
-                if (needUpdate.contains(true)) updateClusterBean();
+                var now = System.currentTimeMillis();
+                history.expire(now);
+                if (beans.expire(now - beanExpiration.toMillis())) updateClusterBean();
                 TimeUnit.MILLISECONDS.sleep(beanExpiration.toMillis());
               } catch (Exception e) {
                 // TODO: it needs better error handling
@@ -240,16 +277,17 @@ public interface MetricStore extends AutoCloseable {
                     (id, bs) -> {
                       var client = BeanObjectClient.of(id, bs);
                       var clusterBean = clusterBean();
+                      var fetched = new ArrayList<HasBeanObject>();
                       lastSensors.forEach(
                           (sensor, errorHandler) -> {
                             try {
-                              beans
-                                  .computeIfAbsent(id, ignored -> new ConcurrentLinkedQueue<>())
-                                  .addAll(sensor.fetch(client, clusterBean));
+                              fetched.addAll(sensor.fetch(client, clusterBean));
                             } catch (Exception e) {
                               errorHandler.accept(id, e);
                             }
                           });
+                      beans.add(id, fetched);
+                      history.record(id, fetched);
                     });
                 if (!allBeans.isEmpty()) {
                   // generate new cluster bean
@@ -309,13 +347,7 @@ public interface MetricStore extends AutoCloseable {
     }
 
     private void updateClusterBean() {
-      lastClusterBean =
-          ClusterBean.of(
-              beans.entrySet().stream()
-                  .filter(entry -> !entry.getValue().isEmpty())
-                  .collect(
-                      Collectors.toUnmodifiableMap(
-                          Map.Entry::getKey, e -> List.copyOf(e.getValue()))));
+      lastClusterBean = beans.snapshot();
     }
 
     /**
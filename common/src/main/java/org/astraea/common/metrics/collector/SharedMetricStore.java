@@ -0,0 +1,215 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.astraea.common.metrics.collector;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiConsumer;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import org.astraea.common.Utils;
+import org.astraea.common.admin.Admin;
+import org.astraea.common.metrics.BeanObject;
+import org.astraea.common.metrics.ClusterBean;
+import org.astraea.common.metrics.HasBeanObject;
+import org.astraea.common.metrics.JndiClient;
+import org.astraea.common.metrics.MBeanClient;
+
+/**
+ * The {@link MetricStore}s shared by the partitioners and assignors of a JVM. The users having the
+ * same bootstrap servers and jmx ports share a single store, so there is only one fetcher and one
+ * jmx connection for each broker. The sensors of the shared store are the union of the sensors of
+ * all users, and the same metrics generated by many users are stored once. The shared store, and
+ * its connections, are closed when the last user is closed.
+ */
+public final class SharedMetricStore {
+
+  private record Key(
+      Optional<String> bootstrapServers,
+      Optional<Integer> jmxPort,
+      Map<Integer, Integer> jmxPorts) {}
+
+  // guarded by itself
+  private static final Map<Key, Shared> STORES = new HashMap<>();
+
+  /**
+   * @param bootstrapServers the brokers to fetch metrics. If it is empty, only the local mbeans are
+   *     fetched
+   * @param jmxPort the default jmx port of brokers
+   * @param jmxPorts the jmx port of each broker. It overrides the default jmx port
+   * @param sensorsSupplier the sensors of the user
+   * @return a store for the user. Closing it releases the shared store
+   */
+  public static MetricStore of(
+      Optional<String> bootstrapServers,
+      Optional<Integer> jmxPort,
+      Map<Integer, Integer> jmxPorts,
+      Supplier<Map<MetricSensor, BiConsumer<Integer, Exception>>> sensorsSupplier) {
+    var key = new Key(bootstrapServers, jmxPort, Map.copyOf(jmxPorts));
+    synchronized (STORES) {
+      var shared = STORES.computeIfAbsent(key, Shared::new);
+      var user = new User(shared, sensorsSupplier);
+      shared.users.add(user);
+      return user;
+    }
+  }
+
+  /**
+   * @return the number of shared stores
+   */
+  static int size() {
+    synchronized (STORES) {
+      return STORES.size();
+    }
+  }
+
+  /**
+   * Merge the sensors into a single sensor which fetches the union of queries. The metrics of the
+   * same type and the same bean are generated by many users if they use the same cost function, so
+   * they are deduplicated. The error of a sensor is passed to its own handler.
+   */
+  static MetricSensor merge(Map<MetricSensor, BiConsumer<Integer, Exception>> sensors) {
+    MetricSensor merged =
+        (client, clusterBean) -> {
+          var metrics = new LinkedHashMap<Map.Entry<Class<?>, BeanObject>, HasBeanObject>();
+          sensors.forEach(
+              (sensor, handler) -> {
+                try {
+                  sensor
+                      .fetch(client, clusterBean)
+                      .forEach(
+                          m -> metrics.putIfAbsent(Map.entry(m.getClass(), m.beanObject()), m));
+                } catch (Exception e) {
+                  handler.accept(client.identity(), e);
+                }
+              });
+          return new ArrayList<>(metrics.values());
+        };
+    return MetricSensor.of(MetricSensor.queries(sensors.keySet()), merged);
+  }
+
+  private static final class Shared {
+    private final Key key;
+    private final Admin admin;
+    private final MetricStore store;
+    private final Set<User> users = ConcurrentHashMap.newKeySet();
+
+    private Shared(Key key) {
+      this.key = key;
+      this.admin = key.bootstrapServers().map(Admin::of).orElse(null);
+      this.store =
+          MetricStore.builder().localReceiver(this::clients).sensorsSupplier(this::sensors).build();
+    }
+
+    private CompletionStage<Map<Integer, MBeanClient>> clients() {
+      if (admin == null) return CompletableFuture.completedStage(Map.of(-1, JndiClient.local()));
+      return admin
+          .brokers()
+          .thenApply(
+              brokers -> {
+                var map = new HashMap<Integer, MBeanClient>();
+                brokers.forEach(b -> map.put(b.id(), JndiClient.of(b.host(), jmxPort(b.id()))));
+                // add local client to fetch consumer metrics
+                map.put(-1, JndiClient.local());
+                return Collections.unmodifiableMap(map);
+              });
+    }
+
+    private int jmxPort(int id) {
+      return Optional.ofNullable(key.jmxPorts().get(id))
+          .or(key::jmxPort)
+          .orElseThrow(
+              () -> new NoSuchElementException("failed to get jmx port for broker: " + id));
+    }
+
+    private Map<MetricSensor, BiConsumer<Integer, Exception>> sensors() {
+      var sensors = new LinkedHashMap<MetricSensor, BiConsumer<Integer, Exception>>();
+      users.forEach(user -> sensors.putAll(user.sensorsSupplier.get()));
+      if (sensors.isEmpty()) return Map.of();
+      return Map.of(merge(sensors), (id, e) -> {});
+    }
+
+    private void close() {
+      store.close();
+      Utils.close(admin);
+    }
+  }
+
+  private static final class User implements MetricStore {
+    private final Shared shared;
+    private final Supplier<Map<MetricSensor, BiConsumer<Integer, Exception>>> sensorsSupplier;
+    private final AtomicBoolean closed = new AtomicBoolean(false);
+
+    private User(
+        Shared shared,
+        Supplier<Map<MetricSensor, BiConsumer<Integer, Exception>>> sensorsSupplier) {
+      this.shared = shared;
+      this.sensorsSupplier = sensorsSupplier;
+    }
+
+    @Override
+    public ClusterBean clusterBean() {
+      return shared.store.clusterBean();
+    }
+
+    @Override
+    public Set<Integer> identities() {
+      return shared.store.identities();
+    }
+
+    /**
+     * @return the sensors of this user
+     */
+    @Override
+    public Map<MetricSensor, BiConsumer<Integer, Exception>> sensors() {
+      return Map.copyOf(sensorsSupplier.get());
+    }
+
+    @Override
+    public void wait(Predicate<ClusterBean> checker, Duration timeout) {
+      shared.store.wait(checker, timeout);
+    }
+
+    @Override
+    public void close() {
+      if (!closed.compareAndSet(false, true)) return;
+      Shared released = null;
+      synchronized (STORES) {
+        shared.users.remove(this);
+        if (shared.users.isEmpty()) {
+          STORES.remove(shared.key);
+          released = shared;
+        }
+      }
+      // close the store outside the lock since it waits for the fetcher threads
+      if (released != null) released.close();
+    }
+  }
+
+  private SharedMetricStore() {}
+}
@@ -0,0 +1,150 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.astraea.common.metrics.stats;
+
+import org.astraea.common.metrics.MBeanRegister;
+
+/**
+ * A histogram of non-negative long values. The values are counted by log-linear buckets, which
+ * are exact for the values smaller than 8 and split each power of two into 8 buckets for others, so
+ * the error of percentile is 1/8 at most and the memory is fixed. This class is thread-safe.
+ */
+public class Histogram {
+
+  private static final int SUB_BUCKETS = 8;
+  private static final int SUB_BUCKET_BITS = 3;
+  private static final int BUCKETS = (Long.SIZE - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+  public static Histogram of() {
+    return new Histogram();
+  }
+
+  private final long[] counts = new long[BUCKETS];
+  private long count = 0;
+  private long min = Long.MAX_VALUE;
+  private long max = Long.MIN_VALUE;
+  private double sum = 0;
+  private double sumOfSquares = 0;
+
+  private Histogram() {}
+
+  public synchronized void record(long value) {
+    if (value < 0) throw new IllegalArgumentException("the value: " + value + " is negative");
+    counts[index(value)]++;
+    count++;
+    min = Math.min(min, value);
+    max = Math.max(max, value);
+    sum += value;
+    sumOfSquares += (double) value * value;
+  }
+
+  public synchronized long count() {
+    return count;
+  }
+
+  /**
+   * @return the min value, or NaN if there is no value
+   */
+  public synchronized double min() {
+    return count == 0 ? Double.NaN : min;
+  }
+
+  /**
+   * @return the max value, or NaN if there is no value
+   */
+  public synchronized double max() {
+    return count == 0 ? Double.NaN : max;
+  }
+
+  /**
+   * @return the mean value, or NaN if there is no value
+   */
+  public synchronized double mean() {
+    return count == 0 ? Double.NaN : sum / count;
+  }
+
+  /**
+   * @return the standard deviation, or NaN if there is no value
+   */
+  public synchronized double stdDev() {
+    if (count == 0) return Double.NaN;
+    var mean = sum / count;
+    return Math.sqrt(Math.max(0, sumOfSquares / count - mean * mean));
+  }
+
+  /**
+   * @param quantile between 0 and 1
+   * @return the approximate value at the quantile, or NaN if there is no value
+   */
+  public synchronized double percentile(double quantile) {
+    if (quantile < 0 || quantile > 1)
+      throw new IllegalArgumentException("the quantile: " + quantile + " is out of [0, 1]");
+    if (count == 0) return Double.NaN;
+    var rank = Math.max(1, (long) Math.ceil(quantile * count));
+    var accumulated = 0L;
+    for (var i = 0; i < BUCKETS; i++) {
+      accumulated += counts[i];
+      if (accumulated >= rank) {
+        var middle = lowerBound(i) + (upperBound(i) - lowerBound(i)) / 2.0;
+        return Math.max(min, Math.min(max, middle));
+      }
+    }
+    return max;
+  }
+
+  /**
+   * Add the attributes of this histogram to the mbean. The attributes follow the names of kafka
+   * histogram (Count, Min, Max, Mean, StdDev, 50thPercentile, ..., 999thPercentile), so the mbean
+   * is readable by {@link org.astraea.common.metrics.broker.HasHistogram}.
+   *
+   * @param register to build the mbean
+   * @return the register
+   */
+  public MBeanRegister.LocalRegister attributes(MBeanRegister.LocalRegister register) {
+    return register
+        .attribute("Count", Long.class, this::count)
+        .attribute("Min", Double.class, this::min)
+        .attribute("Max", Double.class, this::max)
+        .attribute("Mean", Double.class, this::mean)
+        .attribute("StdDev", Double.class, this::stdDev)
+        .attribute("50thPercentile", Double.class, () -> percentile(0.5))
+        .attribute("75thPercentile", Double.class, () -> percentile(0.75))
+        .attribute("95thPercentile", Double.class, () -> percentile(0.95))
+        .attribute("98thPercentile", Double.class, () -> percentile(0.98))
+        .attribute("99thPercentile", Double.class, () -> percentile(0.99))
+        .attribute("999thPercentile", Double.class, () -> percentile(0.999));
+  }
+
+  static int index(long value) {
+    if (value < SUB_BUCKETS) return (int) value;
+    var shift = Long.SIZE - 1 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+    return (shift + 1) * SUB_BUCKETS + (int) ((value >>> shift) - SUB_BUCKETS);
+  }
+
+  static long lowerBound(int index) {
+    if (index < SUB_BUCKETS) return index;
+    var shift = index / SUB_BUCKETS - 1;
+    return (long) (index % SUB_BUCKETS + SUB_BUCKETS) << shift;
+  }
+
+  static long upperBound(int index) {
+    if (index < SUB_BUCKETS) return index;
+    var shift = index / SUB_BUCKETS - 1;
+    // the last bucket ends at Long.MAX_VALUE
+    return ((long) (index % SUB_BUCKETS + SUB_BUCKETS + 1) << shift) - 1;
+  }
+}
@@ -18,7 +18,6 @@ package org.astraea.common.partitioner;
 
 import java.time.Duration;
 import java.util.Map;
-import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 import org.apache.kafka.clients.producer.Producer;
 import org.apache.kafka.common.Cluster;
@@ -26,6 +25,7 @@ import org.astraea.common.Configuration;
 import org.astraea.common.Utils;
 import org.astraea.common.admin.Admin;
 import org.astraea.common.admin.ClusterInfo;
+import org.astraea.common.admin.ClusterInfoCache;
 import org.astraea.common.producer.ProducerConfigs;
 
 public abstract class Partitioner implements org.apache.kafka.clients.producer.Partitioner {
@@ -35,9 +35,8 @@ public abstract class Partitioner implements org.apache.kafka.clients.producer.P
   static final ThreadLocal<Interdependent> THREAD_LOCAL =
       ThreadLocal.withInitial(Interdependent::new);
 
-  private final AtomicLong lastUpdated = new AtomicLong(-1);
-  volatile ClusterInfo clusterInfo = ClusterInfo.empty();
   Admin admin = null;
+  ClusterInfoCache clusterInfoCache = null;
 
   /**
    * Compute the partition for the given record.
@@ -144,7 +143,13 @@ public abstract class Partitioner implements org.apache.kafka.clients.producer.P
         Configuration.of(
             configs.entrySet().stream()
                 .collect(Collectors.toMap(Map.Entry::getKey, e -> e.getValue().toString())));
-    config.string(ProducerConfigs.BOOTSTRAP_SERVERS_CONFIG).ifPresent(s -> admin = Admin.of(s));
+    config
+        .string(ProducerConfigs.BOOTSTRAP_SERVERS_CONFIG)
+        .ifPresent(
+            s -> {
+              admin = Admin.of(s);
+              clusterInfoCache = ClusterInfoCache.of(admin, CLUSTER_INFO_LEASE);
+            });
     configure(config);
     tryToUpdate();
   }
@@ -155,10 +160,10 @@ public abstract class Partitioner implements org.apache.kafka.clients.producer.P
     var interdependent = THREAD_LOCAL.get();
     if (interdependent.isInterdependent && interdependent.targetPartitions >= 0)
       return interdependent.targetPartitions;
-    tryToUpdate();
+    var clusterInfo = clusterInfo(topic, cluster);
     final int target;
     if (!clusterInfo.topicNames().contains(topic)) {
-      // the cached cluster info is not updated, so we just return a random partition
+      // the producer has no metadata of topic, so we just return a random partition
       var ps = cluster.availablePartitionsForTopic(topic);
       target = ps.isEmpty() ? 0 : ps.get((int) (Math.random() * ps.size())).partition();
     } else target = partition(topic, keyBytes, valueBytes, clusterInfo);
@@ -166,29 +171,23 @@ public abstract class Partitioner implements org.apache.kafka.clients.producer.P
     return target;
   }
 
+  /**
+   * @return the cluster info of the topics produced by this partitioner. The leadership is taken
+   *     from the metadata of producer, and the sizes of replicas are refreshed in background
+   */
+  private ClusterInfo clusterInfo(String topic, Cluster cluster) {
+    if (clusterInfoCache == null) return ClusterInfo.empty();
+    clusterInfoCache.track(topic);
+    tryToUpdate();
+    return clusterInfoCache.clusterInfo(cluster);
+  }
+
   boolean tryToUpdate() {
-    if (admin == null) return false;
-    var now = System.nanoTime();
-    // need to refresh cluster info if lease expires
-    if (lastUpdated.updateAndGet(last -> now - last >= CLUSTER_INFO_LEASE.toNanos() ? now : last)
-        == now) {
-      admin
-          .topicNames(true)
-          .thenCompose(names -> admin.clusterInfo(names))
-          .whenComplete(
-              (c, e) -> {
-                if (c != null) {
-                  this.clusterInfo = c;
-                  lastUpdated.set(System.nanoTime());
-                }
-              });
-      return true;
-    }
-    return false;
+    return clusterInfoCache != null && clusterInfoCache.tryToUpdate();
   }
 
   @Override
   public final void onNewBatch(String topic, Cluster cluster, int prevPartition) {
-    onNewBatch(topic, prevPartition, clusterInfo);
+    onNewBatch(topic, prevPartition, clusterInfo(topic, cluster));
   }
 }
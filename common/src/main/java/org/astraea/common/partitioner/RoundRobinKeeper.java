@@ -30,6 +30,7 @@ public class RoundRobinKeeper {
   final int[] roundRobin;
   final Duration roundRobinLease;
   final AtomicLong lastUpdated = new AtomicLong(-1);
+  private volatile RoutingTable routingTable = RoutingTable.EMPTY;
 
   private RoundRobinKeeper(int length, Duration roundRobinLease) {
     this.roundRobin = new int[length];
@@ -40,6 +41,14 @@ public class RoundRobinKeeper {
     return new RoundRobinKeeper(preLength, roundRobinLease);
   }
 
+  /**
+   * @return true if the lease is expired. It is used to avoid creating the cost supplier for each
+   *     record.
+   */
+  boolean expired() {
+    return System.nanoTime() - roundRobinLease.toNanos() >= lastUpdated.get();
+  }
+
   void tryToUpdate(ClusterInfo clusterInfo, Supplier<Map<Integer, Double>> costToScore) {
     var now = System.nanoTime();
     if (lastUpdated.updateAndGet(last -> now - roundRobinLease.toNanos() >= last ? now : last)
@@ -50,11 +59,24 @@ public class RoundRobinKeeper {
       // TODO: make ROUND_ROBIN_LENGTH configurable ???
       for (var index = 0; index < this.roundRobin.length; ++index)
         this.roundRobin[index] = roundRobin.next(ids).orElse(-1);
+      routingTable = RoutingTable.of(clusterInfo);
+    }
+  }
+
+  /**
+   * @return the routing table of the cluster info. It is rebuilt at each lease, and it is rebuilt
+   *     also if the cluster info is changed.
+   */
+  RoutingTable routingTable(ClusterInfo clusterInfo) {
+    var table = routingTable;
+    if (table.isBuiltFrom(clusterInfo)) return table;
+    synchronized (this) {
+      if (!routingTable.isBuiltFrom(clusterInfo)) routingTable = RoutingTable.of(clusterInfo);
+      return routingTable;
     }
   }
 
   int next() {
-    return roundRobin[
-        next.getAndUpdate(previous -> previous >= roundRobin.length - 1 ? 0 : previous + 1)];
+    return roundRobin[Math.floorMod(next.getAndIncrement(), roundRobin.length)];
   }
 }
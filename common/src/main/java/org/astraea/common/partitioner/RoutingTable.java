@@ -0,0 +1,133 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.astraea.common.partitioner;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Collectors;
+import org.astraea.common.admin.ClusterInfo;
+import org.astraea.common.admin.Replica;
+
+/**
+ * The online leader partitions of each topic, grouped by broker. The table is immutable and built
+ * from a {@link ClusterInfo} once, so choosing the partition of a record reads a couple of arrays
+ * instead of querying the cluster info and allocating the lookup keys.
+ */
+final class RoutingTable {
+
+  static final RoutingTable EMPTY = of(ClusterInfo.empty());
+
+  static RoutingTable of(ClusterInfo clusterInfo) {
+    return new RoutingTable(
+        clusterInfo,
+        clusterInfo.replicaLeaders().stream()
+            .collect(Collectors.groupingBy(Replica::topic))
+            .entrySet()
+            .stream()
+            .collect(
+                Collectors.toUnmodifiableMap(Map.Entry::getKey, e -> Route.of(e.getValue()))));
+  }
+
+  private final ClusterInfo clusterInfo;
+  private final Map<String, Route> routes;
+
+  private RoutingTable(ClusterInfo clusterInfo, Map<String, Route> routes) {
+    this.clusterInfo = clusterInfo;
+    this.routes = routes;
+  }
+
+  /**
+   * @return true if this table is built from the given cluster info
+   */
+  boolean isBuiltFrom(ClusterInfo clusterInfo) {
+    return this.clusterInfo == clusterInfo;
+  }
+
+  /**
+   * @return the route of topic, or null if the topic has no online leader
+   */
+  Route route(String topic) {
+    return routes.get(topic);
+  }
+
+  static final class Route {
+
+    private static Route of(Collection<Replica> leaders) {
+      var byBroker = new TreeMap<Integer, int[]>();
+      leaders.stream()
+          .collect(Collectors.groupingBy(r -> r.nodeInfo().id()))
+          .forEach(
+              (id, replicas) ->
+                  byBroker.put(id, replicas.stream().mapToInt(Replica::partition).toArray()));
+      return new Route(
+          leaders.stream().mapToInt(Replica::partition).toArray(),
+          byBroker.keySet().stream().mapToInt(i -> i).toArray(),
+          byBroker.values().toArray(new int[0][]));
+    }
+
+    // all leader partitions
+    private final int[] partitions;
+    // the sorted ids of brokers hosting the leaders
+    private final int[] brokers;
+    // the leader partitions of each broker. The order follows the brokers
+    private final int[][] leaders;
+
+    private Route(int[] partitions, int[] brokers, int[][] leaders) {
+      this.partitions = partitions;
+      this.brokers = brokers;
+      this.leaders = leaders;
+    }
+
+    /**
+     * @return the number of leader partitions
+     */
+    int size() {
+      return partitions.length;
+    }
+
+    /**
+     * @return the first leader partition
+     */
+    int first() {
+      return partitions[0];
+    }
+
+    /**
+     * @param broker the target broker. Negative value means there is no target
+     * @return a random leader partition of the broker, or a random leader partition of the topic if
+     *     the broker hosts none of them
+     */
+    int partition(int broker) {
+      var candidates = candidates(broker);
+      return candidates[ThreadLocalRandom.current().nextInt(candidates.length)];
+    }
+
+    /**
+     * @param broker the target broker. Negative value means there is no target
+     * @return the leader partitions of the broker, or all leader partitions if the broker hosts
+     *     none of them. The array is shared by all calls, so it must not be modified
+     */
+    int[] candidates(int broker) {
+      if (broker < 0) return partitions;
+      var index = Arrays.binarySearch(brokers, broker);
+      return index >= 0 ? leaders[index] : partitions;
+    }
+  }
+}
@@ -17,12 +17,9 @@
 package org.astraea.common.partitioner;
 
 import java.time.Duration;
-import java.util.Collections;
-import java.util.HashMap;
 import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Optional;
-import java.util.concurrent.CompletionStage;
 import java.util.concurrent.ConcurrentLinkedDeque;
 import java.util.function.BiConsumer;
 import java.util.function.Function;
@@ -30,12 +27,11 @@ import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import org.astraea.common.Configuration;
 import org.astraea.common.Utils;
-import org.astraea.common.admin.BrokerTopic;
 import org.astraea.common.admin.ClusterInfo;
 import org.astraea.common.cost.NeutralIntegratedCost;
-import org.astraea.common.metrics.JndiClient;
-import org.astraea.common.metrics.MBeanClient;
 import org.astraea.common.metrics.collector.MetricStore;
+import org.astraea.common.metrics.collector.SharedMetricStore;
+import org.astraea.common.producer.ProducerConfigs;
 
 public class SmoothWeightRoundRobinPartitioner extends Partitioner {
   private static final int ROUND_ROBIN_LENGTH = 400;
@@ -56,33 +52,26 @@ public class SmoothWeightRoundRobinPartitioner extends Partitioner {
 
   @Override
   public int partition(String topic, byte[] key, byte[] value, ClusterInfo clusterInfo) {
-    var partitionLeaders = clusterInfo.replicaLeaders(topic);
+    var route = roundRobinKeeper.routingTable(clusterInfo).route(topic);
     // just return first partition if there is no available partitions
-    if (partitionLeaders.isEmpty()) return 0;
+    if (route == null) return 0;
 
     // just return the only one available partition
-    if (partitionLeaders.size() == 1) return partitionLeaders.get(0).partition();
+    if (route.size() == 1) return route.first();
 
     var targetPartition = unusedPartitions.poll();
-    Supplier<Map<Integer, Double>> supplier =
-        () ->
-            // fetch the latest beans for each node
-            neutralIntegratedCost.brokerCost(clusterInfo, metricStore.clusterBean()).value();
-
-    smoothWeightCal.refresh(supplier);
-
-    if (targetPartition == null) {
+    if (targetPartition != null) return targetPartition;
+
+    // the weights are consumed only when the lease is expired, so they are refreshed at that time
+    if (roundRobinKeeper.expired()) {
+      Supplier<Map<Integer, Double>> supplier =
+          () ->
+              // fetch the latest beans for each node
+              neutralIntegratedCost.brokerCost(clusterInfo, metricStore.clusterBean()).value();
+      smoothWeightCal.refresh(supplier);
       roundRobinKeeper.tryToUpdate(clusterInfo, smoothWeightCal.effectiveWeightResult);
-      var target = roundRobinKeeper.next();
-
-      var candidate =
-          target < 0 ? partitionLeaders : clusterInfo.replicaLeaders(BrokerTopic.of(target, topic));
-      candidate = candidate.isEmpty() ? partitionLeaders : candidate;
-
-      targetPartition = candidate.get((int) (Math.random() * candidate.size())).partition();
     }
-
-    return targetPartition;
+    return route.partition(roundRobinKeeper.next());
   }
 
   @Override
@@ -93,6 +82,7 @@ public class SmoothWeightRoundRobinPartitioner extends Partitioner {
   @Override
   public void configure(Configuration configuration) {
     configure(
+        configuration.string(ProducerConfigs.BOOTSTRAP_SERVERS_CONFIG),
         configuration.integer(JMX_PORT),
         PartitionerUtils.parseIdJMXPort(configuration),
         configuration
@@ -104,6 +94,7 @@ public class SmoothWeightRoundRobinPartitioner extends Partitioner {
   }
 
   void configure(
+      Optional<String> bootstrapServers,
       Optional<Integer> jmxPortDefault,
       Map<Integer, Integer> customJmxPort,
       Duration roundRobinLease) {
@@ -119,33 +110,17 @@ public class SmoothWeightRoundRobinPartitioner extends Partitioner {
             customJmxPort.entrySet().stream()
                 .collect(Collectors.toMap(Map.Entry::getKey, ignore -> 1.0)));
 
-    Supplier<CompletionStage<Map<Integer, MBeanClient>>> clientSupplier =
-        () ->
-            admin
-                .brokers()
-                .thenApply(
-                    brokers -> {
-                      var map = new HashMap<Integer, JndiClient>();
-                      brokers.forEach(
-                          b ->
-                              map.put(
-                                  b.id(), JndiClient.of(b.host(), jmxPortGetter.apply(b.id()))));
-                      // add local client to fetch consumer metrics
-                      map.put(-1, JndiClient.local());
-                      return Collections.unmodifiableMap(map);
-                    });
-
-    // put local mbean client first
+    // the partitioners of the same cluster share the metric store
     metricStore =
-        MetricStore.builder()
-            .localReceiver(clientSupplier)
-            .sensorsSupplier(
-                () ->
-                    this.neutralIntegratedCost
-                        .metricSensor()
-                        .map(s -> Map.of(s, (BiConsumer<Integer, Exception>) (integer, e) -> {}))
-                        .orElse(Map.of()))
-            .build();
+        SharedMetricStore.of(
+            bootstrapServers,
+            jmxPortDefault,
+            customJmxPort,
+            () ->
+                this.neutralIntegratedCost
+                    .metricSensor()
+                    .map(s -> Map.of(s, (BiConsumer<Integer, Exception>) (integer, e) -> {}))
+                    .orElse(Map.of()));
   }
 
   @Override
@@ -17,27 +17,23 @@
 package org.astraea.common.partitioner;
 
 import java.time.Duration;
-import java.util.Collections;
-import java.util.HashMap;
 import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Optional;
-import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.BiConsumer;
 import java.util.function.Function;
-import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import org.astraea.common.Configuration;
 import org.astraea.common.Utils;
-import org.astraea.common.admin.BrokerTopic;
 import org.astraea.common.admin.ClusterInfo;
 import org.astraea.common.cost.BrokerCost;
 import org.astraea.common.cost.HasBrokerCost;
 import org.astraea.common.cost.NoSufficientMetricsException;
 import org.astraea.common.cost.NodeLatencyCost;
-import org.astraea.common.metrics.JndiClient;
-import org.astraea.common.metrics.MBeanClient;
 import org.astraea.common.metrics.collector.MetricStore;
+import org.astraea.common.metrics.collector.SharedMetricStore;
+import org.astraea.common.producer.ProducerConfigs;
 
 /**
  * this partitioner scores the nodes by multiples cost functions. Each function evaluate the target
@@ -53,11 +49,16 @@ import org.astraea.common.metrics.collector.MetricStore;
  * <p>You can configure the cost functions you want to use. By giving the name of that cost function
  * and its weight. For example,
  * `org.astraea.cost.ThroughputCost=1,org.astraea.cost.broker.BrokerOutputCost=1`.
+ *
+ * <p>By default, each record is sent to the next partition of round-robin. If `sticky=true` is
+ * defined, the records of a topic are sent to the same partition until the producer starts a new
+ * batch, so the batches get bigger and the producer sends fewer requests.
  */
 public class StrictCostPartitioner extends Partitioner {
   static final int ROUND_ROBIN_LENGTH = 400;
   static final String JMX_PORT = "jmx.port";
   static final String ROUND_ROBIN_LEASE_KEY = "round.robin.lease";
+  static final String STICKY_KEY = "sticky";
   // visible for testing
   MetricStore metricStore = null;
 
@@ -69,34 +70,57 @@ public class StrictCostPartitioner extends Partitioner {
       };
   RoundRobinKeeper roundRobinKeeper;
 
+  // the partition used by the current batch of each topic. It is used in sticky mode only
+  boolean sticky = false;
+  final Map<String, Integer> stickyPartitions = new ConcurrentHashMap<>();
+
   @Override
   public int partition(String topic, byte[] key, byte[] value, ClusterInfo clusterInfo) {
-    var partitionLeaders = clusterInfo.replicaLeaders(topic);
+    if (!sticky) return nextPartition(topic, clusterInfo);
+    var partition = stickyPartitions.get(topic);
+    if (partition != null) return partition;
+    // the records are sent to the same partition until the producer creates a new batch
+    var next = nextPartition(topic, clusterInfo);
+    partition = stickyPartitions.putIfAbsent(topic, next);
+    return partition == null ? next : partition;
+  }
+
+  /**
+   * The producer calls this method when the batch of previous partition is full (or the linger is
+   * reached), and then it calls {@link #partition(String, byte[], byte[], ClusterInfo)} again for
+   * the same record. In sticky mode, the partition of topic is changed to the next one of
+   * round-robin, so the batches are still distributed by the weights of brokers.
+   */
+  @Override
+  protected void onNewBatch(String topic, int prevPartition, ClusterInfo clusterInfo) {
+    if (sticky) stickyPartitions.remove(topic, prevPartition);
+  }
+
+  private int nextPartition(String topic, ClusterInfo clusterInfo) {
+    var route = roundRobinKeeper.routingTable(clusterInfo).route(topic);
     // just return first partition if there is no available partitions
-    if (partitionLeaders.isEmpty()) return 0;
+    if (route == null) return 0;
 
     // just return the only one available partition
-    if (partitionLeaders.size() == 1) return partitionLeaders.get(0).partition();
+    if (route.size() == 1) return route.first();
 
-    try {
-      roundRobinKeeper.tryToUpdate(
-          clusterInfo,
-          () -> costToScore(costFunction.brokerCost(clusterInfo, metricStore.clusterBean())));
-    } catch (NoSufficientMetricsException e) {
-      // There is not enough metrics for the cost functions computing teh broker cost. We should not
-      // update the round-robin keeper. Reuse the weights that were kept in the round-robin keeper.
+    if (roundRobinKeeper.expired()) {
+      try {
+        roundRobinKeeper.tryToUpdate(
+            clusterInfo,
+            () -> costToScore(costFunction.brokerCost(clusterInfo, metricStore.clusterBean())));
+      } catch (NoSufficientMetricsException e) {
+        // There is not enough metrics for the cost functions computing teh broker cost. We should
+        // not update the round-robin keeper. Reuse the weights that were kept in the round-robin
+        // keeper.
 
-      // Let the user know the cost-functions were complaining.
-      e.printStackTrace();
+        // Let the user know the cost-functions were complaining.
+        e.printStackTrace();
+      }
     }
 
-    var target = roundRobinKeeper.next();
-
     // TODO: if the topic partitions are existent in fewer brokers, the target gets -1 in most cases
-    var candidate =
-        target < 0 ? partitionLeaders : clusterInfo.replicaLeaders(BrokerTopic.of(target, topic));
-    candidate = candidate.isEmpty() ? partitionLeaders : candidate;
-    return candidate.get((int) (Math.random() * candidate.size())).partition();
+    return route.partition(roundRobinKeeper.next());
   }
 
   /**
@@ -140,33 +164,19 @@ public class StrictCostPartitioner extends Partitioner {
         .string(ROUND_ROBIN_LEASE_KEY)
         .map(Utils::toDuration)
         .ifPresent(d -> this.roundRobinLease = d);
-    Supplier<CompletionStage<Map<Integer, MBeanClient>>> clientSupplier =
-        () ->
-            admin
-                .brokers()
-                .thenApply(
-                    brokers -> {
-                      var map = new HashMap<Integer, JndiClient>();
-                      brokers.forEach(
-                          b ->
-                              map.put(
-                                  b.id(), JndiClient.of(b.host(), jmxPortGetter.apply(b.id()))));
-                      // add local client to fetch consumer metrics
-                      map.put(-1, JndiClient.local());
-                      return Collections.unmodifiableMap(map);
-                    });
+    this.sticky = config.string(STICKY_KEY).map(Boolean::parseBoolean).orElse(false);
 
-    // put local mbean client first
+    // the partitioners of the same cluster share the metric store
     metricStore =
-        MetricStore.builder()
-            .localReceiver(clientSupplier)
-            .sensorsSupplier(
-                () ->
-                    this.costFunction
-                        .metricSensor()
-                        .map(s -> Map.of(s, (BiConsumer<Integer, Exception>) (integer, e) -> {}))
-                        .orElse(Map.of()))
-            .build();
+        SharedMetricStore.of(
+            config.string(ProducerConfigs.BOOTSTRAP_SERVERS_CONFIG),
+            defaultJmxPort,
+            customJmxPort,
+            () ->
+                this.costFunction
+                    .metricSensor()
+                    .map(s -> Map.of(s, (BiConsumer<Integer, Exception>) (integer, e) -> {}))
+                    .orElse(Map.of()));
     this.roundRobinKeeper = RoundRobinKeeper.of(ROUND_ROBIN_LENGTH, roundRobinLease);
   }
 
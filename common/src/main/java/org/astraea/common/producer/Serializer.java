@@ -65,6 +65,8 @@ public interface Serializer<T> {
   Serializer<Double> DOUBLE =
       (topic, headers, data) -> data == null ? null : ByteUtils.toBytes(data);
   Serializer<BeanObject> BEAN_OBJECT = (topic, headers, data) -> ByteUtils.toBytes(data);
+  Serializer<Collection<BeanObject>> BEAN_OBJECTS =
+      (topic, headers, data) -> ByteUtils.toBytes(data, true);
 
   /**
    * create Custom JsonSerializer
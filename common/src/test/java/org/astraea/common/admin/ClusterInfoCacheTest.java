@@ -0,0 +1,193 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.astraea.common.admin;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import org.apache.kafka.common.Cluster;
+import org.apache.kafka.common.Node;
+import org.apache.kafka.common.PartitionInfo;
+import org.astraea.common.Utils;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+public class ClusterInfoCacheTest {
+
+  private static final Node NODE_1 = new Node(1, "host1", 9092);
+  private static final Node NODE_2 = new Node(2, "host2", 9092);
+
+  private static Cluster metadata(Node leader) {
+    return new Cluster(
+        "fake",
+        List.of(NODE_1, NODE_2),
+        List.of(
+            new PartitionInfo(
+                "topic", 0, leader, new Node[] {NODE_1, NODE_2}, new Node[] {NODE_1, NODE_2}),
+            new PartitionInfo("other", 0, NODE_1, new Node[] {NODE_1}, new Node[] {NODE_1})),
+        Set.of(),
+        Set.of());
+  }
+
+  private static ClusterInfo snapshot() {
+    return ClusterInfoTest.of(
+        List.of(
+            Replica.builder()
+                .topic("topic")
+                .partition(0)
+                .nodeInfo(NodeInfo.of(1, "host1", 9092))
+                .path("/tmp/aa")
+                .size(100)
+                .buildLeader()));
+  }
+
+  @Test
+  void testLeadershipFromMetadata() {
+    var clusterInfo = ClusterInfoCache.of(metadata(NODE_2), snapshot(), Set.of("topic"));
+    Assertions.assertEquals(Set.of("topic"), clusterInfo.topicNames());
+    Assertions.assertEquals(2, clusterInfo.nodes().size());
+    var replicas = clusterInfo.replicas(TopicPartition.of("topic", 0));
+    Assertions.assertEquals(2, replicas.size());
+
+    // the size and path are taken from the snapshot
+    var first = clusterInfo.replicas(TopicPartitionReplica.of("topic", 0, 1)).get(0);
+    Assertions.assertEquals(100, first.size());
+    Assertions.assertEquals("/tmp/aa", first.path());
+    Assertions.assertFalse(first.isLeader());
+    Assertions.assertTrue(first.isPreferredLeader());
+
+    // the leadership is taken from the metadata
+    var second = clusterInfo.replicas(TopicPartitionReplica.of("topic", 0, 2)).get(0);
+    Assertions.assertTrue(second.isLeader());
+    Assertions.assertTrue(second.isSync());
+    Assertions.assertEquals(0, second.size());
+  }
+
+  @Test
+  void testReuseClusterInfo() {
+    var admin = Mockito.mock(Admin.class);
+    var cache = ClusterInfoCache.of(admin, Duration.ofHours(1));
+    cache.track("topic");
+    var metadata = metadata(NODE_1);
+    var clusterInfo = cache.clusterInfo(metadata);
+    Assertions.assertSame(clusterInfo, cache.clusterInfo(metadata));
+    Assertions.assertEquals(Set.of("topic"), clusterInfo.topicNames());
+
+    // new metadata
+    var other = cache.clusterInfo(metadata(NODE_2));
+    Assertions.assertNotSame(clusterInfo, other);
+
+    // new topic
+    cache.track("other");
+    Assertions.assertEquals(Set.of("topic", "other"), cache.clusterInfo(metadata).topicNames());
+  }
+
+  @Test
+  void testTryToUpdate() {
+    var snapshot = snapshot();
+    var admin = Mockito.mock(Admin.class);
+    Mockito.when(admin.clusterInfo(Mockito.anySet()))
+        .thenReturn(CompletableFuture.completedStage(snapshot));
+    var cache = ClusterInfoCache.of(admin, Duration.ofHours(1));
+    cache.track("topic");
+    Assertions.assertTrue(cache.tryToUpdate());
+    Assertions.assertSame(snapshot, cache.snapshot());
+    // the lease is not expired
+    Assertions.assertFalse(cache.tryToUpdate());
+    cache.track("topic");
+    Assertions.assertFalse(cache.tryToUpdate());
+
+    // only the tracked topics are fetched
+    cache.track("other");
+    Assertions.assertTrue(cache.tryToUpdate());
+    Mockito.verify(admin).clusterInfo(Set.of("topic"));
+    Mockito.verify(admin).clusterInfo(Set.of("topic", "other"));
+  }
+
+  @Test
+  void testBackoffOnFailure() {
+    var snapshot = snapshot();
+    var admin = Mockito.mock(Admin.class);
+    Mockito.when(admin.clusterInfo(Mockito.anySet()))
+        .thenReturn(CompletableFuture.failedStage(new IllegalStateException("failed")));
+    var cache = ClusterInfoCache.of(admin, Duration.ofHours(1));
+    cache.track("topic");
+    Assertions.assertTrue(cache.tryToUpdate());
+    Assertions.assertEquals(Set.of(), cache.snapshot().topicNames());
+    // the failed update is not retried immediately, even if there are new topics
+    Assertions.assertFalse(cache.tryToUpdate());
+    cache.track("other");
+    Assertions.assertFalse(cache.tryToUpdate());
+    Mockito.verify(admin, Mockito.times(1)).clusterInfo(Mockito.anySet());
+
+    // retry after the backoff
+    Utils.sleep(Duration.ofMillis(150));
+    Assertions.assertTrue(cache.tryToUpdate());
+    // the backoff is doubled
+    Utils.sleep(Duration.ofMillis(100));
+    Assertions.assertFalse(cache.tryToUpdate());
+    Mockito.verify(admin, Mockito.times(2)).clusterInfo(Mockito.anySet());
+
+    Mockito.when(admin.clusterInfo(Mockito.anySet()))
+        .thenReturn(CompletableFuture.completedStage(snapshot));
+    Utils.sleep(Duration.ofMillis(200));
+    Assertions.assertTrue(cache.tryToUpdate());
+    Assertions.assertSame(snapshot, cache.snapshot());
+    // the lease is applied again
+    Assertions.assertFalse(cache.tryToUpdate());
+  }
+
+  @Test
+  void testAwaitTrackedTopics() {
+    var snapshot = snapshot();
+    var admin = Mockito.mock(Admin.class);
+    Mockito.when(admin.clusterInfo(Mockito.anySet()))
+        .thenAnswer(
+            invocation ->
+                CompletableFuture.supplyAsync(
+                    () -> {
+                      Utils.sleep(Duration.ofMillis(300));
+                      return snapshot;
+                    }));
+    var cache = ClusterInfoCache.of(admin, Duration.ofHours(1));
+    cache.track("topic");
+    Assertions.assertTrue(cache.awaitTrackedTopics(Duration.ofSeconds(10)));
+    Assertions.assertSame(snapshot, cache.snapshot());
+    // the fetched topics are not waited
+    Assertions.assertTrue(cache.awaitTrackedTopics(Duration.ZERO));
+
+    // the new topic is not fetched in time
+    cache.track("other");
+    Assertions.assertFalse(cache.awaitTrackedTopics(Duration.ofMillis(10)));
+    Assertions.assertTrue(cache.awaitTrackedTopics(Duration.ofSeconds(10)));
+  }
+
+  @Test
+  void testAwaitFailedUpdate() {
+    var admin = Mockito.mock(Admin.class);
+    Mockito.when(admin.clusterInfo(Mockito.anySet()))
+        .thenReturn(CompletableFuture.failedStage(new IllegalStateException("failed")));
+    var cache = ClusterInfoCache.of(admin, Duration.ofHours(1));
+    cache.track("topic");
+    Assertions.assertFalse(cache.awaitTrackedTopics(Duration.ofSeconds(10)));
+    // no update during the backoff
+    Assertions.assertFalse(cache.awaitTrackedTopics(Duration.ofSeconds(10)));
+    Mockito.verify(admin, Mockito.times(1)).clusterInfo(Mockito.anySet());
+  }
+}
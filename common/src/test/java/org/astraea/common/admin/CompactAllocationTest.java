@@ -0,0 +1,161 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.astraea.common.admin;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class CompactAllocationTest {
+
+  private static final ClusterInfo BASE =
+      ClusterInfo.builder()
+          .addNode(Set.of(1, 2, 3, 4))
+          .addFolders(
+              Map.of(
+                  1, Set.of("/ssd1", "/ssd2"),
+                  2, Set.of("/ssd1", "/ssd2"),
+                  3, Set.of("/ssd1", "/ssd2"),
+                  4, Set.of("/ssd1", "/ssd2")))
+          .addTopic("a", 10, (short) 2)
+          .addTopic("b", 5, (short) 3)
+          .build();
+
+  private static int anotherBroker(CompactAllocation allocation, int p) {
+    for (var b = 0; b < allocation.brokers(); b++) if (!allocation.hosts(p, b)) return b;
+    throw new IllegalStateException();
+  }
+
+  @Test
+  void testLayout() {
+    var allocation = CompactAllocation.of(BASE);
+    Assertions.assertEquals(BASE.topicPartitions().size(), allocation.partitions());
+    Assertions.assertEquals(BASE.replicas().size(), allocation.replicas());
+    Assertions.assertEquals(4, allocation.brokers());
+    for (var p = 0; p < allocation.partitions(); p++) {
+      var tp = allocation.partition(p);
+      Assertions.assertEquals(p, allocation.partitionIndex(tp));
+      var replicas = BASE.replicas(tp);
+      Assertions.assertEquals(
+          replicas.size(), allocation.replicaEnd(p) - allocation.replicaStart(p));
+      for (var i = 0; i < replicas.size(); i++) {
+        var slot = allocation.replicaStart(p) + i;
+        var b = allocation.broker(slot);
+        Assertions.assertEquals(replicas.get(i).nodeInfo().id(), allocation.brokerId(b));
+        Assertions.assertEquals(
+            replicas.get(i).path(), allocation.folder(b, allocation.folder(slot)));
+        Assertions.assertEquals(replicas.get(i).isLeader(), allocation.isLeader(slot));
+        Assertions.assertEquals(p, allocation.partitionOf(slot));
+      }
+    }
+    for (var b = 0; b < allocation.brokers(); b++) {
+      Assertions.assertTrue(allocation.isBroker(b));
+      Assertions.assertEquals(
+          BASE.replicaStream(allocation.brokerId(b)).count(), allocation.replicaCount(b));
+      Assertions.assertEquals(
+          BASE.replicaLeaders(allocation.brokerId(b)).size(), allocation.leaderCount(b));
+    }
+    Assertions.assertEquals(-1, allocation.partitionIndex(TopicPartition.of("c", 0)));
+    Assertions.assertEquals(-1, allocation.brokerIndex(100));
+    Assertions.assertSame(BASE, allocation.toClusterInfo());
+  }
+
+  @Test
+  void testReassign() {
+    var allocation = CompactAllocation.of(BASE);
+    var p = allocation.partitionIndex(TopicPartition.of("a", 3));
+    var slot = allocation.leader(p);
+    var from = allocation.broker(slot);
+    var to = anotherBroker(allocation, p);
+    var fromCount = allocation.replicaCount(from);
+    var toLeaders = allocation.leaderCount(to);
+
+    allocation.reassign(slot, to, 1);
+    Assertions.assertEquals(fromCount - 1, allocation.replicaCount(from));
+    Assertions.assertEquals(toLeaders + 1, allocation.leaderCount(to));
+    var other = slot == allocation.replicaStart(p) ? slot + 1 : allocation.replicaStart(p);
+    Assertions.assertThrows(
+        IllegalArgumentException.class,
+        () -> allocation.reassign(other, to, 0),
+        "the broker already hosts a replica");
+
+    var after = allocation.toClusterInfo();
+    var leader = after.replicaLeader(TopicPartition.of("a", 3)).orElseThrow();
+    Assertions.assertEquals(allocation.brokerId(to), leader.nodeInfo().id());
+    Assertions.assertEquals(allocation.folder(to, 1), leader.path());
+    Assertions.assertEquals(
+        Set.of(TopicPartition.of("a", 3)), ClusterInfo.findNonFulfilledAllocation(BASE, after));
+  }
+
+  @Test
+  void testSetLeader() {
+    var allocation = CompactAllocation.of(BASE);
+    var p = allocation.partitionIndex(TopicPartition.of("b", 1));
+    var follower =
+        allocation.leader(p) == allocation.replicaStart(p)
+            ? allocation.replicaStart(p) + 1
+            : allocation.replicaStart(p);
+    allocation.setLeader(follower);
+    Assertions.assertTrue(allocation.isLeader(follower));
+
+    var after = allocation.toClusterInfo();
+    var leaders =
+        after.replicaStream(TopicPartition.of("b", 1))
+            .filter(Replica::isLeader)
+            .collect(Collectors.toList());
+    Assertions.assertEquals(1, leaders.size());
+    Assertions.assertTrue(leaders.get(0).isPreferredLeader());
+    Assertions.assertEquals(
+        allocation.brokerId(allocation.broker(follower)), leaders.get(0).nodeInfo().id());
+    for (var b = 0; b < allocation.brokers(); b++)
+      Assertions.assertEquals(
+          after.replicaLeaders(allocation.brokerId(b)).size(), allocation.leaderCount(b));
+  }
+
+  @Test
+  void testRollback() {
+    var allocation = CompactAllocation.of(BASE);
+    var p = allocation.partitionIndex(TopicPartition.of("a", 0));
+    var slot = allocation.replicaStart(p);
+    var counts = new int[allocation.brokers()];
+    var leaders = new int[allocation.brokers()];
+    for (var b = 0; b < allocation.brokers(); b++) {
+      counts[b] = allocation.replicaCount(b);
+      leaders[b] = allocation.leaderCount(b);
+    }
+
+    allocation.reassign(slot, anotherBroker(allocation, p), 0);
+    allocation.setLeader(slot + 1);
+    Assertions.assertTrue(allocation.hasPendingChanges());
+    allocation.rollback();
+    Assertions.assertFalse(allocation.hasPendingChanges());
+    for (var b = 0; b < allocation.brokers(); b++) {
+      Assertions.assertEquals(counts[b], allocation.replicaCount(b));
+      Assertions.assertEquals(leaders[b], allocation.leaderCount(b));
+    }
+    Assertions.assertEquals(
+        Set.of(), ClusterInfo.findNonFulfilledAllocation(BASE, allocation.toClusterInfo()));
+
+    // the committed changes are kept
+    allocation.setLeader(slot + 1);
+    allocation.commit();
+    allocation.rollback();
+    Assertions.assertTrue(allocation.isLeader(slot + 1));
+  }
+}
@@ -0,0 +1,171 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.astraea.common.admin;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class OverlayClusterInfoTest {
+
+  private static final ClusterInfo BASE =
+      ClusterInfo.builder()
+          .addNode(Set.of(1, 2, 3, 4))
+          .addFolders(
+              Map.of(
+                  1, Set.of("/ssd1", "/ssd2"),
+                  2, Set.of("/ssd1", "/ssd2"),
+                  3, Set.of("/ssd1", "/ssd2"),
+                  4, Set.of("/ssd1", "/ssd2")))
+          .addTopic("a", 10, (short) 2)
+          .addTopic("b", 10, (short) 3)
+          .build();
+
+  // move the leader of a-0 to a broker which doesn't host a-0
+  private static TopicPartitionReplica moved() {
+    return BASE.replicaLeader(TopicPartition.of("a", 0)).orElseThrow().topicPartitionReplica();
+  }
+
+  private static int target() {
+    var hosts =
+        BASE.replicaStream(TopicPartition.of("a", 0))
+            .map(r -> r.nodeInfo().id())
+            .collect(Collectors.toSet());
+    return BASE.nodes().stream()
+        .map(NodeInfo::id)
+        .filter(id -> !hosts.contains(id))
+        .findFirst()
+        .orElseThrow();
+  }
+
+  // let a follower of b-3 become the leader
+  private static TopicPartitionReplica newLeader() {
+    return BASE.replicas(TopicPartition.of("b", 3)).stream()
+        .filter(Replica::isFollower)
+        .findFirst()
+        .orElseThrow()
+        .topicPartitionReplica();
+  }
+
+  private static ClusterInfo tweak(ClusterInfo base) {
+    return ClusterInfo.builder(base)
+        .reassignReplica(moved(), target(), "/ssd2")
+        .setPreferredLeader(newLeader())
+        .build();
+  }
+
+  private static void assertSameQueries(ClusterInfo expected, ClusterInfo actual) {
+    Assertions.assertEquals(Set.copyOf(expected.replicas()), Set.copyOf(actual.replicas()));
+    Assertions.assertEquals(expected.topicPartitions(), actual.topicPartitions());
+    Assertions.assertEquals(expected.topicPartitionReplicas(), actual.topicPartitionReplicas());
+    Assertions.assertEquals(expected.topicNames(), actual.topicNames());
+    for (var node : expected.nodes()) {
+      Assertions.assertEquals(
+          Set.copyOf(expected.replicaStream(node.id()).collect(Collectors.toList())),
+          Set.copyOf(actual.replicaStream(node.id()).collect(Collectors.toList())));
+      Assertions.assertEquals(
+          Set.copyOf(expected.replicaLeaders(node.id())),
+          Set.copyOf(actual.replicaLeaders(node.id())));
+      for (var topic : expected.topicNames()) {
+        var brokerTopic = BrokerTopic.of(node.id(), topic);
+        Assertions.assertEquals(
+            Set.copyOf(expected.replicaStream(brokerTopic).collect(Collectors.toList())),
+            Set.copyOf(actual.replicaStream(brokerTopic).collect(Collectors.toList())));
+      }
+    }
+    for (var topic : expected.topicNames()) {
+      Assertions.assertEquals(expected.replicas(topic), actual.replicas(topic));
+      Assertions.assertEquals(expected.replicaLeaders(topic), actual.replicaLeaders(topic));
+    }
+    for (var tp : expected.topicPartitions())
+      Assertions.assertEquals(expected.replicas(tp), actual.replicas(tp));
+    for (var tpr : expected.topicPartitionReplicas())
+      Assertions.assertEquals(expected.replicas(tpr), actual.replicas(tpr));
+  }
+
+  @Test
+  void testOverlay() {
+    var overlay = tweak(BASE);
+    Assertions.assertInstanceOf(OverlayClusterInfo.class, overlay);
+    Assertions.assertEquals(
+        Set.of(TopicPartition.of("a", 0), TopicPartition.of("b", 3)),
+        ((OverlayClusterInfo) overlay).changedPartitions());
+    Assertions.assertEquals(BASE.nodes(), overlay.nodes());
+    Assertions.assertEquals(BASE.clusterId(), overlay.clusterId());
+
+    // the full copy has the same replicas
+    var copy = ClusterInfo.of(BASE.clusterId(), BASE.nodes(), BASE.topics(), overlay.replicas());
+    assertSameQueries(copy, overlay);
+    Assertions.assertEquals(
+        Set.of(TopicPartition.of("a", 0), TopicPartition.of("b", 3)),
+        ClusterInfo.findNonFulfilledAllocation(BASE, overlay));
+    Assertions.assertEquals(
+        ClusterInfo.findNonFulfilledAllocation(BASE, copy),
+        ClusterInfo.findNonFulfilledAllocation(BASE, overlay));
+  }
+
+  @Test
+  void testOverlayOfOverlay() {
+    var first = tweak(BASE);
+    var follower =
+        first.replicas(TopicPartition.of("a", 5)).stream()
+            .filter(Replica::isFollower)
+            .findFirst()
+            .orElseThrow();
+    var second =
+        ClusterInfo.builder(first).setPreferredLeader(follower.topicPartitionReplica()).build();
+
+    // the overlay is flattened
+    Assertions.assertSame(BASE, ((OverlayClusterInfo) second).base());
+    Assertions.assertEquals(
+        Set.of(TopicPartition.of("a", 0), TopicPartition.of("a", 5), TopicPartition.of("b", 3)),
+        ((OverlayClusterInfo) second).changedPartitions());
+    Assertions.assertEquals(
+        Set.of(TopicPartition.of("a", 5)), ClusterInfo.findNonFulfilledAllocation(first, second));
+
+    var copy = ClusterInfo.of(BASE.clusterId(), BASE.nodes(), BASE.topics(), second.replicas());
+    assertSameQueries(copy, second);
+    Assertions.assertEquals(
+        follower.nodeInfo().id(),
+        second.replicaLeader(TopicPartition.of("a", 5)).orElseThrow().nodeInfo().id());
+  }
+
+  @Test
+  void testSameAsFullBuild() {
+    var overlay = tweak(BASE);
+    // the node alteration disables the overlay, so the replicas are copied
+    var full =
+        ClusterInfo.builder(BASE)
+            .addNode(Set.of(100))
+            .reassignReplica(moved(), target(), "/ssd2")
+            .setPreferredLeader(newLeader())
+            .build();
+    Assertions.assertFalse(full instanceof OverlayClusterInfo);
+    Assertions.assertEquals(overlay.replicas(), full.replicas());
+  }
+
+  @Test
+  void testChangeReplicaNumber() {
+    var tp = TopicPartition.of("a", 0);
+    Assertions.assertThrows(
+        IllegalArgumentException.class,
+        () -> OverlayClusterInfo.of(BASE, Map.of(tp, List.of(BASE.replicas(tp).get(0)))));
+  }
+}
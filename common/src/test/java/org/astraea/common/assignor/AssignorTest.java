@@ -24,11 +24,19 @@ import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Optional;
+import java.util.Set;
 import org.apache.kafka.clients.consumer.ConsumerPartitionAssignor;
+import org.apache.kafka.common.Cluster;
+import org.apache.kafka.common.Node;
+import org.apache.kafka.common.PartitionInfo;
 import org.apache.kafka.common.TopicPartition;
 import org.astraea.common.Utils;
+import org.astraea.common.admin.Admin;
+import org.astraea.common.admin.ClusterInfo;
 import org.astraea.common.admin.NodeInfo;
 import org.astraea.common.consumer.ConsumerConfigs;
+import org.astraea.common.producer.Producer;
+import org.astraea.common.producer.Record;
 import org.astraea.it.Service;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
@@ -177,4 +185,53 @@ public class AssignorTest {
     Assertions.assertEquals(1, unregisterNode.size());
     Assertions.assertEquals("192.168.103.2", unregisterNode.get(1001));
   }
+
+  @Test
+  void testSizesOfFirstAssignment() {
+    var topic = Utils.randomString(10);
+    try (var admin = Admin.of(SERVICE.bootstrapServers());
+        var producer = Producer.of(SERVICE.bootstrapServers())) {
+      admin.creator().topic(topic).numberOfPartitions(1).run().toCompletableFuture().join();
+      Utils.sleep(Duration.ofSeconds(2));
+      producer.send(Record.builder().topic(topic).partition(0).value(new byte[100]).build());
+      producer.flush();
+    }
+    var clusterInfos = new ArrayList<ClusterInfo>();
+    var assignor =
+        new RandomAssignor() {
+          @Override
+          public Map<String, List<org.astraea.common.admin.TopicPartition>> assign(
+              Map<String, SubscriptionInfo> subscriptions, ClusterInfo clusterInfo) {
+            clusterInfos.add(clusterInfo);
+            return super.assign(subscriptions, clusterInfo);
+          }
+        };
+    assignor.configure(
+        Map.of(
+            "jmx.port",
+            SERVICE.jmxServiceURL().getPort(),
+            ConsumerConfigs.BOOTSTRAP_SERVERS_CONFIG,
+            SERVICE.bootstrapServers()));
+    var brokerId = SERVICE.dataFolders().keySet().stream().findAny().get();
+    var node = new Node(brokerId, "localhost", 9092);
+    var metadata =
+        new Cluster(
+            "fake",
+            List.of(node),
+            List.of(new PartitionInfo(topic, 0, node, new Node[] {node}, new Node[] {node})),
+            Set.of(),
+            Set.of());
+    var assignment =
+        assignor.assign(
+            metadata,
+            new ConsumerPartitionAssignor.GroupSubscription(
+                Map.of("c0", new ConsumerPartitionAssignor.Subscription(List.of(topic)))));
+    Assertions.assertEquals(1, assignment.groupAssignment().get("c0").partitions().size());
+
+    // the first assignment gets the sizes of the new topic
+    Assertions.assertEquals(1, clusterInfos.size());
+    var replicas = clusterInfos.get(0).replicas(topic);
+    Assertions.assertEquals(1, replicas.size());
+    Assertions.assertNotEquals(0L, replicas.get(0).size());
+  }
 }
@@ -0,0 +1,237 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.astraea.common.assignor;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.apache.kafka.clients.consumer.ConsumerPartitionAssignor;
+import org.astraea.common.Configuration;
+import org.astraea.common.Utils;
+import org.astraea.common.admin.Admin;
+import org.astraea.common.admin.TopicPartition;
+import org.astraea.common.consumer.Consumer;
+import org.astraea.common.consumer.ConsumerConfigs;
+import org.astraea.common.consumer.SubscribedConsumer;
+import org.astraea.it.Service;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class CostAwareAssignorTest {
+
+  private static double load(List<TopicPartition> partitions, Map<TopicPartition, Double> loads) {
+    return partitions.stream().mapToDouble(loads::get).sum();
+  }
+
+  @Test
+  void testConfigure() {
+    var assignor = new CostAwareAssignor();
+    assignor.configure(
+        Configuration.of(
+            Map.of(
+                CostAwareAssignor.LAG_WEIGHT_KEY,
+                "2",
+                CostAwareAssignor.MOVE_THRESHOLD_KEY,
+                "0.5",
+                "group.id",
+                "g")));
+    Assertions.assertEquals(2, assignor.lagWeight);
+    Assertions.assertEquals(0.5, assignor.moveThreshold);
+    Assertions.assertEquals(Duration.ofSeconds(3), assignor.lagTimeout);
+    Assertions.assertEquals("g", assignor.groupId.get());
+    Assertions.assertThrows(
+        IllegalArgumentException.class,
+        () ->
+            new CostAwareAssignor()
+                .configure(Configuration.of(Map.of(CostAwareAssignor.LAG_WEIGHT_KEY, "-1"))));
+    Assertions.assertEquals("cost-aware", assignor.name());
+  }
+
+  @Test
+  void testLoads() {
+    var a = TopicPartition.of("a", 0);
+    var b = TopicPartition.of("a", 1);
+    var partitions = Set.of(a, b);
+
+    // neither cost nor lag
+    Assertions.assertEquals(
+        Map.of(a, 1D, b, 1D), CostAwareAssignor.loads(partitions, Map.of(), Map.of(), 1));
+
+    var loads = CostAwareAssignor.loads(partitions, Map.of(a, 30D, b, 10D), Map.of(b, 100L), 1);
+    Assertions.assertEquals(0.75, loads.get(a), 0.0001);
+    Assertions.assertEquals(1.25, loads.get(b), 0.0001);
+
+    // the lag is ignored
+    loads = CostAwareAssignor.loads(partitions, Map.of(a, 30D, b, 10D), Map.of(b, 100L), 0);
+    Assertions.assertEquals(0.75, loads.get(a), 0.0001);
+    Assertions.assertEquals(0.25, loads.get(b), 0.0001);
+  }
+
+  @Test
+  void testBalance() {
+    var partitions =
+        IntStream.range(0, 500)
+            .mapToObj(i -> TopicPartition.of("topic", i))
+            .collect(Collectors.toUnmodifiableList());
+    // the load of partitions is skewed
+    var loads =
+        partitions.stream()
+            .collect(
+                Collectors.toUnmodifiableMap(
+                    Function.identity(), tp -> (double) (tp.partition() % 50 + 1)));
+    var subscriptions =
+        IntStream.range(0, 40)
+            .boxed()
+            .collect(
+                Collectors.toUnmodifiableMap(
+                    i -> "c" + i, i -> new SubscriptionInfo(List.of("topic"), List.of())));
+    var assignments = CostAwareAssignor.balance(subscriptions, loads, 0.1);
+    Assertions.assertEquals(40, assignments.size());
+    Assertions.assertEquals(
+        Set.copyOf(partitions),
+        assignments.values().stream().flatMap(List::stream).collect(Collectors.toSet()));
+    var consumerLoads =
+        assignments.values().stream()
+            .mapToDouble(ps -> load(ps, loads))
+            .summaryStatistics();
+    // the gap is smaller than the max load of partition
+    Assertions.assertTrue(consumerLoads.getMax() - consumerLoads.getMin() <= 50);
+  }
+
+  @Test
+  void testHeterogeneousSubscriptions() {
+    var a0 = TopicPartition.of("a", 0);
+    var a1 = TopicPartition.of("a", 1);
+    var b0 = TopicPartition.of("b", 0);
+    var b1 = TopicPartition.of("b", 1);
+    var assignments =
+        CostAwareAssignor.balance(
+            Map.of(
+                "c0",
+                new SubscriptionInfo(List.of("a"), List.of()),
+                "c1",
+                new SubscriptionInfo(List.of("a", "b"), List.of()),
+                "c2",
+                new SubscriptionInfo(List.of("c"), List.of())),
+            Map.of(a0, 1D, a1, 1D, b0, 1D, b1, 1D),
+            0);
+    // the partitions are assigned to the consumers subscribing to them
+    Assertions.assertEquals(Set.of(b0, b1), Set.copyOf(assignments.get("c1")));
+    Assertions.assertEquals(Set.of(a0, a1), Set.copyOf(assignments.get("c0")));
+    Assertions.assertEquals(List.of(), assignments.get("c2"));
+  }
+
+  @Test
+  void testKeepPreviousOwner() {
+    var a0 = TopicPartition.of("a", 0);
+    var a1 = TopicPartition.of("a", 1);
+    var a2 = TopicPartition.of("a", 2);
+    var loads = Map.of(a0, 1D, a1, 1D, a2, 1.1D);
+    var subscriptions =
+        Map.of(
+            "c0",
+            new SubscriptionInfo(List.of("a"), List.of(a0, a1, a2)),
+            "c1",
+            new SubscriptionInfo(List.of("a"), List.of()));
+
+    // the threshold is large, so the owner is kept
+    var assignments = CostAwareAssignor.balance(subscriptions, loads, 10);
+    Assertions.assertEquals(Set.of(a0, a1, a2), Set.copyOf(assignments.get("c0")));
+    Assertions.assertEquals(List.of(), assignments.get("c1"));
+
+    // the partitions are moved to the lighter consumer
+    assignments = CostAwareAssignor.balance(subscriptions, loads, 0);
+    Assertions.assertEquals(List.of(a2), assignments.get("c0"));
+    Assertions.assertEquals(Set.of(a0, a1), Set.copyOf(assignments.get("c1")));
+  }
+
+  @Test
+  void testOwnedPartitionsInUserData() {
+    var a0 = TopicPartition.of("a", 0);
+    var b1 = TopicPartition.of("b-b", 1);
+    Assertions.assertNull(CostAwareAssignor.userData(List.of()));
+
+    // the eager protocol doesn't report the owned partitions
+    var subscription =
+        SubscriptionInfo.from(
+            new ConsumerPartitionAssignor.Subscription(
+                List.of("a"), CostAwareAssignor.userData(List.of(a0, b1)), null));
+    Assertions.assertEquals(List.of(), subscription.ownedPartitions());
+    Assertions.assertEquals(List.of(a0, b1), CostAwareAssignor.ownedPartitions(subscription));
+
+    // the owned partitions reported by protocol are preferred
+    Assertions.assertEquals(
+        List.of(a0),
+        CostAwareAssignor.ownedPartitions(
+            new SubscriptionInfo(List.of("a"), Map.of("x", "y"), List.of(a0))));
+    Assertions.assertEquals(
+        List.of(),
+        CostAwareAssignor.ownedPartitions(new SubscriptionInfo(List.of("a"), List.of())));
+  }
+
+  @Test
+  void testKeepOwnerInEagerRebalance() {
+    try (var service = Service.builder().numberOfBrokers(1).build();
+        var admin = Admin.of(service.bootstrapServers())) {
+      var topic = Utils.randomString();
+      admin.creator().topic(topic).numberOfPartitions(4).run().toCompletableFuture().join();
+      Utils.sleep(Duration.ofSeconds(2));
+      var groupId = Utils.randomString();
+      Supplier<SubscribedConsumer<byte[], byte[]>> consumer =
+          () ->
+              Consumer.forTopics(Set.of(topic))
+                  .bootstrapServers(service.bootstrapServers())
+                  .config(ConsumerConfigs.GROUP_ID_CONFIG, groupId)
+                  .config(
+                      ConsumerConfigs.PARTITION_ASSIGNMENT_STRATEGY_CONFIG,
+                      CostAwareAssignor.class.getName())
+                  .config(Assignor.JMX_PORT, String.valueOf(service.jmxServiceURL().getPort()))
+                  // the owner is kept unless the consumers are very skewed
+                  .config(CostAwareAssignor.MOVE_THRESHOLD_KEY, "10")
+                  .build();
+      try (var first = consumer.get()) {
+        Utils.waitFor(
+            () -> {
+              first.poll(Duration.ofMillis(500));
+              return first.assignments().size() == 4;
+            },
+            Duration.ofSeconds(30));
+
+        // the eager rebalance revokes all partitions, and the previous owner gets them back
+        try (var second = consumer.get()) {
+          Utils.waitFor(
+              () -> {
+                first.poll(Duration.ofMillis(500));
+                second.poll(Duration.ofMillis(500));
+                var group =
+                    admin.consumerGroups(Set.of(groupId)).toCompletableFuture().join().get(0);
+                return group.assignment().size() == 2
+                    && first.assignments().size() + second.assignments().size() == 4;
+              },
+              Duration.ofSeconds(30));
+          Assertions.assertEquals(4, first.assignments().size());
+          Assertions.assertEquals(Set.of(), second.assignments());
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,185 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.astraea.common.backup;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongFunction;
+import org.astraea.common.DataSize;
+import org.astraea.common.consumer.Record;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class RecordReaderBuilderTest {
+
+  private static final int COUNT = 1000;
+
+  private static Record<byte[], byte[]> record(int index) {
+    return new RecordWriterBuilderTest.TestRecord(
+        "topic", 0, index, 10_000 + index * 10L, new byte[] {1}, new byte[20], List.of());
+  }
+
+  private static byte[] write(RecordWriterBuilder builder, ByteArrayOutputStream output) {
+    try (var writer = builder.build()) {
+      for (var i = 0; i < COUNT; i++) writer.append(record(i));
+    }
+    return output.toByteArray();
+  }
+
+  private static byte[] v1() {
+    var output = new ByteArrayOutputStream();
+    return write(RecordWriter.builder(output).blockSize(DataSize.Byte.of(512)), output);
+  }
+
+  private static List<Long> offsets(RecordReader reader) {
+    var offsets = new ArrayList<Long>();
+    reader.forEachRemaining(r -> offsets.add(r.offset()));
+    return offsets;
+  }
+
+  /** Count the bytes read from the opened streams. */
+  private static class Inputs implements LongFunction<InputStream> {
+    private final byte[] bytes;
+    private final AtomicLong read = new AtomicLong();
+
+    private Inputs(byte[] bytes) {
+      this.bytes = bytes;
+    }
+
+    @Override
+    public InputStream apply(long position) {
+      return new FilterInputStream(
+          new ByteArrayInputStream(bytes, (int) position, bytes.length - (int) position)) {
+        @Override
+        public int read() throws IOException {
+          var value = super.read();
+          if (value >= 0) read.incrementAndGet();
+          return value;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+          var size = super.read(b, off, len);
+          if (size > 0) read.addAndGet(size);
+          return size;
+        }
+      };
+    }
+  }
+
+  @Test
+  void testSeek() {
+    var bytes = v1();
+    try (var reader = RecordReader.builder(bytes.length, new Inputs(bytes)).build()) {
+      reader.seek(900);
+      Assertions.assertEquals(900, reader.next().offset());
+      // move backward
+      reader.seek(10);
+      Assertions.assertEquals(10, reader.next().offset());
+      Assertions.assertEquals(11, reader.next().offset());
+
+      reader.seekToTimestamp(15_005);
+      Assertions.assertEquals(501, reader.next().offset());
+
+      reader.seek(COUNT);
+      Assertions.assertFalse(reader.hasNext());
+      reader.seek(COUNT - 1);
+      Assertions.assertEquals(List.of(COUNT - 1L), offsets(reader));
+    }
+  }
+
+  @Test
+  void testRange() {
+    var bytes = v1();
+    var inputs = new Inputs(bytes);
+    var reader = RecordReader.builder(bytes.length, inputs).timestampRange(15_000, 15_100).build();
+    Assertions.assertEquals(
+        List.of(500L, 501L, 502L, 503L, 504L, 505L, 506L, 507L, 508L, 509L), offsets(reader));
+    // only the header, footer and matched blocks are read
+    Assertions.assertTrue(inputs.read.get() < bytes.length / 2, inputs.read.get() + " bytes");
+
+    reader = RecordReader.builder(bytes.length, new Inputs(bytes)).offsetRange(100, 200).build();
+    var offsets = offsets(reader);
+    Assertions.assertEquals(100, offsets.size());
+    Assertions.assertEquals(100, offsets.get(0));
+    Assertions.assertEquals(199, offsets.get(99));
+
+    Assertions.assertThrows(
+        IllegalArgumentException.class,
+        () -> RecordReader.builder(new ByteArrayInputStream(bytes)).offsetRange(10, 0));
+  }
+
+  @Test
+  void testSeekStream() {
+    var bytes = v1();
+    var reader =
+        RecordReader.builder(new ByteArrayInputStream(bytes)).offsetRange(100, 200).build();
+    Assertions.assertEquals(100, reader.next().offset());
+    reader.seek(150);
+    Assertions.assertEquals(150, reader.next().offset());
+    // the stream can't move backward
+    reader.seek(10);
+    Assertions.assertEquals(151, reader.next().offset());
+    Assertions.assertEquals(48, offsets(reader).size());
+  }
+
+  @Test
+  void testSeekV0() {
+    var output = new ByteArrayOutputStream();
+    var bytes = write(new RecordWriterBuilder((short) 0, output), output);
+    var reader = RecordReader.builder(bytes.length, new Inputs(bytes)).build();
+    reader.seekToTimestamp(15_005);
+    Assertions.assertEquals(501, reader.next().offset());
+
+    reader = RecordReader.builder(new ByteArrayInputStream(bytes)).offsetRange(10, 20).build();
+    Assertions.assertEquals(10, offsets(reader).size());
+  }
+
+  @Test
+  void testUnclosedFile() {
+    var output = new ByteArrayOutputStream();
+    var writer = RecordWriter.builder(output).blockSize(DataSize.Byte.of(512)).build();
+    for (var i = 0; i < COUNT; i++) writer.append(record(i));
+    writer.flush();
+    var bytes = output.toByteArray();
+
+    // there is no footer, so the blocks are read one by one
+    var reader = RecordReader.builder(bytes.length, new Inputs(bytes)).build();
+    reader.seek(500);
+    Assertions.assertEquals(500, offsets(reader).size());
+    writer.close();
+  }
+
+  @Test
+  void testFile() throws IOException {
+    var file = Files.createTempFile("testFile", null);
+    Files.write(file, v1());
+    try (var reader = RecordReader.builder(file.toFile()).build()) {
+      reader.seek(COUNT - 10);
+      Assertions.assertEquals(10, offsets(reader).size());
+      reader.seek(0);
+      Assertions.assertEquals(COUNT, offsets(reader).size());
+    }
+  }
+}
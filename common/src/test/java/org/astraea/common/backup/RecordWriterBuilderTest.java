@@ -0,0 +1,261 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.astraea.common.backup;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.astraea.common.DataSize;
+import org.astraea.common.Header;
+import org.astraea.common.consumer.Record;
+import org.astraea.common.generated.RecordOuterClass;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+public class RecordWriterBuilderTest {
+
+  record TestRecord(
+      String topic,
+      int partition,
+      long offset,
+      long timestamp,
+      byte[] key,
+      byte[] value,
+      List<Header> headers)
+      implements Record<byte[], byte[]> {
+
+    @Override
+    public int serializedKeySize() {
+      return key == null ? -1 : key.length;
+    }
+
+    @Override
+    public int serializedValueSize() {
+      return value == null ? -1 : value.length;
+    }
+
+    @Override
+    public Optional<Integer> leaderEpoch() {
+      return Optional.empty();
+    }
+  }
+
+  private static List<Record<byte[], byte[]>> records(int size) {
+    return IntStream.range(0, size)
+        .mapToObj(
+            i ->
+                (Record<byte[], byte[]>)
+                    new TestRecord(
+                        i % 2 == 0 ? "a" : "b",
+                        i % 3,
+                        1000 + i,
+                        System.currentTimeMillis() - i,
+                        String.valueOf(i).getBytes(StandardCharsets.UTF_8),
+                        i % 5 == 0 ? null : ("value" + i).getBytes(StandardCharsets.UTF_8),
+                        i % 7 == 0
+                            ? List.of(Header.of("h", null), Header.of("k", new byte[] {1}))
+                            : List.of()))
+        .collect(Collectors.toUnmodifiableList());
+  }
+
+  private static List<Record<byte[], byte[]>> read(byte[] bytes) {
+    var reader = RecordReader.builder(new ByteArrayInputStream(bytes)).build();
+    var records = new ArrayList<Record<byte[], byte[]>>();
+    reader.forEachRemaining(records::add);
+    return records;
+  }
+
+  private static void assertRecord(Record<byte[], byte[]> expected, Record<byte[], byte[]> actual) {
+    Assertions.assertEquals(expected.topic(), actual.topic());
+    Assertions.assertEquals(expected.partition(), actual.partition());
+    Assertions.assertEquals(expected.offset(), actual.offset());
+    Assertions.assertEquals(expected.timestamp(), actual.timestamp());
+    Assertions.assertArrayEquals(expected.key(), actual.key());
+    Assertions.assertArrayEquals(expected.value(), actual.value());
+    Assertions.assertEquals(expected.headers().size(), actual.headers().size());
+    for (var i = 0; i < expected.headers().size(); i++) {
+      Assertions.assertEquals(expected.headers().get(i).key(), actual.headers().get(i).key());
+      Assertions.assertArrayEquals(
+          expected.headers().get(i).value(), actual.headers().get(i).value());
+    }
+  }
+
+  @ParameterizedTest
+  @ValueSource(strings = {"none", "gzip", "snappy", "lz4", "zstd"})
+  void testV1(String codec) {
+    var records = records(1000);
+    var output = new ByteArrayOutputStream();
+    try (var writer =
+        RecordWriter.builder(output).codec(codec).blockSize(DataSize.KB.of(4)).build()) {
+      records.forEach(writer::append);
+      Assertions.assertEquals(records.size(), writer.count());
+      Assertions.assertNotEquals(0, writer.size().bytes());
+    }
+
+    var actual = read(output.toByteArray());
+    Assertions.assertEquals(records.size(), actual.size());
+    for (var i = 0; i < records.size(); i++) assertRecord(records.get(i), actual.get(i));
+  }
+
+  @Test
+  void testFooter() throws IOException {
+    var records = records(1000);
+    var output = new ByteArrayOutputStream();
+    try (var writer = RecordWriter.builder(output).blockSize(DataSize.KB.of(4)).build()) {
+      records.forEach(writer::append);
+    }
+    var bytes = output.toByteArray();
+    var buffer = ByteBuffer.wrap(bytes);
+    Assertions.assertEquals(RecordBlock.MAGIC, buffer.getInt(bytes.length - Integer.BYTES));
+    var footer = (int) buffer.getLong(bytes.length - RecordBlock.TRAILER_SIZE);
+
+    var input = new DataInputStream(new ByteArrayInputStream(bytes, footer, bytes.length - footer));
+    Assertions.assertEquals(RecordBlock.INDEX, input.readByte());
+    var indexes = RecordBlock.readIndexes(input);
+    Assertions.assertTrue(indexes.size() > 1);
+    Assertions.assertEquals(
+        records.size(), indexes.stream().mapToInt(RecordBlock.Index::count).sum());
+    Assertions.assertEquals(1000, indexes.get(0).minOffset());
+
+    // jump to the last block by the index
+    var last = indexes.get(indexes.size() - 1);
+    Assertions.assertEquals(footer, last.position() + last.size());
+    var decoder =
+        new RecordBlock.Decoder(
+            new ByteArrayInputStream(bytes, (int) last.position(), last.size()), last.position());
+    Assertions.assertEquals(last, decoder.next().get());
+    var blockRecords = decoder.records();
+    Assertions.assertEquals(last.count(), blockRecords.size());
+    Assertions.assertEquals(last.maxOffset(), blockRecords.get(blockRecords.size() - 1).offset());
+    assertRecord(records.get(records.size() - 1), blockRecords.get(blockRecords.size() - 1));
+  }
+
+  @Test
+  void testReadUnclosedFile() {
+    var records = records(10);
+    var output = new ByteArrayOutputStream();
+    var writer = RecordWriter.builder(output).build();
+    records.forEach(writer::append);
+    // the records are not written until the block is full
+    Assertions.assertEquals(0, read(output.toByteArray()).size());
+    writer.flush();
+    Assertions.assertEquals(records.size(), read(output.toByteArray()).size());
+    writer.close();
+    Assertions.assertEquals(records.size(), read(output.toByteArray()).size());
+  }
+
+  @Test
+  void testReadV0() {
+    var records = records(100);
+    var output = new ByteArrayOutputStream();
+    try (var writer = new RecordWriterBuilder((short) 0, output).build()) {
+      records.forEach(writer::append);
+    }
+    var actual = read(output.toByteArray());
+    Assertions.assertEquals(records.size(), actual.size());
+    for (var i = 0; i < records.size(); i++) {
+      Assertions.assertEquals(records.get(i).offset(), actual.get(i).offset());
+      Assertions.assertArrayEquals(records.get(i).key(), actual.get(i).key());
+      Assertions.assertEquals(records.get(i).headers().size(), actual.get(i).headers().size());
+      // version 0 writes the null value as empty bytes
+      if (records.get(i).value() == null) Assertions.assertEquals(0, actual.get(i).value().length);
+      else Assertions.assertArrayEquals(records.get(i).value(), actual.get(i).value());
+    }
+  }
+
+  @Test
+  void testV0MatchesGeneratedMessage() throws IOException {
+    var records = records(100);
+    var output = new ByteArrayOutputStream();
+    try (var writer = new RecordWriterBuilder((short) 0, output).build()) {
+      records.forEach(writer::append);
+    }
+
+    // the records written by hand are parsed by the generated message
+    var input = new DataInputStream(new ByteArrayInputStream(output.toByteArray()));
+    Assertions.assertEquals(0, input.readShort());
+    var messages = new ArrayList<RecordOuterClass.Record>();
+    for (var record : records) {
+      var message = RecordOuterClass.Record.parseDelimitedFrom(input);
+      Assertions.assertEquals(record.topic(), message.getTopic());
+      Assertions.assertEquals(record.partition(), message.getPartition());
+      Assertions.assertEquals(record.offset(), message.getOffset());
+      Assertions.assertEquals(record.timestamp(), message.getTimestamp());
+      Assertions.assertArrayEquals(record.key(), message.getKey().toByteArray());
+      Assertions.assertArrayEquals(
+          record.value() == null ? new byte[0] : record.value(), message.getValue().toByteArray());
+      Assertions.assertEquals(record.headers().size(), message.getHeadersCount());
+      for (var i = 0; i < record.headers().size(); i++) {
+        var header = record.headers().get(i);
+        Assertions.assertEquals(header.key(), message.getHeaders(i).getKey());
+        Assertions.assertArrayEquals(
+            header.value() == null ? new byte[0] : header.value(),
+            message.getHeaders(i).getValue().toByteArray());
+      }
+      messages.add(message);
+    }
+    Assertions.assertNull(RecordOuterClass.Record.parseDelimitedFrom(input));
+
+    // the generated message writes the same bytes, so they are readable by the hand-written parser
+    var generated = new ByteArrayOutputStream();
+    new DataOutputStream(generated).writeShort(0);
+    for (var message : messages) message.writeDelimitedTo(generated);
+    Assertions.assertArrayEquals(output.toByteArray(), generated.toByteArray());
+    Assertions.assertEquals(records.size(), read(generated.toByteArray()).size());
+  }
+
+  @Test
+  void testRecordView() {
+    var records = records(10);
+    var output = new ByteArrayOutputStream();
+    try (var writer = RecordWriter.builder(output).build()) {
+      records.forEach(writer::append);
+    }
+    var actual = read(output.toByteArray());
+    // the first record has null value and headers
+    var record = actual.get(0);
+    Assertions.assertEquals(1, record.serializedKeySize());
+    Assertions.assertEquals(-1, record.serializedValueSize());
+    Assertions.assertNull(record.value());
+    Assertions.assertEquals(2, record.headers().size());
+    // the bytes are copied once
+    Assertions.assertSame(record.key(), record.key());
+    Assertions.assertSame(record.headers(), record.headers());
+    Assertions.assertEquals(records.get(1).value().length, actual.get(1).serializedValueSize());
+  }
+
+  @Test
+  void testBlockSize() {
+    Assertions.assertThrows(
+        IllegalArgumentException.class,
+        () -> RecordWriter.builder(new ByteArrayOutputStream()).blockSize(DataSize.ZERO));
+    Assertions.assertThrows(
+        IllegalArgumentException.class,
+        () -> RecordWriter.builder(new ByteArrayOutputStream()).codec("unknown"));
+  }
+}
@@ -35,6 +35,7 @@ import org.astraea.common.admin.ClusterInfo;
 import org.astraea.common.admin.NodeInfo;
 import org.astraea.common.admin.Replica;
 import org.astraea.common.admin.TopicPartition;
+import org.astraea.common.balancer.algorithms.AnnealingBalancer;
 import org.astraea.common.balancer.algorithms.GreedyBalancer;
 import org.astraea.common.balancer.algorithms.SingleStepBalancer;
 import org.astraea.common.balancer.executor.StraightPlanExecutor;
@@ -61,7 +62,8 @@ class BalancerTest {
   }
 
   @ParameterizedTest
-  @ValueSource(classes = {SingleStepBalancer.class, GreedyBalancer.class})
+  @ValueSource(
+      classes = {SingleStepBalancer.class, GreedyBalancer.class, AnnealingBalancer.class})
   void testLeaderCountRebalance(Class<? extends Balancer> theClass) {
     try (var admin = Admin.of(SERVICE.bootstrapServers())) {
       var topicName = Utils.randomString();
@@ -141,7 +143,8 @@ class BalancerTest {
   }
 
   @ParameterizedTest
-  @ValueSource(classes = {SingleStepBalancer.class, GreedyBalancer.class})
+  @ValueSource(
+      classes = {SingleStepBalancer.class, GreedyBalancer.class, AnnealingBalancer.class})
   void testFilter(Class<? extends Balancer> theClass) {
     try (var admin = Admin.of(SERVICE.bootstrapServers())) {
       var theTopic = Utils.randomString();
@@ -214,7 +217,8 @@ class BalancerTest {
   }
 
   @ParameterizedTest
-  @ValueSource(classes = {SingleStepBalancer.class, GreedyBalancer.class})
+  @ValueSource(
+      classes = {SingleStepBalancer.class, GreedyBalancer.class, AnnealingBalancer.class})
   void testExecutionTime(Class<? extends Balancer> theClass) {
     try (var admin = Admin.of(SERVICE.bootstrapServers())) {
       var theTopic = Utils.randomString();
@@ -254,7 +258,8 @@ class BalancerTest {
   }
 
   @ParameterizedTest
-  @ValueSource(classes = {SingleStepBalancer.class, GreedyBalancer.class})
+  @ValueSource(
+      classes = {SingleStepBalancer.class, GreedyBalancer.class, AnnealingBalancer.class})
   void testWithMetrics(Class<? extends Balancer> theClass) {
     var counter = new AtomicLong();
     Supplier<ClusterBean> metricSource =
@@ -0,0 +1,157 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.astraea.common.balancer.algorithms;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import org.astraea.common.Configuration;
+import org.astraea.common.Utils;
+import org.astraea.common.admin.ClusterInfo;
+import org.astraea.common.balancer.AlgorithmConfig;
+import org.astraea.common.balancer.Balancer;
+import org.astraea.common.balancer.BalancerConfigTestSuite;
+import org.astraea.common.balancer.FakeClusterInfo;
+import org.astraea.common.cost.DecreasingCost;
+import org.astraea.common.cost.ReplicaNumberCost;
+import org.astraea.common.metrics.BeanQuery;
+import org.astraea.common.metrics.ClusterBean;
+import org.astraea.common.metrics.JndiClient;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class AnnealingBalancerTest extends BalancerConfigTestSuite {
+
+  public AnnealingBalancerTest() {
+    super(AnnealingBalancer.class, Configuration.EMPTY);
+  }
+
+  @Test
+  void testConfig() {
+    Assertions.assertTrue(AnnealingBalancer.ALL_CONFIGS.contains("shuffle.tweaker.min.step"));
+    Assertions.assertTrue(AnnealingBalancer.ALL_CONFIGS.contains("shuffle.tweaker.max.step"));
+    Assertions.assertTrue(AnnealingBalancer.ALL_CONFIGS.contains("iteration"));
+    Assertions.assertTrue(AnnealingBalancer.ALL_CONFIGS.contains("temperature.initial"));
+    Assertions.assertTrue(AnnealingBalancer.ALL_CONFIGS.contains("temperature.final"));
+    Assertions.assertTrue(AnnealingBalancer.ALL_CONFIGS.contains("tabu.size"));
+    Assertions.assertTrue(AnnealingBalancer.ALL_CONFIGS.contains("restart.interval"));
+
+    Assertions.assertEquals(
+        AnnealingBalancer.ALL_CONFIGS.size(),
+        Utils.constants(AnnealingBalancer.class, name -> name.endsWith("CONFIG"), String.class)
+            .size(),
+        "No duplicate element");
+    Assertions.assertEquals(
+        AnnealingBalancer.class, Balancer.Official.Annealing.create().getClass());
+  }
+
+  @Test
+  void testInvalidTemperature() {
+    var balancer = new AnnealingBalancer();
+    var clusterInfo = FakeClusterInfo.of(3, 3, 3, 1);
+    Assertions.assertThrows(
+        IllegalArgumentException.class,
+        () ->
+            balancer.offer(
+                AlgorithmConfig.builder()
+                    .clusterInfo(clusterInfo)
+                    .clusterCost(new ReplicaNumberCost())
+                    .config(AnnealingBalancer.TEMPERATURE_INITIAL_CONFIG, "-1")
+                    .build()));
+    Assertions.assertThrows(
+        IllegalArgumentException.class,
+        () ->
+            balancer.offer(
+                AlgorithmConfig.builder()
+                    .clusterInfo(clusterInfo)
+                    .clusterCost(new ReplicaNumberCost())
+                    .config(AnnealingBalancer.TEMPERATURE_INITIAL_CONFIG, "0.1")
+                    .config(AnnealingBalancer.TEMPERATURE_FINAL_CONFIG, "1")
+                    .build()));
+  }
+
+  @Test
+  void testSkewedCluster() {
+    // all replicas are hosted by broker 1 and 2
+    var clusterInfo =
+        ClusterInfo.builder()
+            .addNode(Set.of(1, 2))
+            .addFolders(Map.of(1, Set.of("/ssd1", "/ssd2"), 2, Set.of("/ssd1", "/ssd2")))
+            .addTopic("a", 20, (short) 1)
+            .addTopic("b", 10, (short) 2)
+            .addNode(Set.of(3, 4))
+            .addFolders(Map.of(3, Set.of("/ssd1", "/ssd2"), 4, Set.of("/ssd1", "/ssd2")))
+            .build();
+    var cost = new ReplicaNumberCost();
+    var plan =
+        new AnnealingBalancer()
+            .offer(
+                AlgorithmConfig.builder()
+                    .clusterInfo(clusterInfo)
+                    .clusterCost(cost)
+                    .timeout(Duration.ofMillis(500))
+                    .config(AnnealingBalancer.RESTART_INTERVAL_CONFIG, "50")
+                    .config(AnnealingBalancer.TABU_SIZE_CONFIG, "4")
+                    .build());
+    Assertions.assertTrue(plan.isPresent());
+    Assertions.assertTrue(
+        plan.get().proposalClusterCost().value() < plan.get().initialClusterCost().value());
+    Assertions.assertEquals(
+        plan.get().proposalClusterCost().value(),
+        cost.clusterCost(plan.get().proposal(), ClusterBean.EMPTY).value(),
+        1e-9);
+    Assertions.assertTrue(plan.get().proposal().replicaStream(3).findAny().isPresent());
+  }
+
+  @Test
+  void testJmx() {
+    var cost = new DecreasingCost(Configuration.of(Map.of()));
+    var id = "TestJmx-" + UUID.randomUUID();
+    var clusterInfo = FakeClusterInfo.of(5, 5, 5, 2);
+    var balancer = new AnnealingBalancer();
+
+    try (JndiClient client = JndiClient.local()) {
+      for (var run = 0; run < 3; run++) {
+        var plan =
+            balancer.offer(
+                AlgorithmConfig.builder()
+                    .clusterInfo(clusterInfo)
+                    .clusterBean(ClusterBean.EMPTY)
+                    .timeout(Duration.ofMillis(300))
+                    .executionId(id)
+                    .clusterCost(cost)
+                    .config(AnnealingBalancer.ITERATION_CONFIG, "100")
+                    .build());
+        Assertions.assertTrue(plan.isPresent());
+        var query =
+            BeanQuery.builder()
+                .domainName("astraea.balancer")
+                .property("id", id)
+                .property("algorithm", AnnealingBalancer.class.getSimpleName())
+                .property("run", Integer.toString(run))
+                .build();
+        var bean = Assertions.assertDoesNotThrow(() -> client.bean(query));
+        Assertions.assertTrue(0 < (long) bean.attributes().get("Iteration"));
+        Assertions.assertTrue(1.0 > (double) bean.attributes().get("MinCost"));
+        Assertions.assertTrue(0.01 >= (double) bean.attributes().get("Temperature"));
+        Assertions.assertTrue(0 <= (long) bean.attributes().get("Restart"));
+        Assertions.assertTrue(0 < (long) bean.attributes().get("Candidate"));
+      }
+    }
+  }
+}
@@ -18,14 +18,19 @@ package org.astraea.common.balancer.algorithms;
 
 import java.time.Duration;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 import java.util.stream.IntStream;
 import org.astraea.common.Configuration;
 import org.astraea.common.Utils;
+import org.astraea.common.admin.ClusterInfo;
 import org.astraea.common.balancer.AlgorithmConfig;
 import org.astraea.common.balancer.BalancerConfigTestSuite;
 import org.astraea.common.balancer.FakeClusterInfo;
 import org.astraea.common.cost.DecreasingCost;
+import org.astraea.common.cost.HasClusterCost;
+import org.astraea.common.cost.ReplicaLeaderCost;
+import org.astraea.common.cost.ReplicaNumberCost;
 import org.astraea.common.metrics.BeanQuery;
 import org.astraea.common.metrics.ClusterBean;
 import org.astraea.common.metrics.JndiClient;
@@ -49,6 +54,8 @@ class GreedyBalancerTest extends BalancerConfigTestSuite {
     Assertions.assertTrue(
         GreedyBalancer.ALL_CONFIGS.contains("iteration"),
         "Config exists for backward compatability reason");
+    Assertions.assertTrue(GreedyBalancer.ALL_CONFIGS.contains("parallelism"));
+    Assertions.assertTrue(GreedyBalancer.ALL_CONFIGS.contains("tweaker"));
 
     Assertions.assertEquals(
         GreedyBalancer.ALL_CONFIGS.size(),
@@ -92,7 +99,78 @@ class GreedyBalancerTest extends BalancerConfigTestSuite {
                 Assertions.assertEquals("astraea.balancer", bean.domainName());
                 Assertions.assertTrue(0 < (long) bean.attributes().get("Iteration"));
                 Assertions.assertTrue(1.0 > (double) bean.attributes().get("MinCost"));
+                Assertions.assertTrue(0 < (long) bean.attributes().get("Candidate"));
               });
     }
   }
+
+  @Test
+  void testParallelSearch() {
+    var cost = new DecreasingCost(Configuration.of(Map.of()));
+    var clusterInfo = FakeClusterInfo.of(5, 5, 5, 2);
+    var balancer = Utils.construct(GreedyBalancer.class, Configuration.EMPTY);
+    var plan =
+        balancer.offer(
+            AlgorithmConfig.builder()
+                .clusterInfo(clusterInfo)
+                .clusterBean(ClusterBean.EMPTY)
+                .timeout(Duration.ofMillis(500))
+                .clusterCost(cost)
+                .config(GreedyBalancer.PARALLELISM_CONFIG, "4")
+                .config(GreedyBalancer.ITERATION_CONFIG, "1000")
+                .build());
+    Assertions.assertTrue(plan.isPresent());
+    Assertions.assertTrue(plan.get().proposalClusterCost().value() < 1.0);
+
+    Assertions.assertThrows(
+        IllegalArgumentException.class,
+        () ->
+            balancer.offer(
+                AlgorithmConfig.builder()
+                    .clusterInfo(clusterInfo)
+                    .clusterBean(ClusterBean.EMPTY)
+                    .timeout(Duration.ofMillis(100))
+                    .clusterCost(cost)
+                    .config(GreedyBalancer.PARALLELISM_CONFIG, "0")
+                    .build()));
+  }
+
+  @Test
+  void testGuidedTweaker() {
+    // all replicas are hosted by broker 1 and 2
+    var clusterInfo =
+        ClusterInfo.builder()
+            .addNode(Set.of(1, 2))
+            .addFolders(Map.of(1, Set.of("/ssd1", "/ssd2"), 2, Set.of("/ssd1", "/ssd2")))
+            .addTopic("a", 20, (short) 1)
+            .addTopic("b", 10, (short) 2)
+            .addNode(Set.of(3, 4))
+            .addFolders(Map.of(3, Set.of("/ssd1", "/ssd2"), 4, Set.of("/ssd1", "/ssd2")))
+            .build();
+    var cost = HasClusterCost.of(Map.of(new ReplicaNumberCost(), 1D, new ReplicaLeaderCost(), 1D));
+    var balancer = Utils.construct(GreedyBalancer.class, Configuration.EMPTY);
+    var plan =
+        balancer.offer(
+            AlgorithmConfig.builder()
+                .clusterInfo(clusterInfo)
+                .clusterBean(ClusterBean.EMPTY)
+                .timeout(Duration.ofMillis(500))
+                .clusterCost(cost)
+                .config(GreedyBalancer.TWEAKER_CONFIG, "guided")
+                .build());
+    Assertions.assertTrue(plan.isPresent());
+    Assertions.assertTrue(
+        plan.get().proposalClusterCost().value() < plan.get().initialClusterCost().value());
+    Assertions.assertTrue(plan.get().proposal().replicaStream(3).findAny().isPresent());
+
+    Assertions.assertThrows(
+        IllegalArgumentException.class,
+        () ->
+            balancer.offer(
+                AlgorithmConfig.builder()
+                    .clusterInfo(clusterInfo)
+                    .clusterCost(cost)
+                    .config(GreedyBalancer.TWEAKER_CONFIG, "unknown")
+                    .build()));
+  }
 }
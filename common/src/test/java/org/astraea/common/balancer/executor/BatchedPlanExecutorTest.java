@@ -0,0 +1,304 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.astraea.common.balancer.executor;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import org.astraea.common.Configuration;
+import org.astraea.common.DataSize;
+import org.astraea.common.Utils;
+import org.astraea.common.admin.Admin;
+import org.astraea.common.admin.BrokerConfigs;
+import org.astraea.common.admin.ClusterInfo;
+import org.astraea.common.admin.NodeInfo;
+import org.astraea.common.admin.Replica;
+import org.astraea.common.admin.TopicConfigs;
+import org.astraea.common.admin.TopicPartition;
+import org.astraea.common.metrics.BeanQuery;
+import org.astraea.common.metrics.JndiClient;
+import org.astraea.it.Service;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class BatchedPlanExecutorTest {
+
+  private static final Service SERVICE = Service.builder().numberOfBrokers(3).build();
+
+  @AfterAll
+  static void closeService() {
+    SERVICE.close();
+  }
+
+  private static BatchedPlanExecutor.Move move(
+      int partition, Set<Integer> from, int to, long size) {
+    return new BatchedPlanExecutor.Move(
+        TopicPartition.of("topic", partition), List.of(to), from, size);
+  }
+
+  @Test
+  void testConfig() {
+    Assertions.assertTrue(BatchedPlanExecutor.ALL_CONFIGS.contains("max.bytes.in.flight"));
+    Assertions.assertTrue(BatchedPlanExecutor.ALL_CONFIGS.contains("max.moves.per.broker"));
+    Assertions.assertTrue(BatchedPlanExecutor.ALL_CONFIGS.contains("throttle"));
+    Assertions.assertTrue(BatchedPlanExecutor.ALL_CONFIGS.contains("poll.interval"));
+    Assertions.assertThrows(
+        IllegalArgumentException.class,
+        () ->
+            new BatchedPlanExecutor(
+                Configuration.of(Map.of(BatchedPlanExecutor.MAX_MOVES_PER_BROKER_CONFIG, "0"))));
+    Assertions.assertThrows(
+        IllegalArgumentException.class,
+        () ->
+            new BatchedPlanExecutor(
+                Configuration.of(Map.of(BatchedPlanExecutor.MAX_BYTES_IN_FLIGHT_CONFIG, "0Byte"))));
+  }
+
+  @Test
+  void testMove() {
+    var current =
+        List.of(
+            Replica.builder()
+                .topic("topic")
+                .partition(0)
+                .nodeInfo(NodeInfo.of(0, "", -1))
+                .size(100)
+                .isLeader(true)
+                .isPreferredLeader(true)
+                .path("/ssd")
+                .build(),
+            Replica.builder()
+                .topic("topic")
+                .partition(0)
+                .nodeInfo(NodeInfo.of(1, "", -1))
+                .size(80)
+                .isPreferredLeader(false)
+                .path("/ssd")
+                .build());
+    var target =
+        List.of(
+            Replica.builder(current.get(0))
+                .nodeInfo(NodeInfo.of(2, "", -1))
+                .isPreferredLeader(false)
+                .build(),
+            Replica.builder(current.get(1))
+                .nodeInfo(NodeInfo.of(3, "", -1))
+                .isPreferredLeader(true)
+                .build());
+    var move = BatchedPlanExecutor.Move.of(current, target);
+    Assertions.assertEquals(TopicPartition.of("topic", 0), move.partition());
+    Assertions.assertEquals(List.of(3, 2), move.brokers());
+    Assertions.assertEquals(Set.of(0, 1), move.sources());
+    Assertions.assertEquals(Set.of(2, 3), move.adding());
+    Assertions.assertEquals(Set.of(0, 1, 2, 3), move.involved());
+    Assertions.assertEquals(200, move.bytes());
+  }
+
+  @Test
+  void testMoveIsDone() {
+    Function<Integer, Replica> replica =
+        id ->
+            Replica.builder()
+                .topic("topic")
+                .partition(0)
+                .nodeInfo(NodeInfo.of(id, "", -1))
+                .size(100)
+                .isSync(true)
+                .path("/ssd")
+                .build();
+    Function<List<Replica>, ClusterInfo> cluster =
+        replicas -> ClusterInfo.of("fake", List.of(), Map.of(), replicas);
+    // keep the replica on broker 1 and move the replica from broker 0 to broker 2
+    var move =
+        new BatchedPlanExecutor.Move(
+            TopicPartition.of("topic", 0), List.of(1, 2), Set.of(0, 1), 100);
+    var lagging1 = Replica.builder(replica.apply(1)).isSync(false).build();
+    var lagging2 = Replica.builder(replica.apply(2)).isSync(false).build();
+
+    // the lagging replica on broker 1 is not a part of this move
+    Assertions.assertTrue(move.isDone(cluster.apply(List.of(lagging1, replica.apply(2)))));
+    // the new replica is not synced yet
+    Assertions.assertFalse(move.isDone(cluster.apply(List.of(replica.apply(1), lagging2))));
+    // the old replica is not removed yet
+    Assertions.assertFalse(
+        move.isDone(cluster.apply(List.of(replica.apply(0), replica.apply(1), replica.apply(2)))));
+  }
+
+  @Test
+  void testSchedulerBytesLimit() {
+    var moves =
+        List.of(
+            move(0, Set.of(0), 1, 300),
+            move(1, Set.of(2), 3, 200),
+            move(2, Set.of(4), 5, 100),
+            move(3, Set.of(6), 7, 50));
+    var scheduler = new BatchedPlanExecutor.Scheduler(moves, 350, 10);
+    Assertions.assertEquals(650, scheduler.totalBytes());
+
+    // the small partition fills the rest of slot
+    var first = scheduler.next();
+    Assertions.assertEquals(List.of(moves.get(0), moves.get(3)), first);
+    Assertions.assertEquals(2, scheduler.inFlightSize());
+    Assertions.assertEquals(List.of(), scheduler.next());
+
+    // the next move starts once a slot gets free
+    scheduler.complete(moves.get(3));
+    Assertions.assertEquals(List.of(), scheduler.next());
+    scheduler.complete(moves.get(0));
+    Assertions.assertEquals(List.of(moves.get(1), moves.get(2)), scheduler.next());
+    Assertions.assertEquals(2, scheduler.done());
+    Assertions.assertEquals(350, scheduler.movedBytes());
+
+    scheduler.complete(moves.get(1));
+    scheduler.complete(moves.get(2));
+    Assertions.assertTrue(scheduler.finished());
+    Assertions.assertEquals(650, scheduler.movedBytes());
+  }
+
+  @Test
+  void testSchedulerOversizedMove() {
+    var moves = List.of(move(0, Set.of(0), 1, 1000), move(1, Set.of(2), 3, 10));
+    var scheduler = new BatchedPlanExecutor.Scheduler(moves, 100, 10);
+    // the oversized move is allowed only if there is nothing in flight
+    Assertions.assertEquals(List.of(moves.get(0)), scheduler.next());
+    Assertions.assertEquals(List.of(), scheduler.next());
+    scheduler.complete(moves.get(0));
+    Assertions.assertEquals(List.of(moves.get(1)), scheduler.next());
+  }
+
+  @Test
+  void testSchedulerBrokerLimit() {
+    var moves =
+        List.of(
+            move(0, Set.of(0), 1, 10),
+            move(1, Set.of(0), 2, 10),
+            move(2, Set.of(0), 3, 10),
+            move(3, Set.of(4), 5, 10));
+    var scheduler = new BatchedPlanExecutor.Scheduler(moves, Long.MAX_VALUE, 2);
+    Assertions.assertEquals(List.of(moves.get(0), moves.get(1), moves.get(3)), scheduler.next());
+    scheduler.complete(moves.get(1));
+    Assertions.assertEquals(List.of(moves.get(2)), scheduler.next());
+  }
+
+  @Test
+  void testSchedulerProgress() {
+    var moves = List.of(move(0, Set.of(0), 1, 100), move(1, Set.of(2), 3, 100));
+    var scheduler = new BatchedPlanExecutor.Scheduler(moves, Long.MAX_VALUE, 2);
+    Assertions.assertEquals(Duration.ZERO, scheduler.eta(Duration.ofSeconds(10)));
+    scheduler.next();
+    scheduler.progress(moves.get(0), 30);
+    scheduler.progress(moves.get(1), 20);
+    Assertions.assertEquals(50, scheduler.movedBytes());
+    Assertions.assertEquals(Duration.ofSeconds(30), scheduler.eta(Duration.ofSeconds(10)));
+    scheduler.complete(moves.get(0));
+    Assertions.assertEquals(120, scheduler.movedBytes());
+  }
+
+  @Test
+  void testRun() {
+    try (Admin admin = Admin.of(SERVICE.bootstrapServers())) {
+      var topic = Utils.randomString();
+      admin
+          .creator()
+          .topic(topic)
+          .numberOfPartitions(10)
+          .numberOfReplicas((short) 1)
+          .run()
+          .toCompletableFuture()
+          .join();
+      Utils.sleep(Duration.ofSeconds(2));
+
+      var source = admin.clusterInfo(Set.of(topic)).toCompletableFuture().join();
+      var target =
+          ClusterInfo.builder(source)
+              .mapLog(
+                  replica -> {
+                    var broker = (replica.nodeInfo().id() + 1) % 3;
+                    return Replica.builder(replica)
+                        .nodeInfo(NodeInfo.of(broker, "", -1))
+                        .path(SERVICE.dataFolders().get(broker).stream().findAny().orElseThrow())
+                        .build();
+                  })
+              .build();
+
+      var executor =
+          new BatchedPlanExecutor(
+              Configuration.of(
+                  Map.of(
+                      BatchedPlanExecutor.MAX_MOVES_PER_BROKER_CONFIG, "1",
+                      BatchedPlanExecutor.THROTTLE_CONFIG, "100MiB",
+                      BatchedPlanExecutor.POLL_INTERVAL_CONFIG, "100ms")));
+      executor.run(admin, target, Duration.ofSeconds(30)).toCompletableFuture().join();
+
+      var current = admin.clusterInfo(Set.of(topic)).toCompletableFuture().join();
+      target
+          .topicPartitions()
+          .forEach(
+              tp ->
+                  Assertions.assertTrue(
+                      ClusterInfo.placementMatch(target.replicas(tp), current.replicas(tp))));
+
+      // the throttles are removed
+      var topicConfigs = admin.topics(Set.of(topic)).toCompletableFuture().join().get(0).config();
+      Assertions.assertEquals(
+          "",
+          topicConfigs
+              .value(TopicConfigs.FOLLOWER_REPLICATION_THROTTLED_REPLICAS_CONFIG)
+              .orElse(""));
+      Assertions.assertEquals(
+          "",
+          topicConfigs.value(TopicConfigs.LEADER_REPLICATION_THROTTLED_REPLICAS_CONFIG).orElse(""));
+      admin
+          .brokers()
+          .toCompletableFuture()
+          .join()
+          .forEach(
+              broker ->
+                  Assertions.assertNotEquals(
+                      Optional.of(String.valueOf(DataSize.MiB.of(100).bytes())),
+                      broker
+                          .config()
+                          .value(BrokerConfigs.FOLLOWER_REPLICATION_THROTTLED_RATE_CONFIG)));
+
+      // the progress is exposed by JMX
+      try (var client = JndiClient.local()) {
+        var beans =
+            client.beans(
+                BeanQuery.builder()
+                    .domainName("astraea.balancer")
+                    .property("executor", BatchedPlanExecutor.class.getSimpleName())
+                    .propertyListPattern(true)
+                    .build());
+        Assertions.assertTrue(
+            beans.stream()
+                .anyMatch(
+                    bean ->
+                        (int) bean.attributes().get("TotalPartitions")
+                                == target.topicPartitions().size()
+                            && (int) bean.attributes().get("DonePartitions")
+                                == target.topicPartitions().size()
+                            && (int) bean.attributes().get("InFlightPartitions") == 0),
+            beans.stream().map(b -> b.attributes().toString()).collect(Collectors.joining()));
+      }
+    }
+  }
+}
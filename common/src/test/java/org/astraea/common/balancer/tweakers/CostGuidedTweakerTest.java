@@ -0,0 +1,143 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.astraea.common.balancer.tweakers;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import org.astraea.common.admin.ClusterInfo;
+import org.astraea.common.admin.Replica;
+import org.astraea.common.cost.ReplicaNumberCost;
+import org.astraea.common.metrics.ClusterBean;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class CostGuidedTweakerTest {
+
+  // all replicas are hosted by broker 1 and 2
+  private static final ClusterInfo SKEWED =
+      ClusterInfo.builder()
+          .addNode(Set.of(1, 2))
+          .addFolders(Map.of(1, Set.of("/ssd1", "/ssd2"), 2, Set.of("/ssd1", "/ssd2")))
+          .addTopic("a", 20, (short) 1)
+          .addTopic("b", 10, (short) 2)
+          .addNode(Set.of(3, 4))
+          .addFolders(Map.of(3, Set.of("/ssd1", "/ssd2"), 4, Set.of("/ssd1", "/ssd2")))
+          .build();
+
+  @Test
+  void testNoBroker() {
+    var tweaker = CostGuidedTweaker.builder(replica -> 1).build();
+    Assertions.assertEquals(0, tweaker.generate(ClusterInfo.empty()).count());
+    Assertions.assertEquals(
+        0,
+        tweaker
+            .generate(
+                ClusterInfo.builder()
+                    .addNode(Set.of(1))
+                    .addFolders(Map.of(1, Set.of("/ssd1", "/ssd2")))
+                    .addTopic("a", 10, (short) 1)
+                    .build())
+            .count());
+    Assertions.assertEquals(
+        0, tweaker.generate(ClusterInfo.builder().addNode(Set.of(1, 2)).build()).count());
+  }
+
+  @Test
+  void testMoveToIdleBrokers() {
+    var cost = new ReplicaNumberCost();
+    var initial = cost.clusterCost(SKEWED, ClusterBean.EMPTY).value();
+    var tweaker =
+        CostGuidedTweaker.builder(replica -> 1)
+            .numberOfShuffle(() -> 3)
+            .allowedTopics(topic -> !topic.equals("b"))
+            .build();
+    tweaker
+        .generate(SKEWED)
+        .limit(100)
+        .forEach(
+            candidate -> {
+              var changed = ClusterInfo.findNonFulfilledAllocation(SKEWED, candidate);
+              Assertions.assertEquals(3, changed.size());
+              Assertions.assertTrue(changed.stream().allMatch(tp -> tp.topic().equals("a")));
+              // the replicas are moved from the busy brokers only
+              Assertions.assertEquals(
+                  3, candidate.replicaStream(3).count() + candidate.replicaStream(4).count());
+              Assertions.assertTrue(
+                  cost.clusterCost(candidate, ClusterBean.EMPTY).value() <= initial);
+            });
+  }
+
+  @Test
+  void testAllowedBrokers() {
+    var tweaker =
+        CostGuidedTweaker.builder(replica -> 1)
+            .numberOfShuffle(() -> 5)
+            .allowedBrokers(id -> id != 2 && id != 4)
+            .build();
+    tweaker
+        .generate(SKEWED)
+        .limit(100)
+        .forEach(
+            candidate -> {
+              Assertions.assertEquals(0, candidate.replicaStream(4).count());
+              Assertions.assertEquals(
+                  SKEWED
+                      .replicaStream(2)
+                      .map(Replica::topicPartitionReplica)
+                      .collect(Collectors.toSet()),
+                  candidate
+                      .replicaStream(2)
+                      .map(Replica::topicPartitionReplica)
+                      .collect(Collectors.toSet()));
+            });
+  }
+
+  @Test
+  void testLeadershipChange() {
+    // the leaders carry all the load, so the followers take over the leadership
+    var cluster =
+        ClusterInfo.builder()
+            .addNode(Set.of(1, 2))
+            .addFolders(Map.of(1, Set.of("/ssd1"), 2, Set.of("/ssd1")))
+            .addTopic(
+                "a",
+                10,
+                (short) 2,
+                replica ->
+                    Replica.builder(replica)
+                        .isLeader(replica.nodeInfo().id() == 1)
+                        .isPreferredLeader(replica.nodeInfo().id() == 1)
+                        .build())
+            .build();
+    var tweaker =
+        CostGuidedTweaker.builder(replica -> replica.isLeader() ? 1 : 0)
+            .numberOfShuffle(() -> 1)
+            .build();
+    tweaker
+        .generate(cluster)
+        .limit(50)
+        .forEach(
+            candidate -> {
+              var changed = ClusterInfo.findNonFulfilledAllocation(cluster, candidate);
+              Assertions.assertEquals(1, changed.size());
+              var tp = changed.iterator().next();
+              Assertions.assertEquals(
+                  2, candidate.replicaLeader(tp).orElseThrow().nodeInfo().id());
+            });
+  }
+}
@@ -27,6 +27,7 @@ import java.util.stream.Collectors;
 import org.astraea.common.Utils;
 import org.astraea.common.admin.ClusterInfo;
 import org.astraea.common.admin.ClusterInfoTest;
+import org.astraea.common.admin.CompactAllocation;
 import org.astraea.common.admin.NodeInfo;
 import org.astraea.common.admin.Replica;
 import org.astraea.common.admin.TopicPartition;
@@ -212,4 +213,47 @@ class ShuffleTweakerTest {
                   "only normal-topic get altered. Actual: " + notFulfilled);
             });
   }
+
+  @ParameterizedTest
+  @ValueSource(ints = {1, 3, 5, 7})
+  void testCompactShuffle(int shuffle) {
+    final var fakeCluster = FakeClusterInfo.of(30, 30, 20, 5);
+    final var allocation = CompactAllocation.of(fakeCluster);
+    final var tweaker =
+        ShuffleTweaker.builder()
+            .numberOfShuffle(() -> shuffle)
+            .allowedTopics(topic -> !topic.equals(fakeCluster.topicNames().iterator().next()))
+            .build()
+            .compact(allocation);
+    final var frozenTopic = fakeCluster.topicNames().iterator().next();
+    Assertions.assertFalse(tweaker.isEmpty());
+
+    for (int i = 0; i < 100; i++) {
+      Assertions.assertEquals(shuffle, tweaker.tweak());
+      final var that = allocation.toClusterInfo();
+      final var changed = ClusterInfo.findNonFulfilledAllocation(fakeCluster, that);
+      Assertions.assertNotEquals(Set.of(), changed);
+      Assertions.assertTrue(changed.stream().noneMatch(tp -> tp.topic().equals(frozenTopic)));
+      // every partition keeps one leader and distinct brokers
+      changed.forEach(
+          tp -> {
+            var replicas = that.replicas(tp);
+            Assertions.assertEquals(1, replicas.stream().filter(Replica::isLeader).count());
+            Assertions.assertEquals(
+                replicas.size(),
+                replicas.stream().map(r -> r.nodeInfo().id()).distinct().count());
+          });
+      allocation.rollback();
+      Assertions.assertSame(fakeCluster, allocation.toClusterInfo());
+    }
+  }
+
+  @Test
+  void testCompactShuffleNoReplica() {
+    Assertions.assertTrue(
+        ShuffleTweaker.builder()
+            .build()
+            .compact(CompactAllocation.of(ClusterInfo.builder().addNode(Set.of(1, 2)).build()))
+            .isEmpty());
+  }
 }
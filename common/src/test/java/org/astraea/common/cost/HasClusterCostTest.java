@@ -18,7 +18,12 @@ package org.astraea.common.cost;
 
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import org.astraea.common.admin.ClusterInfo;
+import org.astraea.common.admin.CompactAllocation;
+import org.astraea.common.admin.Replica;
+import org.astraea.common.balancer.FakeClusterInfo;
+import org.astraea.common.balancer.tweakers.ShuffleTweaker;
 import org.astraea.common.metrics.ClusterBean;
 import org.astraea.common.metrics.collector.MetricSensor;
 import org.junit.jupiter.api.Assertions;
@@ -46,4 +51,79 @@ public class HasClusterCostTest {
     var f2 = HasClusterCost.of(Map.of(function, 1D));
     Assertions.assertTrue(f2.metricSensor().isPresent());
   }
+
+  @Test
+  void testCompositeDelta() {
+    var function =
+        HasClusterCost.of(Map.of(new ReplicaNumberCost(), 1D, new ReplicaLeaderCost(), 2D));
+    var base = FakeClusterInfo.of(5, 5, 10, 2);
+    var state = function.state(base, ClusterBean.EMPTY);
+    Assertions.assertEquals(
+        function.clusterCost(base, ClusterBean.EMPTY).value(), state.cost().value(), 1e-9);
+    ShuffleTweaker.builder()
+        .build()
+        .generate(base)
+        .limit(30)
+        .forEach(
+            after -> {
+              var changed = ClusterInfo.findNonFulfilledAllocation(base, after);
+              var next = function.delta(base, state, after, changed, ClusterBean.EMPTY);
+              Assertions.assertEquals(
+                  function.clusterCost(after, ClusterBean.EMPTY).value(),
+                  next.cost().value(),
+                  1e-9);
+            });
+  }
+
+  @Test
+  void testDefaultDelta() {
+    HasClusterCost function = (clusterInfo, clusterBean) -> () -> clusterInfo.replicas().size();
+    var base = FakeClusterInfo.of(5, 5, 10, 2);
+    var after = FakeClusterInfo.of(5, 5, 10, 3);
+    var state = function.state(base, ClusterBean.EMPTY);
+    Assertions.assertEquals(100, state.cost().value());
+    Assertions.assertEquals(
+        150, function.delta(base, state, after, Set.of(), ClusterBean.EMPTY).cost().value());
+  }
+
+  @Test
+  void testCompositeCompactCost() {
+    var base = FakeClusterInfo.of(5, 5, 10, 2);
+    var allocation = CompactAllocation.of(base);
+    var function =
+        HasClusterCost.of(Map.of(new ReplicaNumberCost(), 1D, new ReplicaLeaderCost(), 2D));
+    Assertions.assertEquals(
+        function.clusterCost(base, ClusterBean.EMPTY).value(),
+        function.compactCost(allocation, ClusterBean.EMPTY),
+        1e-9);
+
+    // the default implementation doesn't support compact allocation
+    HasClusterCost unsupported = (clusterInfo, clusterBean) -> () -> 0;
+    Assertions.assertTrue(Double.isNaN(unsupported.compactCost(allocation, ClusterBean.EMPTY)));
+    Assertions.assertTrue(
+        Double.isNaN(
+            HasClusterCost.of(Map.of(new ReplicaNumberCost(), 1D, unsupported, 1D))
+                .compactCost(allocation, ClusterBean.EMPTY)));
+  }
+
+  @Test
+  void testCompositeReplicaLoad() {
+    var base = FakeClusterInfo.of(5, 5, 10, 2);
+    HasClusterCost unsupported = (clusterInfo, clusterBean) -> () -> 0;
+    Assertions.assertTrue(unsupported.replicaLoad(base, ClusterBean.EMPTY).isEmpty());
+    Assertions.assertTrue(
+        HasClusterCost.of(Map.of(unsupported, 1D)).replicaLoad(base, ClusterBean.EMPTY).isEmpty());
+
+    var load =
+        HasClusterCost.of(
+                Map.of(new ReplicaNumberCost(), 1D, new ReplicaLeaderCost(), 1D, unsupported, 2D))
+            .replicaLoad(base, ClusterBean.EMPTY)
+            .orElseThrow();
+    // the load of each function is normalized by its total load
+    var leader = base.replicaStream().filter(Replica::isLeader).findFirst().orElseThrow();
+    var follower = base.replicaStream().filter(Replica::isFollower).findFirst().orElseThrow();
+    Assertions.assertEquals(0.25 / 100 + 0.25 / 50, load.applyAsDouble(leader), 1e-9);
+    Assertions.assertEquals(0.25 / 100, load.applyAsDouble(follower), 1e-9);
+    Assertions.assertEquals(0.5, base.replicaStream().mapToDouble(load).sum(), 1e-9);
+  }
 }
@@ -25,10 +25,16 @@ import static org.astraea.common.cost.MigrationCost.replicaNumChanged;
 
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.astraea.common.Configuration;
 import org.astraea.common.admin.ClusterInfo;
 import org.astraea.common.admin.ClusterInfoTest;
 import org.astraea.common.admin.NodeInfo;
 import org.astraea.common.admin.Replica;
+import org.astraea.common.balancer.FakeClusterInfo;
+import org.astraea.common.balancer.tweakers.ShuffleTweaker;
+import org.astraea.common.metrics.ClusterBean;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
@@ -433,4 +439,63 @@ class MigrationCostTest {
                 .isLeader(false)
                 .build()));
   }
+
+  @Test
+  void testMigrationCostsOfChangedPartitions() {
+    var before = FakeClusterInfo.of(5, 5, 10, 2);
+    ShuffleTweaker.builder()
+        .build()
+        .generate(before)
+        .limit(30)
+        .forEach(
+            after -> {
+              var changed = ClusterInfo.findNonFulfilledAllocation(before, after);
+              var expected =
+                  MigrationCost.migrationCosts(before, after).stream()
+                      .collect(Collectors.toMap(c -> c.name, c -> c.brokerCosts));
+              var actual =
+                  MigrationCost.migrationCosts(before, after, changed).stream()
+                      .collect(Collectors.toMap(c -> c.name, c -> c.brokerCosts));
+              Assertions.assertEquals(expected, actual);
+            });
+  }
+
+  @Test
+  void testMoveCostOfChangedPartitions() {
+    var before = FakeClusterInfo.of(5, 5, 10, 2);
+    var limits = List.of("1", "5", "20");
+    var costFunctions =
+        limits.stream()
+            .flatMap(
+                limit ->
+                    Stream.<HasMoveCost>of(
+                        new ReplicaNumberCost(
+                            Configuration.of(Map.of(ReplicaNumberCost.COST_LIMIT_KEY, limit))),
+                        new ReplicaLeaderCost(
+                            Configuration.of(
+                                Map.of(ReplicaLeaderCost.MAX_MIGRATE_LEADER_KEY, limit))),
+                        new RecordSizeCost(
+                            Configuration.of(
+                                Map.of(RecordSizeCost.MAX_MIGRATE_SIZE_KEY, limit + "KB"))),
+                        new ReplicaLeaderSizeCost(
+                            Configuration.of(
+                                Map.of(ReplicaLeaderSizeCost.COST_LIMIT_KEY, limit + "KB")))))
+            .collect(Collectors.toUnmodifiableList());
+    ShuffleTweaker.builder()
+        .build()
+        .generate(before)
+        .limit(30)
+        .forEach(
+            after -> {
+              // the tweaked allocation is an overlay, so only the touched partitions are checked
+              var changed = ClusterInfo.changedPartitions(before, after);
+              Assertions.assertTrue(changed.size() < before.topicPartitions().size());
+              costFunctions.forEach(
+                  cf ->
+                      Assertions.assertEquals(
+                          cf.moveCost(before, after, ClusterBean.EMPTY).overflow(),
+                          cf.moveCost(before, after, changed, ClusterBean.EMPTY).overflow(),
+                          cf.toString()));
+            });
+  }
 }
@@ -150,6 +150,29 @@ class NetworkCostTest {
         newPlan.get().initialClusterCost().value() > newPlan.get().proposalClusterCost().value());
   }
 
+  @ParameterizedTest
+  @MethodSource("testcases")
+  @DisplayName("Incremental evaluation matches full evaluation")
+  void testDelta(HasClusterCost costFunction, TestCase testcase) {
+    var base = testcase.clusterInfo();
+    var bean = testcase.clusterBean();
+    var state = costFunction.state(base, bean);
+    Assertions.assertEquals(
+        costFunction.clusterCost(base, bean).value(), state.cost().value(), 1e-9);
+    ShuffleTweaker.builder()
+        .build()
+        .generate(base)
+        .limit(20)
+        .forEach(
+            after -> {
+              var changed = ClusterInfo.findNonFulfilledAllocation(base, after);
+              Assertions.assertEquals(
+                  costFunction.clusterCost(after, bean).value(),
+                  costFunction.delta(base, state, after, changed, bean).cost().value(),
+                  1e-9);
+            });
+  }
+
   @Test
   void testCompositeOptimization() {
     var testCase = new LargeTestCase(10, 300, 0xfeed);
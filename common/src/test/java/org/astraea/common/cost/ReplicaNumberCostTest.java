@@ -20,6 +20,9 @@ import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ThreadLocalRandom;
 import org.astraea.common.admin.ClusterInfo;
+import org.astraea.common.admin.CompactAllocation;
+import org.astraea.common.balancer.FakeClusterInfo;
+import org.astraea.common.balancer.tweakers.ShuffleTweaker;
 import org.astraea.common.metrics.ClusterBean;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
@@ -103,4 +106,45 @@ class ReplicaNumberCostTest {
       Assertions.assertEquals(0, cost.clusterCost(evenCluster, ClusterBean.EMPTY).value());
     }
   }
+
+  @Test
+  void testDelta() {
+    var cost = new ReplicaNumberCost();
+    var base = FakeClusterInfo.of(5, 5, 10, 2);
+    var state = cost.state(base, ClusterBean.EMPTY);
+    Assertions.assertEquals(
+        cost.clusterCost(base, ClusterBean.EMPTY).value(), state.cost().value());
+    ShuffleTweaker.builder()
+        .build()
+        .generate(base)
+        .limit(30)
+        .forEach(
+            after -> {
+              var changed = ClusterInfo.findNonFulfilledAllocation(base, after);
+              Assertions.assertEquals(
+                  cost.clusterCost(after, ClusterBean.EMPTY).value(),
+                  cost.delta(base, state, after, changed, ClusterBean.EMPTY).cost().value());
+            });
+  }
+
+  @Test
+  void testCompactCost() {
+    var cost = new ReplicaNumberCost();
+    var base = FakeClusterInfo.of(5, 5, 10, 2);
+    var allocation = CompactAllocation.of(base);
+    Assertions.assertEquals(
+        cost.clusterCost(base, ClusterBean.EMPTY).value(),
+        cost.compactCost(allocation, ClusterBean.EMPTY),
+        1e-9);
+    var tweaker = ShuffleTweaker.builder().build().compact(allocation);
+    for (var i = 0; i < 30; i++) {
+      tweaker.tweak();
+      Assertions.assertEquals(
+          cost.clusterCost(allocation.toClusterInfo(), ClusterBean.EMPTY).value(),
+          cost.compactCost(allocation, ClusterBean.EMPTY),
+          1e-9);
+      if (i % 2 == 0) allocation.rollback();
+      else allocation.commit();
+    }
+  }
 }
@@ -0,0 +1,138 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.astraea.common.metrics;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.astraea.common.admin.BrokerTopic;
+import org.astraea.common.admin.TopicPartition;
+import org.astraea.common.admin.TopicPartitionReplica;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class ClusterBeanIndexTest {
+
+  private static HasBeanObject bean(String topic, int partition, long time) {
+    var bean =
+        new BeanObject(
+            "kafka.log",
+            Map.of("name", "Size", "topic", topic, "partition", String.valueOf(partition)),
+            Map.of("Value", 100L),
+            time);
+    return () -> bean;
+  }
+
+  @Test
+  void testAddAndSnapshot() {
+    var index = ClusterBeanIndex.of();
+    Assertions.assertEquals(Set.of(), index.snapshot().brokerIds());
+
+    var b0 = bean("a", 0, 100);
+    var b1 = bean("a", 1, 100);
+    index.add(1, List.of(b0));
+    index.add(2, List.of(b1));
+
+    var snapshot = index.snapshot();
+    Assertions.assertSame(snapshot, index.snapshot(), "nothing changed");
+    Assertions.assertEquals(Set.of(1, 2), snapshot.brokerIds());
+    Assertions.assertEquals(Set.of("a"), snapshot.topics());
+    Assertions.assertEquals(
+        Set.of(TopicPartition.of("a", 0), TopicPartition.of("a", 1)), snapshot.partitions());
+    Assertions.assertEquals(
+        Set.of(TopicPartitionReplica.of("a", 0, 1), TopicPartitionReplica.of("a", 1, 2)),
+        snapshot.replicas());
+    Assertions.assertEquals(
+        Set.of(BrokerTopic.of(1, "a"), BrokerTopic.of(2, "a")), snapshot.brokerTopics());
+    Assertions.assertEquals(2, snapshot.topicMetrics("a", HasBeanObject.class).count());
+
+    // the old snapshot is immutable
+    index.add(1, List.of(bean("b", 0, 100)));
+    Assertions.assertEquals(Set.of("a"), snapshot.topics());
+    Assertions.assertEquals(Set.of("a", "b"), index.snapshot().topics());
+    Assertions.assertEquals(3, index.size());
+  }
+
+  @Test
+  void testExpire() {
+    var index = ClusterBeanIndex.of();
+    index.add(1, List.of(bean("a", 0, 100), bean("a", 0, 200)));
+    index.add(2, List.of(bean("b", 0, 100)));
+
+    Assertions.assertFalse(index.expire(50));
+    Assertions.assertTrue(index.expire(150));
+    var snapshot = index.snapshot();
+    Assertions.assertEquals(Set.of(1), snapshot.brokerIds());
+    Assertions.assertEquals(Set.of("a"), snapshot.topics());
+    Assertions.assertEquals(
+        1, snapshot.partitionMetrics(TopicPartition.of("a", 0), HasBeanObject.class).count());
+    Assertions.assertEquals(
+        200,
+        snapshot
+            .partitionMetrics(TopicPartition.of("a", 0), HasBeanObject.class)
+            .findFirst()
+            .orElseThrow()
+            .createdTimestamp());
+
+    Assertions.assertTrue(index.expire(300));
+    Assertions.assertEquals(0, index.size());
+    Assertions.assertEquals(Set.of(), index.snapshot().brokerIds());
+    Assertions.assertEquals(Set.of(), index.snapshot().partitions());
+  }
+
+  @Test
+  void testSameResultAsClusterBean() {
+    var index = ClusterBeanIndex.of();
+    var beans =
+        Map.of(
+            1, List.of(bean("a", 0, 100), bean("b", 1, 100)),
+            2, List.of(bean("a", 0, 100), bean("c", 3, 100)));
+    beans.forEach(index::add);
+    var expected = ClusterBean.of(beans);
+    var snapshot = index.snapshot();
+    Assertions.assertEquals(expected.topics(), snapshot.topics());
+    Assertions.assertEquals(expected.partitions(), snapshot.partitions());
+    Assertions.assertEquals(expected.replicas(), snapshot.replicas());
+    Assertions.assertEquals(expected.brokerTopics(), snapshot.brokerTopics());
+    Assertions.assertEquals(expected.all(), snapshot.all());
+  }
+
+  @Test
+  void testShareUnchangedBrokers() {
+    var index = ClusterBeanIndex.of();
+    index.add(1, List.of(bean("a", 0, 100)));
+    index.add(2, List.of(bean("b", 0, 300)));
+    var snapshot = index.snapshot();
+
+    index.add(1, List.of(bean("a", 1, 200)));
+    var next = index.snapshot();
+    Assertions.assertNotSame(snapshot, next);
+    // the beans of broker 2 are not copied
+    Assertions.assertSame(snapshot.all().get(2), next.all().get(2));
+    Assertions.assertNotSame(snapshot.all().get(1), next.all().get(1));
+    Assertions.assertEquals(1, snapshot.all().get(1).size());
+    Assertions.assertEquals(2, next.all().get(1).size());
+
+    // only broker 1 has expired beans
+    Assertions.assertTrue(index.expire(150));
+    var expired = index.snapshot();
+    Assertions.assertSame(next.all().get(2), expired.all().get(2));
+    Assertions.assertEquals(1, expired.all().get(1).size());
+    Assertions.assertEquals(
+        Set.of(TopicPartition.of("a", 1), TopicPartition.of("b", 0)), expired.partitions());
+  }
+}
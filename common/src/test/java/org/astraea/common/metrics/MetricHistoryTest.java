@@ -0,0 +1,137 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.astraea.common.metrics;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class MetricHistoryTest {
+
+  private static HasBeanObject bean(long time, Object value) {
+    var bean =
+        new BeanObject(
+            "kafka.server",
+            Map.of("type", "BrokerTopicMetrics", "name", "BytesInPerSec"),
+            Map.of("Count", value, "RateUnit", "SECONDS"),
+            time);
+    return () -> bean;
+  }
+
+  @Test
+  void testRecordAndQuery() {
+    var history =
+        MetricHistory.builder()
+            .retention(Duration.ofSeconds(100))
+            .resolution(Duration.ofMillis(0))
+            .build();
+    history.record(1, List.of(bean(1000, 10L), bean(2000, 20L), bean(3000, 60L)));
+
+    var key = MetricHistory.Key.of(1, bean(0, 0L), "Count");
+    // the string attribute is not recorded
+    Assertions.assertEquals(Set.of(key), history.keys());
+
+    var samples = history.samples(key, 0, 10000);
+    Assertions.assertEquals(3, samples.size());
+    Assertions.assertArrayEquals(new long[] {1000, 2000, 3000}, samples.timestamps());
+    Assertions.assertEquals(30, samples.avg().orElseThrow());
+    Assertions.assertEquals(60, samples.max().orElseThrow());
+    Assertions.assertEquals(10, samples.min().orElseThrow());
+    Assertions.assertEquals(20, samples.percentile(0.5).orElseThrow());
+    Assertions.assertEquals(25, samples.ratePerSecond().orElseThrow());
+
+    Assertions.assertEquals(2, history.samples(key, 1500, 3000).size());
+    Assertions.assertEquals(0, history.samples(key, 3001, 5000).size());
+    Assertions.assertEquals(
+        0, history.samples(MetricHistory.Key.of(2, bean(0, 0L), "Count"), 0, 10000).size());
+  }
+
+  @Test
+  void testDownsampling() {
+    var history =
+        MetricHistory.builder()
+            .retention(Duration.ofSeconds(100))
+            .resolution(Duration.ofSeconds(1))
+            .build();
+    history.record(1, List.of(bean(1000, 10), bean(1500, 20), bean(2100, 30)));
+    var samples = history.samples(MetricHistory.Key.of(1, bean(0, 0), "Count"), 0, 10000);
+    Assertions.assertArrayEquals(new long[] {1500, 2100}, samples.timestamps());
+    Assertions.assertArrayEquals(new double[] {15, 30}, samples.values());
+  }
+
+  @Test
+  void testRetention() {
+    var history =
+        MetricHistory.builder()
+            .retention(Duration.ofSeconds(10))
+            .resolution(Duration.ofSeconds(1))
+            .build();
+    var key = MetricHistory.Key.of(1, bean(0, 0), "Count");
+    for (var i = 0; i < 100; i++) history.record(1, List.of(bean(i * 1000L, i)));
+    // the buffer keeps the samples in retention only
+    var samples = history.samples(key, 0, Long.MAX_VALUE);
+    Assertions.assertEquals(11, samples.size());
+    Assertions.assertEquals(89000, samples.timestamps()[0]);
+
+    history.expire(200000);
+    Assertions.assertEquals(Set.of(), history.keys());
+  }
+
+  @Test
+  void testClusterBeanHistory() {
+    Assertions.assertEquals(MetricHistory.EMPTY, ClusterBean.EMPTY.history());
+    var history = MetricHistory.builder().build();
+    var index = ClusterBeanIndex.of(history);
+    index.add(1, List.of(bean(1000, 10)));
+    Assertions.assertEquals(history, index.snapshot().history());
+    Assertions.assertEquals(history, ClusterBean.masked(index.snapshot(), id -> true).history());
+  }
+
+  @Test
+  void testExpireWhileRecording() throws Exception {
+    var history =
+        MetricHistory.builder()
+            .retention(Duration.ofMillis(1))
+            .resolution(Duration.ofMillis(0))
+            .build();
+    var key = MetricHistory.Key.of(1, bean(0, 0L), "Count");
+    var recorded = new AtomicLong();
+    var done = new AtomicBoolean(false);
+    // expire all samples before the latest recorded one
+    var expirer =
+        CompletableFuture.runAsync(
+            () -> {
+              while (!done.get()) history.expire(recorded.get() + 2);
+            });
+    try {
+      for (var time = 1L; time <= 100_000; time++) {
+        history.record(1, List.of(bean(time, time)));
+        Assertions.assertEquals(1, history.samples(key, time, time).size(), "time: " + time);
+        recorded.set(time);
+      }
+    } finally {
+      done.set(true);
+      expirer.join();
+    }
+  }
+}
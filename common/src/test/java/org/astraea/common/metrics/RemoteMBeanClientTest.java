@@ -0,0 +1,265 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.astraea.common.metrics;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.MBeanServer;
+import javax.management.MBeanServerFactory;
+import javax.management.ObjectName;
+import javax.management.remote.JMXConnectorServer;
+import javax.management.remote.JMXConnectorServerFactory;
+import javax.management.remote.JMXServiceURL;
+import javax.management.remote.MBeanServerForwarder;
+import org.astraea.common.Utils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class RemoteMBeanClientTest {
+
+  private final Map<String, LongAdder> calls = new ConcurrentHashMap<>();
+  // run by server after the mbean names are queried and before they are returned
+  private volatile Utils.Runner afterQuery = () -> {};
+  // run by server before the attributes are read
+  private volatile Utils.Runner beforeGetAttributes = () -> {};
+  private MBeanServer mBeanServer;
+  private JMXConnectorServer jmxServer;
+
+  @BeforeEach
+  void setUp() throws Exception {
+    mBeanServer = MBeanServerFactory.newMBeanServer();
+    var target = new MBeanServer[1];
+    var forwarder =
+        (MBeanServerForwarder)
+            Proxy.newProxyInstance(
+                MBeanServerForwarder.class.getClassLoader(),
+                new Class<?>[] {MBeanServerForwarder.class},
+                (proxy, method, args) -> {
+                  if (method.getName().equals("getMBeanServer")) return target[0];
+                  if (method.getName().equals("setMBeanServer")) {
+                    target[0] = (MBeanServer) args[0];
+                    return null;
+                  }
+                  calls.computeIfAbsent(method.getName(), ignored -> new LongAdder()).increment();
+                  if (method.getName().equals("getAttributes")) beforeGetAttributes.run();
+                  try {
+                    var result = method.invoke(target[0], args);
+                    if (method.getName().equals("queryNames")) afterQuery.run();
+                    return result;
+                  } catch (InvocationTargetException e) {
+                    throw e.getCause();
+                  }
+                });
+    jmxServer =
+        JMXConnectorServerFactory.newJMXConnectorServer(
+            new JMXServiceURL("service:jmx:rmi://127.0.0.1"), null, mBeanServer);
+    jmxServer.setMBeanServerForwarder(forwarder);
+    jmxServer.start();
+  }
+
+  @AfterEach
+  void tearDown() throws Exception {
+    jmxServer.stop();
+  }
+
+  private long calls(String method) {
+    return calls.getOrDefault(method, new LongAdder()).sum();
+  }
+
+  private void register(String type, Map<String, ?> attributes) throws Exception {
+    mBeanServer.registerMBean(
+        MBeanClientTest.createReadOnlyDynamicMBean(attributes),
+        ObjectName.getInstance("com.example:type=" + type));
+  }
+
+  @Test
+  void testCacheAttributeNames() throws Exception {
+    for (var i = 0; i < 10; i++) register("test" + i, Map.of("a", i, "b", i));
+    var query = BeanQuery.builder().domainName("com.example").property("type", "test*").build();
+    try (var client = JndiClient.of(jmxServer.getAddress())) {
+      Assertions.assertEquals(10, client.beans(query).size());
+      Assertions.assertEquals(1, calls("queryNames"));
+      Assertions.assertEquals(10, calls("getMBeanInfo"));
+      Assertions.assertEquals(10, calls("getAttributes"));
+
+      // the second round asks for the attributes only
+      var beans = client.beans(query);
+      Assertions.assertEquals(10, beans.size());
+      beans.forEach(b -> Assertions.assertEquals(b.attributes().get("a"), b.attributes().get("b")));
+      Assertions.assertEquals(1, calls("queryNames"));
+      Assertions.assertEquals(10, calls("getMBeanInfo"));
+      Assertions.assertEquals(20, calls("getAttributes"));
+    }
+  }
+
+  @Test
+  void testConcurrentCalls() throws Exception {
+    for (var i = 0; i < 10; i++) register("test" + i, Map.of("a", i));
+    var query = BeanQuery.builder().domainName("com.example").property("type", "test*").build();
+    var executor = Executors.newFixedThreadPool(JndiClient.CONCURRENT_CALLS);
+    try (var client = JndiClient.of(jmxServer.getAddress())) {
+      // the calls are blocked until enough calls are running at the same time
+      var running = new CountDownLatch(JndiClient.CONCURRENT_CALLS);
+      beforeGetAttributes =
+          () -> {
+            running.countDown();
+            if (!running.await(10, TimeUnit.SECONDS))
+              throw new IllegalStateException("the calls are not concurrent");
+          };
+      var beans =
+          client.beans(
+              query,
+              e -> {
+                throw e;
+              },
+              executor);
+      Assertions.assertEquals(10, beans.size());
+      Assertions.assertEquals(10, calls("getAttributes"));
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  void testRegistrationClearsCache() throws Exception {
+    register("test0", Map.of("a", 0));
+    var query = BeanQuery.builder().domainName("com.example").property("type", "test*").build();
+    try (var client = JndiClient.of(jmxServer.getAddress())) {
+      Assertions.assertEquals(1, client.beans(query).size());
+
+      register("test1", Map.of("a", 1));
+      Utils.waitFor(() -> client.beans(query).size() == 2, Duration.ofSeconds(10));
+
+      mBeanServer.unregisterMBean(ObjectName.getInstance("com.example:type=test0"));
+      Utils.waitFor(() -> client.beans(query).size() == 1, Duration.ofSeconds(10));
+
+      // the re-registered mbean has different attributes
+      register("test0", Map.of("c", 0));
+      Utils.waitFor(
+          () ->
+              client.beans(query).stream()
+                  .map(BeanObject::attributes)
+                  .anyMatch(
+                      attributes -> attributes.containsKey("c") && !attributes.containsKey("a")),
+          Duration.ofSeconds(10));
+    }
+  }
+
+  @Test
+  void testRegistrationDuringQuery() throws Exception {
+    register("test0", Map.of("a", 0));
+    var query = BeanQuery.builder().domainName("com.example").property("type", "test*").build();
+    try (var client = (RemoteMBeanClient) JndiClient.of(jmxServer.getAddress())) {
+      // a new mbean is registered after the names are queried, and the client clears the caches
+      // before the stale names come back
+      afterQuery =
+          () -> {
+            afterQuery = () -> {};
+            var generation = client.generation();
+            register("test1", Map.of("a", 1));
+            Utils.waitFor(() -> client.generation() != generation, Duration.ofSeconds(10));
+          };
+      Assertions.assertEquals(1, client.beans(query).size());
+      // the stale names are not cached
+      Assertions.assertEquals(2, client.beans(query).size());
+    }
+  }
+
+  @Test
+  void testReconnect() throws Exception {
+    register("test0", Map.of("a", 0));
+    var query = BeanQuery.builder().domainName("com.example").property("type", "test0").build();
+    try (var client = (RemoteMBeanClient) JndiClient.of(jmxServer.getAddress())) {
+      Assertions.assertEquals(0, client.bean(query).attributes().get("a"));
+
+      // the broken connection is replaced by a new one
+      client.disconnect();
+      Assertions.assertEquals(0, client.bean(query).attributes().get("a"));
+      Assertions.assertEquals(1, client.beans(query).size());
+    }
+  }
+
+  @Test
+  void testReset() throws Exception {
+    register("test0", Map.of("a", 0));
+    var query = BeanQuery.builder().domainName("com.example").property("type", "test0").build();
+    try (var client = JndiClient.of(jmxServer.getAddress())) {
+      Assertions.assertEquals(0, client.bean(query).attributes().get("a"));
+      Assertions.assertEquals(0, client.bean(query).attributes().get("a"));
+      Assertions.assertEquals(1, calls("getMBeanInfo"));
+
+      // the new connection doesn't use the caches of broken connection
+      client.reset();
+      Assertions.assertEquals(0, client.bean(query).attributes().get("a"));
+      Assertions.assertEquals(2, calls("getMBeanInfo"));
+    }
+  }
+
+  @Test
+  void testResetDuringCall() throws Exception {
+    register("test0", Map.of("a", 0));
+    var query = BeanQuery.builder().domainName("com.example").property("type", "test0").build();
+    var entered = new CountDownLatch(1);
+    var release = new CountDownLatch(1);
+    try (var client = JndiClient.of(jmxServer.getAddress())) {
+      Assertions.assertEquals(0, client.bean(query).attributes().get("a"));
+
+      // the call hangs until the client is reset, and then the connection gets broken
+      beforeGetAttributes =
+          () -> {
+            entered.countDown();
+            release.await();
+            throw new UncheckedIOException(new IOException("the connection is broken"));
+          };
+      var call = CompletableFuture.supplyAsync(() -> client.bean(query));
+      Assertions.assertTrue(entered.await(10, TimeUnit.SECONDS));
+      var attributeCalls = calls("getAttributes");
+      client.reset();
+      release.countDown();
+      Assertions.assertThrows(ExecutionException.class, () -> call.get(10, TimeUnit.SECONDS));
+      // the broken call is not retried
+      Assertions.assertEquals(attributeCalls, calls("getAttributes"));
+
+      // the following call uses a new connection
+      beforeGetAttributes = () -> {};
+      Assertions.assertEquals(0, client.bean(query).attributes().get("a"));
+    }
+  }
+
+  @Test
+  void testClosedClient() throws Exception {
+    register("test0", Map.of("a", 0));
+    var query = BeanQuery.builder().domainName("com.example").property("type", "test0").build();
+    var client = JndiClient.of(jmxServer.getAddress());
+    client.close();
+    Assertions.assertThrows(RuntimeException.class, () -> client.bean(query));
+    client.close();
+  }
+}
@@ -0,0 +1,237 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.astraea.common.metrics.collector;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import org.astraea.common.Header;
+import org.astraea.common.metrics.BeanObject;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class BeanDeltaTest {
+
+  private static BeanObject bean(String name, Map<String, Object> attributes, long timestamp) {
+    return new BeanObject("kafka.server", Map.of("name", name), attributes, timestamp);
+  }
+
+  private static BeanObject bean(String name, Map<String, Object> attributes) {
+    return bean(name, attributes, System.currentTimeMillis());
+  }
+
+  private static List<BeanObject> sorted(List<BeanObject> beans) {
+    return beans.stream()
+        .sorted(Comparator.comparing(b -> b.properties().get("name")))
+        .collect(Collectors.toUnmodifiableList());
+  }
+
+  @Test
+  void testKeyframeInterval() {
+    Assertions.assertThrows(IllegalArgumentException.class, () -> new BeanDelta.Encoder(0));
+    var encoder = new BeanDelta.Encoder(3);
+    var beans = List.of(bean("a", Map.of("Value", 1), 10));
+    var first = encoder.next(1, beans);
+    Assertions.assertFalse(first.delta());
+    Assertions.assertTrue(encoder.next(1, beans).delta());
+    Assertions.assertTrue(encoder.next(1, beans).delta());
+    var keyframe = encoder.next(1, beans);
+    Assertions.assertFalse(keyframe.delta());
+    Assertions.assertNotEquals(first.keyframe(), keyframe.keyframe());
+
+    // the identities are independent
+    Assertions.assertFalse(encoder.next(2, beans).delta());
+
+    // all cycles are keyframes
+    var keyframes = new BeanDelta.Encoder(1);
+    Assertions.assertFalse(keyframes.next(1, beans).delta());
+    Assertions.assertFalse(keyframes.next(1, beans).delta());
+  }
+
+  @Test
+  void testChangedAttributes() {
+    var encoder = new BeanDelta.Encoder(10);
+    encoder.next(
+        1,
+        List.of(
+            bean("a", Map.of("Value", 1, "Unit", "bytes"), 10),
+            bean("b", Map.of("Value", 2), 10)));
+
+    var delta =
+        encoder.next(
+            1,
+            List.of(
+                bean("a", Map.of("Value", 5, "Unit", "bytes"), 20),
+                bean("b", Map.of("Value", 2), 20),
+                bean("c", Map.of("Value", 3), 20)));
+    Assertions.assertTrue(delta.delta());
+    var beans = sorted(delta.beans());
+    Assertions.assertEquals(2, beans.size());
+    Assertions.assertEquals(Map.of("Value", 5), beans.get(0).attributes());
+    Assertions.assertEquals(20, beans.get(0).createdTimestamp());
+    // the new bean is sent entirely
+    Assertions.assertEquals(Map.of("Value", 3), beans.get(1).attributes());
+
+    // nothing is changed
+    var empty =
+        encoder.next(
+            1,
+            List.of(
+                bean("a", Map.of("Value", 5, "Unit", "bytes"), 30),
+                bean("b", Map.of("Value", 2), 30),
+                bean("c", Map.of("Value", 3), 30)));
+    Assertions.assertTrue(empty.delta());
+    Assertions.assertEquals(List.of(), empty.beans());
+  }
+
+  @Test
+  void testRemovalTriggersKeyframe() {
+    var encoder = new BeanDelta.Encoder(10);
+    encoder.next(1, List.of(bean("a", Map.of("Value", 1)), bean("b", Map.of("Value", 2))));
+    // the attribute is gone
+    Assertions.assertFalse(encoder.next(1, List.of(bean("a", Map.of()))).delta());
+    Assertions.assertTrue(encoder.next(1, List.of(bean("a", Map.of()))).delta());
+  }
+
+  @Test
+  void testPartialCycle() {
+    var encoder = new BeanDelta.Encoder(10);
+    encoder.next(1, List.of(bean("a", Map.of("Value", 1)), bean("b", Map.of("Value", 2))));
+    // the cycle carrying a part of beans is a delta
+    var delta = encoder.next(1, List.of(bean("a", Map.of("Value", 3))));
+    Assertions.assertTrue(delta.delta());
+    Assertions.assertEquals(1, delta.beans().size());
+    var unchanged = encoder.next(1, List.of(bean("b", Map.of("Value", 2))));
+    Assertions.assertTrue(unchanged.delta());
+    Assertions.assertEquals(List.of(), unchanged.beans());
+  }
+
+  @Test
+  void testHeaders() {
+    Assertions.assertEquals(Optional.empty(), BeanDelta.Frame.of(List.of(), List.of()));
+    Assertions.assertEquals(
+        Optional.empty(), BeanDelta.Frame.of(List.of(Header.of("a", new byte[0])), List.of()));
+    var keyframe = new BeanDelta.Frame(100, 3, false, List.of());
+    Assertions.assertEquals(
+        Optional.of(keyframe), BeanDelta.Frame.of(keyframe.headers(), List.of()));
+    var delta = new BeanDelta.Frame(100, 4, true, List.of());
+    Assertions.assertEquals(Optional.of(delta), BeanDelta.Frame.of(delta.headers(), List.of()));
+    var part = new BeanDelta.Frame(100, 5, false, 1, 3, List.of());
+    Assertions.assertEquals(Optional.of(part), BeanDelta.Frame.of(part.headers(), List.of()));
+  }
+
+  @Test
+  void testSplit() {
+    var beans =
+        List.of(
+            bean("a", Map.of("Value", 1)), bean("b", Map.of("Value", 2)), bean("c", Map.of()));
+    var frame = new BeanDelta.Frame(100, 3, false, beans);
+    Assertions.assertEquals(List.of(frame), frame.split(3));
+    var parts = frame.split(2);
+    Assertions.assertEquals(2, parts.size());
+    for (var i = 0; i < parts.size(); i++) {
+      Assertions.assertEquals(i, parts.get(i).part());
+      Assertions.assertEquals(2, parts.get(i).parts());
+      Assertions.assertEquals(frame.keyframe(), parts.get(i).keyframe());
+      Assertions.assertEquals(frame.sequence(), parts.get(i).sequence());
+    }
+    Assertions.assertEquals(beans.subList(0, 2), parts.get(0).beans());
+    Assertions.assertEquals(beans.subList(2, 3), parts.get(1).beans());
+  }
+
+  @Test
+  void testIncompleteKeyframe() {
+    var encoder = new BeanDelta.Encoder(10);
+    var decoder = new BeanDelta.Decoder();
+    var parts =
+        encoder
+            .next(1, List.of(bean("a", Map.of("Value", 1), 10), bean("b", Map.of("Value", 2), 10)))
+            .split(1);
+    var delta = encoder.next(1, List.of(bean("a", Map.of("Value", 3), 20)));
+
+    // the first part is missed, so the delta can't be rebuilt
+    Assertions.assertEquals(parts.get(1).beans(), decoder.apply(1, parts.get(1)));
+    Assertions.assertEquals(List.of(), decoder.apply(1, delta));
+
+    // all parts are received
+    var other = new BeanDelta.Decoder();
+    parts.forEach(part -> other.apply(1, part));
+    var beans = other.apply(1, delta);
+    Assertions.assertEquals(1, beans.size());
+    Assertions.assertEquals(Map.of("Value", 3), beans.get(0).attributes());
+  }
+
+  @Test
+  void testRebuild() {
+    var encoder = new BeanDelta.Encoder(10);
+    var decoder = new BeanDelta.Decoder();
+    var keyframe =
+        encoder.next(
+            1,
+            List.of(
+                bean("a", Map.of("Value", 1, "Unit", "bytes"), 10),
+                bean("b", Map.of("Value", 2), 10)));
+
+    // the delta before keyframe is dropped
+    var delta =
+        encoder.next(
+            1,
+            List.of(
+                bean("a", Map.of("Value", 5, "Unit", "bytes"), 20),
+                bean("b", Map.of("Value", 2), 20)));
+    Assertions.assertEquals(List.of(), decoder.apply(1, delta));
+
+    Assertions.assertEquals(keyframe.beans(), decoder.apply(1, keyframe));
+    // only the changed bean is rebuilt
+    var beans = decoder.apply(1, delta);
+    Assertions.assertEquals(1, beans.size());
+    Assertions.assertEquals(Map.of("Value", 5, "Unit", "bytes"), beans.get(0).attributes());
+    Assertions.assertEquals(20, beans.get(0).createdTimestamp());
+
+    // the delta of other keyframe is dropped
+    var other = new BeanDelta.Frame(-1, delta.sequence() + 1, true, List.of());
+    Assertions.assertEquals(List.of(), decoder.apply(1, other));
+    // the identities are independent
+    Assertions.assertEquals(List.of(), decoder.apply(2, delta));
+  }
+
+  @Test
+  void testMissedDelta() {
+    var encoder = new BeanDelta.Encoder(10);
+    var decoder = new BeanDelta.Decoder();
+    decoder.apply(1, encoder.next(1, List.of(bean("a", Map.of("Value", 1), 10))));
+    var first = encoder.next(1, List.of(bean("a", Map.of("Value", 2), 20)));
+    var second = encoder.next(1, List.of(bean("a", Map.of("Value", 3), 30)));
+    Assertions.assertEquals(first.sequence() + 1, second.sequence());
+
+    // the first delta is lost, so the held beans are stale
+    Assertions.assertEquals(List.of(), decoder.apply(1, second));
+    Assertions.assertEquals(
+        List.of(), decoder.apply(1, encoder.next(1, List.of(bean("a", Map.of("Value", 4), 40)))));
+
+    // recover at the next keyframe
+    encoder.reset(1);
+    var keyframe = encoder.next(1, List.of(bean("a", Map.of("Value", 4), 50)));
+    Assertions.assertFalse(keyframe.delta());
+    Assertions.assertEquals(keyframe.beans(), decoder.apply(1, keyframe));
+    var beans = decoder.apply(1, encoder.next(1, List.of(bean("a", Map.of("Value", 5), 60))));
+    Assertions.assertEquals(1, beans.size());
+    Assertions.assertEquals(Map.of("Value", 5), beans.get(0).attributes());
+  }
+}
@@ -16,7 +16,9 @@
  */
 package org.astraea.common.metrics.collector;
 
+import java.lang.management.ManagementFactory;
 import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
@@ -25,14 +27,18 @@ import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionStage;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
+import javax.management.ObjectName;
 import org.astraea.common.Utils;
 import org.astraea.common.admin.Admin;
 import org.astraea.common.consumer.Consumer;
 import org.astraea.common.consumer.Deserializer;
 import org.astraea.common.consumer.SeekStrategy;
 import org.astraea.common.metrics.BeanObject;
+import org.astraea.common.metrics.BeanQuery;
 import org.astraea.common.metrics.JndiClient;
 import org.astraea.common.metrics.MBeanClient;
 import org.astraea.it.Service;
@@ -53,7 +59,7 @@ public class MetricFetcherTest {
   void testPublishAndClose() {
     var beans = List.of(new BeanObject(Utils.randomString(), Map.of(), Map.of()));
     var client = Mockito.mock(JndiClient.class);
-    Mockito.when(client.beans(Mockito.any(), Mockito.any())).thenReturn(beans);
+    Mockito.when(client.beans(Mockito.any(), Mockito.any(), Mockito.any())).thenReturn(beans);
     var sender = Mockito.mock(MetricFetcher.Sender.class);
     var queue = new ConcurrentHashMap<Integer, Collection<BeanObject>>();
     Mockito.when(sender.send(Mockito.anyInt(), Mockito.any()))
@@ -117,7 +123,7 @@ public class MetricFetcherTest {
       Assertions.assertEquals(1, fetcher.identities().size());
       Assertions.assertEquals(0, fetcher.latest().size());
       // make sure client is not called
-      Mockito.verify(client, Mockito.never()).beans(Mockito.any());
+      Mockito.verify(client, Mockito.never()).beans(Mockito.any(), Mockito.any(), Mockito.any());
     }
   }
 
@@ -141,6 +147,188 @@ public class MetricFetcherTest {
     }
   }
 
+  @Test
+  void testQueriesSupplier() {
+    var query = BeanQuery.builder().domainName("java.lang").property("type", "Memory").build();
+    var client = Mockito.mock(MBeanClient.class);
+    Mockito.when(client.beans(Mockito.any(), Mockito.any(), Mockito.any())).thenReturn(List.of());
+    try (var fetcher =
+        MetricFetcher.builder()
+            .sender(MetricFetcher.Sender.local())
+            .clientSupplier(() -> CompletableFuture.completedStage(Map.of(-1000, client)))
+            .queriesSupplier(() -> List.of(query))
+            .fetchBeanDelay(Duration.ofSeconds(1))
+            .build()) {
+      Utils.waitFor(() -> !fetcher.latest().isEmpty(), Duration.ofSeconds(10));
+    }
+    // only the supplied query is fetched
+    Mockito.verify(client, Mockito.atLeastOnce())
+        .beans(Mockito.eq(query), Mockito.any(), Mockito.any());
+    Mockito.verify(client, Mockito.never())
+        .beans(Mockito.argThat(q -> q != query), Mockito.any(), Mockito.any());
+  }
+
+  @Test
+  void testFetchBeanDelayOfQuery() {
+    var fast = BeanQuery.builder().domainName("java.lang").property("type", "Memory").build();
+    var slow = BeanQuery.builder().domainName("java.lang").property("type", "Runtime").build();
+    var client = Mockito.mock(MBeanClient.class);
+    Mockito.when(client.beans(Mockito.any(), Mockito.any(), Mockito.any()))
+        .thenAnswer(
+            invocation ->
+                List.of(
+                    new BeanObject(
+                        "java.lang",
+                        Map.of("type", invocation.getArgument(0) == fast ? "Memory" : "Runtime"),
+                        Map.of())));
+    try (var fetcher =
+        MetricFetcher.builder()
+            .sender(MetricFetcher.Sender.local())
+            .clientSupplier(() -> CompletableFuture.completedStage(Map.of(-1000, client)))
+            .queriesSupplier(() -> List.of(fast, slow))
+            .fetchBeanDelay(q -> q == slow ? Duration.ofSeconds(1000) : null)
+            .fetchBeanDelay(Duration.ofMillis(300))
+            .build()) {
+      Utils.waitFor(
+          () -> fetcher.latest().getOrDefault(-1000, List.of()).size() == 1,
+          Duration.ofSeconds(10));
+      Utils.sleep(Duration.ofSeconds(2));
+      // the slow tier is not fetched yet
+      Assertions.assertEquals(1, fetcher.latest().get(-1000).size());
+    }
+    Mockito.verify(client, Mockito.atLeast(2))
+        .beans(Mockito.eq(fast), Mockito.any(), Mockito.any());
+    Mockito.verify(client, Mockito.never()).beans(Mockito.eq(slow), Mockito.any(), Mockito.any());
+  }
+
+  @Test
+  void testBackoff() throws Exception {
+    var query = BeanQuery.builder().domainName("java.lang").property("type", "Memory").build();
+    var client = Mockito.mock(MBeanClient.class);
+    Mockito.when(client.beans(Mockito.any(), Mockito.any(), Mockito.any()))
+        .thenAnswer(
+            invocation -> {
+              Utils.sleep(Duration.ofMillis(200));
+              return List.of();
+            });
+    var server = ManagementFactory.getPlatformMBeanServer();
+    ObjectName name;
+    try (var fetcher =
+        MetricFetcher.builder()
+            .sender(MetricFetcher.Sender.local())
+            .clientSupplier(() -> CompletableFuture.completedStage(Map.of(-2000, client)))
+            .queriesSupplier(() -> List.of(query))
+            .fetchBeanDelay(Duration.ofMillis(100))
+            .fetchBeanTimeout(Duration.ofMillis(10))
+            .build()) {
+      var latency =
+          new ObjectName(
+              "astraea.metrics:type=MetricFetcher,name=FetchLatency,id=-2000,fetcher=*");
+      Utils.waitFor(() -> server.queryNames(latency, null).size() == 1, Duration.ofSeconds(10));
+      name = server.queryNames(latency, null).iterator().next();
+      Utils.waitFor(
+          () ->
+              Utils.packException(() -> (Integer) server.getAttribute(name, "Backoff"))
+                  == 1 << MetricFetcher.MetricFetcherImpl.MAX_BACKOFF,
+          Duration.ofSeconds(15));
+      Assertions.assertNotEquals(0L, server.getAttribute(name, "Timeouts"));
+      // the fetch is completed by the timeout rather than the hung call
+      Assertions.assertTrue((Double) server.getAttribute(name, "Max") < 200);
+
+      var lag =
+          new ObjectName(
+              "astraea.metrics:type=MetricFetcher,name=SchedulerLag,fetcher="
+                  + name.getKeyProperty("fetcher"));
+      Assertions.assertNotEquals(0L, server.getAttribute(lag, "Count"));
+    }
+    // the mbeans of closed fetcher are removed
+    Assertions.assertEquals(
+        Set.of(),
+        server.queryNames(
+            new ObjectName(
+                "astraea.metrics:type=MetricFetcher,fetcher="
+                    + name.getKeyProperty("fetcher")
+                    + ",*"),
+            null));
+  }
+
+  @Test
+  void testDepartedIdentity() throws Exception {
+    var query = BeanQuery.builder().domainName("java.lang").property("type", "Memory").build();
+    var bean = new BeanObject("java.lang", Map.of("type", "Memory"), Map.of());
+    var client = Mockito.mock(MBeanClient.class);
+    Mockito.when(client.beans(Mockito.any(), Mockito.any(), Mockito.any()))
+        .thenReturn(List.of(bean));
+    var clients =
+        new AtomicReference<Map<Integer, MBeanClient>>(Map.of(-3000, client, -3001, client));
+    var server = ManagementFactory.getPlatformMBeanServer();
+    var departed =
+        new ObjectName("astraea.metrics:type=MetricFetcher,name=FetchLatency,id=-3001,fetcher=*");
+    try (var fetcher =
+        MetricFetcher.builder()
+            .sender(MetricFetcher.Sender.local())
+            .clientSupplier(() -> CompletableFuture.completedStage(clients.get()))
+            .queriesSupplier(() -> List.of(query))
+            .fetchBeanDelay(Duration.ofMillis(100))
+            .fetchMetadataDelay(Duration.ofMillis(500))
+            .build()) {
+      Utils.waitFor(() -> fetcher.latest().size() == 2, Duration.ofSeconds(10));
+      Assertions.assertEquals(1, server.queryNames(departed, null).size());
+
+      clients.set(Map.of(-3000, client));
+      Utils.waitFor(() -> fetcher.latest().size() == 1, Duration.ofSeconds(10));
+      Assertions.assertEquals(Set.of(-3000), fetcher.latest().keySet());
+      Assertions.assertEquals(Set.of(), server.queryNames(departed, null));
+    }
+  }
+
+  @Test
+  void testHungIdentity() {
+    var query = BeanQuery.builder().domainName("java.lang").property("type", "Memory").build();
+    var bean = new BeanObject("java.lang", Map.of("type", "Memory"), Map.of());
+    var release = new AtomicBoolean(false);
+    var hung = Mockito.mock(MBeanClient.class);
+    // the remote call ignores the interrupt
+    Mockito.when(hung.beans(Mockito.any(), Mockito.any(), Mockito.any()))
+        .thenAnswer(
+            invocation -> {
+              while (!release.get()) Utils.sleep(Duration.ofMillis(10));
+              return List.of(bean);
+            });
+    var healthy = Mockito.mock(MBeanClient.class);
+    Mockito.when(healthy.beans(Mockito.any(), Mockito.any(), Mockito.any()))
+        .thenReturn(List.of(bean));
+    var sent = new ConcurrentHashMap<Integer, Integer>();
+    var sender = Mockito.mock(MetricFetcher.Sender.class);
+    Mockito.when(sender.send(Mockito.anyInt(), Mockito.any()))
+        .thenAnswer(
+            invocation -> {
+              sent.merge(invocation.getArgument(0, Integer.class), 1, Integer::sum);
+              return CompletableFuture.completedStage(null);
+            });
+    try (var fetcher =
+        MetricFetcher.builder()
+            .sender(sender)
+            .clientSupplier(
+                () -> CompletableFuture.completedStage(Map.of(-1000, hung, -1001, healthy)))
+            .queriesSupplier(() -> List.of(query))
+            .fetchBeanDelay(Duration.ofMillis(100))
+            .fetchBeanTimeout(Duration.ofMillis(300))
+            .threads(2)
+            .build()) {
+      Utils.sleep(Duration.ofSeconds(3));
+      // the hung identity occupies a thread only, so the healthy one is fetched on time
+      Assertions.assertTrue(sent.get(-1001) > 10);
+      Assertions.assertEquals(List.of(bean), fetcher.latest().get(-1001));
+      // the partial (empty) result of hung identity is sent after the timeout
+      Assertions.assertNotNull(sent.get(-1000));
+      Assertions.assertEquals(List.of(), fetcher.latest().get(-1000));
+      // the hung identity is not fetched again until the hung call returns
+      Mockito.verify(hung, Mockito.times(1)).beans(Mockito.any(), Mockito.any(), Mockito.any());
+      release.set(true);
+    }
+  }
+
   @Test
   void testTopic() throws InterruptedException, ExecutionException {
     var testBean = new BeanObject("java.lang", Map.of("name", "n1"), Map.of("value", "v1"));
@@ -171,4 +359,83 @@ public class MetricFetcherTest {
       }
     }
   }
+
+  @Test
+  void testTopicBatch() {
+    var testBean = new BeanObject("java.lang", Map.of("name", "n1"), Map.of("value", "v1"));
+    try (var service = Service.builder().numberOfBrokers(1).build();
+        var batchSender = MetricFetcher.Sender.topic(service.bootstrapServers(), true);
+        var legacySender = MetricFetcher.Sender.topic(service.bootstrapServers(), false)) {
+      batchSender.send(1, List.of(testBean)).toCompletableFuture().join();
+      legacySender.send(1, List.of(testBean)).toCompletableFuture().join();
+
+      // the batch and the legacy record are readable by the same deserializer
+      try (var consumer =
+          Consumer.forTopics(Set.of("__metrics"))
+              .bootstrapServers(service.bootstrapServers())
+              .valueDeserializer(Deserializer.BEAN_OBJECTS)
+              .seek(SeekStrategy.DISTANCE_FROM_BEGINNING, 0)
+              .build()) {
+        var records =
+            consumer.poll(Duration.ofSeconds(5)).stream().collect(Collectors.toUnmodifiableList());
+        Assertions.assertEquals(2, records.size());
+        for (var record : records) {
+          Assertions.assertEquals(1, record.value().size());
+          var getBean = record.value().get(0);
+          Assertions.assertEquals(testBean.domainName(), getBean.domainName());
+          Assertions.assertEquals(testBean.properties(), getBean.properties());
+          Assertions.assertEquals(testBean.attributes(), getBean.attributes());
+        }
+      }
+    }
+  }
+
+  @Test
+  void testDelta() {
+    var keyframe =
+        List.of(
+            new BeanObject("java.lang", Map.of("name", "a"), Map.of("value", 1, "unit", "ms")),
+            new BeanObject("java.lang", Map.of("name", "b"), Map.of("value", 2)));
+    var delta =
+        List.of(
+            new BeanObject("java.lang", Map.of("name", "a"), Map.of("value", 10, "unit", "ms")),
+            new BeanObject("java.lang", Map.of("name", "b"), Map.of("value", 2)));
+    // use another cluster to avoid reading the records of other tests
+    try (var service = Service.builder().numberOfWorkers(0).build();
+        var sender = MetricFetcher.Sender.delta(service.bootstrapServers(), 10);
+        var receiver = MetricStore.Receiver.topic(service.bootstrapServers())) {
+      sender.send(100, keyframe).toCompletableFuture().join();
+      sender.send(100, delta).toCompletableFuture().join();
+      sender.send(100, delta).toCompletableFuture().join();
+
+      // the delta carries the changed attribute only
+      try (var consumer =
+          Consumer.forTopics(Set.of("__metrics"))
+              .bootstrapServers(service.bootstrapServers())
+              .valueDeserializer(Deserializer.BEAN_OBJECTS)
+              .seek(SeekStrategy.DISTANCE_FROM_BEGINNING, 0)
+              .build()) {
+        var records =
+            consumer.poll(Duration.ofSeconds(5)).stream().collect(Collectors.toUnmodifiableList());
+        Assertions.assertEquals(3, records.size());
+        Assertions.assertEquals(2, records.get(0).value().size());
+        Assertions.assertEquals(1, records.get(1).value().size());
+        Assertions.assertEquals(Map.of("value", 10), records.get(1).value().get(0).attributes());
+        Assertions.assertEquals(0, records.get(2).value().size());
+      }
+
+      // the receiver rebuilds the changed beans only
+      var received = new ArrayList<BeanObject>();
+      Utils.waitFor(
+          () -> {
+            received.addAll(receiver.receive(Duration.ofSeconds(1)).getOrDefault(100, List.of()));
+            return received.size() >= 3;
+          },
+          Duration.ofSeconds(10));
+      Utils.sleep(Duration.ofSeconds(1));
+      received.addAll(receiver.receive(Duration.ofSeconds(1)).getOrDefault(100, List.of()));
+      Assertions.assertEquals(3, received.size());
+      Assertions.assertEquals(Map.of("value", 10, "unit", "ms"), received.get(2).attributes());
+    }
+  }
 }
@@ -19,6 +19,8 @@ package org.astraea.common.metrics.collector;
 import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.Optional;
+import java.util.stream.Collectors;
+import org.astraea.common.metrics.BeanQuery;
 import org.astraea.common.metrics.ClusterBean;
 import org.astraea.common.metrics.HasBeanObject;
 import org.junit.jupiter.api.Assertions;
@@ -105,4 +107,34 @@ public class MetricSensorTest {
                 .get()
                 .fetch(Mockito.mock(BeanObjectClient.class), ClusterBean.EMPTY));
   }
+
+  @Test
+  void testQueries() {
+    var q0 = BeanQuery.builder().domainName("kafka.server").property("type", "a").build();
+    var q1 = BeanQuery.builder().domainName("kafka.server").property("type", "b").build();
+    MetricSensor undeclared = (client, ignored) -> List.of();
+    Assertions.assertEquals(MetricFetcher.QUERIES, undeclared.queries());
+
+    var sensor0 = MetricSensor.of(List.of(q0), undeclared);
+    // the duplicate query is a different instance
+    var duplicate = BeanQuery.builder().domainName("kafka.server").property("type", "a").build();
+    var sensor1 = MetricSensor.of(List.of(duplicate, q1), undeclared);
+    Assertions.assertEquals(List.of(q0), sensor0.queries());
+
+    // the merged sensor uses the union of queries
+    var merged = MetricSensor.of(List.of(sensor0, sensor1)).get();
+    Assertions.assertEquals(
+        List.of(q0.objectName(), q1.objectName()),
+        merged.queries().stream().map(BeanQuery::objectName).collect(Collectors.toList()));
+
+    // the undeclared sensor may use all queries
+    Assertions.assertTrue(
+        MetricSensor.queries(List.of(sensor0, undeclared)).stream()
+            .map(BeanQuery::objectName)
+            .collect(Collectors.toSet())
+            .containsAll(
+                MetricFetcher.QUERIES.stream()
+                    .map(BeanQuery::objectName)
+                    .collect(Collectors.toSet())));
+  }
 }
@@ -21,10 +21,15 @@ import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 import org.astraea.common.Utils;
 import org.astraea.common.metrics.BeanObject;
+import org.astraea.common.metrics.BeanQuery;
+import org.astraea.common.metrics.MBeanClient;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
@@ -116,4 +121,35 @@ public class MetricStoreTest {
           () -> store.wait((clusterBean) -> !clusterBean.all().isEmpty(), Duration.ofSeconds(1)));
     }
   }
+
+  @Test
+  void testLocalReceiverFetchesDeclaredQueries() {
+    var memory = BeanQuery.builder().domainName("java.lang").property("type", "Memory").build();
+    var os =
+        BeanQuery.builder().domainName("java.lang").property("type", "OperatingSystem").build();
+    var client = Mockito.mock(MBeanClient.class);
+    var fetched = new ConcurrentLinkedQueue<BeanQuery>();
+    Mockito.when(client.beans(Mockito.any(), Mockito.any(), Mockito.any()))
+        .thenAnswer(
+            invocation -> {
+              fetched.add(invocation.getArgument(0, BeanQuery.class));
+              return List.of();
+            });
+    var queries = new AtomicReference<>(List.of(memory));
+    try (var ignored =
+        MetricStore.builder()
+            .localReceiver(() -> CompletableFuture.completedStage(Map.of(-1, client)))
+            .sensorsSupplier(
+                () ->
+                    Map.of(
+                        MetricSensor.of(queries.get(), (c, bean) -> List.of()), (id, e) -> {}))
+            .build()) {
+      Utils.waitFor(() -> fetched.contains(memory), Duration.ofSeconds(10));
+      Assertions.assertFalse(fetched.contains(os));
+
+      // the queries follow the latest sensors
+      queries.set(List.of(os));
+      Utils.waitFor(() -> fetched.contains(os), Duration.ofSeconds(10));
+    }
+  }
 }
@@ -0,0 +1,120 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.astraea.common.metrics.collector;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.stream.Collectors;
+import org.astraea.common.Utils;
+import org.astraea.common.metrics.BeanObject;
+import org.astraea.common.metrics.ClusterBean;
+import org.astraea.common.metrics.HasBeanObject;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class SharedMetricStoreTest {
+
+  private static MetricSensor sensor(BeanObject bean) {
+    return (client, clusterBean) -> List.of((HasBeanObject) () -> bean);
+  }
+
+  private static Map<MetricSensor, BiConsumer<Integer, Exception>> sensors(MetricSensor sensor) {
+    return Map.of(sensor, (id, e) -> {});
+  }
+
+  @Test
+  void testShareStore() {
+    var size = SharedMetricStore.size();
+    var first = SharedMetricStore.of(Optional.empty(), Optional.of(1111), Map.of(), Map::of);
+    var second = SharedMetricStore.of(Optional.empty(), Optional.of(1111), Map.of(), Map::of);
+    Assertions.assertEquals(size + 1, SharedMetricStore.size());
+
+    // the different jmx ports get the different store
+    var third = SharedMetricStore.of(Optional.empty(), Optional.of(2222), Map.of(), Map::of);
+    Assertions.assertEquals(size + 2, SharedMetricStore.size());
+
+    first.close();
+    // closing twice does not release the store of others
+    first.close();
+    Assertions.assertEquals(size + 2, SharedMetricStore.size());
+    second.close();
+    Assertions.assertEquals(size + 1, SharedMetricStore.size());
+    third.close();
+    Assertions.assertEquals(size, SharedMetricStore.size());
+  }
+
+  @Test
+  void testUnionOfSensors() {
+    var bean = new BeanObject(Utils.randomString(), Map.of(), Map.of());
+    var other = new BeanObject(Utils.randomString(), Map.of("name", "other"), Map.of());
+    var firstSensors = sensors(sensor(bean));
+    var secondSensors = sensors(sensor(other));
+    try (var first =
+            SharedMetricStore.of(Optional.empty(), Optional.of(3333), Map.of(), () -> firstSensors);
+        var second =
+            SharedMetricStore.of(
+                Optional.empty(), Optional.of(3333), Map.of(), () -> secondSensors)) {
+      // each user sees its own sensors
+      Assertions.assertEquals(firstSensors, first.sensors());
+      Assertions.assertEquals(secondSensors, second.sensors());
+
+      // the sensors of both users are used by the shared store
+      first.wait(
+          c ->
+              c.all().getOrDefault(-1, List.of()).stream()
+                  .map(HasBeanObject::beanObject)
+                  .collect(Collectors.toSet())
+                  .containsAll(Set.of(bean, other)),
+          Duration.ofSeconds(10));
+    }
+  }
+
+  @Test
+  void testDeduplicateMetrics() {
+    var bean = new BeanObject(Utils.randomString(), Map.of(), Map.of());
+    var other = new BeanObject(Utils.randomString(), Map.of(), Map.of());
+    var errors = new AtomicInteger();
+    var failed =
+        (MetricSensor)
+            (client, clusterBean) -> {
+              throw new IllegalStateException("failed");
+            };
+    // the sensors are different, but two of them generate the same metrics
+    var merged =
+        SharedMetricStore.merge(
+            Map.of(
+                sensor(bean),
+                (id, e) -> {},
+                sensor(bean),
+                (id, e) -> {},
+                sensor(other),
+                (id, e) -> {},
+                failed,
+                (id, e) -> errors.incrementAndGet()));
+    var metrics = merged.fetch(BeanObjectClient.of(1, List.of()), ClusterBean.EMPTY);
+    Assertions.assertEquals(
+        Set.of(bean, other),
+        metrics.stream().map(HasBeanObject::beanObject).collect(Collectors.toSet()));
+    Assertions.assertEquals(2, metrics.size());
+    Assertions.assertEquals(1, errors.get());
+  }
+}
@@ -0,0 +1,74 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.astraea.common.metrics.stats;
+
+import java.util.stream.LongStream;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class HistogramTest {
+
+  @Test
+  void testEmpty() {
+    var histogram = Histogram.of();
+    Assertions.assertEquals(0, histogram.count());
+    Assertions.assertTrue(Double.isNaN(histogram.min()));
+    Assertions.assertTrue(Double.isNaN(histogram.max()));
+    Assertions.assertTrue(Double.isNaN(histogram.mean()));
+    Assertions.assertTrue(Double.isNaN(histogram.stdDev()));
+    Assertions.assertTrue(Double.isNaN(histogram.percentile(0.5)));
+  }
+
+  @Test
+  void testRecord() {
+    var histogram = Histogram.of();
+    Assertions.assertThrows(IllegalArgumentException.class, () -> histogram.record(-1));
+    Assertions.assertThrows(IllegalArgumentException.class, () -> histogram.percentile(1.1));
+    histogram.record(2);
+    histogram.record(4);
+    histogram.record(6);
+    Assertions.assertEquals(3, histogram.count());
+    Assertions.assertEquals(2, histogram.min());
+    Assertions.assertEquals(6, histogram.max());
+    Assertions.assertEquals(4, histogram.mean());
+    Assertions.assertEquals(Math.sqrt(8.0 / 3), histogram.stdDev(), 0.0001);
+    // the small values are exact
+    Assertions.assertEquals(4, histogram.percentile(0.5));
+  }
+
+  @Test
+  void testPercentile() {
+    var histogram = Histogram.of();
+    LongStream.rangeClosed(1, 10000).forEach(histogram::record);
+    for (var quantile : new double[] {0.5, 0.75, 0.95, 0.99, 0.999}) {
+      var expected = quantile * 10000;
+      Assertions.assertEquals(expected, histogram.percentile(quantile), expected / 8);
+    }
+    Assertions.assertEquals(1, histogram.percentile(0));
+    Assertions.assertEquals(10000, histogram.percentile(1), 10000 / 8.0);
+  }
+
+  @Test
+  void testBuckets() {
+    for (var value : new long[] {0, 7, 8, 9, 15, 16, 1000, 123456789, Long.MAX_VALUE}) {
+      var index = Histogram.index(value);
+      Assertions.assertTrue(Histogram.lowerBound(index) <= value);
+      Assertions.assertTrue(Histogram.upperBound(index) >= value);
+    }
+    Assertions.assertEquals(Long.MAX_VALUE, Histogram.upperBound(Histogram.index(Long.MAX_VALUE)));
+  }
+}
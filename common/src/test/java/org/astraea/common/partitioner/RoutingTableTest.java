@@ -0,0 +1,93 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.astraea.common.partitioner;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.astraea.common.admin.ClusterInfo;
+import org.astraea.common.admin.ClusterInfoTest;
+import org.astraea.common.admin.NodeInfo;
+import org.astraea.common.admin.Replica;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class RoutingTableTest {
+
+  private static Replica leader(String topic, int partition, int broker) {
+    return Replica.builder()
+        .topic(topic)
+        .partition(partition)
+        .path("/tmp/aa")
+        .nodeInfo(NodeInfo.of(broker, "host", 11111))
+        .buildLeader();
+  }
+
+  private static Set<Integer> partitions(RoutingTable.Route route, int broker) {
+    var result = new HashSet<Integer>();
+    for (var i = 0; i < 1000; i++) result.add(route.partition(broker));
+    return result;
+  }
+
+  @Test
+  void testRoute() {
+    var clusterInfo =
+        ClusterInfoTest.of(
+            List.of(
+                leader("a", 0, 1),
+                leader("a", 1, 1),
+                leader("a", 2, 2),
+                leader("b", 0, 3),
+                Replica.builder(leader("c", 0, 1)).isLeader(false).build()));
+    var table = RoutingTable.of(clusterInfo);
+    Assertions.assertTrue(table.isBuiltFrom(clusterInfo));
+    Assertions.assertFalse(table.isBuiltFrom(ClusterInfo.empty()));
+
+    // the topic having no leader
+    Assertions.assertNull(table.route("c"));
+    Assertions.assertNull(table.route("d"));
+
+    var a = table.route("a");
+    Assertions.assertEquals(3, a.size());
+    Assertions.assertEquals(Set.of(0, 1), partitions(a, 1));
+    Assertions.assertEquals(Set.of(2), partitions(a, 2));
+    // the broker hosting no leader of topic
+    Assertions.assertEquals(Set.of(0, 1, 2), partitions(a, 3));
+    // no target
+    Assertions.assertEquals(Set.of(0, 1, 2), partitions(a, -1));
+
+    var b = table.route("b");
+    Assertions.assertEquals(1, b.size());
+    Assertions.assertEquals(0, b.first());
+  }
+
+  @Test
+  void testReuseArrays() {
+    var clusterInfo =
+        ClusterInfoTest.of(List.of(leader("a", 0, 1), leader("a", 1, 2), leader("a", 2, 1000)));
+    var table = RoutingTable.of(clusterInfo);
+    var route = table.route("a");
+    // the routes and their partitions are built once, so choosing a partition allocates nothing
+    Assertions.assertSame(route, table.route("a"));
+    Assertions.assertSame(route.candidates(1000), route.candidates(1000));
+    Assertions.assertSame(route.candidates(-1), route.candidates(-1));
+    // the broker hosting no leader falls back to all partitions
+    Assertions.assertSame(route.candidates(-1), route.candidates(3));
+    Assertions.assertArrayEquals(new int[] {2}, route.candidates(1000));
+    Assertions.assertEquals(3, route.candidates(-1).length);
+  }
+}
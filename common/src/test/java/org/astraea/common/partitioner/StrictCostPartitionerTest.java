@@ -291,4 +291,73 @@ public class StrictCostPartitionerTest {
       }
     }
   }
+
+  public static class EvenCost implements HasBrokerCost {
+    @Override
+    public BrokerCost brokerCost(ClusterInfo clusterInfo, ClusterBean clusterBean) {
+      return () -> Map.of(1, 1D, 2, 1D);
+    }
+  }
+
+  @Test
+  void testSticky() {
+    var clusterInfo =
+        ClusterInfoTest.of(
+            List.of(
+                Replica.builder()
+                    .topic("topic")
+                    .partition(0)
+                    .path("/tmp/aa")
+                    .nodeInfo(NodeInfo.of(1, "host", 11111))
+                    .buildLeader(),
+                Replica.builder()
+                    .topic("topic")
+                    .partition(1)
+                    .path("/tmp/aa")
+                    .nodeInfo(NodeInfo.of(2, "host2", 11111))
+                    .buildLeader()));
+    try (var partitioner = new StrictCostPartitioner()) {
+      partitioner.configure(
+          Configuration.of(
+              Map.of(
+                  Partitioner.COST_PREFIX + "." + EvenCost.class.getName(),
+                  "1",
+                  StrictCostPartitioner.STICKY_KEY,
+                  "true")));
+      Assertions.assertTrue(partitioner.sticky);
+      var first = partitioner.partition("topic", new byte[0], new byte[0], clusterInfo);
+      IntStream.range(0, 10)
+          .forEach(
+              i ->
+                  Assertions.assertEquals(
+                      first,
+                      partitioner.partition("topic", new byte[0], new byte[0], clusterInfo)));
+
+      // the batch of other partition does not change the sticky partition
+      partitioner.onNewBatch("topic", first + 1, clusterInfo);
+      Assertions.assertEquals(
+          first, partitioner.partition("topic", new byte[0], new byte[0], clusterInfo));
+
+      // the new batch is sent to the next partition of round-robin
+      partitioner.onNewBatch("topic", first, clusterInfo);
+      var second = partitioner.partition("topic", new byte[0], new byte[0], clusterInfo);
+      Assertions.assertNotEquals(first, second);
+      Assertions.assertEquals(
+          second, partitioner.partition("topic", new byte[0], new byte[0], clusterInfo));
+    }
+
+    try (var partitioner = new StrictCostPartitioner()) {
+      partitioner.configure(
+          Configuration.of(
+              Map.of(Partitioner.COST_PREFIX + "." + EvenCost.class.getName(), "1")));
+      Assertions.assertFalse(partitioner.sticky);
+      // the records are spread over the partitions if sticky mode is disabled
+      Assertions.assertEquals(
+          2,
+          IntStream.range(0, 10)
+              .map(i -> partitioner.partition("topic", new byte[0], new byte[0], clusterInfo))
+              .distinct()
+              .count());
+    }
+  }
 }
@@ -18,6 +18,9 @@ package org.astraea.common.serializer;
 
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.astraea.common.ByteUtils;
 import org.astraea.common.consumer.Deserializer;
 import org.astraea.common.metrics.BeanObject;
 import org.astraea.common.producer.Serializer;
@@ -69,4 +72,109 @@ public class BeanObjectSerializerTest {
         IllegalArgumentException.class,
         () -> Serializer.BEAN_OBJECT.serialize("ignore", List.of(), bean));
   }
+
+  @Test
+  public void testBatch() {
+    var beans =
+        List.of(
+            new BeanObject(
+                "domain",
+                Map.of("name", "a", "topic", "t0"),
+                Map.of(
+                    "Integer",
+                    (Object) -1,
+                    "Long",
+                    Long.MIN_VALUE,
+                    "Float",
+                    (float) 3.4,
+                    "Double",
+                    -4.4,
+                    "Boolean",
+                    true,
+                    "String",
+                    "str"),
+                100),
+            new BeanObject("domain", Map.of("name", "a", "topic", "t1"), Map.of("Long", 2L), 50),
+            new BeanObject("other", Map.of(), Map.of(), Long.MAX_VALUE));
+    for (var compression : List.of(true, false)) {
+      var bytes = ByteUtils.toBytes(beans, compression);
+      var result = Deserializer.BEAN_OBJECTS.deserialize("ignore", List.of(), bytes);
+      Assertions.assertEquals(beans.size(), result.size());
+      for (var i = 0; i < beans.size(); i++) {
+        Assertions.assertEquals(beans.get(i).domainName(), result.get(i).domainName());
+        Assertions.assertEquals(beans.get(i).properties(), result.get(i).properties());
+        Assertions.assertEquals(beans.get(i).attributes(), result.get(i).attributes());
+        Assertions.assertEquals(
+            beans.get(i).createdTimestamp(), result.get(i).createdTimestamp());
+      }
+    }
+    var empty = Serializer.BEAN_OBJECTS.serialize("ignore", List.of(), List.of());
+    Assertions.assertEquals(List.of(), ByteUtils.readBeanObjects(empty));
+  }
+
+  @Test
+  public void testBatchIsSmaller() {
+    var beans =
+        IntStream.range(0, 1000)
+            .mapToObj(
+                i ->
+                    new BeanObject(
+                        "kafka.log",
+                        Map.of(
+                            "type",
+                            "Log",
+                            "name",
+                            "Size",
+                            "topic",
+                            "t" + i % 10,
+                            "partition",
+                            String.valueOf(i)),
+                        Map.of("Value", (long) i)))
+            .collect(Collectors.toList());
+    var legacy =
+        beans.stream()
+            .mapToInt(b -> Serializer.BEAN_OBJECT.serialize("ignore", List.of(), b).length)
+            .sum();
+    var batch = Serializer.BEAN_OBJECTS.serialize("ignore", List.of(), beans).length;
+    Assertions.assertTrue(batch * 5 < legacy, "batch: " + batch + ", legacy: " + legacy);
+    Assertions.assertTrue(
+        ByteUtils.toBytes(beans, true).length < ByteUtils.toBytes(beans, false).length);
+  }
+
+  @Test
+  public void testReadLegacyBean() {
+    var bean = new BeanObject("domain", Map.of("name", "a"), Map.of("Value", 1L));
+    var bytes = Serializer.BEAN_OBJECT.serialize("ignore", List.of(), bean);
+    var result = Deserializer.BEAN_OBJECTS.deserialize("ignore", List.of(), bytes);
+    Assertions.assertEquals(1, result.size());
+    Assertions.assertEquals(bean.domainName(), result.get(0).domainName());
+    Assertions.assertEquals(bean.properties(), result.get(0).properties());
+    Assertions.assertEquals(bean.attributes(), result.get(0).attributes());
+  }
+
+  @Test
+  public void testUnsupportedBatch() {
+    var bytes = ByteUtils.toBytes(List.of(new BeanObject("domain", Map.of(), Map.of())), false);
+    bytes[1] = 100;
+    Assertions.assertThrows(IllegalArgumentException.class, () -> ByteUtils.readBeanObjects(bytes));
+  }
+
+  @Test
+  public void testSkipUnsupportedAttributes() {
+    var beans =
+        List.of(
+            new BeanObject(
+                "domain",
+                Map.of("name", "n0"),
+                Map.of("map", Map.of("k", "v"), "array", new int[] {1}, "value", 10L)),
+            new BeanObject("domain", Map.of("name", "n1"), Map.of("value", "v")));
+    // the unsupported attributes don't fail the other attributes and beans
+    var result =
+        Deserializer.BEAN_OBJECTS.deserialize(
+            "ignore", List.of(), Serializer.BEAN_OBJECTS.serialize("ignore", List.of(), beans));
+    Assertions.assertEquals(2, result.size());
+    Assertions.assertEquals(Map.of("name", "n0"), result.get(0).properties());
+    Assertions.assertEquals(Map.of("value", 10L), result.get(0).attributes());
+    Assertions.assertEquals(Map.of("value", "v"), result.get(1).attributes());
+  }
 }
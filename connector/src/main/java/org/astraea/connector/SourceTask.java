@@ -40,6 +40,21 @@ public abstract class SourceTask extends org.apache.kafka.connect.source.SourceT
     // empty
   }
 
+  /**
+   * Called when a record returned by {@link #take()} is written to kafka. The default
+   * implementation calls {@link #commit(Metadata)}.
+   *
+   * @param metadataIndex the {@link SourceRecord#metadataIndex()} of the written record. It is
+   *     empty if the record is not a {@link SourceRecord}
+   * @param metadata the {@link SourceRecord#metadata()} of the written record
+   * @param recordMetadata the metadata of the written record
+   */
+  protected void commit(
+      Map<String, String> metadataIndex, Map<String, String> metadata, Metadata recordMetadata)
+      throws InterruptedException {
+    commit(recordMetadata);
+  }
+
   protected void close() {
     // empty
   }
@@ -97,7 +112,15 @@ public abstract class SourceTask extends org.apache.kafka.connect.source.SourceT
       org.apache.kafka.connect.source.SourceRecord record,
       org.apache.kafka.clients.producer.RecordMetadata metadata)
       throws InterruptedException {
-    commit(Metadata.of(metadata));
+    commit(
+        strings(record.sourcePartition()), strings(record.sourceOffset()), Metadata.of(metadata));
+  }
+
+  private static Map<String, String> strings(Map<String, ?> map) {
+    if (map == null) return Map.of();
+    return map.entrySet().stream()
+        .collect(
+            Collectors.toUnmodifiableMap(Map.Entry::getKey, e -> String.valueOf(e.getValue())));
   }
 
   private static class HeaderImpl implements org.apache.kafka.connect.header.Header {
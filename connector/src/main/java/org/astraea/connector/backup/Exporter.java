@@ -16,19 +16,21 @@
  */
 package org.astraea.connector.backup;
 
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
-import java.util.Objects;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.concurrent.atomic.LongAdder;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
-import java.util.stream.Stream;
 import org.astraea.common.Configuration;
 import org.astraea.common.DataSize;
 import org.astraea.common.Utils;
@@ -114,6 +116,15 @@ public class Exporter extends SinkConnector {
               "a value that represents the capacity of a blocking queue from which the writer can take records.")
           .defaultValue("300MB")
           .build();
+
+  static Definition WRITER_THREADS_KEY =
+      Definition.builder()
+          .name("writer.threads")
+          .type(Definition.Type.INT)
+          .validator((name, obj) -> Utils.requirePositive(Integer.parseInt(obj.toString())))
+          .documentation(
+              "the number of threads writing the files. The records of a partition are written by the same thread. The default is the number of available processors.")
+          .build();
   private Configuration configs;
 
   @Override
@@ -142,7 +153,8 @@ public class Exporter extends SinkConnector {
         PATH_KEY,
         SIZE_KEY,
         OVERRIDE_KEY,
-        BUFFER_SIZE_KEY);
+        BUFFER_SIZE_KEY,
+        WRITER_THREADS_KEY);
   }
 
   public static class Task extends SinkTask {
@@ -151,13 +163,16 @@ public class Exporter extends SinkConnector {
 
     private final AtomicBoolean closed = new AtomicBoolean(false);
 
-    final BlockingQueue<Record<byte[], byte[]>> recordsQueue = new LinkedBlockingQueue<>();
+    // the first error thrown by the workers or by closing the writers
+    private final AtomicReference<Throwable> error = new AtomicReference<>();
 
-    final LongAdder bufferSize = new LongAdder();
+    // closing a writer flushes and uploads the file, so it is done by another thread. The pool has
+    // as many threads as workers, and the extra files wait in the queue
+    private ExecutorService closer;
 
-    private final Object putLock = new Object();
+    private ExecutorService executor;
 
-    private long bufferSizeLimit;
+    List<Worker> workers = List.of();
 
     FileSystem fs;
     String topicName;
@@ -165,90 +180,152 @@ public class Exporter extends SinkConnector {
     DataSize size;
     long interval;
 
-    RecordWriter createRecordWriter(TopicPartition tp, long offset) {
-      var fileName = String.valueOf(offset);
-      return RecordWriter.builder(
-              fs.write(String.join("/", path, topicName, String.valueOf(tp.partition()), fileName)))
-          .build();
-    }
-
     /**
-     * Remove writers that have not appended any records in the past <code>interval</code>
-     * milliseconds.
-     *
-     * @param writers a map of <code>TopicPartition</code> to <code>RecordWriter</code> objects
+     * The records of a partition are always written by the same worker, so the files of a partition
+     * are written in order. Each worker has its own buffer, and hence a slow partition blocks only
+     * the partitions sharing the worker.
      */
-    void removeOldWriters(HashMap<TopicPartition, RecordWriter> writers) {
-      var itr = writers.values().iterator();
-      var currentTime = System.currentTimeMillis();
-      while (itr.hasNext()) {
-        var writer = itr.next();
-        if (currentTime - writer.latestAppendTimestamp() > interval) {
-          writer.close();
-          itr.remove();
-        }
-      }
-    }
+    class Worker implements Runnable {
 
-    /**
-     * Writes a list {@link Record} objects to the specified {@link RecordWriter} objects. If a
-     * writer for the specified {@link TopicPartition} does not exist, it is created using the given
-     * {@link FileSystem}, path. topic name, partition, and offset.
-     *
-     * @param writers a {@link HashMap} that maps a {@link TopicPartition} to a {@link RecordWriter}
-     *     object
-     */
-    void writeRecords(HashMap<TopicPartition, RecordWriter> writers) {
+      final BlockingQueue<Record<byte[], byte[]>> recordsQueue = new LinkedBlockingQueue<>();
 
-      var records = recordsFromBuffer();
+      final LongAdder bufferSize = new LongAdder();
 
-      removeOldWriters(writers);
+      final HashMap<TopicPartition, RecordWriter> writers = new HashMap<>();
 
-      records.forEach(
-          record -> {
-            var writer =
-                writers.computeIfAbsent(
-                    record.topicPartition(), tp -> createRecordWriter(tp, record.offset()));
-            writer.append(record);
-            if (writer.size().greaterThan(size)) {
-              writers.remove(record.topicPartition()).close();
-            }
-          });
-    }
+      private final Object putLock = new Object();
+
+      private final long bufferSizeLimit;
+
+      Worker(long bufferSizeLimit) {
+        this.bufferSizeLimit = bufferSizeLimit;
+      }
+
+      /**
+       * Add the record to the buffer. It blocks until the buffer has enough space for the record.
+       * The record larger than the limit is accepted when the buffer is empty.
+       */
+      void put(Record<byte[], byte[]> record) throws InterruptedException {
+        var recordLength = length(record);
+        synchronized (putLock) {
+          while (bufferSize.sum() > 0 && bufferSize.sum() + recordLength >= bufferSizeLimit) {
+            checkError();
+            putLock.wait(1000);
+          }
+        }
+        recordsQueue.put(record);
+        bufferSize.add(recordLength);
+      }
+
+      /**
+       * Remove writers that have not appended any records in the past <code>interval</code>
+       * milliseconds.
+       */
+      void removeOldWriters() {
+        var itr = writers.values().iterator();
+        var currentTime = System.currentTimeMillis();
+        while (itr.hasNext()) {
+          var writer = itr.next();
+          if (currentTime - writer.latestAppendTimestamp() > interval) {
+            closeAsync(writer);
+            itr.remove();
+          }
+        }
+      }
+
+      /**
+       * Writes the buffered {@link Record} objects to the {@link RecordWriter} objects. If a writer
+       * for the specified {@link TopicPartition} does not exist, it is created using the given
+       * {@link FileSystem}, path. topic name, partition, and offset.
+       *
+       * @param timeout to wait for the records
+       */
+      void writeRecords(Duration timeout) {
+
+        var records = recordsFromBuffer(timeout);
+
+        removeOldWriters();
+
+        records.forEach(
+            record -> {
+              var writer =
+                  writers.computeIfAbsent(
+                      record.topicPartition(), tp -> createRecordWriter(tp, record.offset()));
+              writer.append(record);
+              if (writer.size().greaterThan(size)) {
+                closeAsync(writers.remove(record.topicPartition()));
+              }
+            });
+      }
 
-    Runnable createWriter() {
-      return () -> {
-        var writers = new HashMap<TopicPartition, RecordWriter>();
+      /**
+       * Retrieves a list of records from the buffer and empties the records queue. It waits for
+       * the first record if the buffer is empty.
+       *
+       * @param timeout to wait for the first record
+       * @return a {@link List} of records retrieved from the buffer
+       */
+      List<Record<byte[], byte[]>> recordsFromBuffer(Duration timeout) {
+        var first =
+            Utils.packException(() -> recordsQueue.poll(timeout.toMillis(), TimeUnit.MILLISECONDS));
+        if (first == null) return List.of();
+        var list = new ArrayList<Record<byte[], byte[]>>(recordsQueue.size() + 1);
+        list.add(first);
+        recordsQueue.drainTo(list);
+        bufferSize.add(-list.stream().mapToLong(Task::length).sum());
+        synchronized (putLock) {
+          putLock.notify();
+        }
+        return list;
+      }
 
+      @Override
+      public void run() {
+        // wake up in time to remove the old writers
+        var timeout = Duration.ofMillis(Math.max(1, Math.min(interval, 1000)));
         try {
           while (!closed.get()) {
-            writeRecords(writers);
+            writeRecords(timeout);
           }
+          // the records accepted by put are written before the writers get closed
+          while (!recordsQueue.isEmpty()) writeRecords(Duration.ZERO);
         } finally {
-          writers.forEach((tp, writer) -> writer.close());
+          writers.values().forEach(Task.this::closeAsync);
+          writers.clear();
         }
-      };
+      }
+    }
+
+    private static int length(Record<byte[], byte[]> record) {
+      return (record.key() == null ? 0 : record.key().length)
+          + (record.value() == null ? 0 : record.value().length);
+    }
+
+    RecordWriter createRecordWriter(TopicPartition tp, long offset) {
+      var fileName = String.valueOf(offset);
+      return RecordWriter.builder(
+              fs.write(String.join("/", path, topicName, String.valueOf(tp.partition()), fileName)))
+          .build();
+    }
+
+    void closeAsync(RecordWriter writer) {
+      CompletableFuture.runAsync(writer::close, closer).whenComplete(this::onComplete);
+    }
+
+    private void onComplete(Void ignored, Throwable e) {
+      if (e != null) error.compareAndSet(null, e);
+    }
+
+    private void checkError() {
+      var e = error.get();
+      if (e != null) throw new IllegalStateException("failed to write the records", e);
     }
 
     /**
-     * Retrieves a list of records from the buffer and empties the records queue.
-     *
-     * @return a {@link List} of records retrieved from the buffer
+     * @return the worker handling the partition of record
      */
-    List<Record<byte[], byte[]>> recordsFromBuffer() {
-      var list = new ArrayList<Record<byte[], byte[]>>(recordsQueue.size());
-      recordsQueue.drainTo(list);
-      if (list.size() > 0) {
-        var drainedSize =
-            list.stream()
-                .mapToInt(record -> record.serializedKeySize() + record.serializedValueSize())
-                .sum();
-        bufferSize.add(-drainedSize);
-        synchronized (putLock) {
-          putLock.notify();
-        }
-      }
-      return list;
+    Worker worker(Record<byte[], byte[]> record) {
+      return workers.get(Math.floorMod(record.topicPartition().hashCode(), workers.size()));
     }
 
     @Override
@@ -263,17 +340,33 @@ public class Exporter extends SinkConnector {
                   configuration.string(TIME_KEY.name()).orElse(TIME_KEY.defaultValue().toString()))
               .toMillis();
 
-      this.bufferSize.reset();
-
-      this.bufferSizeLimit =
+      var bufferSizeLimit =
           DataSize.of(
                   configuration
                       .string(BUFFER_SIZE_KEY.name())
                       .orElse(BUFFER_SIZE_KEY.defaultValue().toString()))
               .bytes();
+      var threads =
+          configuration
+              .integer(WRITER_THREADS_KEY.name())
+              .orElse(Runtime.getRuntime().availableProcessors());
 
       this.fs = FileSystem.of(configuration.requireString(SCHEMA_KEY.name()), configuration);
-      this.writerFuture = CompletableFuture.runAsync(createWriter());
+      // the buffer is shared by the workers
+      this.workers =
+          IntStream.range(0, threads)
+              .mapToObj(i -> new Worker(bufferSizeLimit / threads))
+              .collect(Collectors.toUnmodifiableList());
+      this.executor = Executors.newFixedThreadPool(threads);
+      this.closer = Executors.newFixedThreadPool(threads);
+      this.writerFuture =
+          CompletableFuture.allOf(
+              workers.stream()
+                  .map(
+                      worker ->
+                          CompletableFuture.runAsync(worker, executor)
+                              .whenComplete(this::onComplete))
+                  .toArray(CompletableFuture[]::new));
     }
 
     @Override
@@ -282,27 +375,24 @@ public class Exporter extends SinkConnector {
           r ->
               Utils.packException(
                   () -> {
-                    int recordLength =
-                        Stream.of(r.key(), r.value())
-                            .filter(Objects::nonNull)
-                            .map(i -> i.length)
-                            .reduce(0, Integer::sum);
-
-                    synchronized (putLock) {
-                      while (this.bufferSize.sum() + recordLength >= this.bufferSizeLimit) {
-                        putLock.wait();
-                      }
-                    }
-                    recordsQueue.put(r);
-
-                    this.bufferSize.add(recordLength);
+                    checkError();
+                    worker(r).put(r);
                   }));
     }
 
     @Override
     protected void close() {
       this.closed.set(true);
-      Utils.packException(() -> writerFuture.toCompletableFuture().get(10, TimeUnit.SECONDS));
+      try {
+        Utils.packException(() -> writerFuture.toCompletableFuture().get(10, TimeUnit.SECONDS));
+      } finally {
+        executor.shutdown();
+        // the workers still close their writers after the timeout, so the closer must accept the
+        // writers until all workers exit
+        writerFuture.whenComplete((ignored, e) -> closer.shutdown());
+        // wait for the files which are closing
+        Utils.packException(() -> closer.awaitTermination(10, TimeUnit.SECONDS));
+      }
     }
 
     boolean isWriterDone() {
@@ -23,19 +23,28 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 import org.astraea.common.Configuration;
+import org.astraea.common.DataSize;
 import org.astraea.common.Utils;
 import org.astraea.common.backup.RecordReader;
-import org.astraea.common.backup.RecordWriter;
+import org.astraea.common.producer.Metadata;
 import org.astraea.common.producer.Record;
 import org.astraea.connector.Definition;
 import org.astraea.connector.MetadataStorage;
 import org.astraea.connector.SourceConnector;
+import org.astraea.connector.SourceRecord;
 import org.astraea.connector.SourceTask;
 import org.astraea.fs.FileSystem;
 import org.astraea.fs.Type;
@@ -93,8 +102,34 @@ public class Importer extends SourceConnector {
           .type(Definition.Type.STRING)
           .documentation("the directory of the imported file that needs to be archived")
           .build();
+  static Definition TIMESTAMP_FROM_KEY =
+      Definition.builder()
+          .name("timestamp.from")
+          .type(Definition.Type.LONG)
+          .documentation("the records having smaller timestamp (in milliseconds) are not imported")
+          .build();
+  static Definition TIMESTAMP_TO_KEY =
+      Definition.builder()
+          .name("timestamp.to")
+          .type(Definition.Type.LONG)
+          .documentation(
+              "the records having equal or larger timestamp (in milliseconds) are not imported")
+          .build();
+  static Definition BATCH_SIZE_KEY =
+      Definition.builder()
+          .name("batch.size")
+          .type(Definition.Type.STRING)
+          .validator((name, obj) -> DataSize.of(obj.toString()))
+          .defaultValue("1MB")
+          .documentation(
+              "the maximum size of the records returned by each poll. The file is read in batches"
+                  + " rather than loaded into memory.")
+          .build();
   public static final String FILE_SET_KEY = "file.set";
   public static final String TASKS_COUNT_KEY = "tasks.count";
+  // the progress of each file is stored by the offset of last imported record
+  static final String PATH_INDEX_KEY = "path";
+  static final String OFFSET_KEY = "offset";
   private Configuration config;
 
   @Override
@@ -130,21 +165,111 @@ public class Importer extends SourceConnector {
         PASSWORD_KEY,
         PATH_KEY,
         CLEAN_SOURCE_KEY,
-        ARCHIVE_DIR_KEY);
+        ARCHIVE_DIR_KEY,
+        TIMESTAMP_FROM_KEY,
+        TIMESTAMP_TO_KEY,
+        BATCH_SIZE_KEY);
   }
 
   public static class Task extends SourceTask {
     private FileSystem Client;
+    private MetadataStorage storage;
     private int fileSet;
     private Set<String> addedPaths;
     private String rootDir;
     private int tasksCount;
-    private List<String> paths;
+    private LinkedList<String> paths;
     private String cleanSource;
     private Optional<String> archiveDir;
+    private long timestampFrom;
+    private long timestampTo;
+    private long batchSize;
+    private ExecutorService executor;
+    // the file being imported
+    private FileReader current;
+    // the next file is opened in the background while the current file is imported
+    private CompletableFuture<FileReader> next;
+    // the files which are read completely. They are cleaned after their last records are committed
+    private Map<String, Long> finished;
+    // the files whose last records are committed. They are cleaned by the task thread
+    private Queue<String> committed;
+
+    /**
+     * Read the records of a file in batches. It starts from the record following the last
+     * committed one, and the blocks before that record are skipped by the index of file.
+     */
+    private class FileReader implements AutoCloseable {
+      private final String path;
+      private final Map<String, String> index;
+      private final RecordReader reader;
+      // the offset of last returned record, or -1 if no record is returned
+      private long lastOffset = -1;
+      // the next record having key or value. It is read in advance, so the batch returning the last
+      // record of file is known to be the last batch
+      private org.astraea.common.consumer.Record<byte[], byte[]> pending;
+
+      private FileReader(String path) {
+        this.path = path;
+        this.index = Map.of(PATH_INDEX_KEY, path);
+        // the blocks out of the time range are not read
+        this.reader =
+            RecordReader.builder(Client.size(path), position -> Client.read(path, position))
+                .timestampRange(timestampFrom, timestampTo)
+                .build();
+        Optional.ofNullable(storage.metadata(index).get(OFFSET_KEY))
+            .map(Long::parseLong)
+            .ifPresent(offset -> reader.seek(offset + 1));
+        // read the first block in advance
+        hasNext();
+      }
+
+      /**
+       * @return the records up to the batch size
+       */
+      List<Record<byte[], byte[]>> batch() {
+        var records = new ArrayList<Record<byte[], byte[]>>();
+        var size = 0L;
+        while (size < batchSize && hasNext()) {
+          var record = pending;
+          pending = null;
+          records.add(
+              SourceRecord.builder()
+                  .topic(record.topic())
+                  .partition(record.partition())
+                  .key(record.key())
+                  .value(record.value())
+                  .timestamp(record.timestamp())
+                  .headers(record.headers())
+                  .metadataIndex(index)
+                  .metadata(Map.of(OFFSET_KEY, String.valueOf(record.offset())))
+                  .build());
+          size +=
+              Math.max(0, record.serializedKeySize()) + Math.max(0, record.serializedValueSize());
+          lastOffset = record.offset();
+        }
+        return records;
+      }
+
+      /**
+       * @return true if there is a record having key or value. The other records are skipped
+       */
+      boolean hasNext() {
+        while (pending == null && reader.hasNext()) {
+          var record = reader.next();
+          if (record.key() != null || record.value() != null) pending = record;
+        }
+        return pending != null;
+      }
+
+      @Override
+      public void close() {
+        reader.close();
+      }
+    }
 
     protected void init(Configuration configuration, MetadataStorage storage) {
       this.Client = FileSystem.of(configuration.requireString(SCHEMA_KEY.name()), configuration);
+      this.storage = storage;
       this.fileSet = configuration.requireInteger(FILE_SET_KEY);
       this.addedPaths = new HashSet<>();
       this.rootDir = configuration.requireString(PATH_KEY.name());
@@ -155,56 +280,85 @@ public class Importer extends SourceConnector {
               .string(CLEAN_SOURCE_KEY.name())
               .orElse(CLEAN_SOURCE_KEY.defaultValue().toString());
       this.archiveDir = configuration.string(ARCHIVE_DIR_KEY.name());
+      this.timestampFrom =
+          configuration.longInteger(TIMESTAMP_FROM_KEY.name()).orElse(Long.MIN_VALUE);
+      this.timestampTo = configuration.longInteger(TIMESTAMP_TO_KEY.name()).orElse(Long.MAX_VALUE);
+      this.batchSize =
+          DataSize.of(
+                  configuration
+                      .string(BATCH_SIZE_KEY.name())
+                      .orElse(BATCH_SIZE_KEY.defaultValue().toString()))
+              .bytes();
+      this.executor = Executors.newSingleThreadExecutor();
+      this.finished = new ConcurrentHashMap<>();
+      this.committed = new ConcurrentLinkedQueue<>();
     }
 
     @Override
     protected Collection<Record<byte[], byte[]>> take() {
+      cleanCommitted();
+      if (current == null) {
+        if (next != null) current = next.join();
+        next = null;
+        // the new files may be written after the prefetch
+        if (current == null) current = nextPath().map(FileReader::new).orElse(null);
+        if (current == null) return null;
+      }
+      // the files are listed by the prefetch only, until it is joined by the next file
+      if (next == null)
+        next =
+            CompletableFuture.supplyAsync(
+                () -> nextPath().map(FileReader::new).orElse(null), executor);
+
+      var records = current.batch();
+      if (!current.hasNext()) {
+        current.close();
+        // the file can't be cleaned until its records are written, otherwise the records are lost
+        // if the task fails. The last record of file is in this batch, so the commit of it comes
+        // after the registration
+        if (current.lastOffset < 0) clean(current.path);
+        else finished.put(current.path, current.lastOffset);
+        current = null;
+      }
+      return records;
+    }
+
+    @Override
+    protected void commit(
+        Map<String, String> metadataIndex, Map<String, String> metadata, Metadata recordMetadata) {
+      var path = metadataIndex.get(PATH_INDEX_KEY);
+      var offset = metadata.get(OFFSET_KEY);
+      if (path == null || offset == null) return;
+      var last = finished.get(path);
+      // it is called by the producer thread, so the file system is not touched here
+      if (last != null && Long.parseLong(offset) >= last && finished.remove(path, last))
+        committed.add(path);
+    }
+
+    private void cleanCommitted() {
+      for (var path = committed.poll(); path != null; path = committed.poll()) clean(path);
+    }
+
+    private Optional<String> nextPath() {
       if (paths.isEmpty()) {
         paths = getFileSet(addedPaths, rootDir, tasksCount, fileSet);
+        addedPaths.addAll(paths);
       }
-      addedPaths.addAll(paths);
-      var currentPath = ((LinkedList<String>) paths).poll();
-      if (currentPath != null) {
-        var records = new ArrayList<Record<byte[], byte[]>>();
-        var inputStream = Client.read(currentPath);
-        var reader = RecordReader.builder(inputStream).build();
-        while (reader.hasNext()) {
-          var record = reader.next();
-          if (record.key() == null && record.value() == null) continue;
-          records.add(
-              Record.builder()
-                  .topic(record.topic())
-                  .partition(record.partition())
-                  .key(record.key())
-                  .value(record.value())
-                  .timestamp(record.timestamp())
-                  .headers(record.headers())
-                  .build());
-        }
-        Utils.close(inputStream);
-        switch (cleanSource) {
-          case "archive":
-            var archiveInput = Client.read(currentPath);
-            var archiveReader = RecordReader.builder(archiveInput).build();
-            var archiveWriter =
-                RecordWriter.builder(
-                        Client.write(currentPath.replaceFirst(rootDir, archiveDir.get())))
-                    .build();
-            while (archiveReader.hasNext()) {
-              var record = archiveReader.next();
-              if (record.key() == null && record.value() == null) continue;
-              archiveWriter.append(record);
-            }
-            archiveWriter.close();
-            Utils.close(archiveInput);
-          case "delete":
-            Client.delete(currentPath);
-          case "off":
-            break;
-        }
-        return records;
+      return Optional.ofNullable(paths.poll());
+    }
+
+    private void clean(String path) {
+      switch (cleanSource) {
+        case "archive":
+          // move the file on the server rather than reading and writing it again
+          Client.rename(path, path.replaceFirst(rootDir, archiveDir.get()));
+          break;
+        case "delete":
+          Client.delete(path);
+          break;
+        case "off":
+          break;
       }
-      return null;
     }
 
     protected LinkedList<String> getFileSet(
@@ -232,6 +386,15 @@ public class Importer extends SourceConnector {
 
     @Override
     protected void close() {
+      if (next != null)
+        Utils.swallowException(
+            () -> {
+              var reader = next.join();
+              if (reader != null) reader.close();
+            });
+      if (current != null) current.close();
+      if (executor != null) executor.shutdownNow();
+      if (committed != null) cleanCommitted();
       this.Client.close();
     }
   }
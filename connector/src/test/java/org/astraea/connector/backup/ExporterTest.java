@@ -20,10 +20,11 @@ import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.time.Duration;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
@@ -715,17 +716,69 @@ public class ExporterTest {
                 .build());
 
     var task = new Exporter.Task();
-    task.bufferSize.reset();
+    var worker = task.new Worker(Long.MAX_VALUE);
 
     records.forEach(
         record -> {
-          task.recordsQueue.offer(record);
-          task.bufferSize.add(record.serializedKeySize() + record.serializedValueSize());
+          worker.recordsQueue.offer(record);
+          worker.bufferSize.add(record.serializedKeySize() + record.serializedValueSize());
         });
 
-    var list = task.recordsFromBuffer();
+    var list = worker.recordsFromBuffer(Duration.ZERO);
 
     Assertions.assertEquals(records, list);
+    Assertions.assertEquals(0, worker.bufferSize.sum());
+    Assertions.assertEquals(List.of(), worker.recordsFromBuffer(Duration.ZERO));
+  }
+
+  @Test
+  void testBufferIsFull() throws Exception {
+    var record =
+        RecordBuilder.of()
+            .topic(Utils.randomString(10))
+            .key("test".getBytes())
+            .value("test0".getBytes())
+            .partition(0)
+            .offset(0)
+            .timestamp(System.currentTimeMillis())
+            .build();
+    var task = new Exporter.Task();
+    var worker = task.new Worker(10);
+    // the first record is accepted even if it is larger than the limit
+    worker.put(record);
+
+    var put = CompletableFuture.runAsync(() -> Utils.packException(() -> worker.put(record)));
+    Utils.sleep(Duration.ofMillis(500));
+    Assertions.assertFalse(put.isDone());
+
+    Assertions.assertEquals(1, worker.recordsFromBuffer(Duration.ZERO).size());
+    put.get(3, TimeUnit.SECONDS);
+    Assertions.assertEquals(1, worker.recordsQueue.size());
+  }
+
+  @Test
+  void testWorkerOfPartition() {
+    var topicName = Utils.randomString(10);
+    var task = new Exporter.Task();
+    task.workers =
+        IntStream.range(0, 3)
+            .mapToObj(i -> task.new Worker(Long.MAX_VALUE))
+            .collect(Collectors.toUnmodifiableList());
+    Function<Integer, Exporter.Task.Worker> worker =
+        partition ->
+            task.worker(
+                RecordBuilder.of()
+                    .topic(topicName)
+                    .key("test".getBytes())
+                    .value("test0".getBytes())
+                    .partition(partition)
+                    .offset(System.nanoTime())
+                    .build());
+    IntStream.range(0, 10)
+        .forEach(
+            partition -> Assertions.assertSame(worker.apply(partition), worker.apply(partition)));
+    Assertions.assertEquals(
+        3, IntStream.range(0, 100).mapToObj(worker::apply).collect(Collectors.toSet()).size());
   }
 
   /** The purpose of this test is also to remove old writers */
@@ -757,11 +810,11 @@ public class ExporterTest {
               "roll.duration",
               "300ms");
 
-      var writers = new HashMap<TopicPartition, RecordWriter>();
-
       var task = new Exporter.Task();
       task.fs = FileSystem.of("hdfs", Configuration.of(configs));
       task.interval = 1000;
+      var worker = task.new Worker(Long.MAX_VALUE);
+      var writers = worker.writers;
 
       RecordWriter recordWriter = task.createRecordWriter(tp, offset);
 
@@ -779,14 +832,14 @@ public class ExporterTest {
               .timestamp(System.currentTimeMillis())
               .build());
 
-      task.removeOldWriters(writers);
+      worker.removeOldWriters();
 
       // the writer should not be closed before sleep.
       Assertions.assertNotEquals(0, writers.size());
 
       Utils.sleep(Duration.ofMillis(1500));
 
-      task.removeOldWriters(writers);
+      worker.removeOldWriters();
 
       Assertions.assertEquals(0, writers.size());
     }
@@ -818,13 +871,11 @@ public class ExporterTest {
               "roll.duration",
               "300ms");
 
-      var writers = new HashMap<TopicPartition, RecordWriter>();
-
       var task = new Exporter.Task();
       task.fs = FileSystem.of("hdfs", Configuration.of(configs));
       task.size = DataSize.of("100MB");
-      task.bufferSize.reset();
-      task.recordsQueue.add(
+      var worker = task.new Worker(Long.MAX_VALUE);
+      worker.recordsQueue.add(
           RecordBuilder.of()
               .topic(topicName)
               .key("test".getBytes())
@@ -834,11 +885,12 @@ public class ExporterTest {
               .timestamp(System.currentTimeMillis())
               .build());
 
-      Assertions.assertNotEquals(0, task.recordsQueue.size());
+      Assertions.assertNotEquals(0, worker.recordsQueue.size());
 
-      task.writeRecords(writers);
+      worker.writeRecords(Duration.ZERO);
 
-      Assertions.assertEquals(0, task.recordsQueue.size());
+      Assertions.assertEquals(0, worker.recordsQueue.size());
+      Assertions.assertEquals(1, worker.writers.size());
     }
   }
 }
@@ -16,7 +16,10 @@
  */
 package org.astraea.connector.backup;
 
+import java.io.IOException;
+import java.nio.file.Files;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -29,7 +32,9 @@ import org.astraea.common.connector.Config;
 import org.astraea.common.connector.ConnectorClient;
 import org.astraea.common.connector.Value;
 import org.astraea.connector.MetadataStorage;
+import org.astraea.connector.SourceRecord;
 import org.astraea.fs.FileSystem;
+import org.astraea.fs.Type;
 import org.astraea.it.FtpServer;
 import org.astraea.it.Service;
 import org.junit.jupiter.api.AfterAll;
@@ -161,4 +166,148 @@ public class ImporterTest {
       }
     }
   }
+
+  @Test
+  void testCleanWithTrailingEmptyRecords() throws IOException {
+    var root = Files.createTempDirectory("testCleanWithTrailingEmptyRecords").toString();
+    var configs = localConfigs(root, Map.of("clean.source", "delete", "batch.size", "1KB"));
+    var fs = FileSystem.of("local", Configuration.of(configs));
+    try (var writer = RecordWriter.builder(fs.write("/source/topic/0/0")).build()) {
+      for (var i = 0; i < 20; i++)
+        writer.append(
+            RecordBuilder.of()
+                .topic("topic")
+                // the records after offset 9 have neither key nor value
+                .key(i < 10 ? "test".getBytes() : null)
+                .value(i < 10 ? new byte[100] : null)
+                .partition(0)
+                .offset(i)
+                .timestamp(System.currentTimeMillis())
+                .build());
+    }
+
+    var task = new Importer.Task();
+    task.init(Configuration.of(configs), MetadataStorage.EMPTY);
+    var batches = takeAll(task);
+    // the empty records are skipped rather than returned as an empty batch
+    batches.forEach(batch -> Assertions.assertFalse(batch.isEmpty()));
+    var last = batches.get(batches.size() - 1).get(batches.get(batches.size() - 1).size() - 1);
+    Assertions.assertEquals("9", last.metadata().get(Importer.OFFSET_KEY));
+
+    task.commit(last.metadataIndex(), last.metadata(), null);
+    Assertions.assertNull(task.take());
+    task.close();
+    Assertions.assertEquals(Type.NONEXISTENT, fs.type("/source/topic/0/0"));
+  }
+
+  private static Map<String, String> localConfigs(String root, Map<String, String> others) {
+    var configs = new HashMap<>(others);
+    configs.put("fs.schema", "local");
+    configs.put("fs.local.root", root);
+    configs.put("path", "/source");
+    configs.put("tasks.count", "1");
+    configs.put("file.set", "0");
+    return configs;
+  }
+
+  private static void write(FileSystem fs, String path, int count) {
+    try (var writer = RecordWriter.builder(fs.write(path)).build()) {
+      for (var i = 0; i < count; i++)
+        writer.append(
+            RecordBuilder.of()
+                .topic("topic")
+                .key("test".getBytes())
+                .value(new byte[100])
+                .partition(0)
+                .offset(i)
+                .timestamp(System.currentTimeMillis())
+                .build());
+    }
+  }
+
+  private static List<List<SourceRecord>> takeAll(Importer.Task task) {
+    var batches = new ArrayList<List<SourceRecord>>();
+    for (var batch = task.take(); batch != null; batch = task.take())
+      batches.add(batch.stream().map(r -> (SourceRecord) r).collect(Collectors.toList()));
+    return batches;
+  }
+
+  @Test
+  void testTakeInBatches() throws IOException {
+    var root = Files.createTempDirectory("testTakeInBatches").toString();
+    var configs = localConfigs(root, Map.of("batch.size", "1KB"));
+    var fs = FileSystem.of("local", Configuration.of(configs));
+    write(fs, "/source/topic/0/0", 100);
+    write(fs, "/source/topic/0/100", 100);
+
+    var task = new Importer.Task();
+    task.init(Configuration.of(configs), MetadataStorage.EMPTY);
+    var batches = takeAll(task);
+    task.close();
+
+    // each batch has 1KB records at most
+    Assertions.assertTrue(batches.size() >= 20, "batches: " + batches.size());
+    batches.forEach(batch -> Assertions.assertTrue(batch.size() <= 10));
+    var records = batches.stream().flatMap(List::stream).collect(Collectors.toList());
+    Assertions.assertEquals(200, records.size());
+    // the progress of file is recorded by the records
+    Assertions.assertEquals(
+        Set.of("/source/topic/0/0", "/source/topic/0/100"),
+        records.stream()
+            .map(r -> r.metadataIndex().get(Importer.PATH_INDEX_KEY))
+            .collect(Collectors.toSet()));
+    Assertions.assertEquals("99", records.get(99).metadata().get(Importer.OFFSET_KEY));
+  }
+
+  @Test
+  void testResume() throws IOException {
+    var root = Files.createTempDirectory("testResume").toString();
+    var configs = localConfigs(root, Map.of());
+    var fs = FileSystem.of("local", Configuration.of(configs));
+    write(fs, "/source/topic/0/0", 100);
+
+    var task = new Importer.Task();
+    // the records till offset 49 are imported already
+    task.init(
+        Configuration.of(configs),
+        index ->
+            index.get(Importer.PATH_INDEX_KEY).equals("/source/topic/0/0")
+                ? Map.of(Importer.OFFSET_KEY, "49")
+                : Map.of());
+    var records = takeAll(task).stream().flatMap(List::stream).collect(Collectors.toList());
+    task.close();
+    Assertions.assertEquals(50, records.size());
+    Assertions.assertEquals("50", records.get(0).metadata().get(Importer.OFFSET_KEY));
+  }
+
+  @Test
+  void testArchive() throws IOException {
+    var root = Files.createTempDirectory("testArchive").toString();
+    var configs = localConfigs(root, Map.of("clean.source", "archive", "archive.dir", "/archive"));
+    var fs = FileSystem.of("local", Configuration.of(configs));
+    write(fs, "/source/topic/0/0", 10);
+    var size = fs.size("/source/topic/0/0");
+
+    var task = new Importer.Task();
+    task.init(Configuration.of(configs), MetadataStorage.EMPTY);
+    var records = takeAll(task).stream().flatMap(List::stream).collect(Collectors.toList());
+    Assertions.assertEquals(10, records.size());
+    // the records are not written yet
+    Assertions.assertNull(task.take());
+    Assertions.assertEquals(Type.FILE, fs.type("/source/topic/0/0"));
+
+    // the file is cleaned after the last record is committed
+    var first = records.get(0);
+    task.commit(first.metadataIndex(), first.metadata(), null);
+    Assertions.assertNull(task.take());
+    Assertions.assertEquals(Type.FILE, fs.type("/source/topic/0/0"));
+    var last = records.get(records.size() - 1);
+    task.commit(last.metadataIndex(), last.metadata(), null);
+    Assertions.assertNull(task.take());
+    task.close();
+
+    // the file is moved rather than rewritten
+    Assertions.assertEquals(Type.NONEXISTENT, fs.type("/source/topic/0/0"));
+    Assertions.assertEquals(size, fs.size("/archive/topic/0/0"));
+  }
 }
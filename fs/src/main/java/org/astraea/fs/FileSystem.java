@@ -79,6 +79,41 @@ public interface FileSystem extends AutoCloseable {
 
   InputStream read(String path);
 
+  /**
+   * Read the file from the given position. The stream is allowed to be closed before reaching the
+   * end of file, so it is used to read a part of file. The default implementation skips the bytes
+   * before the position, so the implementation supporting seek should override it.
+   *
+   * @param path to read
+   * @param position the position of file to start reading
+   * @return input stream
+   */
+  default InputStream read(String path, long position) {
+    var inputStream = read(path);
+    try {
+      Utils.packException(() -> inputStream.skipNBytes(position));
+      return inputStream;
+    } catch (RuntimeException e) {
+      Utils.close(inputStream);
+      throw e;
+    }
+  }
+
+  /**
+   * The default implementation reads the whole file, so the implementation should override it.
+   *
+   * @param path of file
+   * @return the size of file in bytes. It throws exception if the path is not a file.
+   */
+  default long size(String path) {
+    return Utils.packException(
+        () -> {
+          try (var inputStream = read(path)) {
+            return inputStream.transferTo(OutputStream.nullOutputStream());
+          }
+        });
+  }
+
   /**
    * create a file on given path. The parent folders get created automatically.
    *
@@ -87,6 +122,26 @@ public interface FileSystem extends AutoCloseable {
    */
   OutputStream write(String path);
 
+  /**
+   * move the file to another path. The parent folders of target get created automatically, and the
+   * existing target file is replaced. The default implementation copies the data and then deletes
+   * the source, so the implementation able to move the file on the server should override it.
+   *
+   * @param source the file to move
+   * @param target the new path of file
+   */
+  default void rename(String source, String target) {
+    if (type(source) != Type.FILE) throw new IllegalArgumentException(source + " is not a file");
+    Utils.packException(
+        () -> {
+          try (var input = read(source);
+              var output = write(target)) {
+            input.transferTo(output);
+          }
+        });
+    delete(source);
+  }
+
   /**
    * @param path to check type
    * @return the type of path
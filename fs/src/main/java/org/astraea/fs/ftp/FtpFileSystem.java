@@ -145,6 +145,32 @@ public class FtpFileSystem implements FileSystem {
 
   @Override
   public synchronized InputStream read(String path) {
+    return read(path, 0, true);
+  }
+
+  @Override
+  public synchronized InputStream read(String path, long position) {
+    // the transfer is aborted if the stream is closed before reaching the end of file
+    return read(path, position, false);
+  }
+
+  @Override
+  public synchronized long size(String path) {
+    return Utils.packException(
+        () -> {
+          // the size reported by SIZE command depends on the transfer mode
+          client.setFileType(FTP.BINARY_FILE_TYPE);
+          var size = client.getSize(path);
+          if (size != null) return Long.parseLong(size.trim());
+          // the server doesn't support SIZE command, or the path is not a file
+          var file = client.mlistFile(path);
+          if (file == null || !file.isFile())
+            throw new IllegalArgumentException(path + " is not a file");
+          return file.getSize();
+        });
+  }
+
+  private InputStream read(String path, long position, boolean requireComplete) {
     return Utils.packException(
         () -> {
           if (type(path) != Type.FILE) throw new IllegalArgumentException(path + " is not a file");
@@ -153,6 +179,7 @@ public class FtpFileSystem implements FileSystem {
           // see https://lists.apache.org/thread/7pjjw8bb1qo9noz3dcxkdcr6v7kx8c1l
           var client = clientSupplier.get();
           client.setFileType(FTP.BINARY_FILE_TYPE);
+          if (position > 0) client.setRestartOffset(position);
           var inputStream = client.retrieveFileStream(path);
           if (inputStream == null) {
             FtpFileSystem.close(client);
@@ -178,7 +205,7 @@ public class FtpFileSystem implements FileSystem {
             @Override
             public void close() throws IOException {
               inputStream.close();
-              if (!client.completePendingCommand())
+              if (!client.completePendingCommand() && requireComplete)
                 throw new IllegalStateException("Failed to complete pending command");
               FtpFileSystem.close(client);
             }
@@ -186,6 +213,26 @@ public class FtpFileSystem implements FileSystem {
         });
   }
 
+  @Override
+  public synchronized void rename(String source, String target) {
+    Utils.packException(
+        () -> {
+          if (type(source) != Type.FILE)
+            throw new IllegalArgumentException(source + " is not a file");
+          switch (type(target)) {
+            case FOLDER:
+              throw new IllegalArgumentException(target + " is a folder");
+            case FILE:
+              client.deleteFile(target);
+              break;
+            case NONEXISTENT:
+              FileSystem.parent(target).ifPresent(this::mkdir);
+          }
+          if (!client.rename(source, target))
+            throw new IllegalArgumentException("Failed to rename " + source + " to " + target);
+        });
+  }
+
   @Override
   public synchronized OutputStream write(String path) {
     return Utils.packException(
@@ -132,6 +132,28 @@ public class HdfsFileSystem implements FileSystem {
     }
   }
 
+  @Override
+  public InputStream read(String path, long position) {
+    if (type(path) != Type.FILE) throw new IllegalArgumentException(path + " is not a file");
+    try {
+      var input = fs.open(new Path(path));
+      input.seek(position);
+      return input;
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  @Override
+  public long size(String path) {
+    if (type(path) != Type.FILE) throw new IllegalArgumentException(path + " is not a file");
+    try {
+      return fs.getFileStatus(new Path(path)).getLen();
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
   @Override
   public OutputStream write(String path) {
     if (type(path) == Type.FOLDER) throw new IllegalArgumentException(path + " is a folder");
@@ -142,6 +164,21 @@ public class HdfsFileSystem implements FileSystem {
     }
   }
 
+  @Override
+  public void rename(String source, String target) {
+    if (type(source) != Type.FILE) throw new IllegalArgumentException(source + " is not a file");
+    if (type(target) == Type.FOLDER) throw new IllegalArgumentException(target + " is a folder");
+    try {
+      var targetPath = new Path(target);
+      fs.mkdirs(targetPath.getParent());
+      fs.delete(targetPath, false);
+      if (!fs.rename(new Path(source), targetPath))
+        throw new IllegalArgumentException("Failed to rename " + source + " to " + target);
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
   @Override
   public void close() {
     Utils.close(fs);
@@ -19,10 +19,12 @@ package org.astraea.fs.local;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.channels.Channels;
 import java.nio.file.FileVisitResult;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.util.List;
 import java.util.Optional;
@@ -122,6 +124,25 @@ public class LocalFileSystem implements FileSystem {
         });
   }
 
+  @Override
+  public synchronized InputStream read(String path, long position) {
+    return Utils.packException(
+        () -> {
+          if (type(path) != Type.FILE) throw new IllegalArgumentException(path + " is not a file");
+          var channel = Files.newByteChannel(resolvePath(path));
+          return Channels.newInputStream(channel.position(position));
+        });
+  }
+
+  @Override
+  public synchronized long size(String path) {
+    return Utils.packException(
+        () -> {
+          if (type(path) != Type.FILE) throw new IllegalArgumentException(path + " is not a file");
+          return Files.size(resolvePath(path));
+        });
+  }
+
   @Override
   public synchronized OutputStream write(String path) {
     return Utils.packException(
@@ -132,6 +153,19 @@ public class LocalFileSystem implements FileSystem {
         });
   }
 
+  @Override
+  public synchronized void rename(String source, String target) {
+    Utils.packException(
+        () -> {
+          if (type(source) != Type.FILE)
+            throw new IllegalArgumentException(source + " is not a file");
+          if (type(target) == Type.FOLDER)
+            throw new IllegalArgumentException(target + " is a folder");
+          FileSystem.parent(target).ifPresent(this::mkdir);
+          Files.move(resolvePath(source), resolvePath(target), StandardCopyOption.REPLACE_EXISTING);
+        });
+  }
+
   @Override
   public synchronized Type type(String path) {
     var f = resolvePath(path);
@@ -124,6 +124,51 @@ public abstract class AbstractFileSystemTest {
     }
   }
 
+  @Test
+  protected void testReadFromPosition() throws IOException {
+    try (var fs = fileSystem()) {
+      var path = "/aaa";
+      try (var output = fs.write(path)) {
+        output.write("abcdef".getBytes(StandardCharsets.UTF_8));
+      }
+      Assertions.assertEquals(6, fs.size(path));
+      try (var input = fs.read(path, 2)) {
+        Assertions.assertEquals("cdef", new String(input.readAllBytes(), StandardCharsets.UTF_8));
+      }
+      // close the stream before reaching the end of file
+      try (var input = fs.read(path, 1)) {
+        Assertions.assertEquals('b', input.read());
+      }
+      Assertions.assertThrows(IllegalArgumentException.class, () -> fs.size("/bbb"));
+    }
+  }
+
+  @Test
+  protected void testRename() throws IOException {
+    try (var fs = fileSystem()) {
+      try (var output = fs.write("/aaa")) {
+        output.write("abc".getBytes(StandardCharsets.UTF_8));
+      }
+      fs.rename("/aaa", "/tmp/bbb");
+      Assertions.assertEquals(Type.NONEXISTENT, fs.type("/aaa"));
+      try (var input = fs.read("/tmp/bbb")) {
+        Assertions.assertEquals("abc", new String(input.readAllBytes(), StandardCharsets.UTF_8));
+      }
+
+      // the existing file is replaced
+      try (var output = fs.write("/ccc")) {
+        output.write("def".getBytes(StandardCharsets.UTF_8));
+      }
+      fs.rename("/ccc", "/tmp/bbb");
+      try (var input = fs.read("/tmp/bbb")) {
+        Assertions.assertEquals("def", new String(input.readAllBytes(), StandardCharsets.UTF_8));
+      }
+
+      Assertions.assertThrows(IllegalArgumentException.class, () -> fs.rename("/aaa", "/ddd"));
+      Assertions.assertThrows(IllegalArgumentException.class, () -> fs.rename("/tmp/bbb", "/tmp"));
+    }
+  }
+
   @Test
   protected void testWriteToCreateFolder() throws IOException {
     try (var fs = fileSystem()) {
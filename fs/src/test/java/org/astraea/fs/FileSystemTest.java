@@ -16,8 +16,12 @@
  */
 package org.astraea.fs;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -44,6 +48,17 @@ public class FileSystemTest {
     Assertions.assertInstanceOf(Tmp.class, fs);
   }
 
+  @Test
+  void testDefaultReadFromPosition() throws IOException {
+    try (var fs = new Tmp(Configuration.EMPTY)) {
+      Assertions.assertEquals(6, fs.size("/abcde"));
+      try (var input = fs.read("/abcde", 3)) {
+        Assertions.assertEquals("cde", new String(input.readAllBytes(), StandardCharsets.UTF_8));
+      }
+      Assertions.assertThrows(UncheckedIOException.class, () -> fs.read("/abcde", 10));
+    }
+  }
+
   private static class Tmp implements FileSystem {
 
     public Tmp(Configuration configuration) {}
@@ -66,7 +81,8 @@ public class FileSystemTest {
 
     @Override
     public InputStream read(String path) {
-      return null;
+      // the content of file is the path
+      return new ByteArrayInputStream(path.getBytes(StandardCharsets.UTF_8));
     }
 
     @Override